@@ -0,0 +1,111 @@
+import java.io.IOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.LocalDate;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import controller.SyntheticPrices;
+import model.SyntheticPortfolios;
+
+/**
+ * SyntheticData is the command line entry point of the synthetic data generators. It writes
+ * the price files of the first tickers of stocks.csv into Data/date of the output folder, and
+ * optionally flexible portfolio files trading them into the portfolios folder.
+ *
+ * <p>Options are given as pairs of name and value, for example
+ * {@code --tickers 500 --years 20 --portfolios 2 --transactions 1000000 --dca 1000}.
+ */
+public class SyntheticData {
+
+  /**
+   * options and their default values.
+   */
+  private static final String[][] OPTIONS = {
+      {"out", "."},
+      {"stocks", "stocks.csv"},
+      {"date", ""},
+      {"tickers", "100"},
+      {"years", "20"},
+      {"seed", "0"},
+      {"gap-rate", "0.025"},
+      {"holidays", "true"},
+      {"split-rate", "0.0002"},
+      {"portfolios", "0"},
+      {"portfolio-tickers", "20"},
+      {"transactions", "1000"},
+      {"sell-rate", "0.3"},
+      {"dca", "0"},
+      {"dca-frequency", "30"}
+  };
+
+  /**
+   * generates the data described by the options.
+   * @param args options as pairs of name and value.
+   * @throws IOException if a file cannot be written.
+   */
+  public static void main(String[] args) throws IOException {
+    Map<String, String> options = parse(args);
+    Path out = Paths.get(options.get("out"));
+    LocalDate date = options.get("date").isEmpty() ? LocalDate.now()
+            : LocalDate.parse(options.get("date"));
+    LocalDate last = date.minusDays(1);
+    LocalDate first = last.minusYears(Integer.parseInt(options.get("years")));
+    long seed = Long.parseLong(options.get("seed"));
+
+    SyntheticPrices prices = new SyntheticPrices.Builder()
+            .seed(seed)
+            .gapRate(Double.parseDouble(options.get("gap-rate")))
+            .holidays(Boolean.parseBoolean(options.get("holidays")))
+            .splitRate(Double.parseDouble(options.get("split-rate")))
+            .build();
+    List<String> tickers = SyntheticPrices.tickers(Paths.get(options.get("stocks")),
+            Integer.parseInt(options.get("tickers")));
+    Path folder = out.resolve("Data").resolve(date.toString());
+    for (String ticker : tickers) {
+      prices.write(ticker, first, last, folder);
+    }
+    System.out.println("Wrote prices of " + tickers.size() + " stocks to " + folder);
+
+    int portfolios = Integer.parseInt(options.get("portfolios"));
+    if (portfolios == 0) {
+      return;
+    }
+    SyntheticPortfolios.Builder builder = new SyntheticPortfolios.Builder()
+            .transactions(Integer.parseInt(options.get("transactions")))
+            .sellRate(Double.parseDouble(options.get("sell-rate")));
+    double dcaAmount = Double.parseDouble(options.get("dca"));
+    if (dcaAmount > 0) {
+      builder.dca(dcaAmount, Integer.parseInt(options.get("dca-frequency")));
+    }
+    int held = Math.min(Integer.parseInt(options.get("portfolio-tickers")), tickers.size());
+    for (int i = 0; i < portfolios; i++) {
+      List<String> traded = tickers.subList(0, held);
+      Path file = out.resolve("portfolios").resolve("portfolio" + (i + 1) + ".csv");
+      int written = builder.seed(seed + i).build().write(file, traded, prices, first, last);
+      System.out.println("Wrote " + written + " transactions to " + file);
+    }
+  }
+
+  /**
+   * reads the options given, starting from their default values.
+   * @param args options as pairs of name and value.
+   * @return value of each option by name.
+   * @throws IllegalArgumentException if an option is unknown or has no value.
+   */
+  private static Map<String, String> parse(String[] args) {
+    Map<String, String> options = new HashMap<>();
+    for (String[] option : OPTIONS) {
+      options.put(option[0], option[1]);
+    }
+    for (int i = 0; i < args.length; i += 2) {
+      String name = args[i].startsWith("--") ? args[i].substring(2) : args[i];
+      if (!options.containsKey(name) || i + 1 >= args.length) {
+        throw new IllegalArgumentException("Unknown option or missing value: " + args[i]);
+      }
+      options.put(name, args[i + 1]);
+    }
+    return options;
+  }
+}
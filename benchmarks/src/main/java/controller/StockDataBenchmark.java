@@ -0,0 +1,85 @@
+package controller;
+
+import java.io.IOException;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.TreeMap;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * StockDataBenchmark measures fetching the historical data of a stock, with the price series
+ * already in the price cache and with an empty cache, which reads it back from the history
+ * store written on the first load.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class StockDataBenchmark {
+
+  /**
+   * size of the price caches used, large enough to never evict.
+   */
+  private static final long CACHE_BYTES = 256L * 1024 * 1024;
+
+  /**
+   * first trading day of the synthetic prices, which sets the length of the history.
+   */
+  @Param({"2000-01-03", "2020-01-02"})
+  public String listedOn;
+
+  /**
+   * ticker symbol of the stock fetched.
+   */
+  private String ticker;
+
+  /**
+   * stock data whose cache already holds the price series.
+   */
+  private StockData warm;
+
+  /**
+   * writes the synthetic price file and loads it once, which also writes the history store.
+   * @throws IOException if the price file cannot be written.
+   */
+  @Setup(Level.Trial)
+  public void setUp() throws IOException {
+    ticker = listedOn.startsWith("2000") ? "AAPL" : "MSFT";
+    SyntheticPrices.write(ticker, LocalDate.parse(listedOn));
+    warm = new StockData(new PriceCache(CACHE_BYTES));
+    warm.fetchHistoricalData(ticker);
+  }
+
+  /**
+   * fetches the historical data from the price cache.
+   * @return the historical data.
+   */
+  @Benchmark
+  public TreeMap<String, ArrayList<Double>> fetchHistoricalDataWarm() {
+    return warm.fetchHistoricalData(ticker);
+  }
+
+  /**
+   * fetches the historical data with an empty price cache.
+   * @return the historical data.
+   */
+  @Benchmark
+  public TreeMap<String, ArrayList<Double>> fetchHistoricalDataCold() {
+    return new StockData(new PriceCache(CACHE_BYTES)).fetchHistoricalData(ticker);
+  }
+}
@@ -0,0 +1,285 @@
+package controller;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.LocalDate;
+import java.time.Month;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Random;
+
+/**
+ * SyntheticPrices generates deterministic price data for benchmarks and load tests, and writes
+ * it in the layout that StockData reads from the Data folder, one CSV file for each ticker,
+ * newest day first, as the API writes it.
+ *
+ * <p>The prices of a ticker are a random walk seeded by the seed of the generator and the
+ * ticker symbol, so the same ticker always gets the same prices. Trading happens on weekdays
+ * other than the market holidays, and each ticker also misses a random share of trading days
+ * as gaps in its data. Splits divide all the prices from their day on by two or three, as raw
+ * prices from the API show them.
+ */
+public final class SyntheticPrices {
+
+  /**
+   * header of the price files, as written by the API.
+   */
+  private static final String HEADER = "timestamp,open,high,low,close,volume";
+
+  /**
+   * generator with the default settings, used by the benchmarks.
+   */
+  private static final SyntheticPrices DEFAULT = new Builder().build();
+
+  /**
+   * seed mixed into the prices of every ticker.
+   */
+  private final long seed;
+
+  /**
+   * share of trading days missing from the data of each ticker.
+   */
+  private final double gapRate;
+
+  /**
+   * whether the market holidays are left out of the trading days.
+   */
+  private final boolean holidays;
+
+  /**
+   * chance of a split on each trading day.
+   */
+  private final double splitRate;
+
+  /**
+   * constructs a generator from its builder.
+   * @param builder the builder.
+   */
+  private SyntheticPrices(Builder builder) {
+    this.seed = builder.seed;
+    this.gapRate = builder.gapRate;
+    this.holidays = builder.holidays;
+    this.splitRate = builder.splitRate;
+  }
+
+  /**
+   * builds the price series of a ticker with the default settings.
+   * @param tickerSymbol ticker symbol of the stock, which seeds the prices.
+   * @param first        first day of the series.
+   * @param last         last day of the series.
+   * @return the price series.
+   */
+  public static PriceSeries series(String tickerSymbol, LocalDate first, LocalDate last) {
+    return DEFAULT.generate(tickerSymbol, first, last);
+  }
+
+  /**
+   * writes the price file of a ticker with the default settings into today's folder of the
+   * Data folder of the working directory, with prices up to yesterday.
+   * @param tickerSymbol ticker symbol of the stock.
+   * @param first        first day of the series.
+   * @return path of the file written.
+   * @throws IOException if the file cannot be written.
+   */
+  public static Path write(String tickerSymbol, LocalDate first) throws IOException {
+    Path folder = Paths.get(System.getProperty("user.dir"), "Data", LocalDate.now().toString());
+    return DEFAULT.write(tickerSymbol, first, LocalDate.now().minusDays(1), folder);
+  }
+
+  /**
+   * reads the first ticker symbols listed in a stocks file, so that the model can resolve the
+   * tickers generated.
+   * @param stocksFile path of the stocks file, with a ticker symbol and a name on each line.
+   * @param count      number of ticker symbols to read.
+   * @return the ticker symbols, fewer than asked for if the file has fewer lines.
+   * @throws IOException if the file cannot be read.
+   */
+  public static List<String> tickers(Path stocksFile, int count) throws IOException {
+    List<String> tickers = new ArrayList<>();
+    try (BufferedReader reader = Files.newBufferedReader(stocksFile)) {
+      String line;
+      while (tickers.size() < count && (line = reader.readLine()) != null) {
+        String ticker = line.split(",")[0].trim();
+        if (!ticker.isEmpty() && ticker.chars().allMatch(Character::isLetter)) {
+          tickers.add(ticker);
+        }
+      }
+    }
+    return tickers;
+  }
+
+  /**
+   * checks if the market is open on a day, that is if it is a weekday other than a holiday.
+   * @param day the day.
+   * @return true if it is a trading day of the market.
+   */
+  public boolean isMarketDay(LocalDate day) {
+    if (day.getDayOfWeek().getValue() > 5) {
+      return false;
+    }
+    return !holidays || !isHoliday(day);
+  }
+
+  /**
+   * builds the price series of a ticker.
+   * @param tickerSymbol ticker symbol of the stock, which seeds the prices.
+   * @param first        first day of the series.
+   * @param last         last day of the series.
+   * @return the price series.
+   */
+  public PriceSeries generate(String tickerSymbol, LocalDate first, LocalDate last) {
+    Random random = new Random(seed * 31 + tickerSymbol.hashCode());
+    PriceSeries.Builder builder = new PriceSeries.Builder();
+    double close = 20 + random.nextInt(200);
+    for (LocalDate day = first; !day.isAfter(last); day = day.plusDays(1)) {
+      if (!isMarketDay(day) || random.nextDouble() < gapRate) {
+        continue;
+      }
+      if (random.nextDouble() < splitRate) {
+        close = close / (2 + random.nextInt(2));
+      }
+      double open = round(close * (1 + random.nextGaussian() * 0.005));
+      close = round(Math.max(1, close * (1 + random.nextGaussian() * 0.02)));
+      double high = round(Math.max(open, close) * (1 + random.nextDouble() * 0.01));
+      double low = round(Math.min(open, close) * (1 - random.nextDouble() * 0.01));
+      builder.add(day, open, high, low, close);
+    }
+    return builder.build();
+  }
+
+  /**
+   * writes the price file of a ticker into a folder, newest day first.
+   * @param tickerSymbol ticker symbol of the stock.
+   * @param first        first day of the series.
+   * @param last         last day of the series.
+   * @param folder       folder the file is written to, created if it does not exist.
+   * @return path of the file written.
+   * @throws IOException if the file cannot be written.
+   */
+  public Path write(String tickerSymbol, LocalDate first, LocalDate last, Path folder)
+          throws IOException {
+    PriceSeries series = generate(tickerSymbol, first, last);
+    Path file = folder.resolve(tickerSymbol + ".csv");
+    Files.createDirectories(folder);
+    try (BufferedWriter writer = Files.newBufferedWriter(file)) {
+      writer.write(HEADER);
+      writer.newLine();
+      for (int i = series.size() - 1; i >= 0; i--) {
+        writer.write(String.format(Locale.ROOT, "%s,%.2f,%.2f,%.2f,%.2f,%d", series.dateAt(i),
+                series.openAt(i), series.highAt(i), series.lowAt(i), series.closeAt(i),
+                1000 + (i * 7919) % 100000));
+        writer.newLine();
+      }
+    }
+    return file;
+  }
+
+  /**
+   * checks if a day is one of the fixed date market holidays, New Year's Day, Independence Day
+   * and Christmas Day.
+   * @param day the day.
+   * @return true if it is a holiday.
+   */
+  private static boolean isHoliday(LocalDate day) {
+    int date = day.getDayOfMonth();
+    Month month = day.getMonth();
+    return (month == Month.JANUARY && date == 1) || (month == Month.JULY && date == 4)
+            || (month == Month.DECEMBER && date == 25);
+  }
+
+  /**
+   * rounds a price to cents, as the API reports it.
+   * @param price the price.
+   * @return the rounded price.
+   */
+  private static double round(double price) {
+    return Math.round(price * 100) / 100.0;
+  }
+
+  /**
+   * Builder class to configure a generator of synthetic prices.
+   */
+  public static class Builder {
+
+    /**
+     * seed mixed into the prices of every ticker.
+     */
+    private long seed = 0;
+
+    /**
+     * share of trading days missing from the data of each ticker.
+     */
+    private double gapRate = 0.025;
+
+    /**
+     * whether the market holidays are left out of the trading days.
+     */
+    private boolean holidays = true;
+
+    /**
+     * chance of a split on each trading day.
+     */
+    private double splitRate = 0;
+
+    /**
+     * sets the seed mixed into the prices of every ticker.
+     * @param seed the seed.
+     * @return this builder.
+     */
+    public Builder seed(long seed) {
+      this.seed = seed;
+      return this;
+    }
+
+    /**
+     * sets the share of trading days missing from the data of each ticker.
+     * @param gapRate share of days missing, from 0 to less than 1.
+     * @return this builder.
+     * @throws IllegalArgumentException if the share is out of range.
+     */
+    public Builder gapRate(double gapRate) {
+      if (gapRate < 0 || gapRate >= 1) {
+        throw new IllegalArgumentException("Gap rate should be at least 0 and less than 1");
+      }
+      this.gapRate = gapRate;
+      return this;
+    }
+
+    /**
+     * sets whether the market holidays are left out of the trading days.
+     * @param holidays true to leave out the holidays.
+     * @return this builder.
+     */
+    public Builder holidays(boolean holidays) {
+      this.holidays = holidays;
+      return this;
+    }
+
+    /**
+     * sets the chance of a split on each trading day.
+     * @param splitRate chance of a split, from 0 to 1.
+     * @return this builder.
+     * @throws IllegalArgumentException if the chance is out of range.
+     */
+    public Builder splitRate(double splitRate) {
+      if (splitRate < 0 || splitRate > 1) {
+        throw new IllegalArgumentException("Split rate should be between 0 and 1");
+      }
+      this.splitRate = splitRate;
+      return this;
+    }
+
+    /**
+     * builds the generator.
+     * @return the generator of synthetic prices.
+     */
+    public SyntheticPrices build() {
+      return new SyntheticPrices(this);
+    }
+  }
+}
@@ -0,0 +1,253 @@
+package model;
+
+import java.io.IOException;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.TreeMap;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import controller.IStockData;
+import controller.PriceCache;
+import controller.PriceSeries;
+import controller.StockData;
+import controller.SyntheticPrices;
+
+/**
+ * PortfolioBenchmark measures the operations of a flexible portfolio holding a few stocks with
+ * synthetic prices, traded a given number of times on random trading days. The trades are
+ * generated from a fixed seed, so every run measures the same portfolio.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PortfolioBenchmark {
+
+  /**
+   * tickers traded, all listed in stocks.csv.
+   */
+  private static final String[] TICKERS = {"AAPL", "MSFT", "GOOG", "AMZN", "IBM", "NFLX",
+      "TSLA", "NVDA"};
+
+  /**
+   * names looked up when validating stock names, as a user would type them.
+   */
+  private static final String[] NAMES = {"AAPL", "msft", "Apple Inc", "ibm", "NOTATICKER",
+      "International Business Machines Corp"};
+
+  /**
+   * first trading day of the synthetic prices.
+   */
+  private static final LocalDate LISTED_ON = LocalDate.of(2005, 1, 3);
+
+  /**
+   * number of trades in the portfolio.
+   */
+  @Param({"1000", "10000"})
+  public int trades;
+
+  /**
+   * stock data reading the synthetic prices.
+   */
+  private IStockData api;
+
+  /**
+   * portfolio holding all the trades.
+   */
+  private FlexiblePortfolioImpl portfolio;
+
+  /**
+   * trades in the order they are replayed into a new portfolio, each one before the trades
+   * already made.
+   */
+  private List<Trade> backDatedTrades;
+
+  /**
+   * latest trading day of the synthetic prices.
+   */
+  private LocalDate lastDay;
+
+  /**
+   * index of the next name to validate.
+   */
+  private int nextName;
+
+  /**
+   * writes the synthetic price files and builds the portfolio.
+   * @throws IOException if a price file cannot be written.
+   */
+  @Setup(Level.Trial)
+  public void setUp() throws IOException {
+    for (String ticker : TICKERS) {
+      SyntheticPrices.write(ticker, LISTED_ON);
+    }
+    api = new StockData(new PriceCache(256L * 1024 * 1024));
+    List<Trade> chronological = generateTrades();
+    portfolio = new FlexiblePortfolioImpl("benchmark");
+    for (Trade trade : chronological) {
+      trade.applyTo(portfolio, api);
+    }
+    backDatedTrades = new ArrayList<>();
+    for (int i = chronological.size() - 1; i >= 0; i--) {
+      if (chronological.get(i).quantity > 0) {
+        backDatedTrades.add(chronological.get(i));
+      }
+    }
+    for (int i = chronological.size() - 1; i >= 0; i--) {
+      if (chronological.get(i).quantity < 0) {
+        backDatedTrades.add(chronological.get(i));
+      }
+    }
+    lastDay = api.fetchPriceSeries(TICKERS[0]).lastDate();
+  }
+
+  /**
+   * generates trades in order of date, selling only what is held at the time.
+   * @return the trades.
+   */
+  private List<Trade> generateTrades() {
+    Random random = new Random(16);
+    List<Trade> generated = new ArrayList<>();
+    for (int i = 0; i < trades; i++) {
+      String ticker = TICKERS[random.nextInt(TICKERS.length)];
+      PriceSeries series = api.fetchPriceSeries(ticker);
+      generated.add(new Trade(ticker, series.dateAt(random.nextInt(series.size())), 0));
+    }
+    generated.sort((a, b) -> a.date.compareTo(b.date));
+    Map<String, Integer> held = new HashMap<>();
+    for (int i = 0; i < generated.size(); i++) {
+      Trade trade = generated.get(i);
+      int quantity = held.getOrDefault(trade.ticker, 0);
+      int change = quantity > 0 && random.nextInt(10) < 3 ? -(1 + random.nextInt(quantity))
+              : 1 + random.nextInt(20);
+      held.put(trade.ticker, quantity + change);
+      generated.set(i, new Trade(trade.ticker, trade.date, change));
+    }
+    return generated;
+  }
+
+  /**
+   * resolves a share name or ticker symbol through the ticker registry.
+   * @return the ticker symbol, or null if the name is not listed.
+   */
+  @Benchmark
+  public String validateStockName() {
+    nextName = (nextName + 1) % NAMES.length;
+    return AbstractPortfolio.validateStockName(NAMES[nextName]);
+  }
+
+  /**
+   * replays all the trades into a new portfolio, each one dated before the trades already made,
+   * buys first and then sells.
+   * @return the portfolio built.
+   */
+  @Benchmark
+  public FlexiblePortfolioImpl buyAndSellBackDated() {
+    FlexiblePortfolioImpl replayed = new FlexiblePortfolioImpl("replayed");
+    for (Trade trade : backDatedTrades) {
+      trade.applyTo(replayed, api);
+    }
+    return replayed;
+  }
+
+  /**
+   * works out the cost basis of the portfolio on the latest trading day.
+   * @return the cost basis.
+   */
+  @Benchmark
+  public double costBasis() {
+    return portfolio.costBasis(lastDay, api);
+  }
+
+  /**
+   * works out the value of the portfolio on the latest trading day.
+   * @return the value.
+   */
+  @Benchmark
+  public double portfolioValue() {
+    return portfolio.portfolioValue(lastDay.toString(), api);
+  }
+
+  /**
+   * works out the performance of the portfolio over the last year.
+   * @return the performance chart data.
+   */
+  @Benchmark
+  public TreeMap<String, Double> portfolioPerformanceOneYear() {
+    return new Performance().portfolioPerformance(portfolio, lastDay.minusYears(1), lastDay);
+  }
+
+  /**
+   * works out the performance of the portfolio over the last ten years.
+   * @return the performance chart data.
+   */
+  @Benchmark
+  public TreeMap<String, Double> portfolioPerformanceTenYears() {
+    return new Performance().portfolioPerformance(portfolio, lastDay.minusYears(10), lastDay);
+  }
+
+  /**
+   * Trade is one buy or sell of a stock in the generated portfolio.
+   */
+  private static final class Trade {
+
+    /**
+     * ticker symbol of the stock traded.
+     */
+    private final String ticker;
+
+    /**
+     * trading day of the trade.
+     */
+    private final LocalDate date;
+
+    /**
+     * quantity bought, or the quantity sold as a negative number.
+     */
+    private final int quantity;
+
+    /**
+     * constructs a trade.
+     * @param ticker   ticker symbol of the stock traded.
+     * @param date     trading day of the trade.
+     * @param quantity quantity bought, or the quantity sold as a negative number.
+     */
+    private Trade(String ticker, LocalDate date, int quantity) {
+      this.ticker = ticker;
+      this.date = date;
+      this.quantity = quantity;
+    }
+
+    /**
+     * makes this trade in a portfolio.
+     * @param portfolio the portfolio.
+     * @param api       stock data used to check the trading day.
+     */
+    private void applyTo(FlexiblePortfolioImpl portfolio, IStockData api) {
+      if (quantity > 0) {
+        portfolio.buyStock(ticker, quantity, date, api);
+      } else {
+        portfolio.sellStock(ticker, -quantity, date, api);
+      }
+    }
+  }
+}
@@ -0,0 +1,121 @@
+package model;
+
+import java.time.LocalDate;
+import java.util.TreeMap;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import controller.PriceSeries;
+import controller.SyntheticPrices;
+
+/**
+ * StatisticsBenchmark measures the crossover sweeps of the stock statistics over a synthetic
+ * price series, through the date string methods and through the epoch day overloads. Run it
+ * with -prof gc to see the bytes allocated for each operation.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class StatisticsBenchmark {
+
+  /**
+   * length of the period swept, in years.
+   */
+  @Param({"1", "10"})
+  public int years;
+
+  /**
+   * the statistics measured.
+   */
+  private final StockStatistic statistics = new StockStatisticsImpl();
+
+  /**
+   * price series swept.
+   */
+  private PriceSeries series;
+
+  /**
+   * first day of the period.
+   */
+  private String startDate;
+
+  /**
+   * last day of the period.
+   */
+  private String endDate;
+
+  /**
+   * first day of the period as an epoch day.
+   */
+  private int startDay;
+
+  /**
+   * last day of the period as an epoch day.
+   */
+  private int endDay;
+
+  /**
+   * builds the price series and the period swept.
+   */
+  @Setup(Level.Trial)
+  public void setUp() {
+    LocalDate end = LocalDate.of(2023, 12, 29);
+    series = SyntheticPrices.series("AAPL", LocalDate.of(2000, 1, 3), end);
+    LocalDate start = end.minusYears(years);
+    startDate = start.toString();
+    endDate = end.toString();
+    startDay = (int) start.toEpochDay();
+    endDay = (int) end.toEpochDay();
+  }
+
+  /**
+   * finds the moving crossovers through the date string method.
+   * @return the crossovers found.
+   */
+  @Benchmark
+  public TreeMap<String, String> movingCrossoversOverPeriod() {
+    return statistics.movingCrossoversOverPeriod("AAPL", series, startDate, endDate, 20, 50);
+  }
+
+  /**
+   * finds the moving crossovers through the epoch day overload.
+   * @return the crossovers found.
+   */
+  @Benchmark
+  public Crossovers movingCrossoversOverEpochDays() {
+    return statistics.movingCrossoversOverPeriod(series, startDay, endDay, 20, 50);
+  }
+
+  /**
+   * finds the 30-day crossovers through the epoch day overload.
+   * @return the crossovers found.
+   */
+  @Benchmark
+  public Crossovers crossoversOverEpochDays() {
+    return statistics.crossoverOverPeriod(series, startDay, endDay);
+  }
+
+  /**
+   * works out the 200-day moving average through the epoch day overload.
+   * @return the moving average.
+   */
+  @Benchmark
+  public double xDayMovingAverage() {
+    return statistics.xDayMovingAvg(endDay, 200, series);
+  }
+}
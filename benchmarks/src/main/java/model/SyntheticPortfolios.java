@@ -0,0 +1,269 @@
+package model;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import controller.PriceSeries;
+import controller.SyntheticPrices;
+
+/**
+ * SyntheticPortfolios generates flexible portfolio files for load tests, in the layout written
+ * by FlexiblePortfolioImpl.save(), so that they load like portfolios saved by the program.
+ *
+ * <p>The transactions are spread evenly over the trading days of a period, in order of date,
+ * each one on a day the stock traded. Sells only sell what is held at the time, so every file
+ * loads without error. The file is written as the transactions are generated, so files with
+ * millions of transactions need no more memory than the price series of their stocks. A file
+ * can end with a dollar cost averaging strategy line over some of its stocks.
+ */
+public final class SyntheticPortfolios {
+
+  /**
+   * header of the portfolio files, as written by save.
+   */
+  private static final String HEADER = "Transaction Type,Symbol,Quantity,Date,Price,Commission";
+
+  /**
+   * seed of the transactions generated.
+   */
+  private final long seed;
+
+  /**
+   * number of transactions in each file.
+   */
+  private final int transactions;
+
+  /**
+   * chance that a transaction sells a stock held rather than buying.
+   */
+  private final double sellRate;
+
+  /**
+   * amount invested on each run of the strategy, or zero for no strategy line.
+   */
+  private final double dcaAmount;
+
+  /**
+   * days between runs of the strategy.
+   */
+  private final int dcaFrequency;
+
+  /**
+   * constructs a generator from its builder.
+   * @param builder the builder.
+   */
+  private SyntheticPortfolios(Builder builder) {
+    this.seed = builder.seed;
+    this.transactions = builder.transactions;
+    this.sellRate = builder.sellRate;
+    this.dcaAmount = builder.dcaAmount;
+    this.dcaFrequency = builder.dcaFrequency;
+  }
+
+  /**
+   * writes a portfolio file trading the given stocks over a period.
+   * @param file    path of the file written.
+   * @param tickers ticker symbols of the stocks traded.
+   * @param prices  generator of the prices of the stocks, used to find the days they traded
+   *                and the prices they traded at.
+   * @param first   first day of the period.
+   * @param last    last day of the period.
+   * @return number of transactions written, fewer than asked for only if the stocks rarely
+   *         trade.
+   * @throws IOException if the file cannot be written.
+   * @throws IllegalArgumentException if no stock is given or the period is empty.
+   */
+  public int write(Path file, List<String> tickers, SyntheticPrices prices, LocalDate first,
+                   LocalDate last) throws IOException {
+    if (tickers.isEmpty() || first.isAfter(last)) {
+      throw new IllegalArgumentException("Portfolio needs at least one stock and one day");
+    }
+    List<PriceSeries> series = new ArrayList<>();
+    for (String ticker : tickers) {
+      series.add(prices.generate(ticker, first, last));
+    }
+    List<LocalDate> days = new ArrayList<>();
+    for (LocalDate day = first; !day.isAfter(last); day = day.plusDays(1)) {
+      if (prices.isMarketDay(day)) {
+        days.add(day);
+      }
+    }
+    Random random = new Random(seed);
+    long[] held = new long[tickers.size()];
+    int written = 0;
+    if (file.getParent() != null) {
+      Files.createDirectories(file.getParent());
+    }
+    try (BufferedWriter writer = Files.newBufferedWriter(file)) {
+      writer.write(HEADER);
+      writer.newLine();
+      for (int i = 0; i < days.size(); i++) {
+        long due = (long) (i + 1) * transactions / days.size() - (long) i * transactions
+                / days.size();
+        for (long t = 0; t < due; t++) {
+          int stock = tradedOn(series, days.get(i), random.nextInt(tickers.size()));
+          if (stock < 0) {
+            continue;
+          }
+          long quantity;
+          String type;
+          if (held[stock] > 0 && random.nextDouble() < sellRate) {
+            quantity = 1 + (long) (random.nextDouble() * held[stock]);
+            held[stock] -= quantity;
+            type = "sell";
+          } else {
+            quantity = 1 + random.nextInt(20);
+            held[stock] += quantity;
+            type = "buy";
+          }
+          PriceSeries traded = series.get(stock);
+          writer.write(type + "," + tickers.get(stock) + "," + (double) quantity + ","
+                  + days.get(i) + "," + traded.closeAt(traded.indexOf(days.get(i))) + ",0.0");
+          writer.newLine();
+          written++;
+        }
+      }
+      if (dcaAmount > 0) {
+        writer.write(strategyLine(tickers, random, days.get(days.size() / 2)));
+      }
+    }
+    return written;
+  }
+
+  /**
+   * finds a stock that traded on a day, starting from the one picked.
+   * @param series price series of the stocks.
+   * @param day    the day.
+   * @param picked index of the stock picked.
+   * @return index of a stock that traded on the day, or -1 if none did.
+   */
+  private static int tradedOn(List<PriceSeries> series, LocalDate day, int picked) {
+    for (int i = 0; i < series.size(); i++) {
+      int stock = (picked + i) % series.size();
+      if (series.get(stock).indexOf(day) >= 0) {
+        return stock;
+      }
+    }
+    return -1;
+  }
+
+  /**
+   * builds the strategy line of a file, a dollar cost averaging strategy without an end date
+   * over up to four of the stocks, weighted equally, in the layout written by save.
+   * @param tickers ticker symbols of the stocks traded.
+   * @param random  source of the stocks picked.
+   * @param start   start date of the strategy.
+   * @return the strategy line.
+   */
+  private String strategyLine(List<String> tickers, Random random, LocalDate start) {
+    int count = Math.min(4, tickers.size());
+    int offset = random.nextInt(tickers.size());
+    StringBuilder sb = new StringBuilder();
+    sb.append("Strategy,DCA,").append(start).append(",null,null,").append(dcaAmount)
+            .append(",").append(dcaFrequency).append(",");
+    for (int i = 0; i < count; i++) {
+      sb.append(tickers.get((offset + i) % tickers.size())).append(":")
+              .append(100.0 / count).append(";");
+    }
+    return sb.toString();
+  }
+
+  /**
+   * Builder class to configure a generator of synthetic portfolio files.
+   */
+  public static class Builder {
+
+    /**
+     * seed of the transactions generated.
+     */
+    private long seed = 0;
+
+    /**
+     * number of transactions in each file.
+     */
+    private int transactions = 1000;
+
+    /**
+     * chance that a transaction sells a stock held rather than buying.
+     */
+    private double sellRate = 0.3;
+
+    /**
+     * amount invested on each run of the strategy, or zero for no strategy line.
+     */
+    private double dcaAmount = 0;
+
+    /**
+     * days between runs of the strategy.
+     */
+    private int dcaFrequency = 30;
+
+    /**
+     * sets the seed of the transactions generated.
+     * @param seed the seed.
+     * @return this builder.
+     */
+    public Builder seed(long seed) {
+      this.seed = seed;
+      return this;
+    }
+
+    /**
+     * sets the number of transactions in each file.
+     * @param transactions number of transactions, at least one.
+     * @return this builder.
+     * @throws IllegalArgumentException if the number is not positive.
+     */
+    public Builder transactions(int transactions) {
+      if (transactions <= 0) {
+        throw new IllegalArgumentException("Number of transactions should be positive");
+      }
+      this.transactions = transactions;
+      return this;
+    }
+
+    /**
+     * sets the chance that a transaction sells a stock held rather than buying.
+     * @param sellRate chance of a sell, from 0 to 1.
+     * @return this builder.
+     * @throws IllegalArgumentException if the chance is out of range.
+     */
+    public Builder sellRate(double sellRate) {
+      if (sellRate < 0 || sellRate > 1) {
+        throw new IllegalArgumentException("Sell rate should be between 0 and 1");
+      }
+      this.sellRate = sellRate;
+      return this;
+    }
+
+    /**
+     * adds a dollar cost averaging strategy line to each file.
+     * @param amount    amount invested on each run of the strategy.
+     * @param frequency days between runs of the strategy.
+     * @return this builder.
+     * @throws IllegalArgumentException if the amount or the frequency is not positive.
+     */
+    public Builder dca(double amount, int frequency) {
+      if (amount <= 0 || frequency <= 0) {
+        throw new IllegalArgumentException("Amount and frequency should be positive");
+      }
+      this.dcaAmount = amount;
+      this.dcaFrequency = frequency;
+      return this;
+    }
+
+    /**
+     * builds the generator.
+     * @return the generator of synthetic portfolio files.
+     */
+    public SyntheticPortfolios build() {
+      return new SyntheticPortfolios(this);
+    }
+  }
+}
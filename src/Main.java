@@ -1,9 +1,13 @@
 
+import java.io.IOException;
 import java.io.InputStreamReader;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
 
 import controller.StockControllerImpl;
 import controller.StockControllerImplGUI;
-import model.InvestmentManager;
 import model.InvestmentManagerImpl;
 import view.GUIView;
 import view.IView;
@@ -13,6 +17,7 @@ import view.IViewImpl;
 /**
  * The Main class serves as the entry point for the application.
  * It initializes the model, view, and controller components, and starts the program.
+ * The portfolios are kept between sessions in a snapshot file in the Data directory.
  */
 public class Main {
 
@@ -35,8 +40,12 @@ public class Main {
       }
     }
 
-    // Create model
-    InvestmentManager model = new InvestmentManagerImpl();
+    // Create model, with the portfolios of the last session
+    InvestmentManagerImpl model = new InvestmentManagerImpl();
+    Path snapshot = Paths.get(System.getProperty("user.dir"), "Data", "portfolios.snapshot");
+    if (restore(model, snapshot)) {
+      Runtime.getRuntime().addShutdownHook(new Thread(() -> store(model, snapshot)));
+    }
 
     if (useGUI) {
       // GUI controller
@@ -51,4 +60,49 @@ public class Main {
       controller.execute();
     }
   }
+
+  /**
+   * this method adds the portfolios saved when the last session ended, if there are any.
+   * A snapshot that can't be read is reported and the session starts empty. The snapshot is then
+   * moved aside to a file ending in .bad, so that saving this session does not overwrite it. If
+   * it can't be moved either, it is left as it is and this session is not saved.
+   * @param model    the model the portfolios are added to.
+   * @param snapshot the snapshot file.
+   * @return true if the session can be saved over the snapshot file when it ends.
+   */
+  private static boolean restore(InvestmentManagerImpl model, Path snapshot) {
+    if (!Files.exists(snapshot)) {
+      return true;
+    }
+    try {
+      model.loadSnapshot(snapshot);
+      return true;
+    } catch (IOException | IllegalArgumentException e) {
+      System.err.println("Could not restore the saved portfolios: " + e.getMessage());
+    }
+    Path bad = snapshot.resolveSibling(snapshot.getFileName() + ".bad");
+    try {
+      Files.move(snapshot, bad, StandardCopyOption.REPLACE_EXISTING);
+      System.err.println("The saved portfolios were kept in " + bad);
+      return true;
+    } catch (IOException e) {
+      System.err.println("The portfolios of this session will not be saved, so that "
+              + snapshot + " is kept");
+      return false;
+    }
+  }
+
+  /**
+   * this method saves the portfolios when the session ends, so that the next one starts with
+   * them.
+   * @param model    the model the portfolios are saved from.
+   * @param snapshot the snapshot file.
+   */
+  private static void store(InvestmentManagerImpl model, Path snapshot) {
+    try {
+      model.saveSnapshot(snapshot);
+    } catch (IOException | IllegalArgumentException e) {
+      System.err.println("Could not save the portfolios: " + e.getMessage());
+    }
+  }
 }
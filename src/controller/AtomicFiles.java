@@ -0,0 +1,86 @@
+package controller;
+
+import java.io.IOException;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+
+/**
+ * AtomicFiles replaces files with new contents so that readers see either the old file or the
+ * whole new one, never a file that is only partly written. The contents are written to a
+ * temporary file next to the target, which is then moved over the target in one step where the
+ * file system allows it. If the contents can't be written, the temporary file is deleted and the
+ * target is left as it was.
+ */
+public final class AtomicFiles {
+
+  /**
+   * this class only has static methods.
+   */
+  private AtomicFiles() {
+  }
+
+  /**
+   * replaces a file with the contents written by the caller, creating its directory if needed.
+   * @param target   the file to replace.
+   * @param suffix   suffix of the temporary file the contents are written to.
+   * @param contents writes the contents to the temporary file.
+   * @param <T>      type of the value returned by the writer of the contents.
+   * @return the value returned by the writer of the contents.
+   * @throws IOException if the contents can't be written or the file can't be moved.
+   */
+  public static <T> T replace(Path target, String suffix, Contents<T> contents)
+          throws IOException {
+    Path dir = target.toAbsolutePath().getParent();
+    Files.createDirectories(dir);
+    Path temp = Files.createTempFile(dir, target.getFileName().toString(), suffix);
+    boolean moved = false;
+    try {
+      T value = contents.writeTo(temp);
+      moveIntoPlace(temp, target);
+      moved = true;
+      return value;
+    } finally {
+      if (!moved) {
+        try {
+          Files.deleteIfExists(temp);
+        } catch (IOException e) {
+          // the temporary file is left behind, the target is untouched either way.
+        }
+      }
+    }
+  }
+
+  /**
+   * moves a completely written file over the target, in one step where the file system allows
+   * it.
+   * @param written the file that was written.
+   * @param target  the file it replaces.
+   * @throws IOException if the file can't be moved.
+   */
+  private static void moveIntoPlace(Path written, Path target) throws IOException {
+    try {
+      Files.move(written, target, StandardCopyOption.ATOMIC_MOVE,
+              StandardCopyOption.REPLACE_EXISTING);
+    } catch (AtomicMoveNotSupportedException e) {
+      Files.move(written, target, StandardCopyOption.REPLACE_EXISTING);
+    }
+  }
+
+  /**
+   * Contents writes the new contents of a file.
+   * @param <T> type of the value returned once the contents are written.
+   */
+  @FunctionalInterface
+  public interface Contents<T> {
+
+    /**
+     * writes the contents to the given file.
+     * @param file the temporary file, which is empty.
+     * @return a value for the caller, or null if there is none.
+     * @throws IOException if the contents can't be written.
+     */
+    T writeTo(Path file) throws IOException;
+  }
+}
@@ -0,0 +1,67 @@
+package controller;
+
+import java.time.LocalDate;
+
+/**
+ * BarPeriod lists the resolutions at which the daily prices of a stock can be aggregated into
+ * bars. Each period is a calendar period: weeks start on a Monday, and months, quarters and
+ * years start on their first day.
+ */
+public enum BarPeriod {
+
+  /**
+   * one bar for each week, from Monday to Sunday.
+   */
+  WEEK,
+
+  /**
+   * one bar for each calendar month.
+   */
+  MONTH,
+
+  /**
+   * one bar for each calendar quarter, starting in January, April, July and October.
+   */
+  QUARTER,
+
+  /**
+   * one bar for each calendar year.
+   */
+  YEAR;
+
+  /**
+   * finds the first day of the period containing the given date.
+   * @param date the date.
+   * @return first day of the period.
+   */
+  public LocalDate startOf(LocalDate date) {
+    switch (this) {
+      case WEEK:
+        return date.minusDays(date.getDayOfWeek().getValue() - 1);
+      case MONTH:
+        return date.withDayOfMonth(1);
+      case QUARTER:
+        return LocalDate.of(date.getYear(), (date.getMonthValue() - 1) / 3 * 3 + 1, 1);
+      default:
+        return date.withDayOfYear(1);
+    }
+  }
+
+  /**
+   * finds the first day of the period after the one starting on the given date.
+   * @param start first day of a period.
+   * @return first day of the next period.
+   */
+  public LocalDate nextStart(LocalDate start) {
+    switch (this) {
+      case WEEK:
+        return start.plusWeeks(1);
+      case MONTH:
+        return start.plusMonths(1);
+      case QUARTER:
+        return start.plusMonths(3);
+      default:
+        return start.plusYears(1);
+    }
+  }
+}
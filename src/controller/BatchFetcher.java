@@ -0,0 +1,150 @@
+package controller;
+
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * BatchFetcher loads the price series of many tickers at the same time.
+ * The loads run on virtual threads when the Java runtime has them, otherwise on a pool of
+ * daemon threads, and the number of loads running at once is bounded.
+ */
+final class BatchFetcher {
+
+  /**
+   * system property that can be used to set how many tickers are loaded at the same time.
+   */
+  static final String PARALLELISM_PROPERTY = "stockdata.fetch.parallelism";
+
+  /**
+   * number of tickers loaded at the same time when the system property is not set.
+   */
+  private static final int DEFAULT_PARALLELISM = 64;
+
+  /**
+   * the fetcher shared by the whole application.
+   */
+  private static final BatchFetcher SHARED = new BatchFetcher(Integer.getInteger(
+          PARALLELISM_PROPERTY, DEFAULT_PARALLELISM));
+
+  /**
+   * executor the loads run on.
+   */
+  private final ExecutorService executor;
+
+  /**
+   * permits for the loads running at the same time.
+   */
+  private final Semaphore running;
+
+  /**
+   * constructs a fetcher that loads at most the given number of tickers at the same time.
+   * @param parallelism maximum number of loads running at the same time.
+   * @throws IllegalArgumentException if the parallelism is not positive.
+   */
+  BatchFetcher(int parallelism) {
+    if (parallelism <= 0) {
+      throw new IllegalArgumentException("Parallelism should be positive");
+    }
+    this.executor = createExecutor(parallelism);
+    this.running = new Semaphore(parallelism);
+  }
+
+  /**
+   * returns the fetcher shared by the whole application.
+   * @return the shared fetcher.
+   */
+  static BatchFetcher shared() {
+    return SHARED;
+  }
+
+  /**
+   * loads the price series of all the tickers with the given stock data and waits for them.
+   * @param tickers tickers to be loaded.
+   * @param data    stock data that loads each ticker.
+   * @return map of each ticker to true if it was loaded or false if its load failed, in the
+   *         order of the tickers given.
+   */
+  Map<String, Boolean> fetchAll(Collection<String> tickers, IStockData data) {
+    Map<String, Future<Boolean>> loads = new LinkedHashMap<>();
+    for (String ticker : tickers) {
+      if (!loads.containsKey(ticker)) {
+        loads.put(ticker, executor.submit(() -> load(ticker, data)));
+      }
+    }
+    Map<String, Boolean> results = new LinkedHashMap<>();
+    boolean interrupted = false;
+    for (Map.Entry<String, Future<Boolean>> entry : loads.entrySet()) {
+      boolean loaded = false;
+      if (!interrupted) {
+        try {
+          loaded = entry.getValue().get();
+        } catch (InterruptedException e) {
+          interrupted = true;
+        } catch (ExecutionException e) {
+          loaded = false;
+        }
+      }
+      results.put(entry.getKey(), loaded);
+    }
+    if (interrupted) {
+      Thread.currentThread().interrupt();
+    }
+    return results;
+  }
+
+  /**
+   * loads the price series of one ticker once a permit is available.
+   * @param ticker ticker to be loaded.
+   * @param data   stock data that loads the ticker.
+   * @return true if the series was loaded, false otherwise.
+   */
+  private boolean load(String ticker, IStockData data) {
+    try {
+      running.acquire();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      return false;
+    }
+    try {
+      data.fetchPriceSeries(ticker);
+      return true;
+    } catch (RuntimeException e) {
+      return false;
+    } finally {
+      running.release();
+    }
+  }
+
+  /**
+   * creates an executor that starts a virtual thread for each load if the runtime supports it,
+   * otherwise a pool of daemon threads of the given size.
+   * @param parallelism maximum number of loads running at the same time.
+   * @return the executor.
+   */
+  private static ExecutorService createExecutor(int parallelism) {
+    try {
+      return (ExecutorService) Executors.class
+              .getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+    } catch (ReflectiveOperationException e) {
+      AtomicInteger count = new AtomicInteger();
+      ThreadPoolExecutor pool = new ThreadPoolExecutor(parallelism, parallelism, 30,
+              TimeUnit.SECONDS, new LinkedBlockingQueue<>(), task -> {
+                Thread thread = new Thread(task, "stock-prefetch-" + count.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+              });
+      pool.allowCoreThreadTimeOut(true);
+      return pool;
+    }
+  }
+}
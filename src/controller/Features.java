@@ -150,6 +150,14 @@ public interface Features {
    */
   ArrayList<String> getPortfolioNames();
 
+  /**
+   * this method suggests stocks for the share name or ticker typed so far in the gui,
+   * using the model method.
+   * @param prefix text typed so far.
+   * @return Map of ticker symbols and their company names, in the order they are suggested.
+   */
+  Map<String, String> suggestTickers(String prefix);
+
   /**
    * this method retrieves any success message associated with last operation.
    * @return the success message, or null if no success occurred.
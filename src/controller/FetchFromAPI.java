@@ -1,16 +1,29 @@
 package controller;
 
+import java.nio.file.Path;
+
 /**
  * The FetchFromAPI interface provides a method for fetching data from an API.
  */
 interface FetchFromAPI {
 
   /**
-   * FetchData method is used to call the api for the stockSymbol using api Key.
-   * It gets the historical data for that stock and returns the data as a stringBuilder object.
+   * fetchPriceSeries is used to call the api for the stockSymbol and parse the historical data
+   * while it is received. The response is also copied as it is to the cache file, which is only
+   * put in place once the whole response has been received.
+   *
+   * @param ticker    The ticker symbol we need the historical data for.
+   * @param full      true to fetch the whole history, false to fetch only the latest prices.
+   * @param cacheFile The file the response is copied to.
+   * @return The price series parsed from the response.
+   */
+  PriceSeries fetchPriceSeries(String ticker, boolean full, Path cacheFile);
+
+  /**
+   * callsPerMinute gives the number of calls per minute the provider allows for the key the API
+   * is configured with, so that the calls can be spaced to stay within it.
    *
-   * @param ticker The ticker symbol we need the historical data for.
-   * @return A stringBuilder object containing the data fetched from the API.
+   * @return The number of calls allowed per minute, 0 if there is no quota.
    */
-  StringBuilder fetchData(String ticker);
+  int callsPerMinute();
 }
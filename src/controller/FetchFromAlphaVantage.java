@@ -4,6 +4,13 @@ import java.io.IOException;
 import java.io.InputStream;
 import java.net.MalformedURLException;
 import java.net.URL;
+import java.net.URLConnection;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
 
 
 /**
@@ -12,16 +19,41 @@ import java.net.URL;
  */
 class FetchFromAlphaVantage implements FetchFromAPI {
 
+  /**
+   * The address of the Alpha Vantage query service.
+   */
+  private static final String DEFAULT_BASE_URL = "https://www.alphavantage.co/query";
+
+  /**
+   * Size of the buffer the response is read into.
+   */
+  private static final int BUFFER_SIZE = 64 * 1024;
+
+  /**
+   * Number of calls per minute the service allows for a free API key.
+   */
+  private static final int FREE_KEY_CALLS_PER_MINUTE = 5;
+
+  /**
+   * Time in milliseconds to wait for the service to connect or to send data.
+   */
+  private static final int TIMEOUT_MILLIS = 30_000;
+
   /**
    * The API key used for accessing the stock data service.
    */
   private final String apiKey;
 
+  /**
+   * The address of the query service the requests are sent to.
+   */
+  private final String baseUrl;
+
   /**
    * Constructs a FetchFromAlphaVantage object with a default API key.
    */
   FetchFromAlphaVantage() {
-    apiKey = "I6RVKAXBROB97OE4";
+    this("I6RVKAXBROB97OE4");
   }
 
   /**
@@ -30,41 +62,88 @@ class FetchFromAlphaVantage implements FetchFromAPI {
    * @param apiKey The API key for accessing the stock data service.
    */
   FetchFromAlphaVantage(String apiKey) {
-    this.apiKey = apiKey;
+    this(apiKey, DEFAULT_BASE_URL);
   }
 
-  @Override
-  public StringBuilder fetchData(String ticker) {
-    URL url;
+  /**
+   * Constructs a FetchFromAlphaVantage object with a custom API key and service address.
+   *
+   * @param apiKey  The API key for accessing the stock data service.
+   * @param baseUrl The address of the query service, for example a local server in tests.
+   */
+  FetchFromAlphaVantage(String apiKey, String baseUrl) {
+    this.apiKey = apiKey;
+    this.baseUrl = baseUrl;
+  }
 
+  /**
+   * builds the url of the daily prices request for the ticker.
+   *
+   * @param ticker The ticker symbol we need the historical data for.
+   * @param full   true to ask for the whole history, false for the latest 100 days only.
+   * @return the url of the request.
+   */
+  private URL buildUrl(String ticker, boolean full) {
     try {
-      url = new URL("https://www.alphavantage"
-              + ".co/query?function=TIME_SERIES_DAILY"
-              + "&outputsize=full"
+      return new URL(baseUrl + "?function=TIME_SERIES_DAILY"
+              + "&outputsize=" + (full ? "full" : "compact")
               + "&symbol"
               + "=" + ticker + "&apikey=" + apiKey + "&datatype=csv");
     } catch (MalformedURLException e) {
       throw new RuntimeException("the alphavantage API has either changed or "
               + "no longer works");
     }
+  }
 
-    InputStream in;
-    StringBuilder output = new StringBuilder();
+  /**
+   * opens the response stream of the daily prices request for the ticker.
+   *
+   * @param ticker The ticker symbol we need the historical data for.
+   * @param full   true to ask for the whole history, false for the latest 100 days only.
+   * @return the response stream.
+   * @throws IOException if the service cannot be reached.
+   */
+  private InputStream open(String ticker, boolean full) throws IOException {
+    URLConnection connection = buildUrl(ticker, full).openConnection();
+    connection.setConnectTimeout(TIMEOUT_MILLIS);
+    connection.setReadTimeout(TIMEOUT_MILLIS);
+    return connection.getInputStream();
+  }
 
-    try {
-      in = url.openStream();
-      int b;
+  @Override
+  public int callsPerMinute() {
+    return FREE_KEY_CALLS_PER_MINUTE;
+  }
 
-      while ((b = in.read()) != -1) {
-        output.append((char) b);
-      }
+  @Override
+  public PriceSeries fetchPriceSeries(String ticker, boolean full, Path cacheFile) {
+    PriceCsvParser parser = new PriceCsvParser();
+    try (ReadableByteChannel in = Channels.newChannel(open(ticker, full))) {
+      return AtomicFiles.replace(cacheFile, ".part", tempFile -> {
+        try (FileChannel out = FileChannel.open(tempFile, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+          ByteBuffer buffer = ByteBuffer.allocate(BUFFER_SIZE);
+          while (in.read(buffer) != -1) {
+            buffer.flip();
+            if (!parser.hasData() && PriceCsvParser.isJson(buffer.array(), 0, buffer.limit())) {
+              throw new RuntimeException();
+            }
+            parser.feed(buffer.array(), 0, buffer.limit());
+            while (buffer.hasRemaining()) {
+              out.write(buffer);
+            }
+            buffer.clear();
+          }
+        }
+        if (!parser.hasData()) {
+          throw new RuntimeException();
+        }
+        return parser.finish();
+      });
     } catch (IOException e) {
       throw new RuntimeException("No price data found for " + ticker);
     }
-    if (output.toString().charAt(0) == '{') {
-      throw new RuntimeException();
-    }
-    return output;
   }
 
+
 }
@@ -1,5 +1,6 @@
 package controller;
 
+import java.io.IOException;
 import java.util.List;
 
 /**
@@ -14,10 +15,35 @@ interface IPersistence {
    */
   void exportAsCSV(String path, StringBuilder data);
 
+  /**
+   * This method exports data to a CSV file at the specified path, streaming the rows to the file
+   * as they are written instead of building the whole file in memory first. A path ending with
+   * .csv.gz is written compressed with gzip. The rows are written to a temporary file next to
+   * the target, which then replaces the target, so the file is never left half written.
+   * @param path path to the CSV file where data will be exported.
+   * @param rows writes the rows of the file.
+   * @throws IllegalArgumentException if the path is not a CSV file, or the file can't be written.
+   */
+  void exportAsCSV(String path, Rows rows);
+
   /**
    * this method loads data from a CSV file located at the specified file path.
    * @param filePath  path to the CSV file to be loaded.
    * @return list of string arrays representing the lines of data read from the CSV file.
    */
   List<String[]> loadFromCSV(String filePath);
+
+  /**
+   * Rows writes the rows of a CSV file to where they are being exported.
+   */
+  @FunctionalInterface
+  interface Rows {
+
+    /**
+     * this method writes the rows, header included.
+     * @param out where the rows are written.
+     * @throws IOException if the rows can't be written.
+     */
+    void writeTo(Appendable out) throws IOException;
+  }
 }
@@ -1,6 +1,8 @@
 package controller;
 
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Map;
 import java.util.TreeMap;
 
 /**
@@ -11,9 +13,29 @@ public interface IStockData {
 
   /**
    * this method gets the price for the tickerSymbol on a particular date.
+   * The map returned is a view of the price series of the stock and is only kept for
+   * compatibility, fetchPriceSeries should be used instead.
    * @param tickerSymbol The ticker symbol of the stock for which price is to be fetched.
    * @return TreeMap containing historical stock data, with dates & price information.
    * @throws IllegalArgumentException if no price data is found for the provided ticker symbol.
    */
   TreeMap<String, ArrayList<Double>> fetchHistoricalData(String tickerSymbol);
+
+  /**
+   * this method gets the historical price series for the tickerSymbol.
+   * @param tickerSymbol The ticker symbol of the stock for which price is to be fetched.
+   * @return PriceSeries containing the trading days and the prices on those days.
+   * @throws IllegalArgumentException if no price data is found for the provided ticker symbol.
+   */
+  PriceSeries fetchPriceSeries(String tickerSymbol);
+
+  /**
+   * this method loads the historical price series of many tickers ahead of their use.
+   * Tickers that are already cached are resolved at once, the others are fetched at the same
+   * time, within the rate limit of the data provider.
+   * @param tickerSymbols The ticker symbols of the stocks whose prices are to be fetched.
+   * @return Map of each ticker symbol to true if its prices were loaded, or false if they could
+   *         not be loaded.
+   */
+  Map<String, Boolean> prefetch(Collection<String> tickerSymbols);
 }
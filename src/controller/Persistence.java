@@ -3,11 +3,18 @@ package controller;
 import java.io.BufferedReader;
 import java.io.BufferedWriter;
 import java.io.File;
+import java.io.FileInputStream;
 import java.io.FileReader;
-import java.io.FileWriter;
 import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.file.Files;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
 
 /**
  * This Persistence class provides methods for exporting data to a file and loading data
@@ -15,15 +22,26 @@ import java.util.List;
  */
 class Persistence implements IPersistence {
 
+  /**
+   * size of the buffers the exported rows go through on their way to the file.
+   */
+  private static final int BUFFER_SIZE = 1 << 16;
+
   public void exportAsCSV(String path, StringBuilder data) {
+    exportAsCSV(path, out -> out.append(data));
+  }
+
+  public void exportAsCSV(String path, Rows rows) {
     File file = new File(path);
-    if (!file.getName().endsWith(".csv")) {
+    boolean compressed = file.getName().endsWith(".csv.gz");
+    if (!file.getName().endsWith(".csv") && !compressed) {
       throw new IllegalArgumentException("File provided must be CSV!");
     }
 
     File parentDir = file.getParentFile();
 
-    if (parentDir == null || ".csv".equals(file.getName())) {
+    if (parentDir == null || ".csv".equals(file.getName())
+            || ".csv.gz".equals(file.getName())) {
       throw new IllegalArgumentException("Invalid Path");
     }
 
@@ -31,8 +49,15 @@ class Persistence implements IPersistence {
       parentDir.mkdirs(); // Create parent directories recursively
     }
 
-    try (BufferedWriter writer = new BufferedWriter(new FileWriter(file))) {
-      writer.write(data.toString());
+    try {
+      AtomicFiles.replace(file.toPath(), ".tmp", temp -> {
+        try (OutputStream stream = Files.newOutputStream(temp);
+             Writer writer = new BufferedWriter(new OutputStreamWriter(compressed
+                     ? new GZIPOutputStream(stream, BUFFER_SIZE) : stream), BUFFER_SIZE)) {
+          rows.writeTo(writer);
+        }
+        return null;
+      });
     } catch (IOException e) {
       throw new IllegalArgumentException(e.getMessage());
     }
@@ -49,12 +74,15 @@ class Persistence implements IPersistence {
     if (!file.exists()) {
       throw new IllegalArgumentException("File not found. Please enter a valid file path.");
     }
-    if (!filePath.toLowerCase().endsWith(".csv")) {
+    boolean compressed = filePath.toLowerCase().endsWith(".csv.gz");
+    if (!filePath.toLowerCase().endsWith(".csv") && !compressed) {
       throw new IllegalArgumentException("File format is not CSV. Please enter a file with .csv "
               + "extension.");
     }
     List<String[]> lines = new ArrayList<>();
-    try (BufferedReader reader = new BufferedReader(new FileReader(file))) {
+    try (BufferedReader reader = new BufferedReader(compressed
+            ? new InputStreamReader(new GZIPInputStream(new FileInputStream(file)))
+            : new FileReader(file))) {
       String line;
       boolean firstLineSkipped = false;
       while ((line = reader.readLine()) != null) {
@@ -0,0 +1,195 @@
+package controller;
+
+import java.time.LocalDate;
+import java.util.Arrays;
+
+/**
+ * PriceBars holds the daily prices of a stock aggregated into one bar for each period in which
+ * the stock was traded. A bar has the opening price of the first trading day of its period, the
+ * highest high and the lowest low within it, and the closing price of its last trading day.
+ * The bars are stored in a columnar form in ascending order of period, like the price series
+ * they are built from, and are built in one pass over the series.
+ */
+public final class PriceBars {
+
+  /**
+   * the resolution of the bars.
+   */
+  private final BarPeriod period;
+
+  /**
+   * first day of the period of each bar as an epoch day, in ascending order.
+   */
+  private final int[] periodStarts;
+
+  /**
+   * index in the price series of the first trading day of each bar.
+   */
+  private final int[] firstIndexes;
+
+  /**
+   * index in the price series of the last trading day of each bar.
+   */
+  private final int[] lastIndexes;
+
+  /**
+   * opening prices, index aligned with the periods.
+   */
+  private final double[] open;
+
+  /**
+   * highest prices, index aligned with the periods.
+   */
+  private final double[] high;
+
+  /**
+   * lowest prices, index aligned with the periods.
+   */
+  private final double[] low;
+
+  /**
+   * closing prices, index aligned with the periods.
+   */
+  private final double[] close;
+
+  /**
+   * the price series the bars were built from.
+   */
+  private final PriceSeries series;
+
+  /**
+   * builds the bars of a price series at the given resolution.
+   * @param series the daily price series.
+   * @param period the resolution of the bars.
+   */
+  PriceBars(PriceSeries series, BarPeriod period) {
+    int size = series.size();
+    int[] starts = new int[size];
+    int[] firsts = new int[size];
+    int[] lasts = new int[size];
+    double[] opens = new double[size];
+    double[] highs = new double[size];
+    double[] lows = new double[size];
+    double[] closes = new double[size];
+    int count = 0;
+    int nextStart = Integer.MIN_VALUE;
+    for (int i = 0; i < size; i++) {
+      int day = series.epochDayAt(i);
+      if (day >= nextStart) {
+        LocalDate start = period.startOf(LocalDate.ofEpochDay(day));
+        nextStart = (int) period.nextStart(start).toEpochDay();
+        starts[count] = (int) start.toEpochDay();
+        firsts[count] = i;
+        opens[count] = series.openAt(i);
+        highs[count] = series.highAt(i);
+        lows[count] = series.lowAt(i);
+        count++;
+      } else {
+        highs[count - 1] = Math.max(highs[count - 1], series.highAt(i));
+        lows[count - 1] = Math.min(lows[count - 1], series.lowAt(i));
+      }
+      lasts[count - 1] = i;
+      closes[count - 1] = series.closeAt(i);
+    }
+    this.period = period;
+    this.series = series;
+    this.periodStarts = Arrays.copyOf(starts, count);
+    this.firstIndexes = Arrays.copyOf(firsts, count);
+    this.lastIndexes = Arrays.copyOf(lasts, count);
+    this.open = Arrays.copyOf(opens, count);
+    this.high = Arrays.copyOf(highs, count);
+    this.low = Arrays.copyOf(lows, count);
+    this.close = Arrays.copyOf(closes, count);
+  }
+
+  /**
+   * returns the resolution of the bars.
+   * @return the bar period.
+   */
+  public BarPeriod period() {
+    return period;
+  }
+
+  /**
+   * returns the number of bars.
+   * @return number of periods in which the stock was traded.
+   */
+  public int size() {
+    return periodStarts.length;
+  }
+
+  /**
+   * finds the latest bar whose period starts on or before the given date. When the date is the
+   * last day of a period, the closing price of that bar is the closing price of the latest
+   * trading day on or before the date.
+   * @param date the date to be looked up.
+   * @return index of the bar, or -1 if there is no bar starting on or before the date.
+   */
+  public int floorIndex(LocalDate date) {
+    int index = Arrays.binarySearch(periodStarts, (int) date.toEpochDay());
+    return index >= 0 ? index : -index - 2;
+  }
+
+  /**
+   * returns the first day of the period of the bar at the given index.
+   * @param index index of the bar.
+   * @return first day of the period.
+   */
+  public LocalDate periodStartAt(int index) {
+    return LocalDate.ofEpochDay(periodStarts[index]);
+  }
+
+  /**
+   * returns the first trading day within the bar at the given index.
+   * @param index index of the bar.
+   * @return first trading day of the bar.
+   */
+  public LocalDate firstDateAt(int index) {
+    return series.dateAt(firstIndexes[index]);
+  }
+
+  /**
+   * returns the last trading day within the bar at the given index.
+   * @param index index of the bar.
+   * @return last trading day of the bar.
+   */
+  public LocalDate lastDateAt(int index) {
+    return series.dateAt(lastIndexes[index]);
+  }
+
+  /**
+   * returns the opening price of the bar at the given index.
+   * @param index index of the bar.
+   * @return opening price of the first trading day of the bar.
+   */
+  public double openAt(int index) {
+    return open[index];
+  }
+
+  /**
+   * returns the highest price of the bar at the given index.
+   * @param index index of the bar.
+   * @return highest high price within the bar.
+   */
+  public double highAt(int index) {
+    return high[index];
+  }
+
+  /**
+   * returns the lowest price of the bar at the given index.
+   * @param index index of the bar.
+   * @return lowest low price within the bar.
+   */
+  public double lowAt(int index) {
+    return low[index];
+  }
+
+  /**
+   * returns the closing price of the bar at the given index.
+   * @param index index of the bar.
+   * @return closing price of the last trading day of the bar.
+   */
+  public double closeAt(int index) {
+    return close[index];
+  }
+}
@@ -0,0 +1,327 @@
+package controller;
+
+import java.time.LocalDate;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+
+/**
+ * PriceCache is an in-memory cache of price series that is shared by all the StockData objects
+ * of the application, so that the cache file of a ticker is read and parsed once per day and not
+ * once per StockData object.
+ * The cache is bounded by a memory budget, when the budget is exceeded the least recently used
+ * series are evicted. If several threads ask for the same ticker at the same time, only one of
+ * them loads it and the others wait for that load.
+ */
+public final class PriceCache {
+
+  /**
+   * system property that can be used to set the memory budget of the shared cache in bytes.
+   */
+  public static final String MAX_BYTES_PROPERTY = "stockdata.cache.maxBytes";
+
+  /**
+   * memory budget of the shared cache when the system property is not set.
+   */
+  private static final long DEFAULT_MAX_BYTES = 64L * 1024 * 1024;
+
+  /**
+   * the cache shared by the whole application.
+   */
+  private static final PriceCache SHARED = new PriceCache(Long.getLong(MAX_BYTES_PROPERTY,
+          DEFAULT_MAX_BYTES));
+
+  /**
+   * cached series by ticker symbol, in access order so the eldest entry is the least recently
+   * used one. Guarded by the cache itself.
+   */
+  private final LinkedHashMap<String, Entry> entries;
+
+  /**
+   * loads that are in progress, by ticker symbol.
+   */
+  private final ConcurrentHashMap<String, CompletableFuture<PriceSeries>> inFlight;
+
+  /**
+   * memory budget of the cache in bytes.
+   */
+  private long maxBytes;
+
+  /**
+   * estimated memory used by the cached series in bytes.
+   */
+  private long usedBytes;
+
+  /**
+   * number of requests served without loading.
+   */
+  private final AtomicLong hits;
+
+  /**
+   * number of requests that had to load the series.
+   */
+  private final AtomicLong misses;
+
+  /**
+   * number of series removed to stay within the memory budget.
+   */
+  private final AtomicLong evictions;
+
+  /**
+   * constructs an empty cache with the given memory budget.
+   * @param maxBytes memory budget of the cache in bytes.
+   * @throws IllegalArgumentException if the budget is negative.
+   */
+  public PriceCache(long maxBytes) {
+    if (maxBytes < 0) {
+      throw new IllegalArgumentException("Cache size cannot be negative");
+    }
+    this.entries = new LinkedHashMap<>(16, 0.75f, true);
+    this.inFlight = new ConcurrentHashMap<>();
+    this.maxBytes = maxBytes;
+    this.usedBytes = 0;
+    this.hits = new AtomicLong();
+    this.misses = new AtomicLong();
+    this.evictions = new AtomicLong();
+  }
+
+  /**
+   * returns the cache shared by all StockData objects of the application.
+   * @return the shared cache.
+   */
+  public static PriceCache shared() {
+    return SHARED;
+  }
+
+  /**
+   * returns the price series of the ticker symbol, loading it with the given loader if it is
+   * not cached or was cached on an earlier day.
+   * @param tickerSymbol ticker symbol of the stock.
+   * @param loader       function that loads the series of a ticker symbol.
+   * @return price series of the ticker symbol.
+   * @throws RuntimeException whatever the loader throws, failed loads are not cached.
+   */
+  public PriceSeries get(String tickerSymbol, Function<String, PriceSeries> loader) {
+    PriceSeries cached = lookup(tickerSymbol);
+    if (cached != null) {
+      hits.incrementAndGet();
+      return cached;
+    }
+    CompletableFuture<PriceSeries> load = new CompletableFuture<>();
+    CompletableFuture<PriceSeries> running = inFlight.putIfAbsent(tickerSymbol, load);
+    if (running != null) {
+      hits.incrementAndGet();
+      return await(running);
+    }
+    try {
+      cached = lookup(tickerSymbol);
+      if (cached != null) {
+        hits.incrementAndGet();
+        load.complete(cached);
+        return cached;
+      }
+      misses.incrementAndGet();
+      PriceSeries series = loader.apply(tickerSymbol);
+      put(tickerSymbol, series);
+      load.complete(series);
+      return series;
+    } catch (RuntimeException e) {
+      load.completeExceptionally(e);
+      throw e;
+    } finally {
+      inFlight.remove(tickerSymbol, load);
+    }
+  }
+
+  /**
+   * checks if the series of the ticker symbol is cached for today.
+   * @param tickerSymbol ticker symbol of the stock.
+   * @return true if a get for the ticker symbol would not need to load it.
+   */
+  public synchronized boolean contains(String tickerSymbol) {
+    Entry entry = entries.get(tickerSymbol);
+    return entry != null && entry.loadedOn.equals(LocalDate.now());
+  }
+
+  /**
+   * removes the series of the ticker symbol from the cache.
+   * @param tickerSymbol ticker symbol of the stock.
+   */
+  public synchronized void invalidate(String tickerSymbol) {
+    Entry entry = entries.remove(tickerSymbol);
+    if (entry != null) {
+      usedBytes -= entry.bytes;
+    }
+  }
+
+  /**
+   * removes all the series from the cache, the counters are not reset.
+   */
+  public synchronized void clear() {
+    entries.clear();
+    usedBytes = 0;
+  }
+
+  /**
+   * sets the memory budget of the cache, evicting series if the cache is over the new budget.
+   * @param maxBytes memory budget of the cache in bytes.
+   * @throws IllegalArgumentException if the budget is negative.
+   */
+  public synchronized void setMaxBytes(long maxBytes) {
+    if (maxBytes < 0) {
+      throw new IllegalArgumentException("Cache size cannot be negative");
+    }
+    this.maxBytes = maxBytes;
+    evictIfNeeded(null);
+  }
+
+  /**
+   * returns the memory budget of the cache.
+   * @return memory budget in bytes.
+   */
+  public synchronized long getMaxBytes() {
+    return maxBytes;
+  }
+
+  /**
+   * returns the estimated memory used by the cached series.
+   * @return used memory in bytes.
+   */
+  public synchronized long getUsedBytes() {
+    return usedBytes;
+  }
+
+  /**
+   * returns the number of series in the cache.
+   * @return number of cached series.
+   */
+  public synchronized int size() {
+    return entries.size();
+  }
+
+  /**
+   * returns the number of requests that were served without loading the series.
+   * @return number of cache hits.
+   */
+  public long getHitCount() {
+    return hits.get();
+  }
+
+  /**
+   * returns the number of requests that had to load the series.
+   * @return number of cache misses.
+   */
+  public long getMissCount() {
+    return misses.get();
+  }
+
+  /**
+   * returns the number of series that were evicted to stay within the memory budget.
+   * @return number of evictions.
+   */
+  public long getEvictionCount() {
+    return evictions.get();
+  }
+
+  /**
+   * finds the series of the ticker symbol cached today, dropping it if it is from an earlier day.
+   * @param tickerSymbol ticker symbol of the stock.
+   * @return cached series or null if there is none.
+   */
+  private synchronized PriceSeries lookup(String tickerSymbol) {
+    Entry entry = entries.get(tickerSymbol);
+    if (entry == null) {
+      return null;
+    }
+    if (!entry.loadedOn.equals(LocalDate.now())) {
+      invalidate(tickerSymbol);
+      return null;
+    }
+    return entry.series;
+  }
+
+  /**
+   * adds a loaded series to the cache and evicts older series if the budget is exceeded.
+   * @param tickerSymbol ticker symbol of the stock.
+   * @param series       the loaded series.
+   */
+  private synchronized void put(String tickerSymbol, PriceSeries series) {
+    Entry entry = new Entry(series, LocalDate.now());
+    Entry previous = entries.put(tickerSymbol, entry);
+    if (previous != null) {
+      usedBytes -= previous.bytes;
+    }
+    usedBytes += entry.bytes;
+    evictIfNeeded(tickerSymbol);
+  }
+
+  /**
+   * evicts least recently used series until the cache is within its budget.
+   * @param keep ticker symbol that should not be evicted, or null.
+   */
+  private void evictIfNeeded(String keep) {
+    Iterator<Map.Entry<String, Entry>> iterator = entries.entrySet().iterator();
+    while (usedBytes > maxBytes && iterator.hasNext()) {
+      Map.Entry<String, Entry> eldest = iterator.next();
+      if (eldest.getKey().equals(keep)) {
+        continue;
+      }
+      usedBytes -= eldest.getValue().bytes;
+      iterator.remove();
+      evictions.incrementAndGet();
+    }
+  }
+
+  /**
+   * waits for a load started by another thread.
+   * @param running the load in progress.
+   * @return the loaded series.
+   */
+  private PriceSeries await(CompletableFuture<PriceSeries> running) {
+    try {
+      return running.join();
+    } catch (CompletionException e) {
+      if (e.getCause() instanceof RuntimeException) {
+        throw (RuntimeException) e.getCause();
+      }
+      throw e;
+    }
+  }
+
+  /**
+   * a cached series along with the day it was loaded and its estimated size.
+   */
+  private static final class Entry {
+
+    /**
+     * the cached series.
+     */
+    private final PriceSeries series;
+
+    /**
+     * the day the series was loaded, the cache files are kept per day.
+     */
+    private final LocalDate loadedOn;
+
+    /**
+     * estimated memory used by the series in bytes.
+     */
+    private final long bytes;
+
+    /**
+     * constructs a cache entry.
+     * @param series   the cached series.
+     * @param loadedOn the day the series was loaded.
+     */
+    private Entry(PriceSeries series, LocalDate loadedOn) {
+      this.series = series;
+      this.loadedOn = loadedOn;
+      this.bytes = series.estimatedSizeInBytes();
+    }
+  }
+}
@@ -0,0 +1,222 @@
+package controller;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.Arrays;
+
+/**
+ * PriceCsvParser parses the daily prices CSV sent by the API while it is being received.
+ * Chunks of bytes are fed to the parser as they arrive, and each complete line is parsed
+ * straight into a price series builder, so the whole document is never held as a string.
+ * The first line is the header and is skipped, rows with less than five columns are ignored.
+ */
+final class PriceCsvParser {
+
+  /**
+   * builder of the series that the rows are added to.
+   */
+  private final PriceSeries.Builder builder;
+
+  /**
+   * bytes of the line that is not complete yet.
+   */
+  private byte[] line;
+
+  /**
+   * number of bytes in the incomplete line.
+   */
+  private int lineLength;
+
+  /**
+   * whether the header line has been skipped.
+   */
+  private boolean headerSkipped;
+
+  /**
+   * whether any byte other than whitespace has been fed.
+   */
+  private boolean started;
+
+  /**
+   * start of each of the five columns of the row being parsed.
+   */
+  private final int[] starts;
+
+  /**
+   * end of each of the five columns of the row being parsed.
+   */
+  private final int[] ends;
+
+  /**
+   * constructs a parser with an empty series.
+   */
+  PriceCsvParser() {
+    this.builder = new PriceSeries.Builder(8192);
+    this.line = new byte[128];
+    this.lineLength = 0;
+    this.headerSkipped = false;
+    this.started = false;
+    this.starts = new int[5];
+    this.ends = new int[5];
+  }
+
+  /**
+   * checks if the response is a JSON document rather than CSV, the API sends its error
+   * messages as JSON.
+   * @param bytes  bytes of the first chunk of the response.
+   * @param offset start of the chunk.
+   * @param length number of bytes in the chunk.
+   * @return true if the first character of the response that is not whitespace is '{'.
+   */
+  static boolean isJson(byte[] bytes, int offset, int length) {
+    for (int i = offset; i < offset + length; i++) {
+      if (!Character.isWhitespace(bytes[i])) {
+        return bytes[i] == '{';
+      }
+    }
+    return false;
+  }
+
+  /**
+   * parses the lines completed by the given chunk of bytes.
+   * @param bytes  bytes received.
+   * @param offset start of the chunk.
+   * @param length number of bytes in the chunk.
+   * @throws IllegalArgumentException if a row has a price that cannot be parsed.
+   * @throws java.time.DateTimeException if a row has a date that cannot be parsed.
+   */
+  void feed(byte[] bytes, int offset, int length) {
+    int end = offset + length;
+    for (int i = offset; i < end; i++) {
+      byte b = bytes[i];
+      if (b == '\n') {
+        endLine();
+      } else {
+        if (lineLength == line.length) {
+          line = Arrays.copyOf(line, line.length * 2);
+        }
+        line[lineLength++] = b;
+        started |= !Character.isWhitespace(b);
+      }
+    }
+  }
+
+  /**
+   * checks if any byte other than whitespace has been fed to the parser.
+   * @return true if the response was not empty.
+   */
+  boolean hasData() {
+    return started;
+  }
+
+  /**
+   * parses the last line if it did not end with a new line, and builds the series.
+   * @return price series of the rows parsed.
+   */
+  PriceSeries finish() {
+    endLine();
+    return builder.build();
+  }
+
+  /**
+   * handles a complete line, skipping the header.
+   */
+  private void endLine() {
+    int length = lineLength;
+    lineLength = 0;
+    if (!headerSkipped) {
+      if (length > 0) {
+        headerSkipped = true;
+      }
+      return;
+    }
+    parseRow(length);
+  }
+
+  /**
+   * parses a row of date, opening, high, low and closing price and adds it to the builder.
+   * @param length number of bytes in the row.
+   */
+  private void parseRow(int length) {
+    int column = 0;
+    int start = 0;
+    for (int i = 0; i <= length && column < 5; i++) {
+      if (i == length || line[i] == ',') {
+        starts[column] = start;
+        ends[column] = i;
+        column++;
+        start = i + 1;
+      }
+    }
+    if (column < 5) {
+      return;
+    }
+    builder.add(parseDate(starts[0], ends[0]), parsePrice(starts[1], ends[1]),
+            parsePrice(starts[2], ends[2]), parsePrice(starts[3], ends[3]),
+            parsePrice(starts[4], ends[4]));
+  }
+
+  /**
+   * parses a date in yyyy-MM-dd format to an epoch day.
+   * @param start start of the field in the line.
+   * @param end   end of the field in the line.
+   * @return the epoch day of the date.
+   */
+  private int parseDate(int start, int end) {
+    String text = field(start, end);
+    if (text.length() == 10 && text.charAt(4) == '-' && text.charAt(7) == '-') {
+      int year = digits(text, 0, 4);
+      int month = digits(text, 5, 7);
+      int day = digits(text, 8, 10);
+      if (year >= 0 && month >= 0 && day >= 0) {
+        return (int) LocalDate.of(year, month, day).toEpochDay();
+      }
+    }
+    return (int) LocalDate.parse(text).toEpochDay();
+  }
+
+  /**
+   * parses a price.
+   * @param start start of the field in the line.
+   * @param end   end of the field in the line.
+   * @return the price.
+   */
+  private double parsePrice(int start, int end) {
+    return Double.parseDouble(field(start, end));
+  }
+
+  /**
+   * returns a field of the current line without surrounding whitespace.
+   * @param start start of the field in the line.
+   * @param end   end of the field in the line.
+   * @return the field as a string.
+   */
+  private String field(int start, int end) {
+    while (start < end && Character.isWhitespace(line[start])) {
+      start++;
+    }
+    while (end > start && Character.isWhitespace(line[end - 1])) {
+      end--;
+    }
+    return new String(line, start, end - start, StandardCharsets.US_ASCII);
+  }
+
+  /**
+   * parses the decimal digits of a part of the text.
+   * @param text  the text.
+   * @param start start of the digits.
+   * @param end   end of the digits.
+   * @return the number, or -1 if there is a character that is not a digit.
+   */
+  private static int digits(String text, int start, int end) {
+    int value = 0;
+    for (int i = start; i < end; i++) {
+      char c = text.charAt(i);
+      if (c < '0' || c > '9') {
+        return -1;
+      }
+      value = value * 10 + (c - '0');
+    }
+    return value;
+  }
+}
@@ -0,0 +1,166 @@
+package controller;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.attribute.FileTime;
+import java.time.LocalDate;
+import java.time.ZoneId;
+
+/**
+ * PriceHistoryStore keeps the full price history of each ticker on disk across days, one binary
+ * file per ticker, so that each day only the latest prices have to be fetched and appended.
+ * The day a ticker was last refreshed is taken from the modification time of its file.
+ */
+final class PriceHistoryStore {
+
+  /**
+   * smallest ratio between an opening price and the previous closing price that is taken as a
+   * normal move, a smaller one is taken as a split.
+   */
+  private static final double MIN_PRICE_RATIO = 0.55;
+
+  /**
+   * largest ratio between an opening price and the previous closing price that is taken as a
+   * normal move, a larger one is taken as a reverse split.
+   */
+  private static final double MAX_PRICE_RATIO = 1.8;
+
+  /**
+   * relative difference above which two prices of the same day are taken as different.
+   */
+  private static final double PRICE_TOLERANCE = 1e-6;
+
+  /**
+   * directory holding the files of the store.
+   */
+  private final Path directory;
+
+  /**
+   * constructs a store that keeps its files in the given directory.
+   * @param directory directory of the store, created when the first file is written.
+   */
+  PriceHistoryStore(Path directory) {
+    this.directory = directory;
+  }
+
+  /**
+   * constructs the store kept in the Data/store directory of the working directory.
+   * @return the default store.
+   */
+  static PriceHistoryStore inWorkingDirectory() {
+    return new PriceHistoryStore(Paths.get(System.getProperty("user.dir"), "Data", "store"));
+  }
+
+  /**
+   * reads the stored history of the ticker.
+   * @param tickerSymbol ticker symbol of the stock.
+   * @return the stored history, or null if there is none or its file is damaged.
+   */
+  PriceSeries read(String tickerSymbol) {
+    Path path = pathOf(tickerSymbol);
+    if (!Files.exists(path)) {
+      return null;
+    }
+    try {
+      return PriceSeriesFile.read(path);
+    } catch (IOException | IllegalArgumentException e) {
+      // a damaged file is replaced by a full fetch.
+      return null;
+    }
+  }
+
+  /**
+   * checks if the history of the ticker was written today.
+   * @param tickerSymbol ticker symbol of the stock.
+   * @return true if the file of the ticker was last written today.
+   */
+  boolean isRefreshedToday(String tickerSymbol) {
+    try {
+      FileTime modified = Files.getLastModifiedTime(pathOf(tickerSymbol));
+      return LocalDate.ofInstant(modified.toInstant(), ZoneId.systemDefault())
+              .equals(LocalDate.now());
+    } catch (IOException e) {
+      return false;
+    }
+  }
+
+  /**
+   * writes the history of the ticker, marking it as refreshed today.
+   * @param tickerSymbol ticker symbol of the stock.
+   * @param series       the full history of the stock.
+   * @throws IOException if the file cannot be written.
+   */
+  void write(String tickerSymbol, PriceSeries series) throws IOException {
+    PriceSeriesFile.write(series, pathOf(tickerSymbol));
+  }
+
+  /**
+   * appends the latest prices to the stored history.
+   * The latest prices must overlap the stored history, and agree with it on every day they
+   * have in common, otherwise there is a gap or the past prices were changed by the provider
+   * and the history has to be fetched again in full. A jump between the last stored closing
+   * price and the next opening price that looks like a split also asks for a full fetch.
+   * @param stored the stored history.
+   * @param latest the latest prices, as returned by a compact fetch.
+   * @return the merged history, or null if the history has to be fetched again in full.
+   */
+  static PriceSeries merge(PriceSeries stored, PriceSeries latest) {
+    if (latest.isEmpty() || stored.isEmpty()) {
+      return stored.isEmpty() ? null : stored;
+    }
+    int storedLast = stored.size() - 1;
+    if (latest.epochDayAt(0) > stored.epochDayAt(storedLast)) {
+      return null;
+    }
+    int storedIndex = stored.indexOf(latest.epochDayAt(0));
+    if (storedIndex < 0) {
+      return null;
+    }
+    int index = 0;
+    for (; index < latest.size() && storedIndex <= storedLast; index++, storedIndex++) {
+      if (latest.epochDayAt(index) != stored.epochDayAt(storedIndex)
+              || differs(latest.openAt(index), stored.openAt(storedIndex))
+              || differs(latest.closeAt(index), stored.closeAt(storedIndex))) {
+        return null;
+      }
+    }
+    if (index == latest.size()) {
+      return stored;
+    }
+    double ratio = latest.openAt(index) / stored.closeAt(storedLast);
+    if (ratio < MIN_PRICE_RATIO || ratio > MAX_PRICE_RATIO) {
+      return null;
+    }
+    PriceSeries.Builder builder = new PriceSeries.Builder(stored.size() + latest.size() - index);
+    for (int i = 0; i <= storedLast; i++) {
+      builder.add(stored.epochDayAt(i), stored.openAt(i), stored.highAt(i), stored.lowAt(i),
+              stored.closeAt(i));
+    }
+    for (int i = index; i < latest.size(); i++) {
+      builder.add(latest.epochDayAt(i), latest.openAt(i), latest.highAt(i), latest.lowAt(i),
+              latest.closeAt(i));
+    }
+    return builder.build();
+  }
+
+  /**
+   * checks if two prices of the same day differ.
+   * @param a first price.
+   * @param b second price.
+   * @return true if the prices differ by more than the tolerance.
+   */
+  private static boolean differs(double a, double b) {
+    return Math.abs(a - b) > PRICE_TOLERANCE * Math.max(Math.abs(a), Math.abs(b));
+  }
+
+  /**
+   * returns the path of the file of the ticker.
+   * @param tickerSymbol ticker symbol of the stock.
+   * @return path of the file.
+   */
+  private Path pathOf(String tickerSymbol) {
+    return directory.resolve(tickerSymbol + ".bin");
+  }
+}
@@ -0,0 +1,472 @@
+package controller;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.TreeMap;
+
+/**
+ * PriceSeries stores the historical price data of a single stock in a columnar form.
+ * The dates are stored as epoch days in ascending order, and the opening, high, low and closing
+ * prices are stored in parallel primitive arrays, one entry for each trading day.
+ * A date is looked up with a binary search on the epoch day array.
+ */
+public final class PriceSeries {
+
+  /**
+   * trading dates of the stock as epoch days, sorted in ascending order.
+   */
+  private final int[] epochDays;
+
+  /**
+   * opening prices, index aligned with the epoch days.
+   */
+  private final double[] open;
+
+  /**
+   * high prices, index aligned with the epoch days.
+   */
+  private final double[] high;
+
+  /**
+   * low prices, index aligned with the epoch days.
+   */
+  private final double[] low;
+
+  /**
+   * closing prices, index aligned with the epoch days.
+   */
+  private final double[] close;
+
+  /**
+   * calendar of the trading days of this series, sharing the epoch day array.
+   */
+  private final TradingCalendar calendar;
+
+  /**
+   * bars of this series for each bar period, each built the first time it is asked for.
+   */
+  private final PriceBars[] bars = new PriceBars[BarPeriod.values().length];
+
+  /**
+   * sums of the closing prices, the entry at an index being the sum of the closing prices before
+   * that index, built the first time it is asked for.
+   */
+  private volatile double[] closeSums;
+
+  /**
+   * constructs a price series from arrays that are already sorted by date.
+   * @param epochDays trading dates as epoch days in ascending order.
+   * @param open      opening prices.
+   * @param high      high prices.
+   * @param low       low prices.
+   * @param close     closing prices.
+   */
+  private PriceSeries(int[] epochDays, double[] open, double[] high, double[] low,
+                      double[] close) {
+    this.epochDays = epochDays;
+    this.open = open;
+    this.high = high;
+    this.low = low;
+    this.close = close;
+    this.calendar = new TradingCalendar(epochDays);
+  }
+
+  /**
+   * creates a price series from columns read back from a cache file. The arrays are used as
+   * they are and must not be changed afterwards.
+   * @param epochDays trading dates as epoch days in ascending order.
+   * @param open      opening prices.
+   * @param high      high prices.
+   * @param low       low prices.
+   * @param close     closing prices.
+   * @return the price series.
+   * @throws IllegalArgumentException if the columns differ in length or the dates are not in
+   *                                  ascending order.
+   */
+  static PriceSeries fromColumns(int[] epochDays, double[] open, double[] high, double[] low,
+                                 double[] close) {
+    int size = epochDays.length;
+    if (open.length != size || high.length != size || low.length != size
+            || close.length != size) {
+      throw new IllegalArgumentException("Price columns have different lengths");
+    }
+    for (int i = 1; i < size; i++) {
+      if (epochDays[i] <= epochDays[i - 1]) {
+        throw new IllegalArgumentException("Dates are not in ascending order");
+      }
+    }
+    return new PriceSeries(epochDays, open, high, low, close);
+  }
+
+  /**
+   * returns the number of trading days in this series.
+   * @return number of trading days.
+   */
+  public int size() {
+    return epochDays.length;
+  }
+
+  /**
+   * checks if the series has no price data.
+   * @return true if there is no trading day in the series, otherwise false.
+   */
+  public boolean isEmpty() {
+    return epochDays.length == 0;
+  }
+
+  /**
+   * returns an estimate of the memory used by the price columns of this series and the sums of
+   * its closing prices, which are counted whether or not they have been built yet.
+   * The maps handed to older callers are not counted, as they are not kept.
+   * @return estimated size in bytes.
+   */
+  public long estimatedSizeInBytes() {
+    return 112L + (long) epochDays.length * (Integer.BYTES + 5L * Double.BYTES);
+  }
+
+  /**
+   * finds the index of the given date in the series.
+   * @param date the date to be looked up.
+   * @return index of the date, or -1 if the stock was not traded on that date.
+   */
+  public int indexOf(LocalDate date) {
+    return indexOf((int) date.toEpochDay());
+  }
+
+  /**
+   * finds the index of the given epoch day in the series.
+   * @param epochDay the epoch day to be looked up.
+   * @return index of the epoch day, or -1 if the stock was not traded on that day.
+   */
+  public int indexOf(int epochDay) {
+    int index = Arrays.binarySearch(epochDays, epochDay);
+    return index >= 0 ? index : -1;
+  }
+
+  /**
+   * finds the index of the latest trading day on or before the given date.
+   * @param date the date to be looked up.
+   * @return index of the trading day, or -1 if there is no trading day on or before the date.
+   */
+  public int floorIndex(LocalDate date) {
+    return floorIndex((int) date.toEpochDay());
+  }
+
+  /**
+   * finds the index of the latest trading day on or before the given epoch day.
+   * @param epochDay the epoch day to be looked up.
+   * @return index of the trading day, or -1 if there is no trading day on or before the day.
+   */
+  public int floorIndex(int epochDay) {
+    return calendar.onOrBefore(epochDay);
+  }
+
+  /**
+   * finds the index of the earliest trading day on or after the given date.
+   * @param date the date to be looked up.
+   * @return index of the trading day, or -1 if there is no trading day on or after the date.
+   */
+  public int ceilingIndex(LocalDate date) {
+    return ceilingIndex((int) date.toEpochDay());
+  }
+
+  /**
+   * finds the index of the earliest trading day on or after the given epoch day.
+   * @param epochDay the epoch day to be looked up.
+   * @return index of the trading day, or -1 if there is no trading day on or after the day.
+   */
+  public int ceilingIndex(int epochDay) {
+    return calendar.onOrAfter(epochDay);
+  }
+
+  /**
+   * returns the calendar of the trading days of this series, whose lookups return indexes into
+   * this series.
+   * @return the trading calendar.
+   */
+  public TradingCalendar calendar() {
+    return calendar;
+  }
+
+  /**
+   * returns the daily prices of this series aggregated into bars at the given resolution.
+   * The bars are built the first time they are asked for and kept with the series, so they are
+   * cached along with it. They are not counted in the estimated size, being a fraction of it.
+   * @param period the resolution of the bars.
+   * @return the bars.
+   */
+  public PriceBars bars(BarPeriod period) {
+    synchronized (bars) {
+      PriceBars tier = bars[period.ordinal()];
+      if (tier == null) {
+        tier = new PriceBars(this, period);
+        bars[period.ordinal()] = tier;
+      }
+      return tier;
+    }
+  }
+
+  /**
+   * returns the sum of the closing prices of the trading days before the given index, added in
+   * order of date. The sums are built in one pass the first time they are asked for and kept
+   * with the series, so moving averages over any window take two lookups.
+   * @param index index of the trading day, up to the size of the series.
+   * @return sum of the closing prices before that day.
+   */
+  public double closeSumBefore(int index) {
+    double[] sums = closeSums;
+    if (sums == null) {
+      synchronized (this) {
+        sums = closeSums;
+        if (sums == null) {
+          sums = new double[close.length + 1];
+          for (int i = 0; i < close.length; i++) {
+            sums[i + 1] = sums[i] + close[i];
+          }
+          closeSums = sums;
+        }
+      }
+    }
+    return sums[index];
+  }
+
+  /**
+   * returns the trading day at the given index as an epoch day.
+   * @param index index of the trading day.
+   * @return epoch day of the trading day.
+   */
+  public int epochDayAt(int index) {
+    return epochDays[index];
+  }
+
+  /**
+   * returns the trading day at the given index.
+   * @param index index of the trading day.
+   * @return date of the trading day.
+   */
+  public LocalDate dateAt(int index) {
+    return LocalDate.ofEpochDay(epochDays[index]);
+  }
+
+  /**
+   * returns the opening price at the given index.
+   * @param index index of the trading day.
+   * @return opening price on that day.
+   */
+  public double openAt(int index) {
+    return open[index];
+  }
+
+  /**
+   * returns the high price at the given index.
+   * @param index index of the trading day.
+   * @return high price on that day.
+   */
+  public double highAt(int index) {
+    return high[index];
+  }
+
+  /**
+   * returns the low price at the given index.
+   * @param index index of the trading day.
+   * @return low price on that day.
+   */
+  public double lowAt(int index) {
+    return low[index];
+  }
+
+  /**
+   * returns the closing price at the given index.
+   * @param index index of the trading day.
+   * @return closing price on that day.
+   */
+  public double closeAt(int index) {
+    return close[index];
+  }
+
+  /**
+   * returns the first trading day of the series, that is when the stock was listed.
+   * @return first trading day.
+   * @throws IllegalArgumentException if the series is empty.
+   */
+  public LocalDate firstDate() {
+    if (isEmpty()) {
+      throw new IllegalArgumentException();
+    }
+    return dateAt(0);
+  }
+
+  /**
+   * returns the latest trading day of the series.
+   * @return latest trading day.
+   * @throws IllegalArgumentException if the series is empty.
+   */
+  public LocalDate lastDate() {
+    if (isEmpty()) {
+      throw new IllegalArgumentException();
+    }
+    return dateAt(epochDays.length - 1);
+  }
+
+  /**
+   * returns this series as a TreeMap of date string to opening, high, low and closing price,
+   * ordered from the latest date to the earliest date.
+   * The map is only kept for compatibility with older callers. Each call builds a new map that
+   * belongs to the caller, so changing it does not change the series, which is shared through
+   * the price cache.
+   * @return map of the series.
+   */
+  public TreeMap<String, ArrayList<Double>> asMap() {
+    TreeMap<String, ArrayList<Double>> map = new TreeMap<>(Collections.reverseOrder());
+    for (int i = 0; i < epochDays.length; i++) {
+      map.put(dateAt(i).toString(), new ArrayList<>(Arrays.asList(open[i], high[i], low[i],
+              close[i])));
+    }
+    return map;
+  }
+
+  /**
+   * Builder class to create a PriceSeries from rows that can be added in any order.
+   * If the same date is added more than once, the row added last is kept.
+   */
+  public static class Builder {
+
+    /**
+     * epoch days added so far.
+     */
+    private int[] days;
+
+    /**
+     * opening, high, low and closing prices added so far, four values per row.
+     */
+    private double[] prices;
+
+    /**
+     * number of rows added so far.
+     */
+    private int count;
+
+    /**
+     * constructs an empty builder.
+     */
+    public Builder() {
+      this(256);
+    }
+
+    /**
+     * constructs an empty builder with room for the given number of rows.
+     * @param expectedRows number of rows that are expected to be added.
+     */
+    public Builder(int expectedRows) {
+      int capacity = Math.max(expectedRows, 16);
+      days = new int[capacity];
+      prices = new double[capacity * 4];
+      count = 0;
+    }
+
+    /**
+     * adds the prices of one trading day.
+     * @param date  the trading day.
+     * @param open  opening price.
+     * @param high  high price.
+     * @param low   low price.
+     * @param close closing price.
+     * @return this builder.
+     */
+    public Builder add(LocalDate date, double open, double high, double low, double close) {
+      return add((int) date.toEpochDay(), open, high, low, close);
+    }
+
+    /**
+     * adds the prices of one trading day given as an epoch day.
+     * @param epochDay the trading day as an epoch day.
+     * @param open     opening price.
+     * @param high     high price.
+     * @param low      low price.
+     * @param close    closing price.
+     * @return this builder.
+     */
+    public Builder add(int epochDay, double open, double high, double low, double close) {
+      if (count == days.length) {
+        days = Arrays.copyOf(days, count * 2);
+        prices = Arrays.copyOf(prices, count * 8);
+      }
+      days[count] = epochDay;
+      int base = count * 4;
+      prices[base] = open;
+      prices[base + 1] = high;
+      prices[base + 2] = low;
+      prices[base + 3] = close;
+      count++;
+      return this;
+    }
+
+    /**
+     * builds the price series, sorting the rows by date.
+     * @return the price series containing the rows added.
+     */
+    public PriceSeries build() {
+      int[] order = sortedOrder();
+      int size = order.length;
+      int[] epochDays = new int[size];
+      double[] open = new double[size];
+      double[] high = new double[size];
+      double[] low = new double[size];
+      double[] close = new double[size];
+      for (int i = 0; i < size; i++) {
+        int row = order[i];
+        epochDays[i] = days[row];
+        open[i] = prices[row * 4];
+        high[i] = prices[row * 4 + 1];
+        low[i] = prices[row * 4 + 2];
+        close[i] = prices[row * 4 + 3];
+      }
+      return new PriceSeries(epochDays, open, high, low, close);
+    }
+
+    /**
+     * finds the order in which the rows should be placed in the series.
+     * Rows from the provider are newest first, so the common cases of ascending and
+     * descending input are handled without a sort.
+     * @return row numbers in ascending order of date, with duplicate dates removed.
+     */
+    private int[] sortedOrder() {
+      boolean ascending = true;
+      boolean descending = true;
+      for (int i = 1; i < count && (ascending || descending); i++) {
+        ascending &= days[i] > days[i - 1];
+        descending &= days[i] < days[i - 1];
+      }
+      int[] order = new int[count];
+      if (ascending) {
+        for (int i = 0; i < count; i++) {
+          order[i] = i;
+        }
+        return order;
+      }
+      if (descending) {
+        for (int i = 0; i < count; i++) {
+          order[i] = count - 1 - i;
+        }
+        return order;
+      }
+      long[] keys = new long[count];
+      for (int i = 0; i < count; i++) {
+        keys[i] = ((long) days[i] << 32) | i;
+      }
+      Arrays.sort(keys);
+      int size = 0;
+      for (int i = 0; i < count; i++) {
+        int row = (int) keys[i];
+        if (size > 0 && days[order[size - 1]] == days[row]) {
+          order[size - 1] = row;
+        } else {
+          order[size++] = row;
+        }
+      }
+      return Arrays.copyOf(order, size);
+    }
+  }
+}
@@ -0,0 +1,150 @@
+package controller;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.zip.CRC32;
+
+/**
+ * PriceSeriesFile reads and writes a price series in a compact binary cache format.
+ * The file has a header followed by the columns of the series, so it can be read back by
+ * mapping the file into memory and copying each column in bulk, without any parsing.
+ *
+ * <p>The header holds, in little endian order, the magic number, the format version, the number
+ * of rows, a reserved int and the CRC32 checksum of the columns. It is followed by the epoch day
+ * column as ints and the opening, high, low and closing price columns as doubles.
+ */
+final class PriceSeriesFile {
+
+  /**
+   * magic number at the start of every cache file, the bytes "PSC1".
+   */
+  private static final int MAGIC = 0x31435350;
+
+  /**
+   * version of the format written by this class.
+   */
+  private static final int VERSION = 1;
+
+  /**
+   * size of the header in bytes.
+   */
+  private static final int HEADER_BYTES = 24;
+
+  /**
+   * size of one row of the columns in bytes.
+   */
+  private static final int ROW_BYTES = Integer.BYTES + 4 * Double.BYTES;
+
+  /**
+   * this class only has static methods.
+   */
+  private PriceSeriesFile() {
+  }
+
+  /**
+   * writes the series to the given file. The file is written next to its final place and
+   * then moved there, so readers never see a partly written file.
+   * @param series the series to be written.
+   * @param path   the cache file.
+   * @throws IOException if the file cannot be written.
+   */
+  static void write(PriceSeries series, Path path) throws IOException {
+    int rows = series.size();
+    ByteBuffer columns = ByteBuffer.allocate(rows * ROW_BYTES).order(ByteOrder.LITTLE_ENDIAN);
+    for (int i = 0; i < rows; i++) {
+      columns.putInt(series.epochDayAt(i));
+    }
+    for (int i = 0; i < rows; i++) {
+      columns.putDouble(series.openAt(i));
+    }
+    for (int i = 0; i < rows; i++) {
+      columns.putDouble(series.highAt(i));
+    }
+    for (int i = 0; i < rows; i++) {
+      columns.putDouble(series.lowAt(i));
+    }
+    for (int i = 0; i < rows; i++) {
+      columns.putDouble(series.closeAt(i));
+    }
+    columns.flip();
+    CRC32 crc = new CRC32();
+    crc.update(columns.duplicate());
+
+    ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES).order(ByteOrder.LITTLE_ENDIAN);
+    header.putInt(MAGIC).putInt(VERSION).putInt(rows).putInt(0).putLong(crc.getValue());
+    header.flip();
+
+    AtomicFiles.replace(path, ".part", tempFile -> {
+      try (FileChannel out = FileChannel.open(tempFile, StandardOpenOption.WRITE,
+              StandardOpenOption.TRUNCATE_EXISTING)) {
+        while (header.hasRemaining()) {
+          out.write(header);
+        }
+        while (columns.hasRemaining()) {
+          out.write(columns);
+        }
+      }
+      return null;
+    });
+  }
+
+  /**
+   * reads a series from the given file by mapping it into memory.
+   * @param path the cache file.
+   * @return the series stored in the file.
+   * @throws IOException if the file cannot be read.
+   * @throws IllegalArgumentException if the file is not a valid cache file or its checksum does
+   *                                  not match its columns.
+   */
+  static PriceSeries read(Path path) throws IOException {
+    try (FileChannel in = FileChannel.open(path, StandardOpenOption.READ)) {
+      long size = in.size();
+      if (size < HEADER_BYTES) {
+        throw new IllegalArgumentException("Cache file is too short");
+      }
+      MappedByteBuffer mapped = in.map(FileChannel.MapMode.READ_ONLY, 0, size);
+      mapped.order(ByteOrder.LITTLE_ENDIAN);
+      if (mapped.getInt(0) != MAGIC || mapped.getInt(4) != VERSION) {
+        throw new IllegalArgumentException("Not a price cache file");
+      }
+      int rows = mapped.getInt(8);
+      long checksum = mapped.getLong(16);
+      if (rows < 0 || size != HEADER_BYTES + (long) rows * ROW_BYTES) {
+        throw new IllegalArgumentException("Cache file has the wrong size");
+      }
+      ByteBuffer columns = mapped.duplicate().position(HEADER_BYTES);
+      CRC32 crc = new CRC32();
+      crc.update(columns.duplicate());
+      if (crc.getValue() != checksum) {
+        throw new IllegalArgumentException("Cache file checksum does not match");
+      }
+      columns.order(ByteOrder.LITTLE_ENDIAN);
+      int[] epochDays = new int[rows];
+      columns.asIntBuffer().get(epochDays);
+      columns.position(columns.position() + rows * Integer.BYTES);
+      double[] open = readColumn(columns, rows);
+      double[] high = readColumn(columns, rows);
+      double[] low = readColumn(columns, rows);
+      double[] close = readColumn(columns, rows);
+      return PriceSeries.fromColumns(epochDays, open, high, low, close);
+    }
+  }
+
+  /**
+   * copies the next column of doubles from the buffer.
+   * @param columns buffer positioned at the start of the column.
+   * @param rows    number of rows in the column.
+   * @return the column.
+   */
+  private static double[] readColumn(ByteBuffer columns, int rows) {
+    double[] column = new double[rows];
+    columns.asDoubleBuffer().get(column);
+    columns.position(columns.position() + rows * Double.BYTES);
+    return column;
+  }
+}
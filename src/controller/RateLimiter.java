@@ -0,0 +1,120 @@
+package controller;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongSupplier;
+
+/**
+ * RateLimiter spaces out the calls made to the stock data API so that they stay within the
+ * quota of the provider. Callers ask for a permit before each call, and are made to wait until
+ * the next call is allowed.
+ *
+ * <p>By default the calls are spaced to the quota of the API key the provider is configured
+ * with. The system property can be set to use another number of calls per minute instead, for
+ * example for a key with a larger quota.
+ */
+final class RateLimiter {
+
+  /**
+   * system property that can be used to set the number of API calls allowed per minute instead
+   * of the quota of the provider, 0 means there is no limit.
+   */
+  static final String MAX_PER_MINUTE_PROPERTY = "stockdata.fetch.maxPerMinute";
+
+  /**
+   * the limiters shared by all the API calls of the application, by calls allowed per minute.
+   */
+  private static final Map<Integer, RateLimiter> SHARED = new ConcurrentHashMap<>();
+
+  /**
+   * time between two calls in nanoseconds, 0 if there is no limit.
+   */
+  private final long intervalNanos;
+
+  /**
+   * clock the calls are timed with, in nanoseconds.
+   */
+  private final LongSupplier clock;
+
+  /**
+   * time at which the next call is allowed, as given by the clock.
+   */
+  private long nextPermitNanos;
+
+  /**
+   * constructs a limiter that allows the given number of calls per minute.
+   * @param maxPerMinute number of calls allowed per minute, 0 for no limit.
+   * @throws IllegalArgumentException if the number of calls is negative.
+   */
+  RateLimiter(int maxPerMinute) {
+    this(maxPerMinute, System::nanoTime);
+  }
+
+  /**
+   * constructs a limiter that allows the given number of calls per minute, timed with the given
+   * clock.
+   * @param maxPerMinute number of calls allowed per minute, 0 for no limit.
+   * @param clock        clock the calls are timed with, in nanoseconds.
+   * @throws IllegalArgumentException if the number of calls is negative.
+   */
+  RateLimiter(int maxPerMinute, LongSupplier clock) {
+    if (maxPerMinute < 0) {
+      throw new IllegalArgumentException("Rate limit cannot be negative");
+    }
+    this.intervalNanos = maxPerMinute == 0 ? 0 : TimeUnit.MINUTES.toNanos(1) / maxPerMinute;
+    this.clock = clock;
+    this.nextPermitNanos = clock.getAsLong();
+  }
+
+  /**
+   * returns the limiter shared by all the API calls made to a provider with the given quota,
+   * or the one for the number of calls set by the system property if it is set.
+   * @param quotaPerMinute number of calls per minute the provider allows, 0 for no quota.
+   * @return the shared limiter.
+   */
+  static RateLimiter forQuota(int quotaPerMinute) {
+    return SHARED.computeIfAbsent(Integer.getInteger(MAX_PER_MINUTE_PROPERTY, quotaPerMinute),
+            RateLimiter::new);
+  }
+
+  /**
+   * returns the time between two calls.
+   * @return time between two calls in nanoseconds, 0 if there is no limit.
+   */
+  long intervalNanos() {
+    return intervalNanos;
+  }
+
+  /**
+   * waits until the next call is allowed.
+   * @throws IllegalStateException if the thread is interrupted while waiting.
+   */
+  void acquire() {
+    long waitNanos = reserve();
+    if (waitNanos > 0) {
+      try {
+        TimeUnit.NANOSECONDS.sleep(waitNanos);
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        throw new IllegalStateException("Interrupted while waiting to call the API");
+      }
+    }
+  }
+
+  /**
+   * takes the next permit, without waiting for it.
+   * @return time in nanoseconds until the permit taken allows the call, 0 if it allows it now.
+   */
+  long reserve() {
+    if (intervalNanos == 0) {
+      return 0;
+    }
+    synchronized (this) {
+      long now = clock.getAsLong();
+      long permit = Math.max(now, nextPermitNanos);
+      nextPermitNanos = permit + intervalNanos;
+      return permit - now;
+    }
+  }
+}
@@ -74,8 +74,9 @@ public class StockControllerImpl implements StockController {
 
   /**
    * this method deletes all folders in a specified directory,
-   * except for the folder named with the current date's name. This can be useful for
-   * cleanup operations where only the most recent data should be preserved.
+   * except for the folder named with the current date's name and the price history store.
+   * This can be useful for cleanup operations where only the most recent data should be
+   * preserved.
    *
    * @param directoryPath Path to the directory where folders will be deleted.
    */
@@ -87,8 +88,9 @@ public class StockControllerImpl implements StockController {
     File[] files = directory.listFiles();
     if (files != null) {
       for (File file : files) {
-        // Check if it's a directory and not the current date folder
-        if (file.isDirectory() && !file.getName().equals("" + currentDate)) {
+        // Check if it's a directory and not the current date folder or the history store
+        if (file.isDirectory() && !file.getName().equals("" + currentDate)
+                && !file.getName().equals("store")) {
           deleteCSVFiles(file);
         }
       }
@@ -381,7 +383,8 @@ public class StockControllerImpl implements StockController {
    * This method takes in path from user for saving portfolio.
    * If the path is incorrect an exception is thrown.
    * the valid user input for portfolio to be selected is taken and that file is saved using.
-   * exportAsCSV method in the persistence class in controller.
+   * exportAsCSV method in the persistence class in controller, which streams the rows of the
+   * portfolio to the file. A path ending with .csv.gz saves it compressed.
    */
   private void export() {
     int input = inputPortfolioChoice();
@@ -389,7 +392,7 @@ public class StockControllerImpl implements StockController {
     String path = scan.nextLine();
     Persistence persistence = new Persistence();
     try {
-      persistence.exportAsCSV(path, model.save(input));
+      persistence.exportAsCSV(path, out -> model.save(input, out));
       view.print("Portfolio exported to " + path + " successfully.");
     } catch (IllegalArgumentException e) {
       view.displayError(e.getMessage());
@@ -96,7 +96,7 @@ public class StockControllerImplGUI implements Features  {
     }
     Persistence persistence = new Persistence();
     try {
-      persistence.exportAsCSV(path, model.save(input));
+      persistence.exportAsCSV(path, out -> model.save(input, out));
       successMessage = "Portfolio exported to " + path + " successfully.";
 
     } catch (IllegalArgumentException e) {
@@ -472,6 +472,11 @@ public class StockControllerImplGUI implements Features  {
     return list;
   }
 
+  @Override
+  public Map<String, String> suggestTickers(String prefix) {
+    return model.suggestTickers(prefix, 8);
+  }
+
   @Override
   public void loadPortfolio(String name, String portfolioPath) {
     successMessage = null;
@@ -1,100 +1,118 @@
 package controller;
 
 import java.io.File;
+import java.io.IOException;
+import java.nio.file.Paths;
 import java.time.LocalDate;
 import java.util.ArrayList;
-import java.util.Arrays;
-import java.util.Collections;
+import java.util.Collection;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.TreeMap;
 
 /**
  * StockData class provides methods for fetching historical stock data and storing it in a CSV file.
+ * The full history of each ticker is also kept in a price history store across days, in a binary
+ * file that is read back by mapping it into memory, so that each new day only the latest prices
+ * are fetched and appended to it.
+ * The parsed price series are kept in a price cache, by default the one shared by the whole
+ * application, so a ticker is only read once a day whichever StockData object asks for it.
  */
 public class StockData implements IStockData {
 
   /**
-   * The ticker symbol representing the stock for which data is fetched.
+   * cache of the price series that this object reads from and loads into.
    */
-  private String tickerSymbol;
+  private final PriceCache cache;
 
   /**
-   * TreeMap storing historical price data for the ticker symbol.
-   * keys are dates, and the values are ArrayLists containing opening price,
-   * closing price, high price, and low price.
+   * the API that the price series are fetched from when there is no file for today.
    */
-  private final TreeMap<String, ArrayList<Double>> priceData;
+  private final FetchFromAPI api;
 
   /**
-   * Constructs a new StockData object, price data.
-   * Initializes the priceData TreeMap to store historical price data.
+   * the limiter that keeps the calls to the API within the quota of the provider.
+   */
+  private final RateLimiter limiter;
+
+  /**
+   * the store keeping the full history of each ticker across days.
+   */
+  private final PriceHistoryStore store;
+
+  /**
+   * Constructs a new StockData object that uses the price cache shared by the application.
    */
   public StockData() {
-    priceData = new TreeMap<>(Collections.reverseOrder());
-    tickerSymbol = null;
+    this(PriceCache.shared());
   }
 
+  /**
+   * Constructs a new StockData object that uses the given price cache.
+   * @param cache the price cache used to keep the fetched price series.
+   */
+  public StockData(PriceCache cache) {
+    this(cache, new FetchFromAlphaVantage());
+  }
 
   /**
-   * storeFetchedData is used to store the data got from the api call in the csv file.
-   * it does this with the help of file handler, save method.
-   * it also stores this data in a price data object.
-   * @param output is the price for the stock on dates fetched when the api is called.
+   * Constructs a new StockData object that uses the given price cache and API.
+   * @param cache the price cache used to keep the fetched price series.
+   * @param api   the API that the price series are fetched from.
    */
-  private void storeFetchedData(StringBuilder output) {
-    output.delete(0, output.indexOf(System.lineSeparator()) + 1);
-    LocalDate currentDate = LocalDate.now();
-    String fileName =
-            System.getProperty("user.dir") + "/Data/" + currentDate + "/" + tickerSymbol + ".csv";
-    String[] lines = output.toString().split("\n");
-    for (int i = 1; i < lines.length; i++) {
-      String line = lines[i];
-      String[] parts = line.split(",");
-      populateMap(parts);
-    }
+  StockData(PriceCache cache, FetchFromAPI api) {
+    this(cache, api, PriceHistoryStore.inWorkingDirectory());
+  }
 
-    Persistence fileHandler = new Persistence();
-    fileHandler.exportAsCSV(fileName, output);
+  /**
+   * Constructs a new StockData object that uses the given price cache, API and history store.
+   * @param cache the price cache used to keep the fetched price series.
+   * @param api   the API that the price series are fetched from.
+   * @param store the store keeping the full history of each ticker across days.
+   */
+  StockData(PriceCache cache, FetchFromAPI api, PriceHistoryStore store) {
+    this.cache = cache;
+    this.api = api;
+    this.limiter = RateLimiter.forQuota(api.callsPerMinute());
+    this.store = store;
   }
 
+
   /**
-   * this method populates priceData TreeMap with historical stock data extracted from given line.
+   * this method adds historical stock data extracted from given line to the series builder.
    * line should contain comma-separated values representing date, opening price, high price,
-   * closing price, and low price.
+   * low price, and closing price.
+   * @param builder the builder of the price series the row is added to.
    * @param line An array of strings representing a line of historical stock data.
-   *
-   */
-  private void populateMap(String[] line) {  // here should be >=5 ?
-    if (line.length >= 2) {
-      String date = line[0].trim();
-      String openingPriceStr = line[1].trim();
-      String closingPriceStr = line[4].trim();
-      String lowPriceStr = line[3].trim();
-      String highPriceStr = line[2].trim();
-      Double openingPrice = Double.parseDouble(openingPriceStr);
-      Double closingPrice = Double.parseDouble(closingPriceStr);
-      Double lowPrice = Double.parseDouble(lowPriceStr);
-      Double highPrice = Double.parseDouble(highPriceStr);
-      this.priceData.put(date, new ArrayList<>(Arrays.asList(openingPrice, highPrice, lowPrice,
-              closingPrice)));
-
+   */
+  private void addRow(PriceSeries.Builder builder, String[] line) {
+    if (line.length >= 5) {
+      LocalDate date = LocalDate.parse(line[0].trim());
+      double openingPrice = Double.parseDouble(line[1].trim());
+      double highPrice = Double.parseDouble(line[2].trim());
+      double lowPrice = Double.parseDouble(line[3].trim());
+      double closingPrice = Double.parseDouble(line[4].trim());
+      builder.add(date, openingPrice, highPrice, lowPrice, closingPrice);
     }
   }
 
   /**
    * loadDatFromCSV is used to load the csv file of a particular ticker symbol present in.
-   * current date's folder using the file handler load method and puts the data in the price data.
-   * object that contains the date and closing price data for the tickerSymbol.
+   * current date's folder using the file handler load method and returns the data as the price
+   * series of the tickerSymbol.
+   * @param tickerSymbol the ticker symbol whose file is loaded.
+   * @return price series of the loaded data.
    */
-  private void loadDataFromFile() {
-    LocalDate currentDate = LocalDate.now();
-    String fileName =
-            System.getProperty("user.dir") + "/Data/" + currentDate + "/" + tickerSymbol + ".csv";
+  private PriceSeries loadDataFromFile(String tickerSymbol) {
+    String fileName = getFileName(tickerSymbol);
     Persistence fileHandler = new Persistence();
     List<String[]> lines = fileHandler.loadFromCSV(fileName);
+    PriceSeries.Builder builder = new PriceSeries.Builder(lines.size());
     for (String[] line : lines) {
-      populateMap(line);
+      addRow(builder, line);
     }
+    return builder.build();
   }
 
 
@@ -105,35 +123,136 @@ public class StockData implements IStockData {
    * @throws IllegalArgumentException if no price data is found for the provided ticker symbol.
    */
   public TreeMap<String, ArrayList<Double>> fetchHistoricalData(String tickerSymbol) {
-    this.tickerSymbol = tickerSymbol;
+    return fetchPriceSeries(tickerSymbol).asMap();
+  }
+
+  /**
+   * this method gets the historical price series for the tickerSymbol.
+   * The series is taken from the price cache, and only read from the file or the API if the
+   * cache does not have it yet.
+   * @param tickerSymbol The ticker symbol of the stock for which price is to be fetched.
+   * @return PriceSeries containing the trading days and the prices on those days.
+   * @throws IllegalArgumentException if no price data is found for the provided ticker symbol.
+   */
+  public PriceSeries fetchPriceSeries(String tickerSymbol) {
+    return cache.get(tickerSymbol, this::loadPriceSeries);
+  }
+
+  /**
+   * this method loads the price series of many tickers ahead of their use.
+   * Tickers already in the price cache are resolved at once, the others are loaded at the same
+   * time by the batch fetcher.
+   * @param tickerSymbols The ticker symbols of the stocks whose prices are to be fetched.
+   * @return Map of each ticker symbol to true if its prices were loaded, otherwise false.
+   */
+  public Map<String, Boolean> prefetch(Collection<String> tickerSymbols) {
+    Map<String, Boolean> results = new LinkedHashMap<>();
+    List<String> misses = new ArrayList<>();
+    for (String tickerSymbol : tickerSymbols) {
+      if (cache.contains(tickerSymbol)) {
+        results.put(tickerSymbol, true);
+      } else {
+        results.put(tickerSymbol, false);
+        misses.add(tickerSymbol);
+      }
+    }
+    if (!misses.isEmpty()) {
+      results.putAll(BatchFetcher.shared().fetchAll(misses, this));
+    }
+    return results;
+  }
 
+  /**
+   * this method loads the price series of the tickerSymbol from the history store.
+   * If the stored history was refreshed today it is used as it is. If it is older, only the
+   * latest prices are fetched and appended to it, unless they show a gap or a split, in which
+   * case the whole history is fetched again. If nothing is stored, the history is read from
+   * today's CSV file, or fetched in full if there is no such file.
+   * @param tickerSymbol The ticker symbol of the stock for which price is to be fetched.
+   * @return PriceSeries containing the trading days and the prices on those days.
+   * @throws IllegalArgumentException if no price data is found for the provided ticker symbol.
+   */
+  private PriceSeries loadPriceSeries(String tickerSymbol) {
+    PriceSeries stored = store.read(tickerSymbol);
+    if (stored != null && store.isRefreshedToday(tickerSymbol)) {
+      return stored;
+    }
     try {
-      if (!isCSVFileExists()) {
-        FetchFromAPI api = new FetchFromAlphaVantage();
-        storeFetchedData(api.fetchData(tickerSymbol));
-      } else if (isCSVFileExists()) {
-        loadDataFromFile();
+      PriceSeries series = null;
+      if (stored != null) {
+        PriceSeries latest = fetchLatest(tickerSymbol);
+        if (latest == null) {
+          return stored;
+        }
+        series = PriceHistoryStore.merge(stored, latest);
+      } else if (isCSVFileExists(tickerSymbol)) {
+        series = loadDataFromFile(tickerSymbol);
+      }
+      if (series == null) {
+        limiter.acquire();
+        series = api.fetchPriceSeries(tickerSymbol, true, Paths.get(getFileName(tickerSymbol)));
       }
+      saveToStore(tickerSymbol, series);
+      return series;
     } catch (IllegalArgumentException e) {
-      throw new IllegalArgumentException(this.tickerSymbol);
+      throw new IllegalArgumentException(tickerSymbol);
     }
+  }
 
-    return priceData;
+  /**
+   * this method fetches the latest prices of the tickerSymbol, to be appended to its stored
+   * history.
+   * @param tickerSymbol the ticker symbol of the stock.
+   * @return the latest prices, or null if they cannot be fetched, in which case the stored
+   *         history is used as it is and the refresh is tried again on the next load.
+   */
+  private PriceSeries fetchLatest(String tickerSymbol) {
+    try {
+      limiter.acquire();
+      return api.fetchPriceSeries(tickerSymbol, false,
+              Paths.get(getFileName(tickerSymbol + ".latest")));
+    } catch (RuntimeException e) {
+      return null;
+    }
+  }
 
+  /**
+   * this method writes the history of the tickerSymbol to the store.
+   * The store only saves later fetches, so a failure to write it is ignored.
+   * @param tickerSymbol the ticker symbol whose history is written.
+   * @param series       the full history of the stock.
+   */
+  private void saveToStore(String tickerSymbol, PriceSeries series) {
+    if (series.isEmpty()) {
+      return;
+    }
+    try {
+      store.write(tickerSymbol, series);
+    } catch (IOException e) {
+      // the history is fetched again on the next load.
+    }
   }
 
   /**
    * this method is used to check is a CSV file exists or not for a particular tickerSymbol.
    * in the data folder.
+   * @param tickerSymbol the ticker symbol whose file is checked.
    * @return true if the csv file exists for else returns false.
    */
-  private boolean isCSVFileExists() {
-    LocalDate currentDate = LocalDate.now();
-    String fileName =
-            System.getProperty("user.dir") + "/Data/" + currentDate + "/" + tickerSymbol + ".csv";
-    File csvFile = new File(fileName);
+  private boolean isCSVFileExists(String tickerSymbol) {
+    File csvFile = new File(getFileName(tickerSymbol));
     return csvFile.exists();
   }
 
+  /**
+   * returns the path of the csv file of the tickerSymbol in the current date's folder.
+   * @param tickerSymbol the ticker symbol of the stock.
+   * @return path of the csv file.
+   */
+  private String getFileName(String tickerSymbol) {
+    LocalDate currentDate = LocalDate.now();
+    return System.getProperty("user.dir") + "/Data/" + currentDate + "/" + tickerSymbol + ".csv";
+  }
+
 
 }
@@ -0,0 +1,130 @@
+package controller;
+
+import java.time.LocalDate;
+import java.util.Arrays;
+
+/**
+ * TradingCalendar answers which days a stock was traded on, from the sorted epoch days of its
+ * price series. Every lookup is a binary search, so it takes the same bounded time for dates
+ * before the stock was listed or after its latest price as for any other date.
+ * Lookups return the index of a trading day in the price series, or -1 if there is none.
+ */
+public final class TradingCalendar {
+
+  /**
+   * trading days as epoch days in ascending order, shared with the price series.
+   */
+  private final int[] epochDays;
+
+  /**
+   * constructs a calendar over the trading days of a price series.
+   * @param epochDays trading days as epoch days in ascending order, which are not copied.
+   */
+  TradingCalendar(int[] epochDays) {
+    this.epochDays = epochDays;
+  }
+
+  /**
+   * returns the number of trading days.
+   * @return number of trading days.
+   */
+  public int size() {
+    return epochDays.length;
+  }
+
+  /**
+   * checks if the stock was traded on the given epoch day.
+   * @param epochDay the day as an epoch day.
+   * @return true if it is a trading day.
+   */
+  public boolean isTradingDay(int epochDay) {
+    return Arrays.binarySearch(epochDays, epochDay) >= 0;
+  }
+
+  /**
+   * finds the latest trading day on or before the given epoch day.
+   * @param epochDay the day as an epoch day.
+   * @return index of the trading day, or -1 if the day is before the first trading day.
+   */
+  public int onOrBefore(int epochDay) {
+    int index = Arrays.binarySearch(epochDays, epochDay);
+    return index >= 0 ? index : -index - 2;
+  }
+
+  /**
+   * finds the earliest trading day on or after the given epoch day.
+   * @param epochDay the day as an epoch day.
+   * @return index of the trading day, or -1 if the day is after the last trading day.
+   */
+  public int onOrAfter(int epochDay) {
+    int index = Arrays.binarySearch(epochDays, epochDay);
+    if (index >= 0) {
+      return index;
+    }
+    int insertionPoint = -index - 1;
+    return insertionPoint < epochDays.length ? insertionPoint : -1;
+  }
+
+  /**
+   * finds the latest trading day strictly before the given epoch day.
+   * @param epochDay the day as an epoch day.
+   * @return index of the trading day, or -1 if there is none.
+   */
+  public int previous(int epochDay) {
+    return epochDay == Integer.MIN_VALUE ? -1 : onOrBefore(epochDay - 1);
+  }
+
+  /**
+   * finds the earliest trading day strictly after the given epoch day.
+   * @param epochDay the day as an epoch day.
+   * @return index of the trading day, or -1 if there is none.
+   */
+  public int next(int epochDay) {
+    return epochDay == Integer.MAX_VALUE ? -1 : onOrAfter(epochDay + 1);
+  }
+
+  /**
+   * returns the trading day at the given index as an epoch day.
+   * @param index index of the trading day.
+   * @return epoch day of the trading day.
+   */
+  public int epochDayAt(int index) {
+    return epochDays[index];
+  }
+
+  /**
+   * finds the latest trading day on or before the given date.
+   * @param date the date.
+   * @return the trading day, or null if the date is before the first trading day.
+   */
+  public LocalDate nearestOnOrBefore(LocalDate date) {
+    return dateOf(onOrBefore((int) date.toEpochDay()));
+  }
+
+  /**
+   * finds the latest trading day strictly before the given date.
+   * @param date the date.
+   * @return the trading day, or null if there is none.
+   */
+  public LocalDate prevTradingDay(LocalDate date) {
+    return dateOf(previous((int) date.toEpochDay()));
+  }
+
+  /**
+   * finds the earliest trading day strictly after the given date.
+   * @param date the date.
+   * @return the trading day, or null if there is none.
+   */
+  public LocalDate nextTradingDay(LocalDate date) {
+    return dateOf(next((int) date.toEpochDay()));
+  }
+
+  /**
+   * returns the trading day at an index found by a lookup.
+   * @param index index of the trading day, or -1.
+   * @return the trading day, or null if the index is -1.
+   */
+  private LocalDate dateOf(int index) {
+    return index < 0 ? null : LocalDate.ofEpochDay(epochDays[index]);
+  }
+}
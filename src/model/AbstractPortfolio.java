@@ -1,13 +1,13 @@
 package model;
 
+import java.io.IOException;
 import java.time.LocalDate;
-import java.util.ArrayList;
 import java.util.HashMap;
-import java.util.List;
 import java.util.Map;
-import java.util.TreeMap;
+import java.util.Set;
 
 import controller.IStockData;
+import controller.PriceSeries;
 
 /**
  * An abstract class implementing common functionality for flexible and inflexible portfolio.
@@ -36,21 +36,44 @@ abstract class AbstractPortfolio implements Portfolio {
     return portfolioName;
   }
 
+  /**
+   * this method collects the rows written by save into a StringBuilder.
+   * @return StringBuilder containing the saved portfolio data in CSV format.
+   */
+  @Override
+  public StringBuilder save() {
+    StringBuilder sb = new StringBuilder();
+    try {
+      save(sb);
+    } catch (IOException e) {
+      throw new IllegalArgumentException(e.getMessage());
+    }
+    return sb;
+  }
+
   /**
    * this method retrieves closing price of a stock on a specified date.
    * @param ticker ticker symbol of the stock.
    * @param api  StockData object used to fetch historical data.
    * @param date date for which the closing price is to be retrieved.
    * @return closing price of the stock on the specified date.
+   * @throws IllegalArgumentException if the share was not listed on the date, or with the ticker
+   *                                  symbol as message if there is no price on that date.
    */
   protected double getClosingPriceOnDate(String ticker, IStockData api, String date) {
-    TreeMap<String, ArrayList<Double>> priceData = api.fetchHistoricalData(ticker);
-    LocalDate ipoDate = LocalDate.parse(priceData.lastEntry().getKey());
+    PriceSeries priceSeries = api.fetchPriceSeries(ticker);
+    if (priceSeries.isEmpty()) {
+      throw new IllegalArgumentException(ticker);
+    }
     LocalDate thisDate = LocalDate.parse(date);
-    if (thisDate.isBefore(ipoDate)) {
+    if (thisDate.isBefore(priceSeries.firstDate())) {
       throw new IllegalArgumentException("The share was not listed");
     }
-    return priceData.get(date).get(3);
+    int index = priceSeries.indexOf(thisDate);
+    if (index < 0) {
+      throw new IllegalArgumentException(ticker);
+    }
+    return priceSeries.closeAt(index);
   }
 
   /**
@@ -65,39 +88,37 @@ abstract class AbstractPortfolio implements Portfolio {
     for (Map.Entry<String, Double> entry : composition.entrySet()) {
       String ticker = entry.getKey();
       Double quantity = entry.getValue();
-      try {
-        Double closingPrice = getClosingPriceOnDate(ticker, api, date);
-        totalValue += closingPrice * quantity;
-      } catch (NullPointerException e) {
-        throw new IllegalArgumentException(ticker);
-      }
+      double closingPrice = getClosingPriceOnDate(ticker, api, date);
+      totalValue += closingPrice * quantity;
     }
     return totalValue;
   }
 
   /**
    * this method validates if the share name exists in the stocks.csv file.
+   * The file is looked up through the ticker registry, which reads it once and indexes it
+   * by ticker symbol and company name.
    * @param shareName The name of the share to be validated.
    * @return ticker symbol of the share if found, otherwise null.
    */
   static String validateStockName(String shareName) {
-    FileHandler fileHandler = new FileHandler();
-    List<String[]> lines = fileHandler.load("stocks.csv");
-    for (String[] line : lines) {
-      if (line.length >= 2) {
-        String tickerSymbol = line[0].trim();
-        String companyName = line[1].trim().replaceAll("\\s", "");
-
-        if (companyName.equalsIgnoreCase(shareName.trim().replaceAll("\\s", ""))
-                || tickerSymbol.equalsIgnoreCase(shareName.trim().replaceAll("\\s",
-                ""))) {
-          return tickerSymbol;
-        }
-      }
-    }
-    return null;
+    return TickerRegistry.shared().resolve(shareName);
   }
 
+  /**
+   * this method returns the stocks held after all the trades on or before a date, without
+   * checking that anything is held.
+   * @param date date for which the holdings are returned.
+   * @return map of ticker symbols to quantities held, empty if nothing is held.
+   */
+  abstract Map<String, Double> holdingsOn(LocalDate date);
+
+  /**
+   * this method returns the ticker symbols of all the stocks the portfolio has ever held.
+   * @return set of ticker symbols.
+   */
+  abstract Set<String> tickersHeld();
+
   /**
    * this method creates a deep copy of a map.
    * @param map1 the map to be copied.
@@ -0,0 +1,208 @@
+package model;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.Supplier;
+
+import controller.IStockData;
+import controller.StockData;
+
+/**
+ * AsyncInvestmentManager runs the calls of an investment manager that can take long, such as
+ * valuing a portfolio or sweeping a period for crossovers, on an executor and returns their
+ * results as futures, so that many portfolios can be valued at the same time.
+ *
+ * <p>Before a call that reads the prices of the stocks in a portfolio, the prices of every stock
+ * it needs are fetched in one batch, which loads the stocks not fetched yet at the same time.
+ * The cost basis is worked out from the prices the trades were made at, so it fetches nothing.
+ * An exception thrown by the model, such as an IllegalArgumentException for invalid inputs,
+ * completes the future exceptionally with that exception as the cause.
+ *
+ * <p>The calls go straight to the model, so the model should be safe to use from many threads,
+ * as InvestmentManagerImpl is: its portfolio directory is a registry in which each portfolio has
+ * a read-write lock, so calls that only read portfolios, such as valuations, run at the same
+ * time as each other, and calls that trade wait only for the other calls on the same portfolio.
+ * The calls on a single stock only read price series and need no lock at all.
+ */
+public final class AsyncInvestmentManager {
+
+  /**
+   * the investment manager the calls are made on.
+   */
+  private final InvestmentManager model;
+
+  /**
+   * executor the calls run on.
+   */
+  private final Executor executor;
+
+  /**
+   * constructs an asynchronous facade over an investment manager that runs its calls on the
+   * common fork join pool.
+   * @param model the investment manager the calls are made on.
+   */
+  public AsyncInvestmentManager(InvestmentManager model) {
+    this(model, ForkJoinPool.commonPool());
+  }
+
+  /**
+   * constructs an asynchronous facade over an investment manager that runs its calls on the
+   * given executor.
+   * @param model    the investment manager the calls are made on.
+   * @param executor executor the calls run on.
+   * @throws IllegalArgumentException if the model or the executor is null.
+   */
+  public AsyncInvestmentManager(InvestmentManager model, Executor executor) {
+    if (model == null || executor == null) {
+      throw new IllegalArgumentException("Model and executor should not be null");
+    }
+    this.model = model;
+    this.executor = executor;
+  }
+
+  /**
+   * this method calculates the total value of a portfolio on a date.
+   * @param input index of the portfolio.
+   * @param date  date for which the value is calculated.
+   * @param api   StockData object for fetching the stock prices.
+   * @return future of the total value of the portfolio.
+   */
+  public CompletableFuture<Double> portfolioValue(int input, LocalDate date, IStockData api) {
+    return onPortfolio(input, api, () -> model.portfolioValue(input, date.getDayOfMonth(),
+            date.getMonthValue(), date.getYear(), api));
+  }
+
+  /**
+   * this method calculates the cost basis of a flexible portfolio up to a date. No price is
+   * fetched, as the cost basis only needs the prices the trades were made at.
+   * @param input index of the portfolio.
+   * @param date  date up to which the cost basis is calculated.
+   * @param api   StockData object passed on to the model.
+   * @return future of the cost basis of the portfolio.
+   */
+  public CompletableFuture<Double> costBasis(int input, LocalDate date, IStockData api) {
+    return CompletableFuture.supplyAsync(() -> model.costBasis(input, date, api), executor);
+  }
+
+  /**
+   * this method calculates the performance of a portfolio over a period, with the values scaled
+   * for a bar chart.
+   * @param input index of the portfolio.
+   * @param start start date of the period.
+   * @param end   end date of the period.
+   * @return future of the dates and the scaled values of the portfolio.
+   */
+  public CompletableFuture<TreeMap<String, Integer>> portfolioPerformance(int input,
+                                                                          LocalDate start,
+                                                                          LocalDate end) {
+    return onPortfolio(input, new StockData(),
+            () -> model.portfolioPerformance(input, start, end));
+  }
+
+  /**
+   * this method calculates the performance of a stock over a period, with the values scaled for
+   * a bar chart.
+   * @param stock ticker symbol or name of the stock.
+   * @param api   StockData object for fetching the stock prices.
+   * @param start start date of the period.
+   * @param end   end date of the period.
+   * @return future of the dates and the scaled values of the stock.
+   */
+  public CompletableFuture<TreeMap<String, Integer>> stockPerformance(String stock,
+                                                                      IStockData api,
+                                                                      LocalDate start,
+                                                                      LocalDate end) {
+    return CompletableFuture.supplyAsync(() -> model.stockPerformance(stock, api, start, end),
+            executor);
+  }
+
+  /**
+   * this method finds the days of a period on which the price of a stock crosses its 30-day
+   * moving average.
+   * @param stock     ticker symbol or name of the stock.
+   * @param api       StockData object for fetching the stock prices.
+   * @param startDate start date of the period.
+   * @param endDate   end date of the period.
+   * @return future of the dates of the crossovers and whether each is a buy or a sell.
+   */
+  public CompletableFuture<TreeMap<String, String>> crossoverOverPeriod(String stock,
+                                                                        IStockData api,
+                                                                        LocalDate startDate,
+                                                                        LocalDate endDate) {
+    return CompletableFuture.supplyAsync(() -> model.crossoverOverPeriod(stock, api, startDate,
+            endDate), executor);
+  }
+
+  /**
+   * this method finds the days of a period on which the X-day moving average of a stock crosses
+   * its Y-day moving average.
+   * @param stock     ticker symbol or name of the stock.
+   * @param api       StockData object for fetching the stock prices.
+   * @param startDate start date of the period.
+   * @param endDate   end date of the period.
+   * @param x         number of days for the shorter moving average.
+   * @param y         number of days for the longer moving average.
+   * @return future of the dates of the crossovers and whether each is a buy or a sell.
+   */
+  public CompletableFuture<TreeMap<String, String>> movingCrossOver(String stock, IStockData api,
+                                                                    LocalDate startDate,
+                                                                    LocalDate endDate,
+                                                                    int x, int y) {
+    return CompletableFuture.supplyAsync(() -> model.movingCrossOver(stock, api, startDate,
+            endDate, x, y), executor);
+  }
+
+  /**
+   * this method adds a dollar-cost averaging strategy to a portfolio and makes the investments
+   * it schedules up to today, fetching the prices of all the stocks to buy in one batch first.
+   * @param input         index of the portfolio.
+   * @param buyingList    map of stocks to buy, along with their respective percentages.
+   * @param startDate     start date of the strategy.
+   * @param endDate       end date of the strategy.
+   * @param frequencyDays number of days between each investment.
+   * @param amount        amount invested each time.
+   * @param api           StockData object for fetching the stock prices.
+   * @return future completed once the investments are made.
+   */
+  public CompletableFuture<Void> createDollarCostAverageStrategy(int input,
+                                                                Map<String, Double> buyingList,
+                                                                LocalDate startDate,
+                                                                LocalDate endDate,
+                                                                int frequencyDays, double amount,
+                                                                StockData api) {
+    return CompletableFuture.runAsync(() -> {
+      List<String> tickers = new ArrayList<>();
+      for (String stock : buyingList.keySet()) {
+        String ticker = AbstractPortfolio.validateStockName(stock);
+        if (ticker != null) {
+          tickers.add(ticker);
+        }
+      }
+      api.prefetch(tickers);
+      model.createDollarCostAverageStrategy(input, buyingList, startDate, endDate,
+              frequencyDays, amount, api);
+    }, executor);
+  }
+
+  /**
+   * runs a call on a portfolio, after fetching the prices of every stock it has held in one
+   * batch.
+   * @param input index of the portfolio.
+   * @param api   StockData object for fetching the stock prices.
+   * @param call  the call on the model.
+   * @param <T>   type of the value returned by the call.
+   * @return future of the value returned by the call.
+   */
+  private <T> CompletableFuture<T> onPortfolio(int input, IStockData api, Supplier<T> call) {
+    return CompletableFuture.supplyAsync(() -> {
+      api.prefetch(model.tickersHeld(input));
+      return call.get();
+    }, executor);
+  }
+}
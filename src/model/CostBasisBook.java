@@ -0,0 +1,307 @@
+package model;
+
+import java.time.LocalDate;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * CostBasisBook keeps the buy and sell trades of a portfolio sorted by date, each with the
+ * price and commission it was made at, together with the running total spent after the trades
+ * of each trade date: the price of every buy and the commission of every trade, buy or sell.
+ * The cost basis on any date is then one floor lookup, without fetching any price. Trades on
+ * the same date are applied in the order they were added.
+ *
+ * <p>As in the position ledger, a trade added after the last trade date is added to the running
+ * total right away, while a trade added before it marks the totals from its date on as stale, to
+ * be rebuilt the next time a total is asked for. Lookups may run on many threads at the same
+ * time, as long as no trade is being added.
+ *
+ * <p>The cost of the shares still held is worked out by matching the shares sold against the
+ * lots they were bought in, first in first out, last in first out, or at their average cost.
+ * For each way of matching, the lots are replayed once, the first time it is asked for, keeping
+ * the running cost of the shares held after each trade date, so that each lookup after that is
+ * a floor lookup too. A trade added on or after the last trade date is applied to the lots right
+ * away, while a trade added before it drops the replayed lots, to be replayed on the next lookup.
+ */
+final class CostBasisBook {
+
+  /**
+   * trades by date, in the order they were added on each date.
+   */
+  private final TreeMap<LocalDate, List<Lot>> trades;
+
+  /**
+   * total spent on buys after all the trades on or before each trade date.
+   */
+  private final TreeMap<LocalDate, Double> totals;
+
+  /**
+   * earliest date of a trade added before the last trade date since the totals were rebuilt,
+   * or null if all the totals are up to date.
+   */
+  private volatile LocalDate staleFrom;
+
+  /**
+   * open lots and running cost of the shares held for each way of matching the shares sold
+   * against the lots that has been asked for, also used as the lock to replay them.
+   */
+  private final Map<LotMethod, Holdings> holdings;
+
+  /**
+   * constructs an empty book.
+   */
+  CostBasisBook() {
+    this.trades = new TreeMap<>();
+    this.totals = new TreeMap<>();
+    this.staleFrom = null;
+    this.holdings = new EnumMap<>(LotMethod.class);
+  }
+
+  /**
+   * adds a trade to the book.
+   * @param ticker     ticker symbol of the stock traded.
+   * @param quantity   quantity traded, positive for a buy and negative for a sell.
+   * @param price      price per share the trade was made at.
+   * @param commission commission paid for the trade.
+   * @param date       date of the trade.
+   */
+  void add(String ticker, double quantity, double price, double commission, LocalDate date) {
+    Lot trade = new Lot(ticker, quantity, price, commission);
+    boolean inOrder = trades.isEmpty() || !date.isBefore(trades.lastKey());
+    trades.computeIfAbsent(date, d -> new ArrayList<>()).add(trade);
+    synchronized (holdings) {
+      if (inOrder) {
+        for (Holdings held : holdings.values()) {
+          held.apply(trade, date);
+        }
+      } else {
+        holdings.clear();
+      }
+    }
+    if (staleFrom != null || (!totals.isEmpty() && date.isBefore(totals.lastKey()))) {
+      if (staleFrom == null || date.isBefore(staleFrom)) {
+        staleFrom = date;
+      }
+    } else {
+      Map.Entry<LocalDate, Double> last = totals.lastEntry();
+      double before = last == null ? 0 : last.getValue();
+      totals.put(date, before + trade.spent());
+    }
+  }
+
+  /**
+   * returns the total spent on or before the given date, on buys and on the commission of every
+   * trade.
+   * @param date the date.
+   * @return the cost basis, 0 if nothing was traded by then.
+   */
+  double costBasis(LocalDate date) {
+    refreshTotals();
+    Map.Entry<LocalDate, Double> entry = totals.floorEntry(date);
+    return entry == null ? 0 : entry.getValue();
+  }
+
+  /**
+   * works out the cost of the shares still held after all the trades on or before the given
+   * date, matching the shares sold against the lots they were bought in.
+   * @param date   the date.
+   * @param method how the shares sold are matched against the lots.
+   * @return cost of the shares held, 0 if nothing is held.
+   */
+  double costOfHoldings(LocalDate date, LotMethod method) {
+    synchronized (holdings) {
+      Holdings held = holdings.get(method);
+      if (held == null) {
+        held = new Holdings(method);
+        for (Map.Entry<LocalDate, List<Lot>> day : trades.entrySet()) {
+          for (Lot trade : day.getValue()) {
+            held.apply(trade, day.getKey());
+          }
+        }
+        holdings.put(method, held);
+      }
+      Map.Entry<LocalDate, Double> entry = held.totals.floorEntry(date);
+      return entry == null ? 0 : entry.getValue();
+    }
+  }
+
+  /**
+   * adds a buy to the open lots of a stock. At average cost the lots are kept as a single lot
+   * holding all the shares at their average price.
+   * @param open     open lots of the stock as quantity and price pairs, earliest first.
+   * @param quantity quantity bought.
+   * @param price    cost per share, commission included.
+   * @param method   how the shares sold are matched against the lots.
+   */
+  private static void buy(Deque<double[]> open, double quantity, double price,
+                          LotMethod method) {
+    if (method == LotMethod.AVERAGE && !open.isEmpty()) {
+      double[] lot = open.peekFirst();
+      double held = lot[0] + quantity;
+      lot[1] = (lot[0] * lot[1] + quantity * price) / held;
+      lot[0] = held;
+    } else {
+      open.addLast(new double[]{quantity, price});
+    }
+  }
+
+  /**
+   * takes a sale out of the open lots of a stock.
+   * @param open     open lots of the stock as quantity and price pairs, earliest first.
+   * @param quantity quantity sold.
+   * @param method   how the shares sold are matched against the lots.
+   * @return cost of the shares taken out of the lots.
+   */
+  private static double sell(Deque<double[]> open, double quantity, LotMethod method) {
+    double left = quantity;
+    double cost = 0;
+    while (left > 0 && !open.isEmpty()) {
+      double[] lot = method == LotMethod.LIFO ? open.peekLast() : open.peekFirst();
+      if (lot[0] > left) {
+        lot[0] -= left;
+        return cost + left * lot[1];
+      }
+      cost += lot[0] * lot[1];
+      left -= lot[0];
+      if (method == LotMethod.LIFO) {
+        open.removeLast();
+      } else {
+        open.removeFirst();
+      }
+    }
+    return cost;
+  }
+
+  /**
+   * rebuilds the totals from the earliest stale date on, once for all the lookups waiting on it.
+   */
+  private void refreshTotals() {
+    if (staleFrom == null) {
+      return;
+    }
+    synchronized (totals) {
+      LocalDate from = staleFrom;
+      if (from == null) {
+        return;
+      }
+      totals.tailMap(from, true).clear();
+      Map.Entry<LocalDate, Double> last = totals.lastEntry();
+      double total = last == null ? 0 : last.getValue();
+      for (Map.Entry<LocalDate, List<Lot>> day : trades.tailMap(from, true).entrySet()) {
+        for (Lot trade : day.getValue()) {
+          total += trade.spent();
+        }
+        totals.put(day.getKey(), total);
+      }
+      staleFrom = null;
+    }
+  }
+
+  /**
+   * the open lots of every stock for one way of matching the shares sold against the lots, with
+   * the running cost of the shares held after each trade date.
+   */
+  private static final class Holdings {
+
+    /**
+     * how the shares sold are matched against the lots.
+     */
+    private final LotMethod method;
+
+    /**
+     * open lots of each stock as quantity and price pairs, earliest first.
+     */
+    private final Map<String, Deque<double[]>> lots;
+
+    /**
+     * cost of the shares held after all the trades on or before each trade date.
+     */
+    private final TreeMap<LocalDate, Double> totals;
+
+    /**
+     * cost of the shares held after the trades applied so far.
+     */
+    private double total;
+
+    /**
+     * constructs the holdings of an empty book.
+     * @param method how the shares sold are matched against the lots.
+     */
+    private Holdings(LotMethod method) {
+      this.method = method;
+      this.lots = new HashMap<>();
+      this.totals = new TreeMap<>();
+      this.total = 0;
+    }
+
+    /**
+     * applies a trade on or after the last trade date applied so far.
+     * @param trade the trade.
+     * @param date  date of the trade.
+     */
+    private void apply(Lot trade, LocalDate date) {
+      Deque<double[]> open = lots.computeIfAbsent(trade.ticker, t -> new ArrayDeque<>());
+      if (trade.quantity > 0) {
+        buy(open, trade.quantity, trade.price + trade.commission / trade.quantity, method);
+        total += trade.quantity * (trade.price + trade.commission / trade.quantity);
+      } else {
+        total -= sell(open, -trade.quantity, method);
+      }
+      totals.put(date, total);
+    }
+  }
+
+  /**
+   * a trade of a stock at a price, as kept in the book.
+   */
+  private static final class Lot {
+
+    /**
+     * ticker symbol of the stock traded.
+     */
+    private final String ticker;
+
+    /**
+     * quantity traded, positive for a buy and negative for a sell.
+     */
+    private final double quantity;
+
+    /**
+     * price per share the trade was made at.
+     */
+    private final double price;
+
+    /**
+     * commission paid for the trade.
+     */
+    private final double commission;
+
+    /**
+     * constructs a trade.
+     * @param ticker     ticker symbol of the stock traded.
+     * @param quantity   quantity traded, positive for a buy and negative for a sell.
+     * @param price      price per share the trade was made at.
+     * @param commission commission paid for the trade.
+     */
+    private Lot(String ticker, double quantity, double price, double commission) {
+      this.ticker = ticker;
+      this.quantity = quantity;
+      this.price = price;
+      this.commission = commission;
+    }
+
+    /**
+     * returns what the trade adds to the cost basis.
+     * @return price and commission paid for a buy, the commission paid for a sell.
+     */
+    private double spent() {
+      return quantity > 0 ? price * quantity + commission : commission;
+    }
+  }
+}
@@ -0,0 +1,105 @@
+package model;
+
+import java.time.LocalDate;
+import java.util.Arrays;
+
+/**
+ * Crossovers holds the crossover points found over a period for a stock, in ascending order of
+ * date. Each point is a trading day given as an epoch day, and whether it was a buy or a sell
+ * opportunity. The points are kept in primitive arrays sized up front, so finding them
+ * allocates nothing per trading day.
+ */
+public final class Crossovers {
+
+  /**
+   * days of the crossover points as epoch days, in ascending order.
+   */
+  private final int[] epochDays;
+
+  /**
+   * whether each crossover point was a buy opportunity, index aligned with the days.
+   */
+  private final boolean[] buys;
+
+  /**
+   * number of crossover points found.
+   */
+  private int count;
+
+  /**
+   * constructs an empty set of crossover points with room for the given number of points.
+   * @param capacity the most points that can be added.
+   */
+  Crossovers(int capacity) {
+    this.epochDays = new int[Math.max(capacity, 0)];
+    this.buys = new boolean[Math.max(capacity, 0)];
+    this.count = 0;
+  }
+
+  /**
+   * adds a crossover point after the ones added so far.
+   * @param epochDay day of the crossover point as an epoch day.
+   * @param buy      true if it was a buy opportunity, false if it was a sell opportunity.
+   */
+  void add(int epochDay, boolean buy) {
+    epochDays[count] = epochDay;
+    buys[count] = buy;
+    count++;
+  }
+
+  /**
+   * returns the number of crossover points.
+   * @return number of crossover points.
+   */
+  public int size() {
+    return count;
+  }
+
+  /**
+   * returns the day of the crossover point at the given index as an epoch day.
+   * @param index index of the crossover point.
+   * @return epoch day of the crossover point.
+   */
+  public int epochDayAt(int index) {
+    checkIndex(index);
+    return epochDays[index];
+  }
+
+  /**
+   * returns the day of the crossover point at the given index.
+   * @param index index of the crossover point.
+   * @return date of the crossover point.
+   */
+  public LocalDate dateAt(int index) {
+    return LocalDate.ofEpochDay(epochDayAt(index));
+  }
+
+  /**
+   * checks if the crossover point at the given index was a buy opportunity.
+   * @param index index of the crossover point.
+   * @return true if it was a buy opportunity, false if it was a sell opportunity.
+   */
+  public boolean isBuyAt(int index) {
+    checkIndex(index);
+    return buys[index];
+  }
+
+  /**
+   * returns the days of all the crossover points as epoch days.
+   * @return epoch days of the crossover points, in ascending order.
+   */
+  public int[] epochDays() {
+    return Arrays.copyOf(epochDays, count);
+  }
+
+  /**
+   * checks that an index is within the points added.
+   * @param index index of a crossover point.
+   * @throws IndexOutOfBoundsException if there is no point at that index.
+   */
+  private void checkIndex(int index) {
+    if (index < 0 || index >= count) {
+      throw new IndexOutOfBoundsException("No crossover at index " + index);
+    }
+  }
+}
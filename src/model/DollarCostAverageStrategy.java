@@ -2,10 +2,13 @@ package model;
 
 import java.time.LocalDate;
 import java.util.ArrayList;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 
 import controller.IStockData;
+import controller.PriceSeries;
 
 import static model.AbstractPortfolio.validateStockName;
 
@@ -33,6 +36,9 @@ class DollarCostAverageStrategy implements Strategy {
             ? schedule.getEndDate() : today;
 
     List<Transaction> transactions = new ArrayList<>();
+    if (today.isAfter(current)) {
+      api.prefetch(tickersOf(schedule.getBuyingList().keySet()));
+    }
     while (today.isAfter(current)) {
       LocalDate newBuy = current.plusDays(schedule.getFrequencyDays());
       current = current.plusDays(schedule.getFrequencyDays());
@@ -41,20 +47,16 @@ class DollarCostAverageStrategy implements Strategy {
         if (ticker == null) {
           throw new IllegalArgumentException("Share name " + entry.getKey() + " doesn't exists");
         }
-        int tryNextDay = 0;
-        Map<String, ArrayList<Double>> prices = api.fetchHistoricalData(ticker);
-        Double buyPrice = null;
-        while (tryNextDay < 7 && tryNextDay < schedule.getFrequencyDays()) {
-          try {
-            buyPrice = prices.get(newBuy.plusDays(tryNextDay) + "").get(3);
-            break;
-          } catch (Exception ignored) {
-            tryNextDay += 1;
-          }
+        PriceSeries prices = api.fetchPriceSeries(ticker);
+        int index = prices.calendar().onOrAfter((int) newBuy.toEpochDay());
+        if (index < 0) {
+          continue;
         }
-        if (buyPrice == null) {
+        int tryNextDay = (int) (prices.epochDayAt(index) - newBuy.toEpochDay());
+        if (tryNextDay >= 7 || tryNextDay >= schedule.getFrequencyDays()) {
           continue;
         }
+        double buyPrice = prices.closeAt(index);
         double quantity =
                 ((entry.getValue() / 100) * schedule.getAmount()) / buyPrice;
         quantity = Math.round(quantity * 100.0) / 100.0;
@@ -68,4 +70,21 @@ class DollarCostAverageStrategy implements Strategy {
     schedule.setLastRunDate(LocalDate.now());
     return transactions;
   }
+
+  /**
+   * this method finds the ticker symbols of the shares in the buying list.
+   * shares that are not listed are left out, they are reported when the strategy is applied.
+   * @param shareNames names or ticker symbols of the shares.
+   * @return ticker symbols of the listed shares.
+   */
+  private Set<String> tickersOf(Set<String> shareNames) {
+    Set<String> tickers = new LinkedHashSet<>();
+    for (String shareName : shareNames) {
+      String ticker = validateStockName(shareName);
+      if (ticker != null) {
+        tickers.add(ticker);
+      }
+    }
+    return tickers;
+  }
 }
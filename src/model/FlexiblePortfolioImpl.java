@@ -1,15 +1,20 @@
 package model;
 
+import java.io.IOException;
 import java.time.LocalDate;
 import java.time.format.DateTimeFormatter;
 import java.time.format.DateTimeParseException;
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
 import java.util.HashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
-import java.util.TreeMap;
+import java.util.Set;
 
 import controller.IStockData;
+import controller.PriceSeries;
 
 
 /**
@@ -20,9 +25,15 @@ import controller.IStockData;
 public class FlexiblePortfolioImpl extends AbstractPortfolio {
 
   /**
-   * TreeMap to store composition of the portfolio on different dates.
+   * ledger of the buy and sell trades, from which the composition on any date is worked out.
    */
-  private final TreeMap<LocalDate, Map<String, Double>> compositionOnDate;
+  private final PositionLedger ledger;
+
+  /**
+   * book of the trades with the prices they were made at, from which the cost basis on any date
+   * is looked up.
+   */
+  private final CostBasisBook costBook;
 
   private Schedule buySchedule = null;
 
@@ -38,12 +49,13 @@ public class FlexiblePortfolioImpl extends AbstractPortfolio {
    */
   FlexiblePortfolioImpl(String portfolioName) {
     super(portfolioName);
-    this.compositionOnDate = new TreeMap<>();
+    this.ledger = new PositionLedger();
+    this.costBook = new CostBasisBook();
     this.transactions = new ArrayList<>();
   }
 
   /**
-   * this method buys a specified quantity of a stock on a given date.
+   * this method buys a specified quantity of a stock on a given date, without commission.
    *
    * @param tickerSymbol ticker symbol of the stock to buy.
    * @param quantity     quantity of the stock to buy.
@@ -52,186 +64,159 @@ public class FlexiblePortfolioImpl extends AbstractPortfolio {
    */
   @Override
   public void buyStock(String tickerSymbol, double quantity, LocalDate buyDate, IStockData api) {
+    buyStock(tickerSymbol, quantity, buyDate, 0, api);
+  }
+
+  /**
+   * this method buys a specified quantity of a stock on a given date, paying a commission.
+   * The closing price of the stock on that date is recorded as the price paid.
+   *
+   * @param tickerSymbol ticker symbol of the stock to buy.
+   * @param quantity     quantity of the stock to buy.
+   * @param buyDate      date of the purchase.
+   * @param commission   commission paid for the purchase.
+   * @param api          IStockData object used to fetch historical data.
+   * @throws IllegalArgumentException if the ticker doesn't exist, the stock didn't trade on the
+   *                                  date, or the commission is negative.
+   */
+  public void buyStock(String tickerSymbol, double quantity, LocalDate buyDate,
+                       double commission, IStockData api) {
     String ticker = validateStockName(tickerSymbol);
     if (ticker == null) {
       throw new IllegalArgumentException("Ticker symbol doesn't exist");
     }
-    Map<String, ArrayList<Double>> priceData = api.fetchHistoricalData(ticker);
-    if (!priceData.containsKey("" + buyDate)) {
+    PriceSeries priceSeries = api.fetchPriceSeries(ticker);
+    int index = priceSeries.indexOf(buyDate);
+    if (index < 0) {
       throw new IllegalArgumentException("Cannot buy on this date.");
     }
-    Transaction buyTransaction = new Transaction("buy", ticker, quantity, buyDate);
-    transactions.add(buyTransaction);
-    Map.Entry<LocalDate, Map<String, Double>> closestEntry =
-            compositionOnDate.floorEntry(buyDate);
-    Map<String, Double> composition = new HashMap<>();
-
-    if (closestEntry == null) {
-      composition.put(ticker, quantity);
-    } else {
-      composition = deepCopy(closestEntry.getValue());
-      if (composition.containsKey(ticker)) {
-        double currentValue = composition.get(ticker);
-        composition.put(ticker, currentValue + quantity);
-      } else {
-        composition.put(ticker, quantity);
-      }
-    }
-    updateCompositionOnBuy(closestEntry, ticker, quantity);
-    compositionOnDate.put(buyDate, composition);
+    record("buy", ticker, quantity, buyDate, priceSeries.closeAt(index), commission);
   }
 
   /**
-   * this method updates composition of the portfolio on a buy transaction.
+   * this method sells a specified quantity of a stock on a given date, without commission.
    *
-   * @param closestEntry closest entry in composition map to the buy date.
-   * @param ticker       ticker symbol of the stock bought.
-   * @param quantity     quantity of the stock bought.
-   */
-  private void updateCompositionOnBuy(Map.Entry<LocalDate, Map<String, Double>> closestEntry,
-                                      String ticker, double quantity) {
-    for (Map.Entry<LocalDate, Map<String, Double>> entry : (closestEntry != null
-            ? this.compositionOnDate.tailMap(closestEntry.getKey(), false)
-            : this.compositionOnDate).entrySet()) {
-      Map<String, Double> futureComposition = deepCopy(entry.getValue());
-      if (futureComposition.containsKey(ticker)) {
-        double currentValue = futureComposition.get(ticker);
-        futureComposition.put(ticker, currentValue + quantity);
-      } else {
-        futureComposition.put(ticker, quantity);
-      }
-      compositionOnDate.put(entry.getKey(), futureComposition);
-    }
+   * @param tickerSymbol ticker symbol of stock to sell.
+   * @param quantity     quantity of the stock to sell.
+   * @param sellDate     date of the sale.
+   * @param api          IStockData object used to fetch historical data.
+   */
+  @Override
+  public void sellStock(String tickerSymbol, double quantity, LocalDate sellDate, IStockData api) {
+    sellStock(tickerSymbol, quantity, sellDate, 0, api);
   }
 
   /**
-   * this method sells a specified quantity of a stock on a given date.
+   * this method sells a specified quantity of a stock on a given date, paying a commission.
+   * The closing price of the stock on that date is recorded as the price received.
    *
    * @param tickerSymbol ticker symbol of stock to sell.
    * @param quantity     quantity of the stock to sell.
    * @param sellDate     date of the sale.
+   * @param commission   commission paid for the sale.
    * @param api          IStockData object used to fetch historical data.
+   * @throws IllegalArgumentException if the ticker doesn't exist, the stock didn't trade on the
+   *                                  date, the commission is negative, or the stock is not
+   *                                  held in that quantity.
    */
-  @Override
-  public void sellStock(String tickerSymbol, double quantity, LocalDate sellDate, IStockData api) {
+  public void sellStock(String tickerSymbol, double quantity, LocalDate sellDate,
+                        double commission, IStockData api) {
     String ticker = validateStockName(tickerSymbol);
     if (ticker == null) {
       throw new IllegalArgumentException("Ticker symbol doesn't exist");
     }
-    Map<String, ArrayList<Double>> priceData = api.fetchHistoricalData(ticker);
-    if (!priceData.containsKey("" + sellDate)) {
+    PriceSeries priceSeries = api.fetchPriceSeries(ticker);
+    int index = priceSeries.indexOf(sellDate);
+    if (index < 0) {
       throw new IllegalArgumentException("Cannot sell on this date.");
     }
-    Transaction sellTransaction = new Transaction("sell", ticker, quantity, sellDate);
-    transactions.add(sellTransaction);
-    Map.Entry<LocalDate, Map<String, Double>> closestEntry =
-            compositionOnDate.floorEntry(sellDate);
-    Map<String, Double> composition;
-    if (closestEntry == null) {
-      throw new IllegalArgumentException("You can't sell before buying");
-    } else {
-      composition = deepCopy(closestEntry.getValue());
-      if (composition.containsKey(ticker)) {
-        double currentValue = composition.get(ticker);
-        if (quantity > currentValue) {
-          throw new IllegalArgumentException("You don't have enough quantity to sell");
-        }
-        double newValue = currentValue - quantity;
-        if (newValue == 0) {
-          composition.remove(ticker);
-        } else {
-          composition.put(ticker, newValue);
-        }
-      } else {
-        throw new IllegalArgumentException("You don't have the stock you want to sell");
-      }
-    }
-    updateCompositionOnSell(closestEntry, ticker, quantity);
-    compositionOnDate.put(sellDate, composition);
+    record("sell", ticker, quantity, sellDate, priceSeries.closeAt(index), commission);
   }
 
   /**
-   * this method updates composition of the portfolio on a sell transaction.
+   * this method records a trade made at a known price in the transactions, the ledger and the
+   * cost basis book, checking that a sale is covered by the stock held. A trade that fails a
+   * check is not recorded anywhere.
    *
-   * @param closestEntry closest entry in the composition map to the sell date.
-   * @param ticker       ticker symbol of the stock sold.
-   * @param quantity     of the stock sold.
-   */
-  private void updateCompositionOnSell(Map.Entry<LocalDate, Map<String, Double>> closestEntry,
-                                       String ticker, double quantity) {
-    boolean isQuantityValid = true;
-    for (Map.Entry<LocalDate, Map<String, Double>> entry
-            : this.compositionOnDate.tailMap(closestEntry.getKey(), false).entrySet()) {
-      Map<String, Double> futureComposition = deepCopy(entry.getValue());
-      if (futureComposition.containsKey(ticker)) {
-        double currentValue = futureComposition.get(ticker);
-        if (quantity > currentValue) {
-          isQuantityValid = false;
-          break;
-        }
-      } else {
-        isQuantityValid = false;
-        break;
-      }
+   * @param type       type of the trade, buy or sell.
+   * @param ticker     ticker symbol of the stock traded.
+   * @param quantity   quantity traded.
+   * @param date       date of the trade.
+   * @param price      price per share the trade was made at.
+   * @param commission commission paid for the trade.
+   * @throws IllegalArgumentException if the commission is negative, or if a sale is not covered
+   *                                  by the stock held.
+   */
+  private void record(String type, String ticker, double quantity, LocalDate date, double price,
+                      double commission) {
+    if (commission < 0) {
+      throw new IllegalArgumentException("Commission cannot be negative");
     }
-    if (!isQuantityValid) {
-      throw new IllegalArgumentException("Invalid sell!");
-    }
-    // Proceed with updating the futureComposition
-    for (Map.Entry<LocalDate, Map<String, Double>> entry
-            : this.compositionOnDate.tailMap(closestEntry.getKey(), false).entrySet()) {
-      Map<String, Double> futureComposition = deepCopy(entry.getValue());
-      if (futureComposition.containsKey(ticker)) {
-        double currentValue = futureComposition.get(ticker);
-        double newValue = currentValue - quantity;
-        if (newValue == 0) {
-          futureComposition.remove(ticker);
-        } else {
-          futureComposition.put(ticker, newValue);
-        }
-        compositionOnDate.put(entry.getKey(), futureComposition);
+    Transaction transaction = new Transaction(type, ticker, quantity, date, price, commission);
+    if (type.equals("sell")) {
+      if (ledger.isEmptyOn(date)) {
+        throw new IllegalArgumentException("You can't sell before buying");
+      }
+      Double held = ledger.holdingOn(ticker, date);
+      if (held == null) {
+        throw new IllegalArgumentException("You don't have the stock you want to sell");
+      }
+      if (quantity > held) {
+        throw new IllegalArgumentException("You don't have enough quantity to sell");
+      }
+      if (!ledger.holdsThroughout(ticker, quantity, date, held)) {
+        throw new IllegalArgumentException("Invalid sell!");
       }
+      quantity = -quantity;
     }
+    transactions.add(transaction);
+    ledger.add(ticker, quantity, date);
+    costBook.add(ticker, quantity, price, commission, date);
   }
 
   /**
    * this method retrieves composition of the portfolio on a specified date.
    *
+   * The composition is kept by the ledger for every trade date, so it is returned as it is,
+   * without copying, and cannot be changed.
+   *
    * @param date date for which the composition is to be retrieved.
    * @return map containing composition of the portfolio, stock ticker symbols and quantities.
    */
   @Override
   public Map<String, Double> portfolioComposition(LocalDate date) {
-    Map.Entry<LocalDate, Map<String, Double>> closestEntry =
-            compositionOnDate.floorEntry(date);
-    if (closestEntry == null) {
+    if (ledger.isEmptyOn(date)) {
       throw new IllegalArgumentException("Portfolio is empty");
     }
-    return closestEntry.getValue();
+    return ledger.holdingsOn(date);
   }
 
   /**
    * this method calculates cost basis of portfolio up to a specified date.
    *
+   * The running total of the buys is kept by the cost basis book with the prices they were
+   * made at, so it is looked up without fetching any price.
+   *
    * @param date date up to which the cost basis is to be calculated.
    * @param api  IStockData object used to fetch historical data.
    * @return total cost basis of the portfolio.
    */
   @Override
   public double costBasis(LocalDate date, IStockData api) {
-    double total = 0;
-    for (var transaction : transactions) {
-      if (!transaction.getDate().isAfter(date)) {
-        LocalDate buyDate = transaction.getDate();
-        String ticker = transaction.getStock();
-        double quantity = transaction.getQuantity();
-        double closingPrice = getClosingPriceOnDate(ticker, api, buyDate + "");
-        if (transaction.getType().equalsIgnoreCase("buy")) {
-          total += closingPrice * quantity;
-        }
-      }
-    }
-    return total;
+    return costBook.costBasis(date);
+  }
+
+  /**
+   * this method calculates the cost of the shares still held on a specified date, matching the
+   * shares sold against the lots they were bought in.
+   *
+   * @param date   date for which the cost is calculated.
+   * @param method how the shares sold are matched against the lots.
+   * @return cost of the shares held.
+   */
+  @Override
+  public double costOfHoldings(LocalDate date, LotMethod method) {
+    return costBook.costOfHoldings(date, method);
   }
 
   /**
@@ -244,31 +229,32 @@ public class FlexiblePortfolioImpl extends AbstractPortfolio {
   @Override
   public double portfolioValue(String date, IStockData api) {
     LocalDate valueDate = LocalDate.parse(date);
-    Map.Entry<LocalDate, Map<String, Double>> closestEntry =
-            compositionOnDate.floorEntry(valueDate);
-    if (closestEntry == null) {
+    if (ledger.isEmptyOn(valueDate)) {
       return 0;
     }
-    Map<String, Double> composition = closestEntry.getValue();
-    return computeValue(date, composition, api);
+    return computeValue(date, ledger.holdingsOn(valueDate), api);
   }
 
   /**
-   * this method saves transaction data associated with the portfolio to a StringBuilder object.
-   * The saved data includes the transaction type, symbol, quantity, and date.
+   * this method writes transaction data associated with the portfolio, one transaction per row.
+   * The saved data includes the transaction type, symbol, quantity, date, and the price and
+   * commission the transaction was made at, so that loading it back needs no prices.
    *
-   * @return StringBuilder object containing the saved transaction data in CSV format.
+   * @param out where the rows are written.
+   * @throws IOException if the rows can't be written.
    */
   @Override
-  public StringBuilder save() {
-    StringBuilder sb = new StringBuilder();
-    sb.append("Transaction Type,Symbol,Quantity,Date").append(System.lineSeparator());
+  public void save(Appendable out) throws IOException {
+    out.append("Transaction Type,Symbol,Quantity,Date,Price,Commission")
+            .append(System.lineSeparator());
     DateTimeFormatter formatter = DateTimeFormatter.ofPattern("yyyy-MM-dd");
     for (Transaction transaction : transactions) {
-      sb.append(transaction.getType()).append(",");
-      sb.append(transaction.getStock()).append(",");
-      sb.append(transaction.getQuantity()).append(",");
-      sb.append(transaction.getDate().format(formatter)).append(System.lineSeparator());
+      out.append(transaction.getType()).append(",");
+      out.append(transaction.getStock()).append(",");
+      out.append(String.valueOf(transaction.getQuantity())).append(",");
+      out.append(transaction.getDate().format(formatter)).append(",");
+      out.append(String.valueOf(transaction.getPrice())).append(",");
+      out.append(String.valueOf(transaction.getCommission())).append(System.lineSeparator());
     }
 
     if (buySchedule != null) {
@@ -280,20 +266,19 @@ public class FlexiblePortfolioImpl extends AbstractPortfolio {
       String startDate = buySchedule.getStartDate() == null ? null :
               buySchedule.getStartDate().format(formatter);
 
-      sb.append("Strategy").append(",");
-      sb.append(buySchedule.getName()).append(",");
-      sb.append(startDate).append(",");
-      sb.append(endDate).append(",");
-      sb.append(lastRunDate).append(",");
-      sb.append(buySchedule.getAmount()).append(",");
-      sb.append(buySchedule.getFrequencyDays()).append(",");
+      out.append("Strategy").append(",");
+      out.append(buySchedule.getName()).append(",");
+      out.append(startDate).append(",");
+      out.append(endDate).append(",");
+      out.append(lastRunDate).append(",");
+      out.append(String.valueOf(buySchedule.getAmount())).append(",");
+      out.append(String.valueOf(buySchedule.getFrequencyDays())).append(",");
 
       for (Map.Entry<String, Double> entry: buySchedule.getBuyingList().entrySet()) {
-        sb.append(entry.getKey()).append(":").append(entry.getValue())
+        out.append(entry.getKey()).append(":").append(String.valueOf(entry.getValue()))
                 .append(";");
       }
     }
-    return sb;
   }
 
   /**
@@ -306,10 +291,38 @@ public class FlexiblePortfolioImpl extends AbstractPortfolio {
     return true;
   }
 
+  /**
+   * this method returns the stocks held after all the trades on or before a date.
+   * @param date date for which the holdings are returned.
+   * @return map of ticker symbols to quantities held, empty if nothing is held.
+   */
+  @Override
+  Map<String, Double> holdingsOn(LocalDate date) {
+    return ledger.holdingsOn(date);
+  }
+
+  /**
+   * this method returns the ticker symbols of all the stocks ever bought or sold.
+   * @return set of ticker symbols.
+   */
+  @Override
+  Set<String> tickersHeld() {
+    return ledger.tickers();
+  }
+
   /**
    * this method loads portfolio data from a list of string arrays representing lines of data,
    * using the provided StockData object for fetching stock data.
    *
+   * All the lines are parsed and their tickers resolved first, and the prices of the stocks on
+   * lines without a price are fetched together. Lines with the price and commission of the
+   * transaction, as saved now, are recorded at that price without fetching anything. Lines with
+   * only type, symbol, quantity and date, as saved before, are bought or sold at the closing
+   * price for that date. When the portfolio has no transactions yet, the trades are then checked
+   * in order of date in one pass and added only if they are all valid, so the ledger is built
+   * without rebuilding any holdings. Otherwise they are bought and sold one by one in the order
+   * of the lines. Errors name the line at fault, counting the header of the file as line 1.
+   *
    * @param line list of string arrays representing lines of portfolio data to be loaded.
    * @param api  IStockData object used for fetching stock data.
    * @throws IllegalArgumentException if format of the date in file is incorrect
@@ -317,35 +330,247 @@ public class FlexiblePortfolioImpl extends AbstractPortfolio {
    */
   @Override
   public void load(List<String[]> line, IStockData api) {
-    boolean flag = false;
-    String[] strategyPart = new String[0];
-
-    for (String[] parts : line) {
-      if (!parts[0].equalsIgnoreCase("Strategy")) {
-        if (validateLine(parts)) {
-          try {
-            if (parts[0].equalsIgnoreCase("buy")) {
-              buyStock(parts[1], Double.parseDouble(parts[2]), LocalDate.parse(parts[3]), api);
-            } else {
-              sellStock(parts[1], Double.parseDouble(parts[2]), LocalDate.parse(parts[3]), api);
-            }
-          } catch (DateTimeParseException e) {
-            throw new IllegalArgumentException("Format of date in the file is incorrect!");
+    List<LoadedTrade> loaded = new ArrayList<>();
+    String[] strategyPart = null;
+    Map<String, String> tickers = new HashMap<>();
+    for (int i = 0; i < line.size(); i++) {
+      String[] parts = line.get(i);
+      if (parts[0].equalsIgnoreCase("Strategy")) {
+        strategyPart = parts;
+        break;
+      }
+      loaded.add(parseLine(parts, i + 2, tickers));
+    }
+    Set<String> unpriced = new LinkedHashSet<>();
+    for (LoadedTrade trade : loaded) {
+      if (Double.isNaN(trade.price)) {
+        unpriced.add(trade.ticker);
+      }
+    }
+    if (!unpriced.isEmpty()) {
+      api.prefetch(unpriced);
+    }
+
+    if (transactions.isEmpty()) {
+      loadInOrderOfDate(loaded, api);
+    } else {
+      for (LoadedTrade trade : loaded) {
+        try {
+          if (!Double.isNaN(trade.price)) {
+            record(trade.type, trade.ticker, trade.quantity, trade.date, trade.price,
+                    trade.commission);
+          } else if (trade.type.equals("buy")) {
+            buyStock(trade.ticker, trade.quantity, trade.date, trade.commission, api);
+          } else {
+            sellStock(trade.ticker, trade.quantity, trade.date, trade.commission, api);
           }
+        } catch (IllegalArgumentException e) {
+          throw lineError(trade.line, e.getMessage());
+        }
+      }
+    }
+    if (strategyPart != null) {
+      loadStrategy(strategyPart, api);
+    }
+  }
 
-        } else {
-          throw new IllegalArgumentException("Invalid data in given file!");
+  /**
+   * this method parses a transaction line of a file and resolves its ticker symbol.
+   *
+   * @param parts   the line, with type, symbol, quantity and date, and optionally price and
+   *                commission.
+   * @param number  number of the line in the file.
+   * @param tickers ticker symbols resolved so far by share name, added to.
+   * @return the trade on the line, with a NaN price if the line has none.
+   * @throws IllegalArgumentException if the line is invalid, its date is not in the yyyy-MM-dd
+   *                                  format, or its ticker doesn't exist.
+   */
+  private LoadedTrade parseLine(String[] parts, int number, Map<String, String> tickers) {
+    if (!validateLine(parts)) {
+      throw lineError(number, "Invalid data in given file!");
+    }
+    LocalDate date;
+    try {
+      date = LocalDate.parse(parts[3]);
+    } catch (DateTimeParseException e) {
+      throw lineError(number, "Format of date in the file is incorrect!");
+    }
+    String ticker = tickers.computeIfAbsent(parts[1], AbstractPortfolio::validateStockName);
+    if (ticker == null) {
+      throw lineError(number, "Ticker symbol doesn't exist");
+    }
+    boolean priced = parts.length == 6;
+    return new LoadedTrade(number, parts[0].equalsIgnoreCase("buy") ? "buy" : "sell", ticker,
+            Double.parseDouble(parts[2]), date,
+            priced ? Double.parseDouble(parts[4].trim()) : Double.NaN,
+            priced ? Double.parseDouble(parts[5].trim()) : 0);
+  }
+
+  /**
+   * this method checks the trades loaded into an empty portfolio in order of date, trades on
+   * the same date in the order of their lines, and adds them all if they are valid. A sale is
+   * checked against the holdings after all the trades before it in that order, with the same
+   * errors as selling the stock.
+   *
+   * @param loaded the trades in the order of their lines.
+   * @param api    IStockData object used to fetch the prices of trades without a price.
+   * @throws IllegalArgumentException naming the line at fault, if a stock didn't trade on the
+   *                                  date of a trade without a price, or a sale is not covered.
+   */
+  private void loadInOrderOfDate(List<LoadedTrade> loaded, IStockData api) {
+    List<LoadedTrade> byDate = new ArrayList<>(loaded);
+    byDate.sort(Comparator.comparing(trade -> trade.date));
+    Map<String, Double> held = new HashMap<>();
+    int checked = 0;
+    for (LoadedTrade trade : byDate) {
+      if (Double.isNaN(trade.price)) {
+        PriceSeries priceSeries;
+        try {
+          priceSeries = api.fetchPriceSeries(trade.ticker);
+        } catch (IllegalArgumentException e) {
+          throw lineError(trade.line, e.getMessage());
+        }
+        int index = priceSeries.indexOf(trade.date);
+        if (index < 0) {
+          throw lineError(trade.line, trade.type.equals("buy") ? "Cannot buy on this date."
+                  : "Cannot sell on this date.");
         }
+        trade.price = priceSeries.closeAt(index);
+      }
+      String error = applyInOrder(held, checked == 0, trade.type, trade.ticker,
+              trade.quantity, trade.commission);
+      if (error != null) {
+        throw lineError(trade.line, error);
+      }
+      checked++;
+    }
+    List<Transaction> trades = new ArrayList<>();
+    for (LoadedTrade trade : loaded) {
+      trades.add(new Transaction(trade.type, trade.ticker, trade.quantity, trade.date,
+              trade.price, trade.commission));
+    }
+    addChecked(trades);
+  }
+
+  /**
+   * this method checks a trade against the holdings after all the trades before it in order of
+   * date, and applies it to them if it is valid.
+   *
+   * @param held       quantity held of each stock, changed by the trade.
+   * @param first      whether the trade is the first one.
+   * @param type       type of the trade, buy or sell.
+   * @param ticker     ticker symbol of the stock traded.
+   * @param quantity   quantity traded.
+   * @param commission commission paid for the trade.
+   * @return the error of selling the stock if the trade is not valid, otherwise null.
+   */
+  private static String applyInOrder(Map<String, Double> held, boolean first, String type,
+                                     String ticker, double quantity, double commission) {
+    if (commission < 0) {
+      return "Commission cannot be negative";
+    }
+    Double holding = held.get(ticker);
+    if (type.equals("sell")) {
+      if (first) {
+        return "You can't sell before buying";
+      }
+      if (holding == null) {
+        return "You don't have the stock you want to sell";
+      }
+      if (quantity > holding) {
+        return "You don't have enough quantity to sell";
+      }
+      if (holding == quantity) {
+        held.remove(ticker);
       } else {
-        flag = true;
-        strategyPart = parts;
-        break;
+        held.put(ticker, holding - quantity);
       }
+    } else {
+      held.put(ticker, holding == null ? quantity : holding + quantity);
     }
-    if (flag) {
-      loadStrategy(strategyPart, api);
+    return null;
+  }
+
+  /**
+   * this method adds trades to an empty portfolio, each with the price it was made at, without
+   * fetching any price. The trades are checked in order of date, trades on the same date in the
+   * given order, and none of them is added unless every sale is covered by the stock held.
+   *
+   * @param trades the trades, in the order they are to be saved.
+   * @throws IllegalArgumentException naming the date of the first trade that is not valid.
+   */
+  void addTrades(List<Transaction> trades) {
+    List<Transaction> byDate = new ArrayList<>(trades);
+    byDate.sort(Comparator.comparing(Transaction::getDate));
+    Map<String, Double> held = new HashMap<>();
+    boolean first = true;
+    for (Transaction trade : byDate) {
+      String error = applyInOrder(held, first, trade.getType(), trade.getStock(),
+              trade.getQuantity(), trade.getCommission());
+      if (error != null) {
+        throw new IllegalArgumentException(error + " on " + trade.getDate());
+      }
+      first = false;
     }
+    addChecked(trades);
+  }
 
+  /**
+   * this method adds trades already checked to be valid, each with the price it was made at,
+   * without checking them again or fetching any price. The transactions are kept in the given
+   * order, and the ledger and cost basis book are built in order of date in one pass.
+   *
+   * @param trades the trades, in the order they are to be saved.
+   */
+  private void addChecked(List<Transaction> trades) {
+    transactions.addAll(trades);
+    List<Transaction> byDate = new ArrayList<>(trades);
+    byDate.sort(Comparator.comparing(Transaction::getDate));
+    for (Transaction trade : byDate) {
+      double quantity = trade.getType().equals("buy") ? trade.getQuantity()
+              : -trade.getQuantity();
+      ledger.add(trade.getStock(), quantity, trade.getDate());
+      costBook.add(trade.getStock(), quantity, trade.getPrice(), trade.getCommission(),
+              trade.getDate());
+    }
+  }
+
+  /**
+   * this method returns the trades of the portfolio in the order they were made.
+   *
+   * @return the trades, which cannot be changed.
+   */
+  List<Transaction> trades() {
+    return Collections.unmodifiableList(transactions);
+  }
+
+  /**
+   * this method returns the investment schedule of the portfolio.
+   *
+   * @return the schedule, or null if the portfolio has none.
+   */
+  Schedule getBuySchedule() {
+    return buySchedule;
+  }
+
+  /**
+   * this method sets the investment schedule of the portfolio, without making any investment.
+   *
+   * @param schedule the schedule.
+   */
+  void setBuySchedule(Schedule schedule) {
+    this.buySchedule = schedule;
+  }
+
+  /**
+   * this method builds the error for a line of a file.
+   *
+   * @param line    number of the line in the file.
+   * @param message what is wrong with the line.
+   * @return the exception to be thrown.
+   */
+  private static IllegalArgumentException lineError(int line, String message) {
+    return new IllegalArgumentException("Line " + line + ": " + message);
   }
 
   private void loadStrategy(String[] parts, IStockData api) {
@@ -395,7 +620,9 @@ public class FlexiblePortfolioImpl extends AbstractPortfolio {
    * @return true if lines are valid or else false if any entry is invalid.
    */
   private boolean validateLine(String[] parts) {
-    return parts.length == 4 && isPositiveNumber(parts[2].trim())
+    return (parts.length == 4 || (parts.length == 6 && isPositiveNumber(parts[4].trim())
+            && isNonNegativeNumber(parts[5].trim())))
+            && isPositiveNumber(parts[2].trim())
             && (parts[0].equalsIgnoreCase("buy")
             || parts[0].equalsIgnoreCase("sell"));
   }
@@ -414,6 +641,21 @@ public class FlexiblePortfolioImpl extends AbstractPortfolio {
     }
   }
 
+  /**
+   * this checks if a string represents a number that is zero or more.
+   *
+   * @param str string to be checked.
+   * @return true if string represents such a number, otherwise false.
+   */
+  private boolean isNonNegativeNumber(String str) {
+    try {
+      return Double.parseDouble(str) >= 0;
+    } catch (NumberFormatException e) {
+      return false;
+    }
+  }
+
+
   /**
    * this method executes a strategic investment plan using the provided strategy.
    * @param schedule   schedule for executing the investment strategy.
@@ -428,4 +670,66 @@ public class FlexiblePortfolioImpl extends AbstractPortfolio {
       buyStock(transaction.getStock(), transaction.getQuantity(), transaction.getDate(), api);
     }
   }
+
+  /**
+   * a trade read from a line of a portfolio file.
+   */
+  private static final class LoadedTrade {
+
+    /**
+     * number of the line in the file.
+     */
+    private final int line;
+
+    /**
+     * type of the trade, buy or sell.
+     */
+    private final String type;
+
+    /**
+     * ticker symbol of the stock traded.
+     */
+    private final String ticker;
+
+    /**
+     * quantity traded.
+     */
+    private final double quantity;
+
+    /**
+     * date of the trade.
+     */
+    private final LocalDate date;
+
+    /**
+     * price per share the trade was made at, NaN until it is known.
+     */
+    private double price;
+
+    /**
+     * commission paid for the trade.
+     */
+    private final double commission;
+
+    /**
+     * constructs a trade read from a line.
+     * @param line       number of the line in the file.
+     * @param type       type of the trade, buy or sell.
+     * @param ticker     ticker symbol of the stock traded.
+     * @param quantity   quantity traded.
+     * @param date       date of the trade.
+     * @param price      price per share the trade was made at, or NaN if it is not known.
+     * @param commission commission paid for the trade.
+     */
+    private LoadedTrade(int line, String type, String ticker, double quantity, LocalDate date,
+                        double price, double commission) {
+      this.line = line;
+      this.type = type;
+      this.ticker = ticker;
+      this.quantity = quantity;
+      this.date = date;
+      this.price = price;
+      this.commission = commission;
+    }
+  }
 }
@@ -1,9 +1,10 @@
 package model;
 
 import java.time.LocalDate;
-import java.util.ArrayList;
 import java.util.TreeMap;
 
+import controller.PriceSeries;
+
 
 /**
  * Performance Interface provides methods for analyzing the performance of stocks and portfolios.
@@ -20,8 +21,19 @@ interface IPerformance {
    * @return TreeMap containing the selected stock data, the timestamp and price on that day.
    * @throws IllegalArgumentException if the start date is before the last available date for stock.
    */
-  TreeMap<String, Double> stockPerformance(TreeMap<String, ArrayList<Double>> priceData,
-                                           LocalDate start, LocalDate end);
+  TreeMap<String, Double> stockPerformance(PriceSeries priceData, LocalDate start,
+                                           LocalDate end);
+
+  /**
+   * this method samples the closing prices of a stock on the latest trading day on or before
+   * each of the given days, allocating only the array of prices.
+   *
+   * @param priceData historical price data of the stock.
+   * @param epochDays days to be sampled, as epoch days.
+   * @return closing prices, index aligned with the days.
+   * @throws IllegalArgumentException if there is no trading day on or before one of the days.
+   */
+  double[] closingPrices(PriceSeries priceData, int[] epochDays);
 
   /**
    * this method computes performance of a portfolio within a specified time frame/ period.
@@ -0,0 +1,54 @@
+package model;
+
+/**
+ * Indicator lists the technical indicators the indicator engine can compute from the price
+ * series of a stock. Each constant is one column of values aligned to the trading days of the
+ * series.
+ */
+public enum Indicator {
+
+  /**
+   * exponential moving average of the closing price.
+   */
+  EMA,
+
+  /**
+   * relative strength index of the closing price, using Wilder's smoothing.
+   */
+  RSI,
+
+  /**
+   * difference between the fast and the slow exponential moving averages of the closing price.
+   */
+  MACD,
+
+  /**
+   * exponential moving average of the MACD line.
+   */
+  MACD_SIGNAL,
+
+  /**
+   * difference between the MACD line and its signal line.
+   */
+  MACD_HISTOGRAM,
+
+  /**
+   * simple moving average of the closing price that the Bollinger bands are centred on.
+   */
+  BOLLINGER_MIDDLE,
+
+  /**
+   * middle Bollinger band plus a multiple of the standard deviation of the closing price.
+   */
+  BOLLINGER_UPPER,
+
+  /**
+   * middle Bollinger band minus a multiple of the standard deviation of the closing price.
+   */
+  BOLLINGER_LOWER,
+
+  /**
+   * average true range, using Wilder's smoothing.
+   */
+  ATR
+}
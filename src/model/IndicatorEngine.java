@@ -0,0 +1,465 @@
+package model;
+
+import java.util.EnumMap;
+import java.util.EnumSet;
+import java.util.Set;
+
+import controller.PriceSeries;
+
+/**
+ * IndicatorEngine computes technical indicators from the price series of a stock.
+ * All the indicators asked for are computed together in a single pass over the opening, high,
+ * low and closing price columns of the series, so screening many stocks reads each series once.
+ * The settings of the indicators are set with the builder, which starts from the usual values.
+ */
+public final class IndicatorEngine {
+
+  /**
+   * number of days of the exponential moving average.
+   */
+  private final int emaPeriod;
+
+  /**
+   * number of days of the relative strength index.
+   */
+  private final int rsiPeriod;
+
+  /**
+   * number of days of the fast moving average of the MACD line.
+   */
+  private final int macdFast;
+
+  /**
+   * number of days of the slow moving average of the MACD line.
+   */
+  private final int macdSlow;
+
+  /**
+   * number of days of the moving average of the MACD signal line.
+   */
+  private final int macdSignal;
+
+  /**
+   * number of days of the Bollinger bands.
+   */
+  private final int bollingerPeriod;
+
+  /**
+   * number of standard deviations between the middle Bollinger band and the outer bands.
+   */
+  private final double bollingerWidth;
+
+  /**
+   * number of days of the average true range.
+   */
+  private final int atrPeriod;
+
+  /**
+   * indicators to be computed.
+   */
+  private final Set<Indicator> indicators;
+
+  /**
+   * constructs an engine with the settings of the builder.
+   * @param builder the builder holding the settings.
+   */
+  private IndicatorEngine(Builder builder) {
+    this.emaPeriod = builder.emaPeriod;
+    this.rsiPeriod = builder.rsiPeriod;
+    this.macdFast = builder.macdFast;
+    this.macdSlow = builder.macdSlow;
+    this.macdSignal = builder.macdSignal;
+    this.bollingerPeriod = builder.bollingerPeriod;
+    this.bollingerWidth = builder.bollingerWidth;
+    this.atrPeriod = builder.atrPeriod;
+    this.indicators = EnumSet.copyOf(builder.indicators);
+  }
+
+  /**
+   * returns the indicators computed by this engine.
+   * @return the indicators.
+   */
+  public Set<Indicator> indicators() {
+    return EnumSet.copyOf(indicators);
+  }
+
+  /**
+   * computes the indicators of this engine from the price series in one pass.
+   * @param series the price series of a stock.
+   * @return the indicators, index aligned with the trading days of the series.
+   */
+  public IndicatorSeries compute(PriceSeries series) {
+    int size = series.size();
+    EnumMap<Indicator, double[]> columns = new EnumMap<>(Indicator.class);
+    for (Indicator indicator : indicators) {
+      columns.put(indicator, new double[size]);
+    }
+    double[] ema = columns.get(Indicator.EMA);
+    double[] rsi = columns.get(Indicator.RSI);
+    double[] macd = columns.get(Indicator.MACD);
+    double[] signal = columns.get(Indicator.MACD_SIGNAL);
+    double[] histogram = columns.get(Indicator.MACD_HISTOGRAM);
+    double[] middle = columns.get(Indicator.BOLLINGER_MIDDLE);
+    double[] upper = columns.get(Indicator.BOLLINGER_UPPER);
+    double[] lower = columns.get(Indicator.BOLLINGER_LOWER);
+    double[] atr = columns.get(Indicator.ATR);
+    boolean needsMacd = macd != null || signal != null || histogram != null;
+    boolean needsBollinger = middle != null || upper != null || lower != null;
+
+    MovingAverage closeAverage = new MovingAverage(emaPeriod);
+    MovingAverage fastAverage = new MovingAverage(macdFast);
+    MovingAverage slowAverage = new MovingAverage(macdSlow);
+    MovingAverage signalAverage = new MovingAverage(macdSignal);
+    WilderAverage gainAverage = new WilderAverage(rsiPeriod);
+    WilderAverage lossAverage = new WilderAverage(rsiPeriod);
+    WilderAverage rangeAverage = new WilderAverage(atrPeriod);
+    double bandMean = 0;
+    double bandSquares = 0;
+
+    for (int i = 0; i < size; i++) {
+      double close = series.closeAt(i);
+      double previousClose = i > 0 ? series.closeAt(i - 1) : Double.NaN;
+
+      if (ema != null) {
+        ema[i] = closeAverage.add(close);
+      }
+
+      if (rsi != null) {
+        if (i == 0) {
+          rsi[i] = Double.NaN;
+        } else {
+          double change = close - previousClose;
+          double gain = gainAverage.add(Math.max(change, 0));
+          double loss = lossAverage.add(Math.max(-change, 0));
+          rsi[i] = relativeStrength(gain, loss);
+        }
+      }
+
+      if (needsMacd) {
+        double line = fastAverage.add(close) - slowAverage.add(close);
+        double signalLine = Double.isNaN(line) ? Double.NaN : signalAverage.add(line);
+        if (macd != null) {
+          macd[i] = line;
+        }
+        if (signal != null) {
+          signal[i] = signalLine;
+        }
+        if (histogram != null) {
+          histogram[i] = line - signalLine;
+        }
+      }
+
+      if (needsBollinger) {
+        // the mean and the sum of squared deviations of the window are updated as a day enters
+        // and another one leaves it, which stays accurate over long series.
+        if (i < bollingerPeriod) {
+          double delta = close - bandMean;
+          bandMean += delta / (i + 1);
+          bandSquares += delta * (close - bandMean);
+        } else {
+          double leaving = series.closeAt(i - bollingerPeriod);
+          double oldMean = bandMean;
+          bandMean += (close - leaving) / bollingerPeriod;
+          bandSquares += (close - leaving) * (close - bandMean + leaving - oldMean);
+        }
+        boolean full = i + 1 >= bollingerPeriod;
+        double deviation = Math.sqrt(Math.max(bandSquares, 0) / bollingerPeriod);
+        if (middle != null) {
+          middle[i] = full ? bandMean : Double.NaN;
+        }
+        if (upper != null) {
+          upper[i] = full ? bandMean + bollingerWidth * deviation : Double.NaN;
+        }
+        if (lower != null) {
+          lower[i] = full ? bandMean - bollingerWidth * deviation : Double.NaN;
+        }
+      }
+
+      if (atr != null) {
+        if (i == 0) {
+          atr[i] = Double.NaN;
+        } else {
+          double high = series.highAt(i);
+          double low = series.lowAt(i);
+          double trueRange = Math.max(high - low, Math.max(Math.abs(high - previousClose),
+                  Math.abs(low - previousClose)));
+          atr[i] = rangeAverage.add(trueRange);
+        }
+      }
+    }
+    return new IndicatorSeries(series, columns);
+  }
+
+  /**
+   * works out the relative strength index from the average gain and the average loss.
+   * @param gain average gain.
+   * @param loss average loss.
+   * @return the index between 0 and 100, or NaN if the averages are not known yet.
+   */
+  private static double relativeStrength(double gain, double loss) {
+    if (Double.isNaN(gain) || Double.isNaN(loss)) {
+      return Double.NaN;
+    }
+    if (loss == 0) {
+      return gain == 0 ? 50 : 100;
+    }
+    return 100 - 100 / (1 + gain / loss);
+  }
+
+  /**
+   * an exponential moving average that starts from the simple average of its first days.
+   */
+  private static final class MovingAverage {
+
+    /**
+     * number of days of the average.
+     */
+    private final int period;
+
+    /**
+     * weight of the latest value.
+     */
+    private final double alpha;
+
+    /**
+     * number of values added so far.
+     */
+    private int count;
+
+    /**
+     * sum of the values added, and the average once there are enough values.
+     */
+    private double value;
+
+    /**
+     * constructs an average over the given number of days.
+     * @param period number of days of the average.
+     */
+    private MovingAverage(int period) {
+      this.period = period;
+      this.alpha = 2.0 / (period + 1);
+    }
+
+    /**
+     * adds the value of the next day.
+     * @param x the value.
+     * @return the average, or NaN if fewer values than the period were added.
+     */
+    private double add(double x) {
+      count++;
+      if (count < period) {
+        value += x;
+        return Double.NaN;
+      }
+      if (count == period) {
+        value = (value + x) / period;
+      } else {
+        value += alpha * (x - value);
+      }
+      return value;
+    }
+  }
+
+  /**
+   * Wilder's moving average, which starts from the simple average of its first days and then
+   * gives the latest value a weight of one over the period.
+   */
+  private static final class WilderAverage {
+
+    /**
+     * number of days of the average.
+     */
+    private final int period;
+
+    /**
+     * number of values added so far.
+     */
+    private int count;
+
+    /**
+     * sum of the values added, and the average once there are enough values.
+     */
+    private double value;
+
+    /**
+     * constructs an average over the given number of days.
+     * @param period number of days of the average.
+     */
+    private WilderAverage(int period) {
+      this.period = period;
+    }
+
+    /**
+     * adds the value of the next day.
+     * @param x the value.
+     * @return the average, or NaN if fewer values than the period were added.
+     */
+    private double add(double x) {
+      count++;
+      if (count < period) {
+        value += x;
+        return Double.NaN;
+      }
+      if (count == period) {
+        value = (value + x) / period;
+      } else {
+        value = (value * (period - 1) + x) / period;
+      }
+      return value;
+    }
+  }
+
+  /**
+   * Builder class to set up an indicator engine. It starts with all the indicators and the
+   * usual settings: a 20 day EMA, a 14 day RSI, a 12, 26 and 9 day MACD, 20 day Bollinger bands
+   * two standard deviations wide and a 14 day ATR.
+   */
+  public static class Builder {
+
+    /**
+     * number of days of the exponential moving average.
+     */
+    private int emaPeriod = 20;
+
+    /**
+     * number of days of the relative strength index.
+     */
+    private int rsiPeriod = 14;
+
+    /**
+     * number of days of the fast moving average of the MACD line.
+     */
+    private int macdFast = 12;
+
+    /**
+     * number of days of the slow moving average of the MACD line.
+     */
+    private int macdSlow = 26;
+
+    /**
+     * number of days of the moving average of the MACD signal line.
+     */
+    private int macdSignal = 9;
+
+    /**
+     * number of days of the Bollinger bands.
+     */
+    private int bollingerPeriod = 20;
+
+    /**
+     * number of standard deviations between the middle Bollinger band and the outer bands.
+     */
+    private double bollingerWidth = 2;
+
+    /**
+     * number of days of the average true range.
+     */
+    private int atrPeriod = 14;
+
+    /**
+     * indicators to be computed.
+     */
+    private Set<Indicator> indicators = EnumSet.allOf(Indicator.class);
+
+    /**
+     * sets the indicators to be computed.
+     * @param first  an indicator to be computed.
+     * @param others the other indicators to be computed.
+     * @return this builder.
+     */
+    public Builder indicators(Indicator first, Indicator... others) {
+      this.indicators = EnumSet.of(first, others);
+      return this;
+    }
+
+    /**
+     * sets the number of days of the exponential moving average.
+     * @param period number of days.
+     * @return this builder.
+     * @throws IllegalArgumentException if the number of days is not positive.
+     */
+    public Builder ema(int period) {
+      this.emaPeriod = positive(period);
+      return this;
+    }
+
+    /**
+     * sets the number of days of the relative strength index.
+     * @param period number of days.
+     * @return this builder.
+     * @throws IllegalArgumentException if the number of days is not positive.
+     */
+    public Builder rsi(int period) {
+      this.rsiPeriod = positive(period);
+      return this;
+    }
+
+    /**
+     * sets the number of days of the moving averages of the MACD.
+     * @param fast   number of days of the fast moving average.
+     * @param slow   number of days of the slow moving average.
+     * @param signal number of days of the moving average of the signal line.
+     * @return this builder.
+     * @throws IllegalArgumentException if a number of days is not positive or the fast average
+     *                                  is not shorter than the slow one.
+     */
+    public Builder macd(int fast, int slow, int signal) {
+      if (positive(fast) >= positive(slow)) {
+        throw new IllegalArgumentException("Fast MACD days should be less than slow MACD days");
+      }
+      this.macdFast = fast;
+      this.macdSlow = slow;
+      this.macdSignal = positive(signal);
+      return this;
+    }
+
+    /**
+     * sets the number of days and the width of the Bollinger bands.
+     * @param period number of days.
+     * @param width  number of standard deviations between the middle band and the outer bands.
+     * @return this builder.
+     * @throws IllegalArgumentException if the number of days is not positive or the width is
+     *                                  negative.
+     */
+    public Builder bollinger(int period, double width) {
+      if (!(width >= 0)) {
+        throw new IllegalArgumentException("Bollinger band width should not be negative");
+      }
+      this.bollingerPeriod = positive(period);
+      this.bollingerWidth = width;
+      return this;
+    }
+
+    /**
+     * sets the number of days of the average true range.
+     * @param period number of days.
+     * @return this builder.
+     * @throws IllegalArgumentException if the number of days is not positive.
+     */
+    public Builder atr(int period) {
+      this.atrPeriod = positive(period);
+      return this;
+    }
+
+    /**
+     * builds the indicator engine.
+     * @return the indicator engine with the settings of this builder.
+     */
+    public IndicatorEngine build() {
+      return new IndicatorEngine(this);
+    }
+
+    /**
+     * checks that a number of days is positive.
+     * @param period number of days.
+     * @return the number of days.
+     * @throws IllegalArgumentException if the number of days is not positive.
+     */
+    private static int positive(int period) {
+      if (period <= 0) {
+        throw new IllegalArgumentException("Number of days should be positive");
+      }
+      return period;
+    }
+  }
+}
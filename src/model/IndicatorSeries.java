@@ -0,0 +1,109 @@
+package model;
+
+import java.time.LocalDate;
+import java.util.EnumMap;
+import java.util.Set;
+
+import controller.PriceSeries;
+
+/**
+ * IndicatorSeries holds the technical indicators computed from the price series of a stock, one
+ * column of values for each indicator, index aligned with the trading days of the series.
+ * A value is NaN on the days before the indicator has enough data to be computed.
+ */
+public final class IndicatorSeries {
+
+  /**
+   * the price series the indicators were computed from.
+   */
+  private final PriceSeries series;
+
+  /**
+   * values of each indicator computed, index aligned with the trading days of the series.
+   */
+  private final EnumMap<Indicator, double[]> columns;
+
+  /**
+   * constructs an indicator series from columns computed from the price series.
+   * @param series  the price series the indicators were computed from.
+   * @param columns values of each indicator, with as many values as the series has days.
+   */
+  IndicatorSeries(PriceSeries series, EnumMap<Indicator, double[]> columns) {
+    this.series = series;
+    this.columns = columns;
+  }
+
+  /**
+   * returns the number of trading days in this series.
+   * @return number of trading days.
+   */
+  public int size() {
+    return series.size();
+  }
+
+  /**
+   * returns the trading day at the given index.
+   * @param index index of the trading day.
+   * @return date of the trading day.
+   */
+  public LocalDate dateAt(int index) {
+    return series.dateAt(index);
+  }
+
+  /**
+   * returns the indicators held by this series.
+   * @return the indicators computed.
+   */
+  public Set<Indicator> indicators() {
+    return columns.keySet();
+  }
+
+  /**
+   * returns the value of an indicator at the given index.
+   * @param indicator the indicator.
+   * @param index     index of the trading day.
+   * @return value of the indicator on that day, or NaN if it has too little data on that day.
+   * @throws IllegalArgumentException if the indicator was not computed.
+   */
+  public double valueAt(Indicator indicator, int index) {
+    return columnOf(indicator)[index];
+  }
+
+  /**
+   * returns the value of an indicator on the latest trading day on or before the given date.
+   * @param indicator the indicator.
+   * @param date      the date.
+   * @return value of the indicator, or NaN if there is no trading day on or before the date or
+   *         the indicator has too little data on that day.
+   * @throws IllegalArgumentException if the indicator was not computed.
+   */
+  public double valueOn(Indicator indicator, LocalDate date) {
+    double[] column = columnOf(indicator);
+    int index = series.floorIndex(date);
+    return index < 0 ? Double.NaN : column[index];
+  }
+
+  /**
+   * returns a copy of the values of an indicator.
+   * @param indicator the indicator.
+   * @return values of the indicator, index aligned with the trading days.
+   * @throws IllegalArgumentException if the indicator was not computed.
+   */
+  public double[] column(Indicator indicator) {
+    return columnOf(indicator).clone();
+  }
+
+  /**
+   * returns the values of an indicator.
+   * @param indicator the indicator.
+   * @return values of the indicator.
+   * @throws IllegalArgumentException if the indicator was not computed.
+   */
+  private double[] columnOf(Indicator indicator) {
+    double[] column = columns.get(indicator);
+    if (column == null) {
+      throw new IllegalArgumentException(indicator + " was not computed");
+    }
+    return column;
+  }
+}
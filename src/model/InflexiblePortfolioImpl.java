@@ -1,9 +1,12 @@
 package model;
 
+import java.io.IOException;
 import java.time.LocalDate;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 
 import controller.IStockData;
 
@@ -33,6 +36,17 @@ public class InflexiblePortfolioImpl extends AbstractPortfolio {
     this.sharesList = deepCopy(list);
   }
 
+  /**
+   * Constructs a InflexiblePortfolioImpl object from shares already checked to be valid, without
+   * checking their ticker symbols again.
+   * @param portfolioName The name of the portfolio.
+   * @param list The map containing ticker symbols and quantities of shares.
+   * @return the portfolio.
+   */
+  static InflexiblePortfolioImpl of(String portfolioName, Map<String, Double> list) {
+    return new InflexiblePortfolioImpl(portfolioName, list);
+  }
+
   /**
    * Returns a deep copy of the portfolio composition.
    * @return A map containing ticker symbols and quantities of shares.
@@ -54,19 +68,17 @@ public class InflexiblePortfolioImpl extends AbstractPortfolio {
 
 
   /**
-   * this method generates a StringBuilder containing symbol and quantity data for each share.
-   * in the portfolio. StringBuilder is returned for further processing or storage.
-   * @return StringBuilder containing symbol and quantity data for each share in the portfolio.
+   * this method writes symbol and quantity data for each share in the portfolio.
+   * @param out where the rows are written.
+   * @throws IOException if the rows can't be written.
    */
   @Override
-  public StringBuilder save() {
-    StringBuilder sb = new StringBuilder();
-    sb.append("Symbol,Quantity").append(System.lineSeparator());
+  public void save(Appendable out) throws IOException {
+    out.append("Symbol,Quantity").append(System.lineSeparator());
     for (Map.Entry<String, Double> entry : sharesList.entrySet()) {
-      sb.append(entry.getKey()).append(",").append(entry.getValue());
-      sb.append(System.lineSeparator());
+      out.append(entry.getKey()).append(",").append(String.valueOf(entry.getValue()));
+      out.append(System.lineSeparator());
     }
-    return sb;
   }
 
   /**
@@ -81,6 +93,18 @@ public class InflexiblePortfolioImpl extends AbstractPortfolio {
     throw new IllegalArgumentException();
   }
 
+  /**
+   * this method calculates the cost of the shares held, for flexible portfolio.
+   * @param date date for which the cost is calculated.
+   * @param method how the shares sold are matched against the lots.
+   * @return cost of the shares held.
+   * @throws IllegalArgumentException if the method is called by inflexible portfolio.
+   */
+  @Override
+  public double costOfHoldings(LocalDate date, LotMethod method) {
+    throw new IllegalArgumentException();
+  }
+
   /**
    * this method calculates value of the portfolio on a given date.
    * @param date for which the portfolio value is calculated.
@@ -128,6 +152,25 @@ public class InflexiblePortfolioImpl extends AbstractPortfolio {
     return false;
   }
 
+  /**
+   * this method returns the shares of the portfolio, which are the same on any date.
+   * @param date date for which the holdings are returned (not used in this implementation).
+   * @return map containing ticker symbols and quantities of shares.
+   */
+  @Override
+  Map<String, Double> holdingsOn(LocalDate date) {
+    return portfolioComposition();
+  }
+
+  /**
+   * this method returns the ticker symbols of the shares of the portfolio.
+   * @return set of ticker symbols.
+   */
+  @Override
+  Set<String> tickersHeld() {
+    return new HashSet<>(sharesList.keySet());
+  }
+
 
   /**
    * the load method to load portfolio data from a list of string arrays representing lines of data.
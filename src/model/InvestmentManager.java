@@ -1,8 +1,10 @@
 package model;
 
+import java.io.IOException;
 import java.time.LocalDate;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 import java.util.TreeMap;
 
 import controller.IStockData;
@@ -35,6 +37,14 @@ public interface InvestmentManager {
    */
   Map<String, String> getListOfPortfoliosName();
 
+  /**
+   * this method suggests stocks whose ticker symbol or company name starts with the given text.
+   * @param prefix start of a ticker symbol or company name typed by the user.
+   * @param limit  maximum number of suggestions.
+   * @return Map of ticker symbols and their company names, in the order they are suggested.
+   */
+  Map<String, String> suggestTickers(String prefix, int limit);
+
   /**
    * this method retrieves the composition of the portfolio at the specified index.
    * @param input  index of the portfolio.
@@ -104,6 +114,26 @@ public interface InvestmentManager {
    */
   double costBasis(int input, LocalDate date, IStockData api);
 
+  /**
+   * this method calculates the cost of the shares still held in a portfolio on a date, matching
+   * the shares sold against the lots they were bought in.
+   * @param input index of the portfolio.
+   * @param date date for which the cost is calculated.
+   * @param method how the shares sold are matched against the lots, FIFO, LIFO or average.
+   * @return cost of the shares held.
+   * @throws IllegalArgumentException if the portfolio doesn't exist or is inflexible.
+   */
+  double costOfHoldings(int input, LocalDate date, LotMethod method);
+
+  /**
+   * this method returns the ticker symbols of all the stocks a portfolio has ever held, so that
+   * their prices can be fetched ahead of valuing it.
+   * @param input index of the portfolio.
+   * @return set of ticker symbols.
+   * @throws IllegalArgumentException if the portfolio doesn't exist.
+   */
+  Set<String> tickersHeld(int input);
+
   /**
    * this method calculates gain or loss of a stock in portfolio at specified index for given date.
    * @param tickerSymbol ticker symbol of the stock.
@@ -161,6 +191,17 @@ public interface InvestmentManager {
   TreeMap<String, String> movingCrossOver(String tickerSymbol, IStockData api, LocalDate startDate,
                                           LocalDate endDate, int x, int y);
 
+  /**
+   * this method computes technical indicators for each of the given stocks, such as EMA, RSI,
+   * MACD, Bollinger bands and ATR, reading the price series of each stock once.
+   * @param stocks ticker symbols or names of the stocks.
+   * @param engine indicator engine holding the indicators to be computed and their settings.
+   * @param api StockData object for fetching the stock prices.
+   * @return Map of ticker symbols to their indicators, in the order the stocks are given.
+   */
+  Map<String, IndicatorSeries> computeIndicators(List<String> stocks, IndicatorEngine engine,
+                                                 IStockData api);
+
   /**
    * this method calculates performance of a specific stock over a given period.
    * @param stock name of the stock.
@@ -213,6 +254,16 @@ public interface InvestmentManager {
    */
   StringBuilder save(int input);
 
+  /**
+   * this method writes the same portfolio data as save, one row at a time, straight to where it
+   * is being exported, so that the whole file is never held in memory.
+   * @param input The index of the portfolio for which data is to be saved.
+   * @param out   where the rows are written.
+   * @throws IOException if the rows can't be written.
+   * @throws IllegalArgumentException if there is no portfolio with the index.
+   */
+  void save(int input, Appendable out) throws IOException;
+
   /**
    * this method loads portfolio data from a list of string arrays representing lines of data,
    * using the provided portfolio name, StockData object for fetching stock data,
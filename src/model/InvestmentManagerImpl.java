@@ -1,12 +1,20 @@
 package model;
 
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.time.LocalDate;
 import java.util.ArrayList;
 import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 import java.util.TreeMap;
 
+import controller.AtomicFiles;
 import controller.IStockData;
 import controller.StockData;
 
@@ -20,9 +28,9 @@ import controller.StockData;
 public class InvestmentManagerImpl implements InvestmentManager {
 
   /**
-   * Array list to store the portfolio objects.
+   * registry of the portfolios, by index and by name, each with its own lock.
    */
-  private final ArrayList<Portfolio> portfolioDirectory;
+  private final PortfolioRegistry portfolioDirectory;
 
   /**
    * Instance of StockStatistic for performing statistical calculations, stock trend.
@@ -30,44 +38,83 @@ public class InvestmentManagerImpl implements InvestmentManager {
   private final StockStatistic stats = new StockStatisticsImpl();
 
   /**
-   * Constructor to initialize the portfolio directory with the array list.
+   * Constructor to initialize the portfolio directory with an empty registry.
+   * The directory and the portfolios in it are safe to use from many threads: portfolios are
+   * valued at the same time as each other, and only trades on a portfolio wait for the other
+   * calls on that portfolio.
    */
   public InvestmentManagerImpl() {
-    portfolioDirectory = new ArrayList<>();
+    portfolioDirectory = new PortfolioRegistry();
+  }
+
+  /**
+   * this method writes all the portfolios, with their trades, the prices and commissions the
+   * trades were made at and their investment schedules, to a binary snapshot file. The snapshot
+   * is written to a temporary file next to the target first, which then replaces the target, so
+   * a failed save leaves the previous snapshot as it was.
+   * @param file the snapshot file.
+   * @throws IOException if the snapshot can't be written.
+   */
+  public void saveSnapshot(Path file) throws IOException {
+    AtomicFiles.replace(file, ".tmp", temp -> {
+      try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(
+              Files.newOutputStream(temp), 1 << 16))) {
+        PortfolioSnapshot.write(portfolioDirectory, out);
+      }
+      return null;
+    });
+  }
+
+  /**
+   * this method adds the portfolios of a snapshot file written by saveSnapshot, reading the file
+   * in one go. No price is fetched: the holdings and cost basis of each flexible portfolio are
+   * built from the prices its trades were made at, and its investment schedule is restored as
+   * it was, to carry on from the date it last ran.
+   * @param file the snapshot file.
+   * @throws IOException if the file can't be read.
+   * @throws IllegalArgumentException if the file is not a snapshot of a version that can be
+   *                                  read, or a portfolio in it has the name of one already here.
+   */
+  public void loadSnapshot(Path file) throws IOException {
+    PortfolioSnapshot.read(Files.readAllBytes(file), portfolioDirectory);
   }
 
   @Override
   public void addPortfolio(InflexiblePortfolioImpl.PortfolioBuilder newBuilder) {
-    portfolioDirectory.add(newBuilder.build());
+    if (portfolioDirectory.add(newBuilder.build()) < 0) {
+      throw new IllegalArgumentException();
+    }
   }
 
   @Override
   public void createFlexiblePortfolio(String portfolioName) {
-    if (portfolioNameExists(portfolioName)) {
+    if (portfolioDirectory.add(new FlexiblePortfolioImpl(portfolioName)) < 0) {
       throw new IllegalArgumentException();
     }
-    portfolioDirectory.add(new FlexiblePortfolioImpl(portfolioName));
   }
 
   @Override
   public Map<String, String> getListOfPortfoliosName() {
     LinkedHashMap<String, String> listOfPortfolio = new LinkedHashMap<>();
-    for (Portfolio obj : portfolioDirectory) {
-      if (obj.isFlexible()) {
-        listOfPortfolio.put(obj.getName(), "Flexible");
+    int size = portfolioDirectory.size();
+    for (int i = 0; i < size; i++) {
+      if (portfolioDirectory.isFlexible(i)) {
+        listOfPortfolio.put(portfolioDirectory.nameOf(i), "Flexible");
       } else {
-        listOfPortfolio.put(obj.getName(), "Inflexible");
+        listOfPortfolio.put(portfolioDirectory.nameOf(i), "Inflexible");
       }
     }
     return listOfPortfolio;
   }
 
+  @Override
+  public Map<String, String> suggestTickers(String prefix, int limit) {
+    return TickerRegistry.shared().suggest(prefix, limit);
+  }
+
   @Override
   public Map<String, Double> portfolioComposition(int input, LocalDate date) {
-    if (input >= portfolioDirectory.size() || input < 0) {
-      throw new IllegalArgumentException("The choice of portfolio doesn't exists");
-    }
-    return portfolioDirectory.get(input).portfolioComposition(date);
+    return portfolioDirectory.read(input, portfolio -> portfolio.portfolioComposition(date));
   }
 
   @Override
@@ -104,59 +151,59 @@ public class InvestmentManagerImpl implements InvestmentManager {
       throw new IllegalArgumentException();
     }
     String date = String.format("%04d-%02d-%02d", year, month, day);
-    return portfolioDirectory.get(input).portfolioValue(date, api);
+    return portfolioDirectory.read(input, portfolio -> portfolio.portfolioValue(date, api));
   }
 
 
 
   @Override
   public boolean isEmpty() {
-    return portfolioDirectory.isEmpty();
+    return portfolioDirectory.size() == 0;
   }
 
   @Override
   public boolean portfolioNameExists(String portfolioName) {
-
-    for (Portfolio obj : portfolioDirectory) {
-      if (obj.getName().equalsIgnoreCase(portfolioName)) {
-        return true;
-      }
-    }
-    return false;
+    return portfolioDirectory.contains(portfolioName);
   }
 
   @Override
   public void buyStock(int input, String stock, int quantity, LocalDate buyDate, IStockData api) {
-    if (input >= portfolioDirectory.size() || input < 0) {
-      throw new IllegalArgumentException("The choice of portfolio doesn't exists");
-    }
-
-    if (!portfolioDirectory.get(input).isFlexible()) {
+    if (!portfolioDirectory.isFlexible(input)) {
       throw new IllegalArgumentException("Cannot buy in inflexible portfolio!");
     }
-    portfolioDirectory.get(input).buyStock(stock, quantity, buyDate, api);
+    portfolioDirectory.write(input, portfolio -> portfolio.buyStock(stock, quantity, buyDate,
+            api));
   }
 
   @Override
   public void sellStock(int input, String stock, int quantity, LocalDate sellDate, IStockData api) {
-    if (input >= portfolioDirectory.size() || input < 0) {
-      throw new IllegalArgumentException("The choice of portfolio doesn't exists");
-    }
-    if (!portfolioDirectory.get(input).isFlexible()) {
+    if (!portfolioDirectory.isFlexible(input)) {
       throw new IllegalArgumentException("Cannot sell in inflexible portfolio!");
     }
-    portfolioDirectory.get(input).sellStock(stock, quantity, sellDate, api);
+    portfolioDirectory.write(input, portfolio -> portfolio.sellStock(stock, quantity, sellDate,
+            api));
   }
 
   @Override
   public double costBasis(int input, LocalDate date, IStockData api) {
-    if (input >= portfolioDirectory.size() || input < 0) {
-      throw new IllegalArgumentException("The choice of portfolio doesn't exists");
+    if (!portfolioDirectory.isFlexible(input)) {
+      throw new IllegalArgumentException("Cannot get the cost basis of a inflexible portfolio!");
     }
-    if (!portfolioDirectory.get(input).isFlexible()) {
+    return portfolioDirectory.read(input, portfolio -> portfolio.costBasis(date, api));
+  }
+
+  @Override
+  public double costOfHoldings(int input, LocalDate date, LotMethod method) {
+    if (!portfolioDirectory.isFlexible(input)) {
       throw new IllegalArgumentException("Cannot get the cost basis of a inflexible portfolio!");
     }
-    return portfolioDirectory.get(input).costBasis(date, api);
+    return portfolioDirectory.read(input, portfolio -> portfolio.costOfHoldings(date, method));
+  }
+
+  @Override
+  public Set<String> tickersHeld(int input) {
+    return portfolioDirectory.read(input,
+            portfolio -> ((AbstractPortfolio) portfolio).tickersHeld());
   }
 
   @Override
@@ -166,7 +213,7 @@ public class InvestmentManagerImpl implements InvestmentManager {
       throw new IllegalArgumentException("Invalid ticker symbol");
     }
     return stats.gainOrLoseOnDate(tickerSymbol, date
-            + "", api.fetchHistoricalData(tickerSymbol));
+            + "", api.fetchPriceSeries(tickerSymbol));
   }
 
   @Override
@@ -184,7 +231,7 @@ public class InvestmentManagerImpl implements InvestmentManager {
       throw new IllegalArgumentException("Start Date should be less than End date");
     }
     return stats.gainOrLoseOverPeriod(tickerSymbol, date1 + "", date2 + "",
-            api.fetchHistoricalData(tickerSymbol));
+            api.fetchPriceSeries(tickerSymbol));
   }
 
   @Override
@@ -198,7 +245,7 @@ public class InvestmentManagerImpl implements InvestmentManager {
     }
 
     return stats.xDayMovingAvg(tickerSymbol, date
-            + "", x, api.fetchHistoricalData(tickerSymbol));
+            + "", x, api.fetchPriceSeries(tickerSymbol));
   }
 
   @Override
@@ -216,7 +263,7 @@ public class InvestmentManagerImpl implements InvestmentManager {
     if (startDate.isAfter(endDate)) {
       throw new IllegalArgumentException("Start Date should be less than End date");
     }
-    return stats.crossoverOverPeriod(tickerSymbol, api.fetchHistoricalData(tickerSymbol),
+    return stats.crossoverOverPeriod(tickerSymbol, api.fetchPriceSeries(tickerSymbol),
             startDate + "",
             endDate + "");
   }
@@ -239,10 +286,31 @@ public class InvestmentManagerImpl implements InvestmentManager {
       throw new IllegalArgumentException("Enter positive number of days, & shorter "
               + "moving avg days should be less than larger moving avg days.");
     }
-    return stats.movingCrossoversOverPeriod(tickerSymbol, api.fetchHistoricalData(tickerSymbol),
+    return stats.movingCrossoversOverPeriod(tickerSymbol, api.fetchPriceSeries(tickerSymbol),
             startDate + "", endDate + "", x, y);
   }
 
+  @Override
+  public Map<String, IndicatorSeries> computeIndicators(List<String> stocks,
+                                                        IndicatorEngine engine, IStockData api) {
+    List<String> tickerSymbols = new ArrayList<>();
+    for (String stock : stocks) {
+      String tickerSymbol = AbstractPortfolio.validateStockName(stock);
+      if (tickerSymbol == null) {
+        throw new IllegalArgumentException("Invalid ticker symbol: " + stock);
+      }
+      tickerSymbols.add(tickerSymbol);
+    }
+    api.prefetch(tickerSymbols);
+    Map<String, IndicatorSeries> indicators = new LinkedHashMap<>();
+    for (String tickerSymbol : tickerSymbols) {
+      if (!indicators.containsKey(tickerSymbol)) {
+        indicators.put(tickerSymbol, engine.compute(api.fetchPriceSeries(tickerSymbol)));
+      }
+    }
+    return indicators;
+  }
+
   @Override
   public TreeMap<String, Integer> stockPerformance(String stock, IStockData api,
                                                    LocalDate start, LocalDate end) {
@@ -274,19 +342,32 @@ public class InvestmentManagerImpl implements InvestmentManager {
 
   @Override
   public StringBuilder save(int input) {
-    if (input >= portfolioDirectory.size() || input < 0) {
-      throw new IllegalArgumentException("The choice of portfolio doesn't exists");
+    return portfolioDirectory.read(input, Portfolio::save);
+  }
+
+  @Override
+  public void save(int input, Appendable out) throws IOException {
+    try {
+      portfolioDirectory.read(input, portfolio -> {
+        try {
+          portfolio.save(out);
+          return null;
+        } catch (IOException e) {
+          throw new UncheckedIOException(e);
+        }
+      });
+    } catch (UncheckedIOException e) {
+      throw e.getCause();
     }
-    return portfolioDirectory.get(input).save();
   }
 
   @Override
   public void loadPortfolio(String portfolioName, List<String[]> lines, IStockData api) {
-    if (portfolioNameExists(portfolioName)) {
+    int input = portfolioDirectory.add(new FlexiblePortfolioImpl(portfolioName));
+    if (input < 0) {
       throw new IllegalArgumentException();
     }
-    createFlexiblePortfolio(portfolioName);
-    portfolioDirectory.get(getSize() - 1).load(lines, api);
+    portfolioDirectory.write(input, portfolio -> portfolio.load(lines, api));
   }
 
   @Override
@@ -321,7 +402,8 @@ public class InvestmentManagerImpl implements InvestmentManager {
     if (start.isAfter(end)) {
       throw new IllegalArgumentException("Start Date should be less than End date");
     }
-    return performance.portfolioPerformance(portfolioDirectory.get(input),start,end);
+    return portfolioDirectory.read(input,
+            portfolio -> performance.portfolioPerformance(portfolio, start, end));
   }
 
   /**
@@ -351,7 +433,7 @@ public class InvestmentManagerImpl implements InvestmentManager {
       throw new IllegalArgumentException("Start Date should be less than End date");
     }
 
-    return p.stockPerformance(api.fetchHistoricalData(tickerSymbol), start, end);
+    return p.stockPerformance(api.fetchPriceSeries(tickerSymbol), start, end);
   }
 
 
@@ -361,26 +443,22 @@ public class InvestmentManagerImpl implements InvestmentManager {
                                               LocalDate endDate,
                                               int frequencyDays, double amount,
                                               StockData api) {
-    if (input >= portfolioDirectory.size() || input < 0) {
-      throw new IllegalArgumentException("The choice of portfolio doesn't exists");
-    }
     Schedule schedule = new BuySchedule("DCA",amount, frequencyDays, startDate, endDate,
              null, buyingList);
 
     Strategy newStrategy = new DollarCostAverageStrategy();
-    portfolioDirectory.get(input).strategicalInvestment(schedule, newStrategy, api);
+    portfolioDirectory.write(input, portfolio -> portfolio.strategicalInvestment(schedule,
+            newStrategy, api));
   }
 
   @Override
   public void investWithDCAStrategy(int input, Map<String, Double> investingList, LocalDate date,
                                     double amount, StockData api) {
-    if (input >= portfolioDirectory.size() || input < 0) {
-      throw new IllegalArgumentException("The choice of portfolio doesn't exists");
-    }
     Schedule schedule = new BuySchedule("DCA", amount, 1, date, date,
             null, investingList);
     Strategy newStrategy = new DollarCostAverageStrategy();
-    portfolioDirectory.get(input).strategicalInvestment(schedule, newStrategy, api);
+    portfolioDirectory.write(input, portfolio -> portfolio.strategicalInvestment(schedule,
+            newStrategy, api));
 
   }
 
@@ -0,0 +1,23 @@
+package model;
+
+/**
+ * LotMethod lists the ways the shares sold are matched against the lots in which they were
+ * bought, when working out the cost of the shares still held.
+ */
+public enum LotMethod {
+
+  /**
+   * shares sold are taken from the earliest lots bought first.
+   */
+  FIFO,
+
+  /**
+   * shares sold are taken from the latest lots bought first.
+   */
+  LIFO,
+
+  /**
+   * shares sold are taken at the average cost of all the shares of the stock held.
+   */
+  AVERAGE
+}
@@ -0,0 +1,151 @@
+package model;
+
+import controller.PriceSeries;
+
+/**
+ * MovingAverages works out the X-day moving averages of the closing price of a stock.
+ *
+ * <p>An average is the sum of the closing prices of the trading days in its window, added from
+ * the latest day back, divided by X. Sweeps over a period only need to know on which side of a
+ * price or of another average an average lies, so an average is estimated in constant time from
+ * two of the prefix sums of the closing prices, which the series builds once and keeps. Only
+ * when the estimate is too close to call is the window summed in full, so every comparison
+ * gives exactly the result of comparing the summed averages. Closing prices are taken to be
+ * non-negative.
+ */
+final class MovingAverages {
+
+  /**
+   * relative error allowed for each addition in a sum of prices, a few times the rounding error
+   * of a double.
+   */
+  private static final double ERROR_PER_ADDITION = 1e-15;
+
+  /**
+   * the price series.
+   */
+  private final PriceSeries series;
+
+  /**
+   * constructs the moving averages of a price series.
+   * @param series the price series.
+   */
+  MovingAverages(PriceSeries series) {
+    this.series = series;
+  }
+
+  /**
+   * finds the latest trading day in the window of the X-day moving average on a day, and checks
+   * that there are enough trading days for the window. The first trading day of the series is
+   * only counted if there is a day without trading between it and the next trading day in the
+   * window, or if the day asked for is a later day without trading.
+   * @param series price data of the stock.
+   * @param day    the day as an epoch day.
+   * @param x      number of days for the moving average.
+   * @return index of the latest trading day in the window, or -1 if there is none.
+   * @throws IllegalArgumentException if the series is empty or there are less than x trading
+   *                                  days available.
+   */
+  static int windowEnd(PriceSeries series, int day, int x) {
+    if (series.isEmpty()) {
+      throw new IllegalArgumentException();
+    }
+    int end = series.floorIndex(day);
+    if (x > 0) {
+      boolean firstDaySkipped = end == 0 ? day == series.epochDayAt(0)
+              : end > 0 && series.epochDayAt(1) == series.epochDayAt(0) + 1;
+      if (end - x + 1 < (firstDaySkipped ? 1 : 0)) {
+        throw new IllegalArgumentException("Insufficient data available for the specified "
+                + "period");
+      }
+    }
+    return end;
+  }
+
+  /**
+   * sums the closing prices of the window ending at the given index, from the latest day back,
+   * and divides the sum by X.
+   * @param series price data of the stock.
+   * @param end    index of the latest trading day in the window.
+   * @param x      number of days for the moving average.
+   * @return X-day moving average.
+   */
+  static double average(PriceSeries series, int end, int x) {
+    double sum = 0;
+    for (int i = end; i > end - x; i--) {
+      sum += series.closeAt(i);
+    }
+    return sum / x;
+  }
+
+  /**
+   * compares a price with the X-day moving average of the window ending at the given index.
+   * @param price the price.
+   * @param end   index of the latest trading day in the window.
+   * @param x     number of days for the moving average.
+   * @return 1 if the price is above the average, -1 if it is below it, 0 otherwise.
+   */
+  int comparePrice(double price, int end, int x) {
+    if (x > 0) {
+      double difference = price - estimate(end, x);
+      double error = errorOf(end, x) + ERROR_PER_ADDITION * Math.abs(price);
+      if (Math.abs(difference) > error) {
+        return difference > 0 ? 1 : -1;
+      }
+    }
+    return signOf(price, average(series, end, x));
+  }
+
+  /**
+   * compares the X-day and the Y-day moving averages of the windows ending at the given index.
+   * @param end index of the latest trading day in the windows.
+   * @param x   number of days for the first moving average.
+   * @param y   number of days for the second moving average.
+   * @return 1 if the X-day average is above the Y-day average, -1 if it is below it, 0 otherwise.
+   */
+  int compareAverages(int end, int x, int y) {
+    if (x > 0 && y > 0) {
+      double difference = estimate(end, x) - estimate(end, y);
+      if (Math.abs(difference) > errorOf(end, x) + errorOf(end, y)) {
+        return difference > 0 ? 1 : -1;
+      }
+    }
+    return signOf(average(series, end, x), average(series, end, y));
+  }
+
+  /**
+   * estimates the X-day moving average of the window ending at the given index from the prefix
+   * sums.
+   * @param end index of the latest trading day in the window.
+   * @param x   number of days for the moving average, at least one.
+   * @return estimate of the average.
+   */
+  private double estimate(int end, int x) {
+    return (series.closeSumBefore(end + 1) - series.closeSumBefore(end + 1 - x)) / x;
+  }
+
+  /**
+   * bounds the difference between the estimate of an average and the summed average. Both
+   * the prefix sums and the summed window carry a rounding error of at most one part in a
+   * double for each addition, relative to the largest sum involved.
+   * @param end index of the latest trading day in the window.
+   * @param x   number of days for the moving average, at least one.
+   * @return bound on the difference.
+   */
+  private double errorOf(int end, int x) {
+    return ERROR_PER_ADDITION * (2.0 * end + x + 4) * series.closeSumBefore(end + 1) / x;
+  }
+
+  /**
+   * compares two numbers the way the less than and greater than operators do.
+   * @param a first number.
+   * @param b second number.
+   * @return 1 if a is greater than b, -1 if it is less than b, 0 otherwise.
+   */
+  private static int signOf(double a, double b) {
+    if (a > b) {
+      return 1;
+    }
+    return a < b ? -1 : 0;
+  }
+}
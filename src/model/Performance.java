@@ -3,10 +3,13 @@ package model;
 import java.time.LocalDate;
 import java.time.format.DateTimeFormatter;
 import java.time.temporal.ChronoUnit;
-import java.util.ArrayList;
 import java.util.Map;
 import java.util.TreeMap;
 
+import controller.BarPeriod;
+import controller.IStockData;
+import controller.PriceBars;
+import controller.PriceSeries;
 import controller.StockData;
 
 import java.util.Comparator;
@@ -18,6 +21,10 @@ import java.util.Comparator;
  */
 public class Performance implements IPerformance {
 
+  /**
+   * stock data used to value portfolios, it reads through the shared price cache.
+   */
+  private final IStockData api = new StockData();
 
   /**
    * this method computes the performance of a stock within a specified time frame.
@@ -28,8 +35,8 @@ public class Performance implements IPerformance {
    * @return TreeMap containing the selected stock data, the timestamp and price on that day.
    * @throws IllegalArgumentException if the start date is before the last available date for stock.
    */
-  public TreeMap<String, Double> stockPerformance(TreeMap<String, ArrayList<Double>> priceData,
-                                                  LocalDate start, LocalDate end) {
+  public TreeMap<String, Double> stockPerformance(PriceSeries priceData, LocalDate start,
+                                                  LocalDate end) {
     if (start.isEqual(end)) {
       throw new IllegalArgumentException("For performance overtime please enter time-period,"
               + " not a single day.");
@@ -84,13 +91,14 @@ public class Performance implements IPerformance {
    * @param selectedData treeMap to store selected stock data.
    */
   private void helperStockPerformanceYearDiffMoreThan30(int numParts, long yearDiff,
-                                                        LocalDate start, Map<String,
-          ArrayList<Double>> priceData, TreeMap<String, Double> selectedData) {
+                                                        LocalDate start, PriceSeries priceData,
+                                                        TreeMap<String, Double> selectedData) {
     for (int i = 0; i <= numParts; i++) {
       long interval = Math.round((float) yearDiff / (numParts));
       LocalDate currentDate = start.plusYears(i * interval)
               .withMonth(12).withDayOfMonth(31);
-      helperStockPerformanceWhenPriceDataNotAvailable(currentDate, priceData, selectedData);
+      helperStockPerformanceWhenPriceDataNotAvailable(currentDate, priceData.bars(BarPeriod.YEAR),
+              selectedData);
     }
   }
 
@@ -105,19 +113,13 @@ public class Performance implements IPerformance {
    * @param selectedData TreeMap to store selected stock data.
    */
   private void helperStockPerformanceYearDiff0(int numParts, LocalDate start,
-                                               long totalDays, Map<String,
-          ArrayList<Double>> priceData, TreeMap<String, Double> selectedData) {
+                                               long totalDays, PriceSeries priceData,
+                                               TreeMap<String, Double> selectedData) {
     long interval = Math.round((float) totalDays / (numParts));
+    int startDay = (int) start.toEpochDay();
     for (int i = 0; i < numParts; i++) {
-      LocalDate currentDate = start.plusDays(interval * i);
-      String currentDateString = currentDate.toString();
-      while (!priceData.containsKey((currentDateString))) { //&& currentDate.isAfter(lastDay)
-        currentDate = currentDate.minusDays(1);
-        currentDateString = currentDate.toString();
-      }
-      ArrayList<Double> values = priceData.get(currentDateString);
-      Double closingValue = values.get(3);
-      selectedData.put(currentDateString, closingValue);
+      int index = floorIndex((int) (startDay + interval * i), priceData);
+      selectedData.put(priceData.dateAt(index).toString(), priceData.closeAt(index));
     }
   }
 
@@ -134,11 +136,12 @@ public class Performance implements IPerformance {
    * @param selectedData treeMap to store selected stock data, with timestamp and closing price.
    */
   private void helperStockPerformanceYearDiffBetween5And30(int numParts, LocalDate start,
-                                                           Map<String, ArrayList<Double>> priceData,
+                                                           PriceSeries priceData,
                                                            TreeMap<String, Double> selectedData) {
     for (int i = 0; i <= numParts; i++) {
       LocalDate currentDate = start.plusYears(i).withMonth(12).withDayOfMonth(31);
-      helperStockPerformanceWhenPriceDataNotAvailable(currentDate, priceData, selectedData);
+      helperStockPerformanceWhenPriceDataNotAvailable(currentDate, priceData.bars(BarPeriod.YEAR),
+              selectedData);
     }
   }
 
@@ -153,12 +156,13 @@ public class Performance implements IPerformance {
    * @param selectedData treeMap to store selected stock data.
    */
   private void helperStockPerformanceYearDiffBetween1And5(int numParts, LocalDate start,
-                                                          Map<String, ArrayList<Double>> priceData,
+                                                          PriceSeries priceData,
                                                           TreeMap<String, Double> selectedData) {
     for (int i = 0; i < numParts; i++) {
       LocalDate currentDate = start.plusMonths(i * 2L)
               .withDayOfMonth(start.plusMonths(i * 2L).lengthOfMonth());
-      helperStockPerformanceWhenPriceDataNotAvailable(currentDate, priceData, selectedData);
+      helperStockPerformanceWhenPriceDataNotAvailable(currentDate,
+              priceData.bars(BarPeriod.MONTH), selectedData);
     }
   }
 
@@ -173,29 +177,72 @@ public class Performance implements IPerformance {
    * @param selectedData treeMap to store selected stock data.
    */
   private void helperStockPerformanceMonthDiffBetween5And30(int numParts, LocalDate start,
-                                                            Map<String,
-                                                                    ArrayList<Double>> priceData,
+                                                            PriceSeries priceData,
                                                             TreeMap<String, Double> selectedData) {
     for (int i = 0; i < numParts; i++) {
       LocalDate currentDate = start.plusMonths(i).withDayOfMonth(start.plusMonths(i)
               .lengthOfMonth());
-      helperStockPerformanceWhenPriceDataNotAvailable(currentDate, priceData, selectedData);
+      helperStockPerformanceWhenPriceDataNotAvailable(currentDate,
+              priceData.bars(BarPeriod.MONTH), selectedData);
     }
   }
 
+  /**
+   * helper method that puts the closing price of the latest trading day on or before the given
+   * date in selectedData, with the date formatted as "MMM yyyy". The date is the last day of a
+   * period of the bars, so the price is the closing price of the latest bar starting on or
+   * before it.
+   *
+   * @param currentDate  last day of the period for which the closing price is to be found.
+   * @param bars         bars of the stock, at the resolution of the period.
+   * @param selectedData treeMap to store selected stock data.
+   * @throws IllegalArgumentException if there is no trading day on or before the date.
+   */
   private void helperStockPerformanceWhenPriceDataNotAvailable(LocalDate currentDate,
-                                                               Map<String, ArrayList<Double>>
-                                                                       priceData, TreeMap<String,
-          Double> selectedData) {
-    String currentDateString = currentDate.toString();
-    while (!priceData.containsKey((currentDateString))) {
-      currentDate = currentDate.minusDays(1);
-      currentDateString = currentDate.toString();
+                                                               PriceBars bars,
+                                                               TreeMap<String, Double>
+                                                                       selectedData) {
+    int index = bars.floorIndex(currentDate);
+    if (index < 0) {
+      throw new IllegalArgumentException("No price data available before " + currentDate);
     }
-    ArrayList<Double> values = priceData.get(currentDateString);
-    Double closingValue = values.get(3);
-    String formatDate = dateFormat(currentDateString);
-    selectedData.put(formatDate, closingValue);
+    String formatDate = dateFormat(bars.lastDateAt(index).toString());
+    selectedData.put(formatDate, bars.closeAt(index));
+  }
+
+  /**
+   * this method samples the closing prices of a stock on the latest trading day on or before
+   * each of the given days. The days are looked up as epoch days, so nothing is allocated
+   * except the array of prices.
+   *
+   * @param priceData historical price data of the stock.
+   * @param epochDays days to be sampled, as epoch days.
+   * @return closing prices, index aligned with the days.
+   * @throws IllegalArgumentException if there is no trading day on or before one of the days.
+   */
+  public double[] closingPrices(PriceSeries priceData, int[] epochDays) {
+    double[] closes = new double[epochDays.length];
+    for (int i = 0; i < epochDays.length; i++) {
+      closes[i] = priceData.closeAt(floorIndex(epochDays[i], priceData));
+    }
+    return closes;
+  }
+
+  /**
+   * this method finds the index of the latest trading day on or before the given day.
+   *
+   * @param day       day for which the trading day is to be found, as an epoch day.
+   * @param priceData historical price data of the stock.
+   * @return index of the trading day in the price data.
+   * @throws IllegalArgumentException if there is no trading day on or before the day.
+   */
+  private int floorIndex(int day, PriceSeries priceData) {
+    int index = priceData.floorIndex(day);
+    if (index < 0) {
+      throw new IllegalArgumentException("No price data available before "
+              + LocalDate.ofEpochDay(day));
+    }
+    return index;
   }
 
   /**
@@ -205,36 +252,31 @@ public class Performance implements IPerformance {
    * @return last available date for that stock, that is when it was listed.
    * @throws IllegalArgumentException if the price data is empty.
    */
-  private LocalDate returnLastEntry(TreeMap<String, ArrayList<Double>> priceData) {
-    String lastDate;
-    Map.Entry<String, ArrayList<Double>> lastEntry = priceData.lastEntry();
-    if (lastEntry != null) {
-      lastDate = lastEntry.getKey();
-    } else {
-      throw new IllegalArgumentException();
-    }
-    return LocalDate.parse(lastDate);
+  private LocalDate returnLastEntry(PriceSeries priceData) {
+    return priceData.firstDate();
   }
 
 
   /**
    * this is a helper method to populate selectedData with portfolio values.
-   * When the timestamps are taken as days in the specified time period.
+   * When the timestamps are taken as days in the specified time period. The values of all the
+   * days up to the last timestamp are worked out in one walk forward through the timeline.
    *
    * @param numParts      number of parts to divide the time period into.
    * @param start         start date of the time period.
    * @param totalDays     total number of days in the time period.
-   * @param portfolioName portfolio object, for which total value is calculated to find performance.
+   * @param timeline      timeline of the portfolio, giving its value on any date.
    * @param selectedData  TreeMap to store selected portfolio data, timestamp & portfolio value.
    */
   private void helperPortfolioPerformanceYearDiff0(int numParts, LocalDate start,
-                                                   long totalDays, Portfolio portfolioName,
+                                                   long totalDays, PortfolioTimeline timeline,
                                                    TreeMap<String, Double> selectedData) {
     long interval = Math.round((float) totalDays / (numParts));
+    double[] values = timeline.dailyValues(start, start.plusDays(interval * (numParts - 1)));
     for (int i = 0; i < numParts; i++) {
       LocalDate currentDate = start.plusDays(interval * i);
       String currentDateString = currentDate.toString();
-      double value = getValue(currentDateString, currentDate, portfolioName);
+      double value = values[(int) (interval * i)];
       selectedData.put(currentDateString, value);
     }
   }
@@ -243,50 +285,22 @@ public class Performance implements IPerformance {
    * this method calculates portfolio performance when data is not available for current date.
    * Retrieves portfolio value for previous available date and adds it to selected data map.
    * @param currentDate   current date for which the performance is being calculated.
-   * @param portfolioName  portfolio for which the performance is being calculated.
+   * @param timeline      timeline of the portfolio, giving its value on any date.
    * @param selectedData  map to store the selected performance data.
    */
   private void portfolioPerformanceWhenDataNotAvailable(LocalDate currentDate,
-                                                        Portfolio portfolioName,
+                                                        PortfolioTimeline timeline,
                                                         TreeMap<String, Double> selectedData) {
     String currentDateString = currentDate.toString();
-    double value = getValue(currentDateString, currentDate, portfolioName);
+    double value = timeline.valueOn(currentDate);
     String formatDate = dateFormat(currentDateString);
     selectedData.put(formatDate, value);
   }
 
-  /**
-   * retrieves value of portfolio for specified date.
-   * If data for current date is not available, it tries previous dates until it finds valid value.
-   * Throws an IllegalArgumentException if share was not listed on any available date.
-   * @param currentDateString  current date string.
-   * @param currentDate       current date for which value is being retrieved.
-   * @param portfolio         portfolio for which value is being retrieved.
-   * @return value of portfolio for specified date.
-   * @throws IllegalArgumentException if share was not listed on any available date.
-   */
-  private double getValue(String currentDateString, LocalDate currentDate, Portfolio portfolio) {
-    double value;
-    while (true) {
-      try {
-        value = portfolio.portfolioValue(currentDateString, new StockData());
-        break;
-      } catch (IllegalArgumentException e) {
-        if (e.getMessage().equalsIgnoreCase("The share was not listed")) {
-          throw new IllegalArgumentException("Cannot find the performance as one of the "
-                  + "share was not listed!");
-        }
-        currentDate = currentDate.minusDays(1);
-        currentDateString = currentDate.toString();
-      }
-    }
-
-    return value;
-  }
-
-
   /**
    * this method computes performance of a portfolio within a specified time frame/ period.
+   * The values are taken from the timeline of the portfolio, which fetches the prices of every
+   * stock it has held once.
    * @param portfolioName portfolio object, whose performance is to be determined.
    * @param start         start date of the performance analysis.
    * @param end           end date of the performance analysis.
@@ -300,6 +314,7 @@ public class Performance implements IPerformance {
               + "not a single day.");
     }
     TreeMap<String, Double> selectedData = new TreeMap<>();
+    PortfolioTimeline timeline = new PortfolioTimeline((AbstractPortfolio) portfolioName, api);
     long totalDays = ChronoUnit.DAYS.between(start, end);
     long monthsDifference = ChronoUnit.MONTHS.between(start.withDayOfMonth(1),
             end.withDayOfMonth(1));
@@ -308,34 +323,34 @@ public class Performance implements IPerformance {
     if (totalDays <= 30 && totalDays > 0) {
       numParts = (int) totalDays;
       helperPortfolioPerformanceYearDiff0(numParts, start, totalDays,
-              portfolioName, selectedData);
+              timeline, selectedData);
     } else if (totalDays == 31) {
       numParts = 16;
       helperPortfolioPerformanceYearDiff0(numParts, start, totalDays,
-              portfolioName, selectedData);
+              timeline, selectedData);
     } else if (monthsDifference < 5 && monthsDifference > 0 && yearDiff == 0) {
       numParts = Math.min(Math.max((int) (totalDays / 5), 1), 29);
       helperPortfolioPerformanceYearDiff0(numParts, start, totalDays,
-              portfolioName, selectedData);
+              timeline, selectedData);
     } else if (monthsDifference >= 5 && monthsDifference < 30) {
       numParts = (int) monthsDifference;
       helperPortfolioPerformanceMonthDiffBetween5And30(numParts, start,
-              portfolioName, selectedData);
+              timeline, selectedData);
     } else if (yearDiff >= 1 && yearDiff < 5 && monthsDifference >= 30) {
       numParts = (int) Math.ceil((double) monthsDifference / 2);
       helperPortfolioPerformanceMonthDiffBetween1And5(numParts, start,
-              portfolioName, selectedData);
+              timeline, selectedData);
     } else if (yearDiff >= 5 && yearDiff < 30) {
       numParts = (int) yearDiff;
       helperPortfolioPerformanceYearDiffBetween1And5(numParts, start,
-              portfolioName, selectedData);
+              timeline, selectedData);
     } else if (yearDiff >= 30) {
       numParts = (int) Math.ceil((double) yearDiff / 2);
       while (numParts > 30) {
         numParts = (int) Math.ceil((double) numParts / 2);
       }
       helperPortfolioPerformanceYearDiffMoreThan30(numParts, start,
-              portfolioName, selectedData, yearDiff);
+              timeline, selectedData, yearDiff);
     }
     return selectedData;
   }
@@ -444,17 +459,17 @@ public class Performance implements IPerformance {
    *
    * @param numParts      number of parts to divide the time period into.
    * @param start         start date of the time period.
-   * @param portfolioName portfolio object for which total value is calculated to find performance.
+   * @param timeline      timeline of the portfolio, giving its value on any date.
    * @param selectedData  treeMap to store selected portfolio data.
    */
   private void helperPortfolioPerformanceMonthDiffBetween5And30(int numParts, LocalDate start,
-                                                                Portfolio portfolioName,
+                                                                PortfolioTimeline timeline,
                                                                 TreeMap<String, Double>
                                                                         selectedData) {
     for (int i = 0; i < numParts; i++) {
       LocalDate currentDate = start.plusMonths(i).withDayOfMonth(start.plusMonths(i)
               .lengthOfMonth());
-      portfolioPerformanceWhenDataNotAvailable(currentDate, portfolioName, selectedData);
+      portfolioPerformanceWhenDataNotAvailable(currentDate, timeline, selectedData);
     }
   }
 
@@ -465,17 +480,17 @@ public class Performance implements IPerformance {
    *
    * @param numParts      number of parts to divide the time period into.
    * @param start         start date of the time period.
-   * @param portfolioName portfolio object for which total value is calculated to find performance.
+   * @param timeline      timeline of the portfolio, giving its value on any date.
    * @param selectedData  treeMap to store selected portfolio data, timestamp, and portfolio value.
    */
   private void helperPortfolioPerformanceMonthDiffBetween1And5(int numParts, LocalDate start,
-                                                               Portfolio portfolioName,
+                                                               PortfolioTimeline timeline,
                                                                TreeMap<String, Double>
                                                                        selectedData) {
     for (int i = 0; i < numParts; i++) {
       LocalDate currentDate = start.plusMonths(i * 2L).withDayOfMonth(start
               .plusMonths(i * 2L).lengthOfMonth());
-      portfolioPerformanceWhenDataNotAvailable(currentDate, portfolioName, selectedData);
+      portfolioPerformanceWhenDataNotAvailable(currentDate, timeline, selectedData);
     }
   }
 
@@ -487,16 +502,16 @@ public class Performance implements IPerformance {
    *
    * @param numParts      number of parts to divide time period.
    * @param start         start date of the time period.
-   * @param portfolioName portfolio object for which total value is calculated to find performance.
+   * @param timeline      timeline of the portfolio, giving its value on any date.
    * @param selectedData  treeMap to store selected portfolio data.
    */
   private void helperPortfolioPerformanceYearDiffBetween1And5(int numParts, LocalDate start,
-                                                              Portfolio portfolioName,
+                                                              PortfolioTimeline timeline,
                                                               TreeMap<String, Double>
                                                                       selectedData) {
     for (int i = 0; i <= numParts; i++) {
       LocalDate currentDate = start.plusYears(i).withMonth(12).withDayOfMonth(31);
-      portfolioPerformanceWhenDataNotAvailable(currentDate, portfolioName, selectedData);
+      portfolioPerformanceWhenDataNotAvailable(currentDate, timeline, selectedData);
     }
   }
 
@@ -508,19 +523,19 @@ public class Performance implements IPerformance {
    *
    * @param numParts      number of parts to divide the time period into.
    * @param start         start date of the time period.
-   * @param portfolioName portfolio object for which total value is calculated to find performance.
+   * @param timeline      timeline of the portfolio, giving its value on any date.
    * @param selectedData  treeMap to store selected portfolio data.
    * @param yearDiff      year difference between start and end dates.
    */
   private void helperPortfolioPerformanceYearDiffMoreThan30(int numParts, LocalDate start,
-                                                            Portfolio portfolioName,
+                                                            PortfolioTimeline timeline,
                                                             TreeMap<String, Double> selectedData,
                                                             long yearDiff) {
     for (int i = 0; i <= numParts; i++) {
       long interval = Math.round((float) yearDiff / (numParts));
       LocalDate currentDate = start.plusYears(i * interval).withMonth(12)
               .withDayOfMonth(31);
-      portfolioPerformanceWhenDataNotAvailable(currentDate, portfolioName, selectedData);
+      portfolioPerformanceWhenDataNotAvailable(currentDate, timeline, selectedData);
     }
   }
 
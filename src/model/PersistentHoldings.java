@@ -0,0 +1,470 @@
+package model;
+
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+
+/**
+ * PersistentHoldings is an immutable map of ticker symbol to quantity held, kept as a hash array
+ * mapped trie. Adding or removing a stock returns a new map that shares every branch of the trie
+ * it did not change with the map it came from, so keeping the holdings after each trade costs
+ * memory for the changed branches only, not for a copy of all the holdings.
+ *
+ * <p>The map cannot be changed through the Map methods, so it can be handed out without copying.
+ */
+final class PersistentHoldings extends AbstractMap<String, Double> {
+
+  /**
+   * the map without any holdings.
+   */
+  static final PersistentHoldings EMPTY = new PersistentHoldings(null, 0);
+
+  /**
+   * number of bits of the hash used at each level of the trie.
+   */
+  private static final int BITS = 5;
+
+  /**
+   * root of the trie, or null if the map is empty.
+   */
+  private final Node root;
+
+  /**
+   * number of stocks in the map.
+   */
+  private final int size;
+
+  /**
+   * constructs a map with the given trie.
+   * @param root root of the trie, or null if the map is empty.
+   * @param size number of stocks in the trie.
+   */
+  private PersistentHoldings(Node root, int size) {
+    this.root = root;
+    this.size = size;
+  }
+
+  /**
+   * returns a map with the quantity of the stock set to the given quantity.
+   * @param ticker   ticker symbol of the stock.
+   * @param quantity quantity held.
+   * @return the new map, sharing the unchanged branches with this one.
+   */
+  PersistentHoldings with(String ticker, Double quantity) {
+    Leaf leaf = new Leaf(ticker, hashOf(ticker), quantity);
+    if (root == null) {
+      return new PersistentHoldings(leaf, 1);
+    }
+    boolean added = root.find(ticker, leaf.hash, 0) == null;
+    return new PersistentHoldings(root.with(leaf, 0), added ? size + 1 : size);
+  }
+
+  /**
+   * returns a map without the stock.
+   * @param ticker ticker symbol of the stock.
+   * @return the new map, or this map if it does not hold the stock.
+   */
+  PersistentHoldings without(String ticker) {
+    if (root == null) {
+      return this;
+    }
+    Node updated = root.without(ticker, hashOf(ticker), 0);
+    if (updated == root) {
+      return this;
+    }
+    return updated == null ? EMPTY : new PersistentHoldings(updated, size - 1);
+  }
+
+  @Override
+  public Double get(Object key) {
+    Leaf leaf = findLeaf(key);
+    return leaf == null ? null : leaf.value;
+  }
+
+  @Override
+  public boolean containsKey(Object key) {
+    return findLeaf(key) != null;
+  }
+
+  @Override
+  public int size() {
+    return size;
+  }
+
+  @Override
+  public Set<Map.Entry<String, Double>> entrySet() {
+    return new AbstractSet<>() {
+      @Override
+      public Iterator<Map.Entry<String, Double>> iterator() {
+        return new LeafIterator(root);
+      }
+
+      @Override
+      public int size() {
+        return size;
+      }
+    };
+  }
+
+  /**
+   * looks up the leaf of a stock.
+   * @param key ticker symbol of the stock.
+   * @return the leaf, or null if the stock is not in the map.
+   */
+  private Leaf findLeaf(Object key) {
+    if (root == null || !(key instanceof String)) {
+      return null;
+    }
+    String ticker = (String) key;
+    return root.find(ticker, hashOf(ticker), 0);
+  }
+
+  /**
+   * spreads the high bits of the hash code of a ticker into its low bits, which pick the first
+   * branches of the trie.
+   * @param ticker ticker symbol of the stock.
+   * @return hash of the ticker.
+   */
+  private static int hashOf(String ticker) {
+    int h = ticker.hashCode();
+    return h ^ (h >>> 16);
+  }
+
+  /**
+   * returns the branch a hash takes at the level of the trie with the given shift.
+   * @param hash  hash of the ticker.
+   * @param shift number of bits of the hash used by the levels above.
+   * @return bit of the branch in the bitmap of the level.
+   */
+  private static int bitOf(int hash, int shift) {
+    return 1 << ((hash >>> shift) & 31);
+  }
+
+  /**
+   * a node of the trie. Nodes are never changed once built.
+   */
+  private abstract static class Node {
+
+    /**
+     * looks up the leaf of a stock under this node.
+     * @param ticker ticker symbol of the stock.
+     * @param hash   hash of the ticker.
+     * @param shift  number of bits of the hash used by the levels above this node.
+     * @return the leaf, or null if the stock is not under this node.
+     */
+    abstract Leaf find(String ticker, int hash, int shift);
+
+    /**
+     * returns a node with the leaf added, replacing the leaf of the same stock if there is one.
+     * @param leaf  the leaf to be added.
+     * @param shift number of bits of the hash used by the levels above this node.
+     * @return the new node.
+     */
+    abstract Node with(Leaf leaf, int shift);
+
+    /**
+     * returns a node without the leaf of the stock.
+     * @param ticker ticker symbol of the stock.
+     * @param hash   hash of the ticker.
+     * @param shift  number of bits of the hash used by the levels above this node.
+     * @return the new node, this node if the stock is not under it, or null if nothing is left.
+     */
+    abstract Node without(String ticker, int hash, int shift);
+
+    /**
+     * builds the smallest branch that holds two nodes with different hashes.
+     * @param a     first node.
+     * @param aHash hash of every stock under the first node.
+     * @param b     second node.
+     * @param bHash hash of every stock under the second node.
+     * @param shift number of bits of the hash used by the levels above the branch.
+     * @return the branch.
+     */
+    static Node pair(Node a, int aHash, Node b, int bHash, int shift) {
+      int aBit = bitOf(aHash, shift);
+      int bBit = bitOf(bHash, shift);
+      if (aBit == bBit) {
+        return new Branch(aBit, new Node[] {pair(a, aHash, b, bHash, shift + BITS)});
+      }
+      Node[] children = Integer.compareUnsigned(aBit, bBit) < 0
+              ? new Node[] {a, b} : new Node[] {b, a};
+      return new Branch(aBit | bBit, children);
+    }
+  }
+
+  /**
+   * a node holding the quantity of one stock.
+   */
+  private static final class Leaf extends Node {
+
+    /**
+     * ticker symbol of the stock.
+     */
+    private final String ticker;
+
+    /**
+     * hash of the ticker.
+     */
+    private final int hash;
+
+    /**
+     * quantity held.
+     */
+    private final Double value;
+
+    /**
+     * constructs a leaf.
+     * @param ticker ticker symbol of the stock.
+     * @param hash   hash of the ticker.
+     * @param value  quantity held.
+     */
+    private Leaf(String ticker, int hash, Double value) {
+      this.ticker = ticker;
+      this.hash = hash;
+      this.value = value;
+    }
+
+    @Override
+    Leaf find(String ticker, int hash, int shift) {
+      return this.hash == hash && this.ticker.equals(ticker) ? this : null;
+    }
+
+    @Override
+    Node with(Leaf leaf, int shift) {
+      if (leaf.hash != hash) {
+        return pair(this, hash, leaf, leaf.hash, shift);
+      }
+      if (leaf.ticker.equals(ticker)) {
+        return leaf;
+      }
+      return new Collision(hash, new Leaf[] {this, leaf});
+    }
+
+    @Override
+    Node without(String ticker, int hash, int shift) {
+      return find(ticker, hash, shift) == null ? this : null;
+    }
+  }
+
+  /**
+   * a node holding the stocks whose tickers have the same hash.
+   */
+  private static final class Collision extends Node {
+
+    /**
+     * hash shared by the tickers.
+     */
+    private final int hash;
+
+    /**
+     * leaves of the stocks, at least two.
+     */
+    private final Leaf[] leaves;
+
+    /**
+     * constructs a collision node.
+     * @param hash   hash shared by the tickers.
+     * @param leaves leaves of the stocks.
+     */
+    private Collision(int hash, Leaf[] leaves) {
+      this.hash = hash;
+      this.leaves = leaves;
+    }
+
+    @Override
+    Leaf find(String ticker, int hash, int shift) {
+      if (hash != this.hash) {
+        return null;
+      }
+      int index = indexOf(ticker);
+      return index < 0 ? null : leaves[index];
+    }
+
+    @Override
+    Node with(Leaf leaf, int shift) {
+      if (leaf.hash != hash) {
+        return pair(this, hash, leaf, leaf.hash, shift);
+      }
+      int index = indexOf(leaf.ticker);
+      Leaf[] updated;
+      if (index < 0) {
+        updated = Arrays.copyOf(leaves, leaves.length + 1);
+        updated[leaves.length] = leaf;
+      } else {
+        updated = leaves.clone();
+        updated[index] = leaf;
+      }
+      return new Collision(hash, updated);
+    }
+
+    @Override
+    Node without(String ticker, int hash, int shift) {
+      int index = hash == this.hash ? indexOf(ticker) : -1;
+      if (index < 0) {
+        return this;
+      }
+      if (leaves.length == 2) {
+        return leaves[1 - index];
+      }
+      Leaf[] updated = new Leaf[leaves.length - 1];
+      System.arraycopy(leaves, 0, updated, 0, index);
+      System.arraycopy(leaves, index + 1, updated, index, updated.length - index);
+      return new Collision(hash, updated);
+    }
+
+    /**
+     * looks up the position of a stock in the leaves.
+     * @param ticker ticker symbol of the stock.
+     * @return position of the leaf, or -1 if the stock is not here.
+     */
+    private int indexOf(String ticker) {
+      for (int i = 0; i < leaves.length; i++) {
+        if (leaves[i].ticker.equals(ticker)) {
+          return i;
+        }
+      }
+      return -1;
+    }
+  }
+
+  /**
+   * a node that splits the stocks under it on the next bits of their hashes. Only the branches
+   * that hold a stock are kept, in the order of their bits in the bitmap.
+   */
+  private static final class Branch extends Node {
+
+    /**
+     * bitmap with a bit set for each branch that is kept.
+     */
+    private final int bitmap;
+
+    /**
+     * nodes of the branches that are kept.
+     */
+    private final Node[] children;
+
+    /**
+     * constructs a branch node.
+     * @param bitmap   bitmap of the branches that are kept.
+     * @param children nodes of the branches.
+     */
+    private Branch(int bitmap, Node[] children) {
+      this.bitmap = bitmap;
+      this.children = children;
+    }
+
+    @Override
+    Leaf find(String ticker, int hash, int shift) {
+      int bit = bitOf(hash, shift);
+      if ((bitmap & bit) == 0) {
+        return null;
+      }
+      return children[indexOf(bit)].find(ticker, hash, shift + BITS);
+    }
+
+    @Override
+    Node with(Leaf leaf, int shift) {
+      int bit = bitOf(leaf.hash, shift);
+      int index = indexOf(bit);
+      if ((bitmap & bit) == 0) {
+        Node[] updated = new Node[children.length + 1];
+        System.arraycopy(children, 0, updated, 0, index);
+        updated[index] = leaf;
+        System.arraycopy(children, index, updated, index + 1, children.length - index);
+        return new Branch(bitmap | bit, updated);
+      }
+      Node[] updated = children.clone();
+      updated[index] = children[index].with(leaf, shift + BITS);
+      return new Branch(bitmap, updated);
+    }
+
+    @Override
+    Node without(String ticker, int hash, int shift) {
+      int bit = bitOf(hash, shift);
+      if ((bitmap & bit) == 0) {
+        return this;
+      }
+      int index = indexOf(bit);
+      Node child = children[index].without(ticker, hash, shift + BITS);
+      if (child == children[index]) {
+        return this;
+      }
+      if (child == null) {
+        if (children.length == 1) {
+          return null;
+        }
+        if (children.length == 2 && !(children[1 - index] instanceof Branch)) {
+          return children[1 - index];
+        }
+        Node[] updated = new Node[children.length - 1];
+        System.arraycopy(children, 0, updated, 0, index);
+        System.arraycopy(children, index + 1, updated, index, updated.length - index);
+        return new Branch(bitmap & ~bit, updated);
+      }
+      if (children.length == 1 && !(child instanceof Branch)) {
+        return child;
+      }
+      Node[] updated = children.clone();
+      updated[index] = child;
+      return new Branch(bitmap, updated);
+    }
+
+    /**
+     * returns the position of a branch in the children.
+     * @param bit bit of the branch in the bitmap.
+     * @return number of branches kept before it.
+     */
+    private int indexOf(int bit) {
+      return Integer.bitCount(bitmap & (bit - 1));
+    }
+  }
+
+  /**
+   * iterates over the leaves of a trie, depth first.
+   */
+  private static final class LeafIterator implements Iterator<Map.Entry<String, Double>> {
+
+    /**
+     * nodes still to be visited.
+     */
+    private final ArrayDeque<Node> pending;
+
+    /**
+     * constructs an iterator over the trie.
+     * @param root root of the trie, or null if it is empty.
+     */
+    private LeafIterator(Node root) {
+      this.pending = new ArrayDeque<>();
+      if (root != null) {
+        pending.push(root);
+      }
+    }
+
+    @Override
+    public boolean hasNext() {
+      return !pending.isEmpty();
+    }
+
+    @Override
+    public Map.Entry<String, Double> next() {
+      while (!pending.isEmpty()) {
+        Node node = pending.pop();
+        if (node instanceof Leaf) {
+          Leaf leaf = (Leaf) node;
+          return new AbstractMap.SimpleImmutableEntry<>(leaf.ticker, leaf.value);
+        }
+        Node[] children = node instanceof Branch ? ((Branch) node).children
+                : ((Collision) node).leaves;
+        for (int i = children.length - 1; i >= 0; i--) {
+          pending.push(children[i]);
+        }
+      }
+      throw new NoSuchElementException();
+    }
+  }
+}
@@ -1,5 +1,6 @@
 package model;
 
+import java.io.IOException;
 import java.time.LocalDate;
 import java.util.List;
 import java.util.Map;
@@ -35,6 +36,14 @@ public interface Portfolio {
    */
   StringBuilder save();
 
+  /**
+   * this method writes the same data as save, one row at a time, straight to where it is being
+   * exported, so that the whole file is never held in memory.
+   * @param out where the rows are written.
+   * @throws IOException if the rows can't be written.
+   */
+  void save(Appendable out) throws IOException;
+
   /**
    * this method buys stock for portfolio and is implemented in flexible portfolio.
    * it is used to buy stock in a flexible portfolio.
@@ -73,6 +82,16 @@ public interface Portfolio {
    */
   double costBasis(LocalDate date, IStockData api);
 
+  /**
+   * this method calculates the cost of the shares still held on a date, for flexible portfolio,
+   * matching the shares sold against the lots they were bought in.
+   * @param date date for which the cost is calculated.
+   * @param method how the shares sold are matched against the lots.
+   * @return cost of the shares held.
+   * @throws IllegalArgumentException if the method is called by inflexible portfolio.
+   */
+  double costOfHoldings(LocalDate date, LotMethod method);
+
   /**
    * Checks if the portfolio is flexible.
    * @return true if it is a flexible portfolio or else returns false.
@@ -0,0 +1,218 @@
+package model;
+
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+/**
+ * PortfolioRegistry keeps the portfolios of an investment manager, each one under a stable id,
+ * which is its position in the order the portfolios were added, and under its name, which is
+ * unique ignoring case. Portfolios are never removed, so an id keeps pointing at the same
+ * portfolio. Looking a portfolio up by id or by name takes constant time and no lock, and adding
+ * a portfolio only makes other adds wait.
+ *
+ * <p>Each portfolio has a read-write lock. Calls that only read a portfolio, such as valuing it,
+ * take the read lock and run at the same time as each other, while trades take the write lock
+ * and have the portfolio to themselves.
+ */
+final class PortfolioRegistry {
+
+  /**
+   * message of the exception thrown when there is no portfolio with an id.
+   */
+  private static final String NO_SUCH_PORTFOLIO = "The choice of portfolio doesn't exists";
+
+  /**
+   * portfolios by their name in lower case.
+   */
+  private final ConcurrentHashMap<String, Entry> byName;
+
+  /**
+   * portfolios by id, the entries after the count being unused.
+   */
+  private volatile Entry[] byId;
+
+  /**
+   * number of portfolios added, published after the entry of the last one.
+   */
+  private volatile int count;
+
+  /**
+   * constructs an empty registry.
+   */
+  PortfolioRegistry() {
+    this.byName = new ConcurrentHashMap<>();
+    this.byId = new Entry[8];
+    this.count = 0;
+  }
+
+  /**
+   * adds a portfolio, unless there already is a portfolio with the same name ignoring case.
+   * @param portfolio the portfolio.
+   * @return id of the portfolio, or -1 if its name is taken.
+   */
+  synchronized int add(Portfolio portfolio) {
+    String key = keyOf(portfolio.getName());
+    if (byName.containsKey(key)) {
+      return -1;
+    }
+    Entry[] entries = byId;
+    if (count == entries.length) {
+      entries = Arrays.copyOf(entries, entries.length * 2);
+    }
+    Entry entry = new Entry(portfolio);
+    entries[count] = entry;
+    byId = entries;
+    byName.put(key, entry);
+    count = count + 1;
+    return count - 1;
+  }
+
+  /**
+   * adds several portfolios in order, or none of them if the name of one is taken, either by a
+   * portfolio already added or by an earlier one in the list, ignoring case.
+   * @param portfolios the portfolios.
+   * @return name of the first portfolio whose name is taken, or null if they were all added.
+   */
+  synchronized String addAll(List<? extends Portfolio> portfolios) {
+    Set<String> keys = new HashSet<>();
+    for (Portfolio portfolio : portfolios) {
+      String key = keyOf(portfolio.getName());
+      if (byName.containsKey(key) || !keys.add(key)) {
+        return portfolio.getName();
+      }
+    }
+    for (Portfolio portfolio : portfolios) {
+      add(portfolio);
+    }
+    return null;
+  }
+
+  /**
+   * returns the number of portfolios.
+   * @return number of portfolios.
+   */
+  int size() {
+    return count;
+  }
+
+  /**
+   * checks if there is a portfolio with the given name ignoring case.
+   * @param name name of the portfolio.
+   * @return true if there is such a portfolio.
+   */
+  boolean contains(String name) {
+    return byName.containsKey(keyOf(name));
+  }
+
+  /**
+   * returns the name of the portfolio with the given id.
+   * @param id id of the portfolio.
+   * @return name of the portfolio.
+   * @throws IllegalArgumentException if there is no portfolio with the id.
+   */
+  String nameOf(int id) {
+    return entryOf(id).portfolio.getName();
+  }
+
+  /**
+   * checks if the portfolio with the given id is flexible.
+   * @param id id of the portfolio.
+   * @return true if it is flexible.
+   * @throws IllegalArgumentException if there is no portfolio with the id.
+   */
+  boolean isFlexible(int id) {
+    return entryOf(id).portfolio.isFlexible();
+  }
+
+  /**
+   * runs a call that only reads a portfolio, holding its read lock.
+   * @param id   id of the portfolio.
+   * @param call the call.
+   * @param <T>  type of the value returned by the call.
+   * @return the value returned by the call.
+   * @throws IllegalArgumentException if there is no portfolio with the id.
+   */
+  <T> T read(int id, Function<Portfolio, T> call) {
+    Entry entry = entryOf(id);
+    Lock lock = entry.lock.readLock();
+    lock.lock();
+    try {
+      return call.apply(entry.portfolio);
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  /**
+   * runs a call that changes a portfolio, holding its write lock.
+   * @param id   id of the portfolio.
+   * @param call the call.
+   * @throws IllegalArgumentException if there is no portfolio with the id.
+   */
+  void write(int id, Consumer<Portfolio> call) {
+    Entry entry = entryOf(id);
+    Lock lock = entry.lock.writeLock();
+    lock.lock();
+    try {
+      call.accept(entry.portfolio);
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  /**
+   * returns the entry of the portfolio with the given id.
+   * @param id id of the portfolio.
+   * @return the entry.
+   * @throws IllegalArgumentException if there is no portfolio with the id.
+   */
+  private Entry entryOf(int id) {
+    int size = count;
+    if (id < 0 || id >= size) {
+      throw new IllegalArgumentException(NO_SUCH_PORTFOLIO);
+    }
+    return byId[id];
+  }
+
+  /**
+   * returns the key a portfolio name is kept under.
+   * @param name name of the portfolio.
+   * @return the name in lower case.
+   */
+  private static String keyOf(String name) {
+    return name.toLowerCase(Locale.ROOT);
+  }
+
+  /**
+   * a portfolio together with its lock.
+   */
+  private static final class Entry {
+
+    /**
+     * the portfolio.
+     */
+    private final Portfolio portfolio;
+
+    /**
+     * lock of the portfolio.
+     */
+    private final ReentrantReadWriteLock lock;
+
+    /**
+     * constructs the entry of a portfolio.
+     * @param portfolio the portfolio.
+     */
+    private Entry(Portfolio portfolio) {
+      this.portfolio = portfolio;
+      this.lock = new ReentrantReadWriteLock();
+    }
+  }
+}
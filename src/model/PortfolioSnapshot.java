@@ -0,0 +1,269 @@
+package model;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * PortfolioSnapshot writes all the portfolios of an investment manager to a compact binary
+ * snapshot, and reads them back, so that a session can start where the last one ended without
+ * loading any file again or fetching any price.
+ *
+ * <p>The snapshot starts with a magic number and a format version, followed by the number of
+ * portfolios and then each portfolio in the order of its id. An inflexible portfolio is its
+ * shares and their quantities. A flexible portfolio is a table of the ticker symbols it trades,
+ * its trades in the order they were made, each with the index of its ticker in the table, its
+ * date as an epoch day and the price and commission it was made at, and its investment schedule
+ * with the date the schedule last ran. The ledger and the cost basis book of a flexible portfolio
+ * are not stored: they are built again from the trades in one pass in order of date, which needs
+ * no price, so the snapshot does not depend on how they are kept in memory. The trades are
+ * checked in that pass like the trades of a loaded file, so a snapshot with a sale that is not
+ * covered is rejected rather than restored.
+ */
+final class PortfolioSnapshot {
+
+  /**
+   * magic number at the start of every snapshot, "PSNP" in ASCII.
+   */
+  private static final int MAGIC = 0x50534E50;
+
+  /**
+   * version of the format written.
+   */
+  private static final int VERSION = 1;
+
+  /**
+   * kind of an inflexible portfolio.
+   */
+  private static final byte INFLEXIBLE = 0;
+
+  /**
+   * kind of a flexible portfolio.
+   */
+  private static final byte FLEXIBLE = 1;
+
+  /**
+   * epoch day written for a date that is not set.
+   */
+  private static final int NO_DATE = Integer.MIN_VALUE;
+
+  /**
+   * prevents construction, the class only has static methods.
+   */
+  private PortfolioSnapshot() {
+  }
+
+  /**
+   * writes all the portfolios of a registry, each one under its read lock.
+   * @param registry the portfolios.
+   * @param out      where the snapshot is written.
+   * @throws IOException if the snapshot can't be written.
+   */
+  static void write(PortfolioRegistry registry, DataOutputStream out) throws IOException {
+    int size = registry.size();
+    out.writeInt(MAGIC);
+    out.writeInt(VERSION);
+    out.writeInt(size);
+    for (int id = 0; id < size; id++) {
+      byte[] portfolio = registry.read(id, PortfolioSnapshot::encode);
+      out.write(portfolio);
+    }
+  }
+
+  /**
+   * reads the portfolios of a snapshot and adds them to a registry, after the ones it has.
+   * Either all the portfolios are added or none of them is.
+   * @param data     the whole snapshot.
+   * @param registry registry the portfolios are added to.
+   * @throws IllegalArgumentException if the data is not a snapshot of a version that can be
+   *                                  read, a flexible portfolio in it has a sale not covered by
+   *                                  its trades before it, or a portfolio in it has the name of
+   *                                  one in the registry or of another one in the snapshot.
+   */
+  static void read(byte[] data, PortfolioRegistry registry) {
+    List<Portfolio> portfolios = new ArrayList<>();
+    try (DataInputStream in = new DataInputStream(new ByteArrayInputStream(data))) {
+      if (data.length < 12 || in.readInt() != MAGIC) {
+        throw new IllegalArgumentException("Not a portfolio snapshot");
+      }
+      int version = in.readInt();
+      if (version != VERSION) {
+        throw new IllegalArgumentException("Unsupported snapshot version " + version);
+      }
+      int size = in.readInt();
+      for (int i = 0; i < size; i++) {
+        portfolios.add(readPortfolio(in));
+      }
+    } catch (IOException e) {
+      throw new IllegalArgumentException("Snapshot is incomplete");
+    }
+    String taken = registry.addAll(portfolios);
+    if (taken != null) {
+      throw new IllegalArgumentException("Portfolio name already exists: " + taken);
+    }
+  }
+
+  /**
+   * encodes a portfolio while its read lock is held, so that the lock is not held while the
+   * snapshot is being written out.
+   * @param portfolio the portfolio.
+   * @return the encoded portfolio.
+   */
+  private static byte[] encode(Portfolio portfolio) {
+    ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+    try (DataOutputStream out = new DataOutputStream(bytes)) {
+      out.writeUTF(portfolio.getName());
+      if (portfolio instanceof FlexiblePortfolioImpl) {
+        out.writeByte(FLEXIBLE);
+        writeFlexible((FlexiblePortfolioImpl) portfolio, out);
+      } else {
+        out.writeByte(INFLEXIBLE);
+        Map<String, Double> shares = portfolio.portfolioComposition(LocalDate.now());
+        out.writeInt(shares.size());
+        for (Map.Entry<String, Double> share : shares.entrySet()) {
+          out.writeUTF(share.getKey());
+          out.writeDouble(share.getValue());
+        }
+      }
+    } catch (IOException e) {
+      throw new IllegalArgumentException(e.getMessage());
+    }
+    return bytes.toByteArray();
+  }
+
+  /**
+   * writes the trades and the schedule of a flexible portfolio.
+   * @param portfolio the portfolio.
+   * @param out       where the portfolio is written.
+   * @throws IOException if the portfolio can't be written.
+   */
+  private static void writeFlexible(FlexiblePortfolioImpl portfolio, DataOutputStream out)
+          throws IOException {
+    List<Transaction> trades = portfolio.trades();
+    Map<String, Integer> tickers = new LinkedHashMap<>();
+    for (Transaction trade : trades) {
+      tickers.putIfAbsent(trade.getStock(), tickers.size());
+    }
+    out.writeInt(tickers.size());
+    for (String ticker : tickers.keySet()) {
+      out.writeUTF(ticker);
+    }
+    out.writeInt(trades.size());
+    for (Transaction trade : trades) {
+      out.writeBoolean(trade.getType().equals("buy"));
+      out.writeInt(tickers.get(trade.getStock()));
+      out.writeDouble(trade.getQuantity());
+      out.writeInt((int) trade.getDate().toEpochDay());
+      out.writeDouble(trade.getPrice());
+      out.writeDouble(trade.getCommission());
+    }
+
+    Schedule schedule = portfolio.getBuySchedule();
+    out.writeBoolean(schedule != null);
+    if (schedule != null) {
+      out.writeUTF(schedule.getName());
+      out.writeDouble(schedule.getAmount());
+      out.writeInt(schedule.getFrequencyDays());
+      writeDate(schedule.getStartDate(), out);
+      writeDate(schedule.getEndDate(), out);
+      writeDate(schedule.getLastRunDate(), out);
+      out.writeInt(schedule.getBuyingList().size());
+      for (Map.Entry<String, Double> entry : schedule.getBuyingList().entrySet()) {
+        out.writeUTF(entry.getKey());
+        out.writeDouble(entry.getValue());
+      }
+    }
+  }
+
+  /**
+   * reads a portfolio.
+   * @param in where the portfolio is read from.
+   * @return the portfolio.
+   * @throws IOException if the snapshot ends before the portfolio does.
+   * @throws IllegalArgumentException if the portfolio is of an unknown kind, or has a sale not
+   *                                  covered by its trades before it.
+   */
+  private static Portfolio readPortfolio(DataInputStream in) throws IOException {
+    String name = in.readUTF();
+    byte kind = in.readByte();
+    if (kind == INFLEXIBLE) {
+      int count = in.readInt();
+      Map<String, Double> shares = new HashMap<>();
+      for (int i = 0; i < count; i++) {
+        shares.put(in.readUTF(), in.readDouble());
+      }
+      return InflexiblePortfolioImpl.of(name, shares);
+    }
+    if (kind != FLEXIBLE) {
+      throw new IllegalArgumentException("Unknown kind of portfolio " + kind);
+    }
+
+    FlexiblePortfolioImpl portfolio = new FlexiblePortfolioImpl(name);
+    String[] tickers = new String[in.readInt()];
+    for (int i = 0; i < tickers.length; i++) {
+      tickers[i] = in.readUTF();
+    }
+    int count = in.readInt();
+    List<Transaction> trades = new ArrayList<>(count);
+    for (int i = 0; i < count; i++) {
+      String type = in.readBoolean() ? "buy" : "sell";
+      String ticker = tickers[in.readInt()];
+      double quantity = in.readDouble();
+      LocalDate date = LocalDate.ofEpochDay(in.readInt());
+      trades.add(new Transaction(type, ticker, quantity, date, in.readDouble(),
+              in.readDouble()));
+    }
+    try {
+      portfolio.addTrades(trades);
+    } catch (IllegalArgumentException e) {
+      throw new IllegalArgumentException("Portfolio " + name + " in the snapshot is not valid: "
+              + e.getMessage());
+    }
+
+    if (in.readBoolean()) {
+      String scheduleName = in.readUTF();
+      double amount = in.readDouble();
+      int frequencyDays = in.readInt();
+      LocalDate startDate = readDate(in);
+      LocalDate endDate = readDate(in);
+      LocalDate lastRunDate = readDate(in);
+      int size = in.readInt();
+      Map<String, Double> buyingList = new HashMap<>();
+      for (int i = 0; i < size; i++) {
+        buyingList.put(in.readUTF(), in.readDouble());
+      }
+      portfolio.setBuySchedule(new BuySchedule(scheduleName, amount, frequencyDays, startDate,
+              endDate, lastRunDate, buyingList));
+    }
+    return portfolio;
+  }
+
+  /**
+   * writes a date that may not be set.
+   * @param date the date, or null.
+   * @param out  where the date is written.
+   * @throws IOException if the date can't be written.
+   */
+  private static void writeDate(LocalDate date, DataOutputStream out) throws IOException {
+    out.writeInt(date == null ? NO_DATE : (int) date.toEpochDay());
+  }
+
+  /**
+   * reads a date that may not be set.
+   * @param in where the date is read from.
+   * @return the date, or null if it is not set.
+   * @throws IOException if the snapshot ends before the date.
+   */
+  private static LocalDate readDate(DataInputStream in) throws IOException {
+    int day = in.readInt();
+    return day == NO_DATE ? null : LocalDate.ofEpochDay(day);
+  }
+}
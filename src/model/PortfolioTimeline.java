@@ -0,0 +1,205 @@
+package model;
+
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+import controller.IStockData;
+import controller.PriceSeries;
+
+/**
+ * PortfolioTimeline works out the value of a portfolio over time from its holdings and the price
+ * series of the stocks it holds, each series fetched once.
+ *
+ * <p>The value of the portfolio on a date is its value on the latest date, on or before it, on
+ * which every stock held has a price. A holding only changes on a trading day of its stock, so
+ * when a stock has no price on a date the dates back to the previous trading day of that stock
+ * are skipped at once. The value of every day of a period is found by walking forward through
+ * the trading days of all the stocks merged together, carrying the value over the days on which
+ * some stock held has no price.
+ */
+final class PortfolioTimeline {
+
+  /**
+   * the portfolio.
+   */
+  private final AbstractPortfolio portfolio;
+
+  /**
+   * object used to fetch the price series.
+   */
+  private final IStockData api;
+
+  /**
+   * price series of the stocks fetched so far.
+   */
+  private final Map<String, PriceSeries> prices;
+
+  /**
+   * constructs the timeline of a portfolio, fetching the price series of all the stocks it has
+   * held in one batch.
+   * @param portfolio the portfolio.
+   * @param api       object used to fetch the price series.
+   */
+  PortfolioTimeline(AbstractPortfolio portfolio, IStockData api) {
+    this.portfolio = portfolio;
+    this.api = api;
+    this.prices = new HashMap<>();
+    api.prefetch(portfolio.tickersHeld());
+  }
+
+  /**
+   * works out the value of the portfolio on a date, from the latest date on or before it on
+   * which every stock held has a price.
+   * @param date the date.
+   * @return value of the portfolio.
+   * @throws IllegalArgumentException if a stock held was not listed yet, or has no prices.
+   */
+  double valueOn(LocalDate date) {
+    int day = (int) date.toEpochDay();
+    while (true) {
+      Map<String, Double> holdings = portfolio.holdingsOn(LocalDate.ofEpochDay(day));
+      double total = 0;
+      int retryDay = Integer.MIN_VALUE;
+      for (Map.Entry<String, Double> entry : holdings.entrySet()) {
+        PriceSeries series = seriesOf(entry.getKey());
+        checkListed(series, day);
+        int index = series.indexOf(day);
+        if (index >= 0) {
+          total += series.closeAt(index) * entry.getValue();
+        } else {
+          int previous = series.calendar().previous(day);
+          retryDay = Math.max(retryDay, previous < 0 ? day - 1 : series.epochDayAt(previous));
+        }
+      }
+      if (retryDay == Integer.MIN_VALUE) {
+        return total;
+      }
+      day = retryDay;
+    }
+  }
+
+  /**
+   * works out the value of the portfolio on every day of a period.
+   * @param start first day of the period.
+   * @param end   last day of the period.
+   * @return values of the portfolio, the first one being for the start date and each next one
+   *         for the next day.
+   * @throws IllegalArgumentException if the start date is after the end date, or if a stock held
+   *                                  was not listed yet or has no prices.
+   */
+  double[] dailyValues(LocalDate start, LocalDate end) {
+    if (start.isAfter(end)) {
+      throw new IllegalArgumentException("Start Date should be less than End date");
+    }
+    int startDay = (int) start.toEpochDay();
+    int endDay = (int) end.toEpochDay();
+    double[] values = new double[endDay - startDay + 1];
+    values[0] = valueOn(start);
+    int previousDay = startDay;
+    for (int day : tradingDays(startDay + 1, endDay)) {
+      double value = pricedValue(day);
+      Arrays.fill(values, previousDay - startDay + 1, day - startDay,
+              values[previousDay - startDay]);
+      values[day - startDay] = Double.isNaN(value) ? values[previousDay - startDay] : value;
+      previousDay = day;
+    }
+    Arrays.fill(values, previousDay - startDay + 1, values.length,
+            values[previousDay - startDay]);
+    return values;
+  }
+
+  /**
+   * works out the value of the portfolio on a day, if every stock held has a price on that day.
+   * @param day the day as an epoch day.
+   * @return value of the portfolio, or NaN if a stock held has no price on that day.
+   * @throws IllegalArgumentException if a stock held was not listed yet, or has no prices.
+   */
+  private double pricedValue(int day) {
+    double total = 0;
+    for (Map.Entry<String, Double> entry : portfolio.holdingsOn(LocalDate.ofEpochDay(day))
+            .entrySet()) {
+      PriceSeries series = seriesOf(entry.getKey());
+      checkListed(series, day);
+      int index = series.indexOf(day);
+      if (index < 0) {
+        return Double.NaN;
+      }
+      total += series.closeAt(index) * entry.getValue();
+    }
+    return total;
+  }
+
+  /**
+   * merges the trading days of all the stocks the portfolio has held within a period.
+   * @param startDay first day of the period as an epoch day.
+   * @param endDay   last day of the period as an epoch day.
+   * @return the trading days in ascending order, without repeats.
+   */
+  private int[] tradingDays(int startDay, int endDay) {
+    int[] days = new int[0];
+    int count = 0;
+    for (String ticker : portfolio.tickersHeld()) {
+      PriceSeries series = seriesOf(ticker);
+      int from = series.ceilingIndex(startDay);
+      if (from < 0) {
+        continue;
+      }
+      int to = series.floorIndex(endDay);
+      if (to < from) {
+        continue;
+      }
+      int[] merged = new int[count + to - from + 1];
+      int i = 0;
+      int j = from;
+      int k = 0;
+      while (i < count || j <= to) {
+        int next;
+        if (j > to || (i < count && days[i] <= series.epochDayAt(j))) {
+          next = days[i++];
+          if (j <= to && series.epochDayAt(j) == next) {
+            j++;
+          }
+        } else {
+          next = series.epochDayAt(j++);
+        }
+        merged[k++] = next;
+      }
+      days = merged;
+      count = k;
+    }
+    return Arrays.copyOf(days, count);
+  }
+
+  /**
+   * checks that a stock held on a day was listed by then.
+   * @param series price series of the stock.
+   * @param day    the day as an epoch day.
+   * @throws IllegalArgumentException if the day is before the first trading day of the stock.
+   */
+  private static void checkListed(PriceSeries series, int day) {
+    if (day < series.epochDayAt(0)) {
+      throw new IllegalArgumentException("Cannot find the performance as one of the "
+              + "share was not listed!");
+    }
+  }
+
+  /**
+   * returns the price series of a stock, fetching it the first time it is asked for.
+   * @param ticker ticker symbol of the stock.
+   * @return the price series.
+   * @throws IllegalArgumentException if the series has no prices.
+   */
+  private PriceSeries seriesOf(String ticker) {
+    PriceSeries series = prices.get(ticker);
+    if (series == null) {
+      series = api.fetchPriceSeries(ticker);
+      if (series.isEmpty()) {
+        throw new IllegalArgumentException("No price data found for " + ticker);
+      }
+      prices.put(ticker, series);
+    }
+    return series;
+  }
+}
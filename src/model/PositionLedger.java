@@ -0,0 +1,397 @@
+package model;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+
+/**
+ * PositionLedger keeps the buy and sell trades of a portfolio sorted by date, and works out the
+ * holdings on any date from them. Every few trades a checkpoint of the holdings is kept, so the
+ * holdings on a date are the closest checkpoint on or before it with the trades after it
+ * replayed. Trades on the same date are replayed in the order they were added. The checkpoints
+ * and the holdings after the last trade are persistent maps, so each of them shares everything
+ * the trades since the one before did not change, and replaying a few trades onto a checkpoint
+ * returns holdings that cannot be changed without copying the checkpoint.
+ *
+ * <p>Adding a trade only inserts it into the sorted trades. A trade added before the last trade
+ * date marks the holding of its stock as stale from its date on, and the next lookup works out
+ * that holding again in the checkpoints from that date on, replaying the trades of that stock
+ * alone. So a run of back dated trades pays for one update of each later checkpoint per stock
+ * traded, and the holdings of the other stocks are not touched. A checkpoint that back dated
+ * trades have left too far from the one before it is split again by the same lookup.
+ *
+ * <p>Lookups may run on many threads at the same time, as long as no trade is being added: the
+ * first lookup after back dated trades updates the checkpoints while the others wait for it.
+ */
+final class PositionLedger {
+
+  /**
+   * number of trades between two checkpoints.
+   */
+  private static final int CHECKPOINT_INTERVAL = 64;
+
+  /**
+   * trades by date, in the order they were added on each date.
+   */
+  private final TreeMap<LocalDate, List<Trade>> trades;
+
+  /**
+   * signed quantities traded in each stock by date, in the order they were added on each date.
+   */
+  private final Map<String, TreeMap<LocalDate, List<Double>>> tradesByStock;
+
+  /**
+   * holdings after all the trades on or before each checkpoint date.
+   */
+  private final TreeMap<LocalDate, Checkpoint> checkpoints;
+
+  /**
+   * earliest date of a back dated trade in each stock since the checkpoints were last updated.
+   */
+  private final Map<String, LocalDate> staleFrom;
+
+  /**
+   * true if there are back dated trades the checkpoints have not been updated for.
+   */
+  private volatile boolean stale;
+
+  /**
+   * holdings after all the trades, up to date except for the stale stocks.
+   */
+  private PersistentHoldings latest;
+
+  /**
+   * number of trades after the last checkpoint.
+   */
+  private int tradesSinceCheckpoint;
+
+  /**
+   * constructs an empty ledger.
+   */
+  PositionLedger() {
+    this.trades = new TreeMap<>();
+    this.tradesByStock = new HashMap<>();
+    this.checkpoints = new TreeMap<>();
+    this.staleFrom = new HashMap<>();
+    this.stale = false;
+    this.latest = PersistentHoldings.EMPTY;
+    this.tradesSinceCheckpoint = 0;
+  }
+
+  /**
+   * adds a trade to the ledger.
+   * @param ticker   ticker symbol of the stock traded.
+   * @param quantity quantity traded, positive for a buy and negative for a sell.
+   * @param date     date of the trade.
+   */
+  void add(String ticker, double quantity, LocalDate date) {
+    LocalDate lastDate = trades.isEmpty() ? null : trades.lastKey();
+    if (lastDate != null && date.isAfter(lastDate)
+            && tradesSinceCheckpoint >= CHECKPOINT_INTERVAL) {
+      checkpoints.put(lastDate, new Checkpoint(latest, tradesSinceCheckpoint));
+      tradesSinceCheckpoint = 0;
+    }
+    trades.computeIfAbsent(date, d -> new ArrayList<>()).add(new Trade(ticker, quantity));
+    tradesByStock.computeIfAbsent(ticker, t -> new TreeMap<>())
+            .computeIfAbsent(date, d -> new ArrayList<>()).add(quantity);
+    if (checkpoints.isEmpty() || date.isAfter(checkpoints.lastKey())) {
+      tradesSinceCheckpoint++;
+    } else {
+      checkpoints.ceilingEntry(date).getValue().trades++;
+    }
+    if (lastDate != null && date.isBefore(lastDate)) {
+      staleFrom.merge(ticker, date, (a, b) -> a.isBefore(b) ? a : b);
+      stale = true;
+    } else {
+      latest = apply(latest, ticker, quantity);
+    }
+  }
+
+  /**
+   * checks if there is no trade on or before the given date.
+   * @param date the date to be checked.
+   * @return true if the first trade is after the date or there is no trade at all.
+   */
+  boolean isEmptyOn(LocalDate date) {
+    return trades.floorKey(date) == null;
+  }
+
+  /**
+   * works out the holdings after all the trades on or before the given date.
+   * Stocks whose holding was sold down to exactly zero are left out.
+   * @param date the date for which the holdings are worked out.
+   * @return map of ticker symbol to quantity held, which cannot be changed.
+   */
+  Map<String, Double> holdingsOn(LocalDate date) {
+    refreshCheckpoints();
+    if (trades.isEmpty() || !date.isBefore(trades.lastKey())) {
+      return latest;
+    }
+    Map.Entry<LocalDate, Checkpoint> checkpoint = checkpoints.floorEntry(date);
+    PersistentHoldings holdings = checkpoint == null ? PersistentHoldings.EMPTY
+            : checkpoint.getValue().holdings;
+    Map<LocalDate, List<Trade>> replay = checkpoint == null ? trades.headMap(date, true)
+            : trades.subMap(checkpoint.getKey(), false, date, true);
+    for (List<Trade> dayTrades : replay.values()) {
+      for (Trade trade : dayTrades) {
+        holdings = apply(holdings, trade.ticker, trade.quantity);
+      }
+    }
+    return holdings;
+  }
+
+  /**
+   * returns the ticker symbols of all the stocks traded.
+   * @return set of ticker symbols, in no particular order.
+   */
+  Set<String> tickers() {
+    return new HashSet<>(tradesByStock.keySet());
+  }
+
+  /**
+   * works out the holding of a stock after all the trades on or before the given date, from the
+   * closest checkpoint and the trades of that stock after it.
+   * @param ticker ticker symbol of the stock.
+   * @param date   the date.
+   * @return quantity held, or null if the stock is not held on the date.
+   */
+  Double holdingOn(String ticker, LocalDate date) {
+    TreeMap<LocalDate, List<Double>> stockTrades = tradesByStock.get(ticker);
+    if (stockTrades == null) {
+      return null;
+    }
+    refreshCheckpoints();
+    Map.Entry<LocalDate, Checkpoint> checkpoint = checkpoints.floorEntry(date);
+    Double value = checkpoint == null ? null : checkpoint.getValue().holdings.get(ticker);
+    Map<LocalDate, List<Double>> replay = checkpoint == null ? stockTrades.headMap(date, true)
+            : stockTrades.subMap(checkpoint.getKey(), false, date, true);
+    for (List<Double> dayTrades : replay.values()) {
+      for (double traded : dayTrades) {
+        value = next(value, traded);
+      }
+    }
+    return value;
+  }
+
+  /**
+   * checks if the holding of a stock stays at or above the given quantity after every later
+   * trade of that stock, so that selling the quantity on the date leaves no later sale short.
+   * @param ticker   ticker symbol of the stock.
+   * @param quantity quantity to be sold.
+   * @param date     date of the sale.
+   * @param held     quantity held on the date, before the sale.
+   * @return true if the holding never drops below the quantity after the date.
+   */
+  boolean holdsThroughout(String ticker, double quantity, LocalDate date, double held) {
+    TreeMap<LocalDate, List<Double>> stockTrades = tradesByStock.get(ticker);
+    if (stockTrades == null) {
+      return true;
+    }
+    Double value = held;
+    for (List<Double> dayTrades : stockTrades.tailMap(date, false).values()) {
+      for (double traded : dayTrades) {
+        value = next(value, traded);
+      }
+      if (value == null || quantity > value) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  /**
+   * updates the holdings of the stale stocks in the checkpoints, then splits the intervals that
+   * back dated trades have made more than twice as long as they should be, once for all the
+   * lookups waiting on it.
+   */
+  private void refreshCheckpoints() {
+    if (!stale) {
+      return;
+    }
+    synchronized (checkpoints) {
+      if (!stale) {
+        return;
+      }
+      LocalDate earliest = null;
+      for (Map.Entry<String, LocalDate> entry : staleFrom.entrySet()) {
+        restate(entry.getKey(), entry.getValue());
+        if (earliest == null || entry.getValue().isBefore(earliest)) {
+          earliest = entry.getValue();
+        }
+      }
+      staleFrom.clear();
+      List<LocalDate> oversized = new ArrayList<>();
+      for (Map.Entry<LocalDate, Checkpoint> entry
+              : checkpoints.tailMap(earliest, true).entrySet()) {
+        if (entry.getValue().trades > 2 * CHECKPOINT_INTERVAL) {
+          oversized.add(entry.getKey());
+        }
+      }
+      for (LocalDate date : oversized) {
+        checkpoints.get(date).trades = fill(checkpoints.lowerKey(date), date)
+                + trades.get(date).size();
+      }
+      if (tradesSinceCheckpoint > 2 * CHECKPOINT_INTERVAL) {
+        LocalDate lastDate = trades.lastKey();
+        tradesSinceCheckpoint = fill(checkpoints.isEmpty() ? null : checkpoints.lastKey(),
+                lastDate) + trades.get(lastDate).size();
+      }
+      stale = false;
+    }
+  }
+
+  /**
+   * works out the holding of a stock again in the checkpoints on or after the given date and in
+   * the holdings after all the trades, from the checkpoint before the date and the trades of that
+   * stock after it.
+   * @param ticker ticker symbol of the stock.
+   * @param from   the date of the earliest trade of the stock added out of order.
+   */
+  private void restate(String ticker, LocalDate from) {
+    Map.Entry<LocalDate, Checkpoint> base = checkpoints.lowerEntry(from);
+    Double value = base == null ? null : base.getValue().holdings.get(ticker);
+    TreeMap<LocalDate, List<Double>> stockTrades = tradesByStock.get(ticker);
+    Iterator<Map.Entry<LocalDate, List<Double>>> days = (base == null ? stockTrades
+            : stockTrades.tailMap(base.getKey(), false)).entrySet().iterator();
+    Map.Entry<LocalDate, List<Double>> day = days.hasNext() ? days.next() : null;
+    for (Map.Entry<LocalDate, Checkpoint> checkpoint
+            : checkpoints.tailMap(from, true).entrySet()) {
+      while (day != null && !day.getKey().isAfter(checkpoint.getKey())) {
+        for (double traded : day.getValue()) {
+          value = next(value, traded);
+        }
+        day = days.hasNext() ? days.next() : null;
+      }
+      Checkpoint updated = checkpoint.getValue();
+      updated.holdings = set(updated.holdings, ticker, value);
+    }
+    while (day != null) {
+      for (double traded : day.getValue()) {
+        value = next(value, traded);
+      }
+      day = days.hasNext() ? days.next() : null;
+    }
+    latest = set(latest, ticker, value);
+  }
+
+  /**
+   * replays the trades between two dates onto the checkpoint on the first of them, adding a
+   * checkpoint each time enough trades have been replayed.
+   * @param after  date of the checkpoint to start from, or null to start from no holdings.
+   * @param before date before which the trades are replayed.
+   * @return number of trades replayed after the last checkpoint added.
+   */
+  private int fill(LocalDate after, LocalDate before) {
+    PersistentHoldings holdings = after == null ? PersistentHoldings.EMPTY
+            : checkpoints.get(after).holdings;
+    Map<LocalDate, List<Trade>> replay = after == null ? trades.headMap(before, false)
+            : trades.subMap(after, false, before, false);
+    int count = 0;
+    for (Map.Entry<LocalDate, List<Trade>> day : replay.entrySet()) {
+      for (Trade trade : day.getValue()) {
+        holdings = apply(holdings, trade.ticker, trade.quantity);
+      }
+      count += day.getValue().size();
+      if (count >= CHECKPOINT_INTERVAL) {
+        checkpoints.put(day.getKey(), new Checkpoint(holdings, count));
+        count = 0;
+      }
+    }
+    return count;
+  }
+
+  /**
+   * applies a trade to the holdings. A sale that brings a holding to exactly zero removes the
+   * stock from the holdings.
+   * @param before   holdings before the trade.
+   * @param ticker   ticker symbol of the stock traded.
+   * @param quantity quantity traded, positive for a buy and negative for a sell.
+   * @return holdings after the trade, sharing what did not change with the holdings before it.
+   */
+  private static PersistentHoldings apply(PersistentHoldings before, String ticker,
+                                          double quantity) {
+    return set(before, ticker, next(before.get(ticker), quantity));
+  }
+
+  /**
+   * sets the holding of a stock.
+   * @param before holdings before the change.
+   * @param ticker ticker symbol of the stock.
+   * @param value  the new holding, or null if the stock is not held.
+   * @return holdings after the change, sharing what did not change with the holdings before it.
+   */
+  private static PersistentHoldings set(PersistentHoldings before, String ticker,
+                                        Double value) {
+    return value == null ? before.without(ticker) : before.with(ticker, value);
+  }
+
+  /**
+   * works out a holding after a trade.
+   * @param current  the holding before the trade, or null if the stock is not held.
+   * @param quantity quantity traded, positive for a buy and negative for a sell.
+   * @return the holding after the trade, or null if a sale brought it to exactly zero.
+   */
+  private static Double next(Double current, double quantity) {
+    double updated = current == null ? quantity : current + quantity;
+    return quantity < 0 && updated == 0 ? null : updated;
+  }
+
+  /**
+   * holdings kept on a checkpoint date.
+   */
+  private static final class Checkpoint {
+
+    /**
+     * holdings after all the trades on or before the checkpoint date.
+     */
+    private PersistentHoldings holdings;
+
+    /**
+     * number of trades after the checkpoint before this one, up to and including the checkpoint
+     * date.
+     */
+    private int trades;
+
+    /**
+     * constructs a checkpoint.
+     * @param holdings holdings after all the trades on or before the checkpoint date.
+     * @param trades   number of trades since the checkpoint before this one.
+     */
+    private Checkpoint(PersistentHoldings holdings, int trades) {
+      this.holdings = holdings;
+      this.trades = trades;
+    }
+  }
+
+  /**
+   * a trade of a stock, as kept in the ledger.
+   */
+  private static final class Trade {
+
+    /**
+     * ticker symbol of the stock traded.
+     */
+    private final String ticker;
+
+    /**
+     * quantity traded, positive for a buy and negative for a sell.
+     */
+    private final double quantity;
+
+    /**
+     * constructs a trade.
+     * @param ticker   ticker symbol of the stock traded.
+     * @param quantity quantity traded, positive for a buy and negative for a sell.
+     */
+    private Trade(String ticker, double quantity) {
+      this.ticker = ticker;
+      this.quantity = quantity;
+    }
+  }
+}
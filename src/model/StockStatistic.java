@@ -1,8 +1,9 @@
 package model;
 
-import java.util.ArrayList;
 import java.util.TreeMap;
 
+import controller.PriceSeries;
+
 /**
  * The StockStatistic interface provides methods to calculate various statistics related to stocks.
  */
@@ -15,8 +16,7 @@ public interface StockStatistic {
    * @param priceData    Price data of that stock over time.
    * @return string indicating the gain or loss on the specified date.
    */
-  String gainOrLoseOnDate(String tickerSymbol, String date, TreeMap<String,
-          ArrayList<Double>> priceData);
+  String gainOrLoseOnDate(String tickerSymbol, String date, PriceSeries priceData);
 
   /**
    * this method calculates gain or loss of a stock over a period of time.
@@ -28,7 +28,7 @@ public interface StockStatistic {
    * @return string indicating gain or loss over specified period.
    */
   String gainOrLoseOverPeriod(String tickerSymbol, String date1, String date2,
-                              TreeMap<String, ArrayList<Double>> priceData);
+                              PriceSeries priceData);
 
   /**
    * this method calculates X-day moving average of a stock on a specific date.
@@ -39,8 +39,19 @@ public interface StockStatistic {
    * @param priceData    Price data of that stock over time.
    * @return  X-day moving average of stock on specified date.
    */
-  double xDayMovingAvg(String tickerSymbol, String date, int x,
-                       TreeMap<String, ArrayList<Double>> priceData);
+  double xDayMovingAvg(String tickerSymbol, String date, int x, PriceSeries priceData);
+
+  /**
+   * this method calculates X-day moving average of a stock on a day given as an epoch day,
+   * without converting any dates.
+   *
+   * @param epochDay  day for which the moving average is calculated, as an epoch day.
+   * @param x         number of days for the moving average.
+   * @param priceData Price data of that stock over time.
+   * @return X-day moving average of stock on specified day.
+   * @throws IllegalArgumentException if there are less than x trading days available.
+   */
+  double xDayMovingAvg(int epochDay, int x, PriceSeries priceData);
 
   /**
    * this method identifies crossover points over a specified period for a stock.
@@ -51,8 +62,19 @@ public interface StockStatistic {
    * @param endDate      end date of the period.
    * @return treeMap containing crossover points with details whether it was buy/sell opportunity.
    */
-  TreeMap<String, String> crossoverOverPeriod(String tickerSymbol,TreeMap<String,
-          ArrayList<Double>> priceData, String startDate, String endDate);
+  TreeMap<String, String> crossoverOverPeriod(String tickerSymbol, PriceSeries priceData,
+                                              String startDate, String endDate);
+
+  /**
+   * this method identifies crossover points over a period given as epoch days for a stock.
+   * It allocates nothing for each trading day of the period.
+   *
+   * @param priceData price data of the stock over time.
+   * @param startDay  start date of the period as an epoch day.
+   * @param endDay    end date of the period as an epoch day.
+   * @return crossover points with whether each was a buy or sell opportunity.
+   */
+  Crossovers crossoverOverPeriod(PriceSeries priceData, int startDay, int endDay);
 
   /**
    * this method identifies moving crossovers over a specified period for a stock.
@@ -64,10 +86,26 @@ public interface StockStatistic {
    * @param x            number of days for the first moving average, shorter moving day average.
    * @param y            number of days for the longer moving average.
    * @return treeMap containing moving crossovers with details whether it was buy/sell opportunity.
+   * @throws IllegalArgumentException if the start date is after the end date.
    */
   TreeMap<String, String> movingCrossoversOverPeriod(String tickerSymbol,
-                                                     TreeMap<String, ArrayList<Double>> priceData,
+                                                     PriceSeries priceData,
                                                      String startDate, String endDate,
                                                      int x, int y);
 
+  /**
+   * this method identifies moving crossovers over a period given as epoch days for a stock.
+   * It allocates nothing for each trading day of the period.
+   *
+   * @param priceData price data of the stock over time.
+   * @param startDay  start date of the period as an epoch day.
+   * @param endDay    end date of the period as an epoch day.
+   * @param x         number of days for the shorter moving average.
+   * @param y         number of days for the longer moving average.
+   * @return moving crossovers with whether each was a buy or sell opportunity.
+   * @throws IllegalArgumentException if the start date is after the end date.
+   */
+  Crossovers movingCrossoversOverPeriod(PriceSeries priceData, int startDay, int endDay,
+                                        int x, int y);
+
 }
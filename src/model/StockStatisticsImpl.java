@@ -1,10 +1,10 @@
 package model;
 
 import java.time.LocalDate;
-import java.util.ArrayList;
-import java.util.Map;
 import java.util.TreeMap;
 
+import controller.PriceSeries;
+
 /**
  * The StockStatisticsImpl class implements the StockStatistic interface providing methods
  * to calculate various statistics related to stocks, for stock trend.
@@ -13,50 +13,48 @@ public class StockStatisticsImpl implements StockStatistic {
 
   @Override
   public String gainOrLoseOnDate(String tickerSymbol, String dateString,
-                                 TreeMap<String, ArrayList<Double>> priceData ) {
-    try {
-      ArrayList<Double> prices = priceData.get(dateString);
-      double openingPrice = prices.get(0);
-      double closingPrice = prices.get(3);
-
-      if (closingPrice > openingPrice) {
-        return tickerSymbol  + " gained on " + dateString;
-      } else if (closingPrice < openingPrice) {
-        return tickerSymbol + " lost on " + dateString;
-      } else {
-        return tickerSymbol + " remained unchanged on " + dateString;
-      }
-    } catch (NullPointerException e) {
+                                 PriceSeries priceData) {
+    int index = priceData.indexOf(LocalDate.parse(dateString));
+    if (index < 0) {
       throw new IllegalArgumentException("No price data available for " + dateString);
     }
+    double openingPrice = priceData.openAt(index);
+    double closingPrice = priceData.closeAt(index);
+
+    if (closingPrice > openingPrice) {
+      return tickerSymbol  + " gained on " + dateString;
+    } else if (closingPrice < openingPrice) {
+      return tickerSymbol + " lost on " + dateString;
+    } else {
+      return tickerSymbol + " remained unchanged on " + dateString;
+    }
   }
 
   @Override
   public String gainOrLoseOverPeriod(String tickerSymbol, String date1,
-                                     String date2, TreeMap<String, ArrayList<Double>> priceData) {
-    ArrayList<Double> prices1 = priceData.get(date1);
-    ArrayList<Double> prices2 = priceData.get(date2);
-    String currentDate1 = date1;
-    String currentDate2 = date2;
-    if (prices1 == null && prices2 == null)  {
-      currentDate1 = getNextDate(date1,priceData,date2);
-      currentDate2 = getPreviousDate(date2,priceData);
-    } else if (prices2 == null) {
-      currentDate2 = getPreviousDate(date2,priceData);
-    } else if (prices1 == null) {
-      currentDate1 = getNextDate(date1,priceData,date2);
-    } else {
-      currentDate1 = date1;
-      currentDate2 = date2;
+                                     String date2, PriceSeries priceData) {
+    int day1 = toEpochDay(date1);
+    int day2 = toEpochDay(date2);
+    int index1 = priceData.indexOf(day1);
+    int index2 = priceData.indexOf(day2);
+    int currentDate1 = day1;
+    int currentDate2 = day2;
+    if (index1 < 0 && index2 < 0)  {
+      currentDate1 = getNextDate(day1, priceData, day2);
+      currentDate2 = getPreviousDate(day2, priceData);
+    } else if (index2 < 0) {
+      currentDate2 = getPreviousDate(day2, priceData);
+    } else if (index1 < 0) {
+      currentDate1 = getNextDate(day1, priceData, day2);
     }
-    prices1 = priceData.get(currentDate1);
-    prices2 = priceData.get(currentDate2);
-    if (prices1 == null || prices2 == null) {
+    index1 = priceData.indexOf(currentDate1);
+    index2 = priceData.indexOf(currentDate2);
+    if (index1 < 0 || index2 < 0) {
       throw new IllegalArgumentException("No price data available for one or "
               + "both of the specified dates");
     }
-    double closingPrice1 = prices1.get(3);
-    double closingPrice2 = prices2.get(3);
+    double closingPrice1 = priceData.closeAt(index1);
+    double closingPrice2 = priceData.closeAt(index2);
     double priceDifference = closingPrice2 - closingPrice1;
     if (priceDifference > 0) {
       return tickerSymbol + " gained over the period from " + date1 + " to " + date2;
@@ -69,116 +67,88 @@ public class StockStatisticsImpl implements StockStatistic {
 
   @Override
   public double xDayMovingAvg(String tickerSymbol, String date, int x,
-                              TreeMap<String, ArrayList<Double>> priceData) {
-    LocalDate currentDate = LocalDate.parse(date);
-    ArrayList<Double> closingPrices = new ArrayList<>();
-    LocalDate lastDay = returnLastEntry(priceData);
-
-    for (int i = 0; i < x && currentDate.isAfter(lastDay); i++) {
-      ArrayList<Double> prices = priceData.get(currentDate.toString());
-      if (prices != null && prices.size() >= 2) {
-        closingPrices.add(prices.get(3));
-      } else {
-        boolean foundValidDate = false;
-        while (!foundValidDate && (currentDate.isAfter(lastDay))) {
-          currentDate = currentDate.minusDays(1);
-          ArrayList<Double> prevDayPrices = priceData.get(currentDate.toString());
-          if (prevDayPrices != null && prevDayPrices.size() >= 2) {
-            closingPrices.add(prevDayPrices.get(3));
-            foundValidDate = true;
-          }
-        }
-      }
-      currentDate = currentDate.minusDays(1);
-    }
-    if (closingPrices.size() < x) {
-      throw new IllegalArgumentException("Insufficient data available for the specified period");
-    }
-    double sum = 0;
-    for (double price : closingPrices) {
-      sum += price;
-    }
-    return sum / x;
+                              PriceSeries priceData) {
+    return xDayMovingAvg(toEpochDay(date), x, priceData);
+  }
+
+  @Override
+  public double xDayMovingAvg(int day, int x, PriceSeries priceData) {
+    return MovingAverages.average(priceData, MovingAverages.windowEnd(priceData, day, x), x);
   }
 
 
   /**
-   * this method finds last date entry in price data TreeMap.
+   * this method finds the first trading day in the price series, that is the listing date.
    * @param priceData Price data of the stock.
-   * @return last date entry as a LocalDate.
-   * @throws IllegalArgumentException if TreeMap is empty.
+   * @return first trading day as an epoch day.
+   * @throws IllegalArgumentException if the series is empty.
    */
-  private LocalDate returnLastEntry(TreeMap<String, ArrayList<Double>> priceData) {
-    String lastDate;
-    Map.Entry<String, ArrayList<Double>> lastEntry = priceData.lastEntry();
-    if (lastEntry != null) {
-      lastDate = lastEntry.getKey();
-    } else {
+  private int returnLastEntry(PriceSeries priceData) {
+    if (priceData.isEmpty()) {
       throw new IllegalArgumentException();
     }
-    return LocalDate.parse(lastDate);
+    return priceData.epochDayAt(0);
   }
 
 
   @Override
   public TreeMap<String, String> crossoverOverPeriod(String tickerSymbol,
-                                                     TreeMap<String, ArrayList<Double>> priceData,
+                                                     PriceSeries priceData,
                                                      String startDate, String endDate) {
-    TreeMap<String, String> crossoverInfo = new TreeMap<>();
-    String currentDate;
-    ArrayList<Double> checkStartDate = priceData.get(startDate);
-    if (checkStartDate == null )  {
-      currentDate = getNextDate(startDate,priceData,endDate);
+    return toMap(crossoverOverPeriod(priceData, toEpochDay(startDate), toEpochDay(endDate)));
+  }
+
+  @Override
+  public Crossovers crossoverOverPeriod(PriceSeries priceData, int startDay, int endDay) {
+    Crossovers crossovers = new Crossovers(pointsVisited(priceData, startDay, endDay));
+    int currentDate;
+    if (priceData.indexOf(startDay) < 0)  {
+      currentDate = getNextDate(startDay, priceData, endDay);
     }
     else {
-      currentDate = startDate;
-    }
-
-    for (; currentDate.compareTo(endDate) <= 0; currentDate
-            = getNextDate(currentDate, priceData, endDate)) {
-      double movingAverage = xDayMovingAvg(tickerSymbol, currentDate, 30, priceData);
-      ArrayList<Double> currentPrices = priceData.get(currentDate);
-      ArrayList<Double> prevDayPrices = priceData.get(getPreviousDate(currentDate, priceData));
-
-      if (currentPrices != null && prevDayPrices != null
-              && currentPrices.size() >= 2 && prevDayPrices.size() >= 2) {
-        double currentClosingPrice = currentPrices.get(3);
-        double prevDayClosingPrice = prevDayPrices.get(3);
-        if (prevDayClosingPrice < movingAverage && currentClosingPrice > movingAverage) {
-          crossoverInfo.put(currentDate, "buy");
-        } else if (prevDayClosingPrice > movingAverage && currentClosingPrice < movingAverage) {
-          crossoverInfo.put(currentDate, "sell");
+      currentDate = startDay;
+    }
+
+    MovingAverages averages = new MovingAverages(priceData);
+    for (; currentDate <= endDay; currentDate = getNextDate(currentDate, priceData, endDay)) {
+      int windowEnd = MovingAverages.windowEnd(priceData, currentDate, 30);
+      int currentIndex = priceData.indexOf(currentDate);
+      int prevDayIndex = priceData.indexOf(getPreviousDate(currentDate, priceData));
+
+      if (currentIndex >= 0 && prevDayIndex >= 0) {
+        int current = averages.comparePrice(priceData.closeAt(currentIndex), windowEnd, 30);
+        int previous = averages.comparePrice(priceData.closeAt(prevDayIndex), windowEnd, 30);
+        if (previous < 0 && current > 0) {
+          crossovers.add(currentDate, true);
+        } else if (previous > 0 && current < 0) {
+          crossovers.add(currentDate, false);
         }
       }
-      else if (currentPrices == null && currentDate.equals(endDate) ) {
+      else if (currentIndex < 0 && currentDate == endDay) {
         // do nothing
       }
       else {
         throw new IllegalArgumentException("Price data not available for one or"
-                + " both of the dates: " + currentDate + ", "
-                + getPreviousDate(currentDate, priceData));
+                + " both of the dates: " + toDateString(currentDate) + ", "
+                + toDateString(getPreviousDate(currentDate, priceData)));
       }
     }
-    return crossoverInfo;
+    return crossovers;
   }
 
 
   /**
    * this method gets previous date based on given date.
-   * @param currentDate current date whose previous date is to be found.
+   * @param currentDate current date whose previous date is to be found, as an epoch day.
    * @param priceData   price data of stock over time.
-   * @return previous date as a string.
+   * @return previous date as an epoch day.
    * @throws IllegalArgumentException if date is before listing date of that stock.
    */
-  private String getPreviousDate(String currentDate, TreeMap<String, ArrayList<Double>> priceData) {
-
-    LocalDate lastDay = returnLastEntry(priceData);
-    LocalDate date = LocalDate.parse(currentDate).minusDays(1);
-    while (!priceData.containsKey(date.toString()) && date.isAfter(lastDay)) {
-      date = date.minusDays(1);
-    }
-    if (date.isAfter(lastDay) ) {
-      return date.toString();
+  private int getPreviousDate(int currentDate, PriceSeries priceData) {
+    returnLastEntry(priceData); // an empty series has no listing date.
+    int index = priceData.calendar().previous(currentDate);
+    if (index > 0) {
+      return priceData.epochDayAt(index);
     }
     else {
       throw new IllegalArgumentException("date is before the listing date.");
@@ -187,53 +157,70 @@ public class StockStatisticsImpl implements StockStatistic {
 
   /**
    * this method gets next date based on given date.
-   * @param currentDate current date whose next date is to be found.
+   * @param currentDate current date whose next date is to be found, as an epoch day.
    * @param priceData   price data of stock.
    * @param endDate    end date entered by user, next day should be less than end date.
-   * @return next date as string.
+   * @return next date as an epoch day.
    */
-  private String getNextDate(String currentDate, TreeMap<String,
-          ArrayList<Double>> priceData, String endDate) {
-    LocalDate nextDate = LocalDate.parse(currentDate).plusDays(1);
-    while (!priceData.containsKey(nextDate.toString())
-            && nextDate.isBefore(LocalDate.parse(endDate))) {
-      nextDate = nextDate.plusDays(1);
-    }
-    return nextDate.toString();
+  private int getNextDate(int currentDate, PriceSeries priceData, int endDate) {
+    int index = priceData.calendar().next(currentDate);
+    if (index >= 0 && priceData.epochDayAt(index) < endDate) {
+      return priceData.epochDayAt(index);
+    }
+    return Math.max(currentDate + 1, endDate);
   }
 
 
   @Override
-  public TreeMap<String, String> movingCrossoversOverPeriod(String tickerSymbol, TreeMap<String,
-          ArrayList<Double>> priceData, String startDate, String endDate, int x, int y) {
+  public TreeMap<String, String> movingCrossoversOverPeriod(String tickerSymbol,
+                                                            PriceSeries priceData,
+                                                            String startDate, String endDate,
+                                                            int x, int y) {
+    if (x >= y) {
+      throw new IllegalArgumentException("X days that is shorter moving average days should be "
+              + "less than Y days");
+    }
+    return toMap(movingCrossoversOverPeriod(priceData, toEpochDay(startDate),
+            toEpochDay(endDate), x, y));
+  }
+
+  @Override
+  public Crossovers movingCrossoversOverPeriod(PriceSeries priceData, int startDay, int endDay,
+                                               int x, int y) {
     if (x < y) {
-      String currentDate;
-      ArrayList<Double> checkStartDate = priceData.get(startDate);
-      if (checkStartDate == null )  {
-        currentDate = getNextDate(startDate,priceData,endDate);
+      if (startDay > endDay) {
+        throw new IllegalArgumentException("Start Date should be less than End date");
+      }
+      int currentDate;
+      if (priceData.indexOf(startDay) < 0)  {
+        currentDate = getNextDate(startDay, priceData, endDay);
       }
       else {
-        currentDate = startDate;
+        currentDate = startDay;
       }
-      if (currentDate.equals(endDate) ) {
+      if (currentDate == endDay) {
         throw new IllegalArgumentException("No data found between this period for finding "
                 + "moving crossover.");
       }
-      TreeMap<String, String> crossoverInfo = new TreeMap<>();
-      for (; !currentDate.equals(endDate); currentDate
-              = getNextDate(currentDate, priceData, endDate)) {
-        double xMovingAverage = xDayMovingAvg(tickerSymbol, currentDate, x, priceData);
-        double yMovingAverage = xDayMovingAvg(tickerSymbol, currentDate, y, priceData);
-        String prevDay = getPreviousDate(currentDate,priceData);
-        double xMovingAveragePrev = xDayMovingAvg(tickerSymbol, prevDay, x, priceData);
-        double yMovingAveragePrev = xDayMovingAvg(tickerSymbol, prevDay, y, priceData);
-        if (xMovingAverage > yMovingAverage && xMovingAveragePrev < yMovingAveragePrev) {
-          crossoverInfo.put(currentDate, "buy");
-        } else if (xMovingAverage < yMovingAverage && xMovingAveragePrev > yMovingAveragePrev) {
-          crossoverInfo.put(currentDate, "sell");
+      Crossovers crossovers = new Crossovers(pointsVisited(priceData, startDay, endDay));
+      MovingAverages averages = new MovingAverages(priceData);
+      for (; currentDate != endDay; currentDate = getNextDate(currentDate, priceData, endDay)) {
+        // the Y-day windows end on the same trading days as the X-day windows, so they are only
+        // found to throw when there are not enough trading days for them.
+        int windowEnd = MovingAverages.windowEnd(priceData, currentDate, x);
+        MovingAverages.windowEnd(priceData, currentDate, y);
+        int prevDay = getPreviousDate(currentDate, priceData);
+        int prevWindowEnd = MovingAverages.windowEnd(priceData, prevDay, x);
+        MovingAverages.windowEnd(priceData, prevDay, y);
+        int current = averages.compareAverages(windowEnd, x, y);
+        int previous = averages.compareAverages(prevWindowEnd, x, y);
+        if (current > 0 && previous < 0) {
+          crossovers.add(currentDate, true);
+        } else if (current < 0 && previous > 0) {
+          crossovers.add(currentDate, false);
         }
       }
-      return crossoverInfo;
+      return crossovers;
     }
     else {
       throw new IllegalArgumentException("X days that is shorter moving average days should be "
@@ -242,4 +229,50 @@ public class StockStatisticsImpl implements StockStatistic {
 
   }
 
+  /**
+   * this method counts the days a crossover sweep over a period can visit, that is the trading
+   * days within the period and the end date.
+   * @param priceData price data of the stock.
+   * @param startDay  start date of the period as an epoch day.
+   * @param endDay    end date of the period as an epoch day.
+   * @return the most crossover points the sweep can find.
+   */
+  private int pointsVisited(PriceSeries priceData, int startDay, int endDay) {
+    int first = priceData.ceilingIndex(startDay);
+    int last = priceData.floorIndex(endDay);
+    return first < 0 || last < first ? 1 : last - first + 2;
+  }
+
+  /**
+   * this method converts crossover points to a map of date string to buy or sell.
+   * @param crossovers the crossover points.
+   * @return treeMap containing the crossover points with whether each was a buy or sell.
+   */
+  private TreeMap<String, String> toMap(Crossovers crossovers) {
+    TreeMap<String, String> crossoverInfo = new TreeMap<>();
+    for (int i = 0; i < crossovers.size(); i++) {
+      crossoverInfo.put(toDateString(crossovers.epochDayAt(i)),
+              crossovers.isBuyAt(i) ? "buy" : "sell");
+    }
+    return crossoverInfo;
+  }
+
+  /**
+   * converts a date string in yyyy-MM-dd format to an epoch day.
+   * @param date the date string.
+   * @return the epoch day of the date.
+   */
+  private int toEpochDay(String date) {
+    return (int) LocalDate.parse(date).toEpochDay();
+  }
+
+  /**
+   * converts an epoch day to a date string in yyyy-MM-dd format.
+   * @param epochDay the epoch day.
+   * @return the date string.
+   */
+  private String toDateString(int epochDay) {
+    return LocalDate.ofEpochDay(epochDay).toString();
+  }
+
 }
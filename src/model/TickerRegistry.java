@@ -0,0 +1,279 @@
+package model;
+
+import java.io.File;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * TickerRegistry resolves share names and ticker symbols using the stocks listed in stocks.csv.
+ * The file is read once into hash indexes on the ticker symbol and on the company name, and
+ * into sorted indexes used for suggesting tickers from a prefix. The file is read again only
+ * when its last modified time changes.
+ */
+final class TickerRegistry {
+
+  /**
+   * registry of the stocks.csv file in the working directory, shared by the whole model.
+   */
+  private static final TickerRegistry SHARED = new TickerRegistry("stocks.csv");
+
+  /**
+   * path of the file listing the ticker symbols and company names.
+   */
+  private final String filePath;
+
+  /**
+   * indexes built from the last read of the file.
+   */
+  private volatile Index index;
+
+  /**
+   * constructs a registry for the given file, the file is read when it is first used.
+   * @param filePath path of the file listing ticker symbols and company names.
+   */
+  TickerRegistry(String filePath) {
+    this.filePath = filePath;
+    this.index = null;
+  }
+
+  /**
+   * returns the registry of the stocks.csv file shared by the model.
+   * @return the shared registry.
+   */
+  static TickerRegistry shared() {
+    return SHARED;
+  }
+
+  /**
+   * finds the ticker symbol of a share given its ticker symbol or its company name.
+   * The comparison ignores case and whitespace in the company name, if several rows match the
+   * ticker of the first one in the file is returned.
+   * @param shareName ticker symbol or company name of the share.
+   * @return ticker symbol of the share if found, otherwise null.
+   */
+  String resolve(String shareName) {
+    Index current = current();
+    String key = normalize(shareName);
+    Integer symbolRow = current.symbolRows.get(key);
+    Integer nameRow = current.nameRows.get(key);
+    if (symbolRow == null && nameRow == null) {
+      return null;
+    }
+    int row = symbolRow == null ? nameRow : nameRow == null ? symbolRow
+            : Math.min(symbolRow, nameRow);
+    return current.tickers[row];
+  }
+
+  /**
+   * suggests ticker symbols whose ticker or company name starts with the given prefix.
+   * Ticker symbol matches are listed before company name matches.
+   * @param prefix start of a ticker symbol or company name.
+   * @param limit  maximum number of suggestions.
+   * @return map of ticker symbols to company names, in the order they are suggested.
+   */
+  Map<String, String> suggest(String prefix, int limit) {
+    Index current = current();
+    String key = normalize(prefix);
+    Map<String, String> suggestions = new LinkedHashMap<>();
+    if (key.isEmpty() || limit <= 0) {
+      return suggestions;
+    }
+    collect(current, current.sortedSymbols, current.sortedSymbolRows, key, limit, suggestions);
+    collect(current, current.sortedNames, current.sortedNameRows, key, limit, suggestions);
+    return suggestions;
+  }
+
+  /**
+   * adds the rows whose sorted key starts with the prefix to the suggestions.
+   * @param current     indexes being searched.
+   * @param keys        sorted normalized keys.
+   * @param rows        rows of the keys.
+   * @param prefix      normalized prefix.
+   * @param limit       maximum number of suggestions.
+   * @param suggestions suggestions found so far.
+   */
+  private void collect(Index current, String[] keys, int[] rows, String prefix, int limit,
+                       Map<String, String> suggestions) {
+    int position = Arrays.binarySearch(keys, prefix);
+    if (position < 0) {
+      position = -position - 1;
+    }
+    for (int i = position; i < keys.length && suggestions.size() < limit
+            && keys[i].startsWith(prefix); i++) {
+      int row = rows[i];
+      suggestions.putIfAbsent(current.tickers[row], current.companyNames[row]);
+    }
+  }
+
+  /**
+   * returns the current indexes, reading the file again if it changed since the last read.
+   * @return indexes of the file.
+   */
+  private Index current() {
+    long lastModified = new File(filePath).lastModified();
+    Index current = index;
+    if (current == null || current.lastModified != lastModified) {
+      synchronized (this) {
+        current = index;
+        if (current == null || current.lastModified != lastModified) {
+          current = load(lastModified);
+          index = current;
+        }
+      }
+    }
+    return current;
+  }
+
+  /**
+   * reads the file and builds its indexes.
+   * @param lastModified last modified time of the file when it is read.
+   * @return indexes of the file.
+   */
+  private Index load(long lastModified) {
+    FileHandler fileHandler = new FileHandler();
+    List<String[]> lines = fileHandler.load(filePath);
+    int size = 0;
+    String[] tickers = new String[lines.size()];
+    String[] companyNames = new String[lines.size()];
+    for (String[] line : lines) {
+      if (line.length >= 2) {
+        tickers[size] = line[0].trim();
+        companyNames[size] = line[1].trim();
+        size++;
+      }
+    }
+    return new Index(Arrays.copyOf(tickers, size), Arrays.copyOf(companyNames, size),
+            lastModified);
+  }
+
+  /**
+   * normalizes a ticker symbol or company name for lookup, by removing whitespace and making
+   * it lower case.
+   * @param name the name to normalize.
+   * @return the normalized name.
+   */
+  static String normalize(String name) {
+    StringBuilder sb = new StringBuilder(name.length());
+    for (int i = 0; i < name.length(); i++) {
+      char c = name.charAt(i);
+      if (c != ' ' && c != '\t' && c != '\n' && c != '\u000B' && c != '\f' && c != '\r') {
+        sb.append(c);
+      }
+    }
+    return sb.toString().toLowerCase(Locale.ROOT);
+  }
+
+  /**
+   * indexes built from one read of the file, never changed after they are built.
+   */
+  private static final class Index {
+
+    /**
+     * ticker symbols by row.
+     */
+    private final String[] tickers;
+
+    /**
+     * company names by row.
+     */
+    private final String[] companyNames;
+
+    /**
+     * first row of each normalized ticker symbol.
+     */
+    private final Map<String, Integer> symbolRows;
+
+    /**
+     * first row of each normalized company name.
+     */
+    private final Map<String, Integer> nameRows;
+
+    /**
+     * normalized ticker symbols in sorted order.
+     */
+    private final String[] sortedSymbols;
+
+    /**
+     * rows of the sorted ticker symbols.
+     */
+    private final int[] sortedSymbolRows;
+
+    /**
+     * normalized company names in sorted order.
+     */
+    private final String[] sortedNames;
+
+    /**
+     * rows of the sorted company names.
+     */
+    private final int[] sortedNameRows;
+
+    /**
+     * last modified time of the file when it was read.
+     */
+    private final long lastModified;
+
+    /**
+     * builds the indexes of the given rows.
+     * @param tickers      ticker symbols by row.
+     * @param companyNames company names by row.
+     * @param lastModified last modified time of the file when it was read.
+     */
+    private Index(String[] tickers, String[] companyNames, long lastModified) {
+      this.tickers = tickers;
+      this.companyNames = companyNames;
+      this.lastModified = lastModified;
+      this.symbolRows = new HashMap<>(tickers.length * 2);
+      this.nameRows = new HashMap<>(tickers.length * 2);
+      String[] symbolKeys = new String[tickers.length];
+      String[] nameKeys = new String[tickers.length];
+      for (int row = 0; row < tickers.length; row++) {
+        // the ticker symbol is only trimmed, whitespace inside it is kept.
+        symbolKeys[row] = tickers[row].toLowerCase(Locale.ROOT);
+        nameKeys[row] = normalize(companyNames[row]);
+        symbolRows.putIfAbsent(symbolKeys[row], row);
+        nameRows.putIfAbsent(nameKeys[row], row);
+      }
+      this.sortedSymbolRows = sortRows(symbolKeys);
+      this.sortedSymbols = keysInOrder(symbolKeys, sortedSymbolRows);
+      this.sortedNameRows = sortRows(nameKeys);
+      this.sortedNames = keysInOrder(nameKeys, sortedNameRows);
+    }
+
+    /**
+     * finds the order of the rows sorted by their key.
+     * @param keys keys by row.
+     * @return rows in sorted order of key.
+     */
+    private static int[] sortRows(String[] keys) {
+      Integer[] order = new Integer[keys.length];
+      for (int i = 0; i < keys.length; i++) {
+        order[i] = i;
+      }
+      Arrays.sort(order, (a, b) -> keys[a].compareTo(keys[b]));
+      int[] rows = new int[keys.length];
+      for (int i = 0; i < keys.length; i++) {
+        rows[i] = order[i];
+      }
+      return rows;
+    }
+
+    /**
+     * returns the keys in the given order of rows.
+     * @param keys keys by row.
+     * @param rows rows in sorted order.
+     * @return keys in sorted order.
+     */
+    private static String[] keysInOrder(String[] keys, int[] rows) {
+      String[] sorted = new String[rows.length];
+      for (int i = 0; i < rows.length; i++) {
+        sorted[i] = keys[rows[i]];
+      }
+      return sorted;
+    }
+  }
+}
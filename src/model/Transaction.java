@@ -28,6 +28,16 @@ public class Transaction {
    */
   private final LocalDate date;
 
+  /**
+   * The price per share the transaction was made at, or NaN if it is not known.
+   */
+  private final double price;
+
+  /**
+   * The commission paid for the transaction.
+   */
+  private final double commission;
+
 
   /**
    * This is a constructor to construct a portfolio entry, which contains the type of transaction,
@@ -42,10 +52,51 @@ public class Transaction {
                      String symbol,
                      double quantity,
                      LocalDate date) {
+    this(txType, symbol, quantity, date, Double.NaN);
+  }
+
+  /**
+   * This is a constructor to construct a portfolio entry made at a known price, which contains
+   * the type of transaction, symbol, amount, transaction date and price per share.
+   *
+   * @param txType        the type of transaction
+   * @param symbol        the symbol of a stock
+   * @param quantity        the shares of a stock
+   * @param date          the date to do the transaction
+   * @param price         the price per share the transaction was made at
+   */
+  public Transaction(String txType,
+                     String symbol,
+                     double quantity,
+                     LocalDate date,
+                     double price) {
+    this(txType, symbol, quantity, date, price, 0);
+  }
+
+  /**
+   * This is a constructor to construct a portfolio entry made at a known price and commission,
+   * which contains the type of transaction, symbol, amount, transaction date, price per share
+   * and commission fee.
+   *
+   * @param txType        the type of transaction
+   * @param symbol        the symbol of a stock
+   * @param quantity        the shares of a stock
+   * @param date          the date to do the transaction
+   * @param price         the price per share the transaction was made at
+   * @param commission    the commission paid for the transaction
+   */
+  public Transaction(String txType,
+                     String symbol,
+                     double quantity,
+                     LocalDate date,
+                     double price,
+                     double commission) {
     this.txType = txType;
     this.ticker = symbol;
     this.quantity = quantity;
     this.date = date;
+    this.price = price;
+    this.commission = commission;
   }
 
   /**
@@ -79,4 +130,20 @@ public class Transaction {
   public LocalDate getDate() {
     return date;
   }
+
+  /**
+   * This is the method that return the price per share the transaction was made at.
+   * @return the price per share, or NaN if it is not known
+   */
+  public double getPrice() {
+    return price;
+  }
+
+  /**
+   * This is the method that return the commission paid for the transaction.
+   * @return the commission
+   */
+  public double getCommission() {
+    return commission;
+  }
 }
@@ -0,0 +1,353 @@
+package view;
+
+import java.awt.BorderLayout;
+import java.awt.Component;
+import java.awt.Window;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+import javax.swing.BorderFactory;
+import javax.swing.JButton;
+import javax.swing.JDialog;
+import javax.swing.JLabel;
+import javax.swing.JPanel;
+import javax.swing.JProgressBar;
+import javax.swing.SwingUtilities;
+import javax.swing.Timer;
+
+import controller.Features;
+
+/**
+ * BackgroundTasks runs the calls to the features that can take long, such as fetching price
+ * data or sweeping a period for crossovers, off the event dispatch thread, so the window stays
+ * responsive. The calls run one at a time on a single background thread, in the order they were
+ * asked for, as the features keep the messages of the last call and the model is not shared
+ * between threads. The messages are read on that thread right after the call, and the outcome
+ * is handed back on the event dispatch thread.
+ *
+ * <p>A call still running after a short delay shows a progress dialog. Only calls that just
+ * read the model get a button to cancel them: a cancelled call is dropped if it has not
+ * started, or interrupted if it has, and its outcome is never handed back. Calls that change
+ * the model or write files are not offered a cancel, as the model does not stop halfway through
+ * a change when interrupted, so their outcome is always handed back. A call asked for again
+ * while the same call is still pending is not run twice: the outcome of the pending call is
+ * handed to both.
+ */
+final class BackgroundTasks {
+
+  /**
+   * delay in milliseconds before the progress dialog of a running call is shown.
+   */
+  private static final int PROGRESS_DELAY = 300;
+
+  /**
+   * the features the calls are made on.
+   */
+  private final Features features;
+
+  /**
+   * the window the progress dialogs belong to.
+   */
+  private final Window owner;
+
+  /**
+   * the background thread running the calls.
+   */
+  private final ExecutorService executor;
+
+  /**
+   * calls pending or running by key, only used on the event dispatch thread.
+   */
+  private final Map<String, Task<?>> pending;
+
+  /**
+   * constructs the runner of background calls for the given features.
+   * @param owner    the window the progress dialogs belong to.
+   * @param features the features the calls are made on.
+   */
+  BackgroundTasks(Window owner, Features features) {
+    this.owner = owner;
+    this.features = features;
+    this.executor = Executors.newSingleThreadExecutor(runnable -> {
+      Thread thread = new Thread(runnable, "model-worker");
+      thread.setDaemon(true);
+      return thread;
+    });
+    this.pending = new HashMap<>();
+  }
+
+  /**
+   * runs a call that only reads the model and returns nothing in the background, and hands its
+   * outcome back on the event dispatch thread. The call can be cancelled.
+   * @param parent  component the progress dialog is shown over.
+   * @param key     the operation and its inputs, calls with equal keys are run once.
+   * @param message message shown in the progress dialog.
+   * @param call    the call to the features.
+   * @param done    receives the outcome of the call.
+   */
+  void run(Component parent, String key, String message, Runnable call,
+           Consumer<Outcome<Void>> done) {
+    submit(parent, key, message, () -> {
+      call.run();
+      return null;
+    }, done, true);
+  }
+
+  /**
+   * runs a call that only reads the model and returns a value in the background, and hands its
+   * outcome back on the event dispatch thread. The call can be cancelled.
+   * @param parent  component the progress dialog is shown over.
+   * @param key     the operation and its inputs, calls with equal keys are run once.
+   * @param message message shown in the progress dialog.
+   * @param call    the call to the features.
+   * @param done    receives the outcome of the call.
+   * @param <T>     type of the value returned by the call.
+   */
+  <T> void call(Component parent, String key, String message, Supplier<T> call,
+                Consumer<Outcome<T>> done) {
+    submit(parent, key, message, call, done, true);
+  }
+
+  /**
+   * runs a call that changes the model or writes a file in the background, and hands its
+   * outcome back on the event dispatch thread. The call can't be cancelled, so its outcome is
+   * always handed back.
+   * @param parent  component the progress dialog is shown over.
+   * @param key     the operation and its inputs, calls with equal keys are run once.
+   * @param message message shown in the progress dialog.
+   * @param call    the call to the features.
+   * @param done    receives the outcome of the call.
+   */
+  void change(Component parent, String key, String message, Runnable call,
+              Consumer<Outcome<Void>> done) {
+    submit(parent, key, message, () -> {
+      call.run();
+      return null;
+    }, done, false);
+  }
+
+  /**
+   * submits a call to the background thread, unless the same call is still pending, and hands
+   * its outcome back on the event dispatch thread. Must be called on the event dispatch thread.
+   * @param parent      component the progress dialog is shown over.
+   * @param key         the operation and its inputs, calls with equal keys are run once.
+   * @param message     message shown in the progress dialog.
+   * @param call        the call to the features.
+   * @param done        receives the outcome of the call.
+   * @param cancellable whether the progress dialog offers to cancel the call.
+   * @param <T>         type of the value returned by the call.
+   */
+  @SuppressWarnings("unchecked")
+  private <T> void submit(Component parent, String key, String message, Supplier<T> call,
+                          Consumer<Outcome<T>> done, boolean cancellable) {
+    Task<T> running = (Task<T>) pending.get(key);
+    if (running != null) {
+      running.callbacks.add(done);
+      return;
+    }
+    Task<T> task = new Task<>(key, parent, message, cancellable);
+    task.callbacks.add(done);
+    pending.put(key, task);
+    task.future = executor.submit(() -> {
+      Outcome<T> outcome;
+      try {
+        T value = call.get();
+        outcome = new Outcome<>(value, features.getErrorMessage(),
+                features.getSuccessMessage());
+      } catch (RuntimeException e) {
+        outcome = new Outcome<>(null, e.getMessage() == null ? "Something went wrong, try "
+                + "again!" : e.getMessage(), null);
+      }
+      Outcome<T> result = outcome;
+      SwingUtilities.invokeLater(() -> finish(task, result));
+      return null;
+    });
+    task.progressTimer.start();
+  }
+
+  /**
+   * hands the outcome of a call to everyone who asked for it, unless it was cancelled.
+   * @param task    the call.
+   * @param outcome outcome of the call.
+   * @param <T>     type of the value returned by the call.
+   */
+  private <T> void finish(Task<T> task, Outcome<T> outcome) {
+    if (task.cancelled) {
+      return;
+    }
+    task.close();
+    for (Consumer<Outcome<T>> callback : task.callbacks) {
+      callback.accept(outcome);
+    }
+  }
+
+  /**
+   * Outcome is the result of a call to the features, with the messages it left.
+   * @param <T> type of the value returned by the call.
+   */
+  static final class Outcome<T> {
+
+    /**
+     * value returned by the call.
+     */
+    private final T value;
+
+    /**
+     * error message left by the call, or null if it succeeded.
+     */
+    private final String error;
+
+    /**
+     * success message left by the call.
+     */
+    private final String success;
+
+    /**
+     * constructs the outcome of a call.
+     * @param value   value returned by the call.
+     * @param error   error message left by the call, or null if it succeeded.
+     * @param success success message left by the call.
+     */
+    private Outcome(T value, String error, String success) {
+      this.value = value;
+      this.error = error;
+      this.success = success;
+    }
+
+    /**
+     * returns the value returned by the call.
+     * @return the value, null for calls returning nothing.
+     */
+    T value() {
+      return value;
+    }
+
+    /**
+     * returns the error message left by the call.
+     * @return the error message, or null if the call succeeded.
+     */
+    String error() {
+      return error;
+    }
+
+    /**
+     * returns the success message left by the call.
+     * @return the success message.
+     */
+    String success() {
+      return success;
+    }
+  }
+
+  /**
+   * Task is one call pending or running in the background, with its progress dialog.
+   * @param <T> type of the value returned by the call.
+   */
+  private final class Task<T> {
+
+    /**
+     * key of the call.
+     */
+    private final String key;
+
+    /**
+     * receivers of the outcome of the call.
+     */
+    private final List<Consumer<Outcome<T>>> callbacks;
+
+    /**
+     * timer showing the progress dialog after a short delay.
+     */
+    private final Timer progressTimer;
+
+    /**
+     * the call submitted to the background thread.
+     */
+    private Future<?> future;
+
+    /**
+     * progress dialog, once it is shown.
+     */
+    private JDialog dialog;
+
+    /**
+     * whether the progress dialog offers to cancel the call.
+     */
+    private final boolean cancellable;
+
+    /**
+     * whether the user cancelled the call.
+     */
+    private boolean cancelled;
+
+    /**
+     * constructs a task for a call.
+     * @param key         key of the call.
+     * @param parent      component the progress dialog is shown over.
+     * @param message     message shown in the progress dialog.
+     * @param cancellable whether the progress dialog offers to cancel the call.
+     */
+    private Task(String key, Component parent, String message, boolean cancellable) {
+      this.key = key;
+      this.cancellable = cancellable;
+      this.callbacks = new ArrayList<>();
+      this.progressTimer = new Timer(PROGRESS_DELAY, e -> showProgress(parent, message));
+      this.progressTimer.setRepeats(false);
+    }
+
+    /**
+     * shows the progress dialog of the call, with a button to cancel it if it can be cancelled.
+     * @param parent  component the dialog is shown over.
+     * @param message message shown in the dialog.
+     */
+    private void showProgress(Component parent, String message) {
+      if (cancelled || pending.get(key) != this) {
+        return;
+      }
+      JProgressBar bar = new JProgressBar();
+      bar.setIndeterminate(true);
+      JPanel content = new JPanel(new BorderLayout(10, 10));
+      content.setBorder(BorderFactory.createEmptyBorder(15, 15, 15, 15));
+      content.add(new JLabel(message), BorderLayout.NORTH);
+      content.add(bar, BorderLayout.CENTER);
+      if (cancellable) {
+        JButton cancelButton = new JButton("Cancel");
+        cancelButton.addActionListener(e -> cancel());
+        content.add(cancelButton, BorderLayout.SOUTH);
+      }
+      dialog = new JDialog(owner, "Please wait");
+      dialog.setDefaultCloseOperation(JDialog.DO_NOTHING_ON_CLOSE);
+      dialog.setContentPane(content);
+      dialog.pack();
+      dialog.setLocationRelativeTo(parent);
+      dialog.setVisible(true);
+    }
+
+    /**
+     * cancels the call, dropping it if it has not started and interrupting it if it has.
+     */
+    private void cancel() {
+      cancelled = true;
+      future.cancel(true);
+      close();
+    }
+
+    /**
+     * forgets the call and closes its progress dialog.
+     */
+    private void close() {
+      progressTimer.stop();
+      pending.remove(key, this);
+      if (dialog != null) {
+        dialog.dispose();
+      }
+    }
+  }
+}
@@ -8,6 +8,7 @@ import java.awt.event.ActionListener;
 import java.awt.event.KeyAdapter;
 import java.awt.event.KeyEvent;
 import java.text.SimpleDateFormat;
+import java.util.Arrays;
 import java.util.Date;
 import java.util.HashMap;
 import java.util.Map;
@@ -99,20 +100,23 @@ public class CreateStrategyPage {
         portfolioName = nameField.getText().trim();
         if (!portfolioName.isEmpty() && !numberField.getText().isEmpty()) {
           int n = Integer.parseInt(numberField.getText().trim());
-          features.createFlexiblePortfolio(portfolioName);
-
-          if (features.getErrorMessage() != null || n == 0) {
-            JOptionPane.showMessageDialog(inputPanel, features.getErrorMessage() == null ?
-                            "Number" +
-                                    " of stocks cannot be 0" : features.getErrorMessage(),
-                    "Error",
-                    JOptionPane.ERROR_MESSAGE);
-            numberField.setText("");
-            nameField.setText("");
-            nameField.requestFocus();
-          } else {
-            takeStrategyInputs(n);
-          }
+          String name = portfolioName;
+          mainView.tasks().change(inputPanel, "createFlexiblePortfolio" + Arrays.asList(name),
+                  "Creating the portfolio...", () -> features.createFlexiblePortfolio(name),
+                  outcome -> {
+            if (outcome.error() != null || n == 0) {
+              JOptionPane.showMessageDialog(inputPanel, outcome.error() == null ?
+                              "Number" +
+                                      " of stocks cannot be 0" : outcome.error(),
+                      "Error",
+                      JOptionPane.ERROR_MESSAGE);
+              numberField.setText("");
+              nameField.setText("");
+              nameField.requestFocus();
+            } else {
+              takeStrategyInputs(n);
+            }
+          });
         } else {
           JOptionPane.showMessageDialog(inputPanel, "Please enter portfolio name and number of " +
                           "stock",
@@ -349,21 +353,27 @@ public class CreateStrategyPage {
         if (!shareDetails.isEmpty() && !frequencyS.isEmpty() && !amountS.isEmpty()) {
           int frequency = Integer.parseInt(frequencyDaysField.getText());
           Double amount = Double.parseDouble(totalAmountField.getText());
-          features.createPortfolioWithStrategy(portfolioName, startDate[0], endDate[0], frequency,
-                  amount, shareDetails);
-
-          if (features.getErrorMessage() != null) {
-            JOptionPane.showMessageDialog(inputPanel, features.getErrorMessage(),
-                    "Error",
-                    JOptionPane.ERROR_MESSAGE);
-            shareDetails = new HashMap<>();
-            takeStrategyInputs(n);
-          } else {
-            JOptionPane.showMessageDialog(inputPanel, features.getSuccessMessage(),
-                    "Success",
-                    JOptionPane.INFORMATION_MESSAGE);
-            mainView.showSecondMenu(features);
-          }
+          String start = startDate[0];
+          String end = endDate[0];
+          Map<String, Double> buyingList = new HashMap<>(shareDetails);
+          mainView.tasks().change(inputPanel, "createPortfolioWithStrategy"
+                  + Arrays.asList(portfolioName, start, end, frequency, amount, buyingList),
+                  "Creating the portfolio...",
+                  () -> features.createPortfolioWithStrategy(portfolioName, start, end, frequency,
+                          amount, buyingList), outcome -> {
+            if (outcome.error() != null) {
+              JOptionPane.showMessageDialog(inputPanel, outcome.error(),
+                      "Error",
+                      JOptionPane.ERROR_MESSAGE);
+              shareDetails = new HashMap<>();
+              takeStrategyInputs(n);
+            } else {
+              JOptionPane.showMessageDialog(inputPanel, outcome.success(),
+                      "Success",
+                      JOptionPane.INFORMATION_MESSAGE);
+              mainView.showSecondMenu(features);
+            }
+          });
         } else {
           JOptionPane.showMessageDialog(inputPanel, "Please enter value for all fields",
                   "Error",
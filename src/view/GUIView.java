@@ -17,6 +17,8 @@ import javax.swing.JFileChooser;
 import javax.swing.JScrollPane;
 import javax.swing.JTable;
 import javax.swing.JFormattedTextField;
+import javax.swing.JMenuItem;
+import javax.swing.JPopupMenu;
 
 import java.awt.Color;
 import java.awt.Font;
@@ -26,6 +28,7 @@ import java.awt.GridBagConstraints;
 import java.awt.GridBagLayout;
 import java.awt.Insets;
 
+import javax.swing.filechooser.FileFilter;
 import javax.swing.filechooser.FileNameExtensionFilter;
 import javax.swing.table.DefaultTableModel;
 
@@ -36,6 +39,7 @@ import java.io.File;
 import java.text.SimpleDateFormat;
 import java.time.LocalDate;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Calendar;
 import java.util.Date;
 import java.util.HashMap;
@@ -59,6 +63,11 @@ public class GUIView extends JFrame implements IViewGUI {
   private Map<String, Double> shareDetails = new HashMap<>();
   private final JFrame mainFrame;
 
+  /**
+   * runner of the calls to the features that can take long, off the event dispatch thread.
+   */
+  private BackgroundTasks tasks;
+
   /**
    * this constructs a new GUIView object.
    */
@@ -103,6 +112,47 @@ public class GUIView extends JFrame implements IViewGUI {
     return textField;
   }
 
+  /**
+   * this method creates a text field for a share name or ticker, that suggests matching stocks.
+   * as the user types, choosing a suggestion fills in its ticker symbol.
+   *
+   * @param columns  number of columns for the text field.
+   * @param features features used to get the suggestions.
+   * @return a customized JTextField object with ticker suggestions.
+   */
+  private JTextField createTickerField(int columns, Features features) {
+    JTextField textField = createTextField(columns);
+    JPopupMenu suggestions = new JPopupMenu();
+    suggestions.setFocusable(false);
+    textField.addKeyListener(new KeyAdapter() {
+      @Override
+      public void keyReleased(KeyEvent e) {
+        if (e.isActionKey()) {
+          return;
+        }
+        suggestions.setVisible(false);
+        suggestions.removeAll();
+        String text = textField.getText().trim();
+        if (text.isEmpty() || e.getKeyCode() == KeyEvent.VK_ESCAPE
+                || e.getKeyCode() == KeyEvent.VK_ENTER) {
+          return;
+        }
+        for (Map.Entry<String, String> entry : features.suggestTickers(text).entrySet()) {
+          JMenuItem item = new JMenuItem(entry.getKey() + " - " + entry.getValue());
+          item.addActionListener(event -> {
+            textField.setText(entry.getKey());
+            suggestions.setVisible(false);
+          });
+          suggestions.add(item);
+        }
+        if (suggestions.getComponentCount() > 0) {
+          suggestions.show(textField, 0, textField.getHeight());
+        }
+      }
+    });
+    return textField;
+  }
+
   /**
    * this method creates a JLabel with specified text and customizes its appearance.
    *
@@ -122,6 +172,7 @@ public class GUIView extends JFrame implements IViewGUI {
    */
   @Override
   public void addFeatures(Features features) {
+    tasks = new BackgroundTasks(mainFrame, features);
     JPanel panel = new JPanel(new GridBagLayout());
     GridBagConstraints gbc = new GridBagConstraints();
     gbc.gridwidth = GridBagConstraints.REMAINDER;
@@ -165,6 +216,15 @@ public class GUIView extends JFrame implements IViewGUI {
 
   }
 
+  /**
+   * this method returns the runner of the calls to the features that can take long.
+   *
+   * @return the runner of background calls.
+   */
+  BackgroundTasks tasks() {
+    return tasks;
+  }
+
   /**
    * this method creates JComboBox (dropdown) with specified list of portfolio names.
    *
@@ -220,7 +280,7 @@ public class GUIView extends JFrame implements IViewGUI {
     JLabel tickerLabel = createLabel("Enter the share name or ticker");
     gbc.gridy++;
     panel.add(tickerLabel, gbc);
-    JTextField stringInputField = createTextField(20);
+    JTextField stringInputField = createTickerField(20, features);
     gbc.gridy++;
     panel.add(stringInputField, gbc);
     JLabel quantityLabel = createLabel("Enter the quantity");
@@ -239,20 +299,25 @@ public class GUIView extends JFrame implements IViewGUI {
       String shareName = stringInputField.getText().trim();
       String quantity = numberInputField.getText().trim();
       if (!shareName.isEmpty() && !quantity.isEmpty()) {
-        features.buyStock(date[0], quantity, shareName, choice[0]);
-        if (features.getErrorMessage() != null) {
-          JOptionPane.showMessageDialog(panel, features.getErrorMessage(),
-                  "Error",
-                  JOptionPane.ERROR_MESSAGE);
-          numberInputField.setText("");
-          stringInputField.setText("");
-          dropdown.setSelectedIndex(0);
-        } else {
-          JOptionPane.showMessageDialog(panel, features.getSuccessMessage(),
-                  "Success",
-                  JOptionPane.INFORMATION_MESSAGE);
-          showSecondMenu(features);
-        }
+        String tradeDate = date[0];
+        int portfolio = choice[0];
+        tasks.change(panel, "buyStock" + Arrays.asList(tradeDate, quantity, shareName, portfolio),
+                "Buying the stock...",
+                () -> features.buyStock(tradeDate, quantity, shareName, portfolio), outcome -> {
+          if (outcome.error() != null) {
+            JOptionPane.showMessageDialog(panel, outcome.error(),
+                    "Error",
+                    JOptionPane.ERROR_MESSAGE);
+            numberInputField.setText("");
+            stringInputField.setText("");
+            dropdown.setSelectedIndex(0);
+          } else {
+            JOptionPane.showMessageDialog(panel, outcome.success(),
+                    "Success",
+                    JOptionPane.INFORMATION_MESSAGE);
+            showSecondMenu(features);
+          }
+        });
       } else {
         JOptionPane.showMessageDialog(panel, "Please enter value of all fields",
                 "Error",
@@ -323,7 +388,7 @@ public class GUIView extends JFrame implements IViewGUI {
     JLabel tickerLabel = createLabel("Enter the share name or ticker");
     gbc.gridy++;
     panel.add(tickerLabel, gbc);
-    JTextField stringInputField = createTextField(20);
+    JTextField stringInputField = createTickerField(20, features);
     gbc.gridy++;
     panel.add(stringInputField, gbc);
     JLabel quantityLabel = createLabel("Enter the quantity");
@@ -342,20 +407,25 @@ public class GUIView extends JFrame implements IViewGUI {
       String shareName = stringInputField.getText().trim();
       String quantity = numberInputField.getText().trim();
       if (!shareName.isEmpty() && !quantity.isEmpty()) {
-        features.sellStock(date[0], quantity, shareName, choice[0]);
-        if (features.getErrorMessage() != null) {
-          JOptionPane.showMessageDialog(panel, features.getErrorMessage(),
-                  "Error",
-                  JOptionPane.ERROR_MESSAGE);
-          numberInputField.setText("");
-          stringInputField.setText("");
-          dropdown.setSelectedIndex(0);
-        } else {
-          JOptionPane.showMessageDialog(panel, features.getSuccessMessage(),
-                  "Success",
-                  JOptionPane.INFORMATION_MESSAGE);
-          showSecondMenu(features);
-        }
+        String tradeDate = date[0];
+        int portfolio = choice[0];
+        tasks.change(panel, "sellStock" + Arrays.asList(tradeDate, quantity, shareName, portfolio),
+                "Selling the stock...",
+                () -> features.sellStock(tradeDate, quantity, shareName, portfolio), outcome -> {
+          if (outcome.error() != null) {
+            JOptionPane.showMessageDialog(panel, outcome.error(),
+                    "Error",
+                    JOptionPane.ERROR_MESSAGE);
+            numberInputField.setText("");
+            stringInputField.setText("");
+            dropdown.setSelectedIndex(0);
+          } else {
+            JOptionPane.showMessageDialog(panel, outcome.success(),
+                    "Success",
+                    JOptionPane.INFORMATION_MESSAGE);
+            showSecondMenu(features);
+          }
+        });
       } else {
         JOptionPane.showMessageDialog(panel, "Please enter value of all fields",
                 "Error",
@@ -471,13 +541,20 @@ public class GUIView extends JFrame implements IViewGUI {
     browseButton.addActionListener(e -> {
       JFileChooser fileChooser = new JFileChooser();
       fileChooser.setDialogTitle("Enter CSV file name to save portfolio at particular location");
+      FileNameExtensionFilter csvFilter = new FileNameExtensionFilter("CSV Files", "csv");
+      CompressedCsvFilter compressedFilter = new CompressedCsvFilter();
+      fileChooser.addChoosableFileFilter(csvFilter);
+      fileChooser.addChoosableFileFilter(compressedFilter);
+      fileChooser.setFileFilter(csvFilter);
       int userSelection = fileChooser.showSaveDialog(mainFrame);
 
       if (userSelection == JFileChooser.APPROVE_OPTION) {
         File fileToSave = fileChooser.getSelectedFile();
         String filePath = fileToSave.getAbsolutePath();
-        if (!filePath.endsWith(".csv")) {
-          filePath += ".csv"; // Ensuring the file extension is .csv
+        if (!filePath.endsWith(".csv") && !filePath.endsWith(CompressedCsvFilter.EXTENSION)) {
+          // Ensuring the file extension is .csv, or .csv.gz if compressed files were chosen
+          filePath += fileChooser.getFileFilter() == compressedFilter
+                  ? CompressedCsvFilter.EXTENSION : ".csv";
         }
         filePathField.setText(filePath);
         browseButton.setEnabled(false);
@@ -492,20 +569,23 @@ public class GUIView extends JFrame implements IViewGUI {
       String selectedPortfolio = (String) dropdown.getSelectedItem();
       String filePath = filePathField.getText();
       if (selectedPortfolio != null && !filePath.isEmpty()) {
-        features.export(choice[0], filePath);
-        if (features.getErrorMessage() != null) {
-          JOptionPane.showMessageDialog(panel, features.getErrorMessage(),
-                  "Error",
-                  JOptionPane.ERROR_MESSAGE);
-          browseButton.setEnabled(true);
-          dropdown.setSelectedIndex(0);
-          filePathField.setText("");
-        } else {
-          JOptionPane.showMessageDialog(panel, "Portfolio saved successfully",
-                  "Success",
-                  JOptionPane.INFORMATION_MESSAGE);
-          showSecondMenu(features);
-        }
+        int portfolio = choice[0];
+        tasks.change(panel, "export" + Arrays.asList(portfolio, filePath),
+                "Saving the portfolio...", () -> features.export(portfolio, filePath), outcome -> {
+          if (outcome.error() != null) {
+            JOptionPane.showMessageDialog(panel, outcome.error(),
+                    "Error",
+                    JOptionPane.ERROR_MESSAGE);
+            browseButton.setEnabled(true);
+            dropdown.setSelectedIndex(0);
+            filePathField.setText("");
+          } else {
+            JOptionPane.showMessageDialog(panel, "Portfolio saved successfully",
+                    "Success",
+                    JOptionPane.INFORMATION_MESSAGE);
+            showSecondMenu(features);
+          }
+        });
       } else {
         JOptionPane.showMessageDialog(panel, "Please select a portfolio and CSV file",
                 "Error",
@@ -559,20 +639,23 @@ public class GUIView extends JFrame implements IViewGUI {
     submitButton.addActionListener(evt -> {
       String inputText = textBox.getText();
       if (!inputText.isEmpty()) {
-        features.createFlexiblePortfolio(inputText);
-        if (features.getErrorMessage() != null) {
-          JOptionPane.showMessageDialog(panel, "Portfolio with this name already exists",
-                  "Error",
-                  JOptionPane.ERROR_MESSAGE);
-          textBox.setText("");
-          textBox.requestFocus();
-        } else {
-          JOptionPane.showMessageDialog(panel, "Portfolio created successfully",
-                  "Success",
-                  JOptionPane.INFORMATION_MESSAGE);
+        tasks.change(panel, "createFlexiblePortfolio" + Arrays.asList(inputText),
+                "Creating the portfolio...", () -> features.createFlexiblePortfolio(inputText),
+                outcome -> {
+          if (outcome.error() != null) {
+            JOptionPane.showMessageDialog(panel, "Portfolio with this name already exists",
+                    "Error",
+                    JOptionPane.ERROR_MESSAGE);
+            textBox.setText("");
+            textBox.requestFocus();
+          } else {
+            JOptionPane.showMessageDialog(panel, "Portfolio created successfully",
+                    "Success",
+                    JOptionPane.INFORMATION_MESSAGE);
 
-          showSecondMenu(features);
-        }
+            showSecondMenu(features);
+          }
+        });
       } else {
         JOptionPane.showMessageDialog(panel, "Please enter name for creating portfolio",
                 "Error",
@@ -752,32 +835,39 @@ public class GUIView extends JFrame implements IViewGUI {
 
     final int[] choice = {0};
     dropdown.addActionListener(e -> {
-      Map<String, Double> composition
-              = features.examineComposition(dropdown.getSelectedIndex() - 1,
-              date[0]);
-      if (features.getErrorMessage() != null) {
-        JOptionPane.showMessageDialog(formPanel, features.getErrorMessage(),
-                "Error",
-                JOptionPane.ERROR_MESSAGE);
-        showSecondMenu(features);
-      } else {
-        choice[0] = dropdown.getSelectedIndex() - 1;
-        updateForm(composition, formPanel, features, date[0], choice[0]);
-      }
+      int portfolio = dropdown.getSelectedIndex() - 1;
+      String compositionDate = date[0];
+      tasks.call(formPanel, "examineComposition" + Arrays.asList(portfolio, compositionDate),
+              "Finding the composition...",
+              () -> features.examineComposition(portfolio, compositionDate), outcome -> {
+        if (outcome.error() != null) {
+          JOptionPane.showMessageDialog(formPanel, outcome.error(),
+                  "Error",
+                  JOptionPane.ERROR_MESSAGE);
+          showSecondMenu(features);
+        } else {
+          choice[0] = portfolio;
+          updateForm(outcome.value(), formPanel, features, compositionDate, portfolio);
+        }
+      });
     });
 
     datePicker.addActionListener(e -> {
       date[0] = getDate(datePicker);
-      Map<String, Double> composition = features.examineComposition(choice[0],
-              date[0]);
-      if (features.getErrorMessage() != null) {
-        JOptionPane.showMessageDialog(formPanel, features.getErrorMessage(),
-                "Error",
-                JOptionPane.ERROR_MESSAGE);
-        dCAInvestment(features);
-      } else {
-        updateForm(composition, formPanel, features, date[0], choice[0]);
-      }
+      int portfolio = choice[0];
+      String compositionDate = date[0];
+      tasks.call(formPanel, "examineComposition" + Arrays.asList(portfolio, compositionDate),
+              "Finding the composition...",
+              () -> features.examineComposition(portfolio, compositionDate), outcome -> {
+        if (outcome.error() != null) {
+          JOptionPane.showMessageDialog(formPanel, outcome.error(),
+                  "Error",
+                  JOptionPane.ERROR_MESSAGE);
+          dCAInvestment(features);
+        } else {
+          updateForm(outcome.value(), formPanel, features, compositionDate, portfolio);
+        }
+      });
     });
 
     mainPanel.add(choicePanel, BorderLayout.NORTH);
@@ -888,20 +978,23 @@ public class GUIView extends JFrame implements IViewGUI {
     submitButton.addActionListener(e -> {
       if (!totalAmountField.getText().isEmpty()) {
         Double amount = Double.parseDouble(totalAmountField.getText());
-        features.investWithDCAStrategy(choice, date,
-                amount, shareDetails);
-        if (features.getErrorMessage() != null) {
-          JOptionPane.showMessageDialog(formPanel, features.getErrorMessage(),
-                  "Error",
-                  JOptionPane.ERROR_MESSAGE);
-          shareDetails = new HashMap<>();
-        } else {
-          JOptionPane.showMessageDialog(formPanel, features.getSuccessMessage(),
-                  "Success",
-                  JOptionPane.INFORMATION_MESSAGE);
-          showSecondMenu(features);
+        Map<String, Double> buyingList = new HashMap<>(shareDetails);
+        tasks.change(formPanel, "investWithDCAStrategy" + Arrays.asList(choice, date, amount,
+                buyingList), "Investing with the strategy...",
+                () -> features.investWithDCAStrategy(choice, date, amount, buyingList), outcome -> {
+          if (outcome.error() != null) {
+            JOptionPane.showMessageDialog(formPanel, outcome.error(),
+                    "Error",
+                    JOptionPane.ERROR_MESSAGE);
+            shareDetails = new HashMap<>();
+          } else {
+            JOptionPane.showMessageDialog(formPanel, outcome.success(),
+                    "Success",
+                    JOptionPane.INFORMATION_MESSAGE);
+            showSecondMenu(features);
 
-        }
+          }
+        });
       } else {
         JOptionPane.showMessageDialog(formPanel, "Please enter amount to be invested",
                 "Error",
@@ -974,18 +1067,23 @@ public class GUIView extends JFrame implements IViewGUI {
     panel.add(submitButton, gbc);
 
     submitButton.addActionListener(e -> {
-      features.getCostBasis(choice[0], date[0]);
-      if (features.getErrorMessage() != null) {
-        JOptionPane.showMessageDialog(panel, features.getErrorMessage(),
-                "Error",
-                JOptionPane.ERROR_MESSAGE);
-        dropdown.setSelectedIndex(0);
-      } else {
-        JOptionPane.showMessageDialog(panel, features.getSuccessMessage(),
-                "Success",
-                JOptionPane.INFORMATION_MESSAGE);
-        showSecondMenu(features);
-      }
+      int portfolio = choice[0];
+      String valueDate = date[0];
+      tasks.run(panel, "getCostBasis" + Arrays.asList(portfolio, valueDate),
+              "Working out the cost basis...",
+              () -> features.getCostBasis(portfolio, valueDate), outcome -> {
+        if (outcome.error() != null) {
+          JOptionPane.showMessageDialog(panel, outcome.error(),
+                  "Error",
+                  JOptionPane.ERROR_MESSAGE);
+          dropdown.setSelectedIndex(0);
+        } else {
+          JOptionPane.showMessageDialog(panel, outcome.success(),
+                  "Success",
+                  JOptionPane.INFORMATION_MESSAGE);
+          showSecondMenu(features);
+        }
+      });
     });
 
     JButton backButton = createButton("Go to menu page");
@@ -1052,18 +1150,23 @@ public class GUIView extends JFrame implements IViewGUI {
     panel.add(submitButton, gbc);
 
     submitButton.addActionListener(e -> {
-      features.getTotalValue(choice[0], date[0]);
-      if (features.getErrorMessage() != null) {
-        JOptionPane.showMessageDialog(panel, features.getErrorMessage(),
-                "Error",
-                JOptionPane.ERROR_MESSAGE);
-        dropdown.setSelectedIndex(0);
-      } else {
-        JOptionPane.showMessageDialog(panel, features.getSuccessMessage(),
-                "Success",
-                JOptionPane.INFORMATION_MESSAGE);
-        showSecondMenu(features);
-      }
+      int portfolio = choice[0];
+      String valueDate = date[0];
+      tasks.run(panel, "getTotalValue" + Arrays.asList(portfolio, valueDate),
+              "Working out the total value...",
+              () -> features.getTotalValue(portfolio, valueDate), outcome -> {
+        if (outcome.error() != null) {
+          JOptionPane.showMessageDialog(panel, outcome.error(),
+                  "Error",
+                  JOptionPane.ERROR_MESSAGE);
+          dropdown.setSelectedIndex(0);
+        } else {
+          JOptionPane.showMessageDialog(panel, outcome.success(),
+                  "Success",
+                  JOptionPane.INFORMATION_MESSAGE);
+          showSecondMenu(features);
+        }
+      });
 
     });
 
@@ -1173,7 +1276,7 @@ public class GUIView extends JFrame implements IViewGUI {
 
 
     JLabel label = createLabel("Enter stock name or ticker symbol");
-    JTextField textBox = createTextField(15);
+    JTextField textBox = createTickerField(15, features);
     label.setLabelFor(textBox);
     JLabel dateLabel = createLabel("Select start date:");
     JDatePanelImpl datePanel1 = createDatePanel();
@@ -1210,28 +1313,31 @@ public class GUIView extends JFrame implements IViewGUI {
       String yValue = textBox4.getText();
       if (!inputText.isEmpty() && !startDate.isEmpty() && !endDate.isEmpty()
               && !xValue.isEmpty() && !yValue.isEmpty()) {
-        TreeMap<String, String> result = features.movingCrossoversOverPeriod(startDate, endDate,
-                xValue, yValue, inputText);
+        tasks.call(panel, "movingCrossoversOverPeriod" + Arrays.asList(startDate, endDate, xValue,
+                yValue, inputText), "Finding the moving crossovers...",
+                () -> features.movingCrossoversOverPeriod(startDate, endDate, xValue, yValue,
+                        inputText), outcome -> {
+          TreeMap<String, String> result = outcome.value();
+          if (outcome.error() != null) {
+            String error = outcome.error();
+            JOptionPane.showMessageDialog(panel, error,
+                    "Error",
+                    JOptionPane.ERROR_MESSAGE);
+            showSecondMenu(features);
+          } else {
+            StringBuilder messageBuilder = new StringBuilder();
+            for (Map.Entry<String, String> entry : result.entrySet()) {
+              messageBuilder.append(entry.getKey()).append(": ")
+                      .append(entry.getValue()).append("\n");
+            }
+            String message = messageBuilder.toString();
+            JOptionPane.showMessageDialog(panel, message,
+                    "Success",
+                    JOptionPane.INFORMATION_MESSAGE);
 
-        if (features.getErrorMessage() != null) {
-          String error = features.getErrorMessage();
-          JOptionPane.showMessageDialog(panel, error,
-                  "Error",
-                  JOptionPane.ERROR_MESSAGE);
-          showSecondMenu(features);
-        } else {
-          StringBuilder messageBuilder = new StringBuilder();
-          for (Map.Entry<String, String> entry : result.entrySet()) {
-            messageBuilder.append(entry.getKey()).append(": ")
-                    .append(entry.getValue()).append("\n");
+            showSecondMenu(features);
           }
-          String message = messageBuilder.toString();
-          JOptionPane.showMessageDialog(panel, message,
-                  "Success",
-                  JOptionPane.INFORMATION_MESSAGE);
-
-          showSecondMenu(features);
-        }
+        });
       } else {
         JOptionPane.showMessageDialog(panel, "Please enter value for all fields",
                 "Error",
@@ -1292,7 +1398,7 @@ public class GUIView extends JFrame implements IViewGUI {
 
 
     JLabel label = createLabel("Enter stock name or ticker symbol");
-    JTextField textBox = createTextField(15);
+    JTextField textBox = createTickerField(15, features);
     label.setLabelFor(textBox);
     JLabel dateLabel = createLabel("Select start date:");
     JDatePanelImpl datePanel1 = createDatePanel();
@@ -1318,28 +1424,31 @@ public class GUIView extends JFrame implements IViewGUI {
       String startDate = date1[0];
       String endDate = date2[0];
       if (!inputText.isEmpty() && !startDate.isEmpty() && !endDate.isEmpty()) {
-        TreeMap<String, String> result = features.crossoverOverPeriod(startDate,
-                endDate, inputText);
-        if (features.getErrorMessage() != null) {
-          String error = features.getErrorMessage();
-          JOptionPane.showMessageDialog(panel, error,
-                  "Error",
-                  JOptionPane.ERROR_MESSAGE);
-          showSecondMenu(features);
-        } else {
+        tasks.call(panel, "crossoverOverPeriod" + Arrays.asList(startDate, endDate, inputText),
+                "Finding the crossovers...",
+                () -> features.crossoverOverPeriod(startDate, endDate, inputText), outcome -> {
+          TreeMap<String, String> result = outcome.value();
+          if (outcome.error() != null) {
+            String error = outcome.error();
+            JOptionPane.showMessageDialog(panel, error,
+                    "Error",
+                    JOptionPane.ERROR_MESSAGE);
+            showSecondMenu(features);
+          } else {
 
-          StringBuilder messageBuilder = new StringBuilder();
-          for (Map.Entry<String, String> entry : result.entrySet()) {
-            messageBuilder.append(entry.getKey()).append(": ")
-                    .append(entry.getValue()).append("\n");
-          }
-          String message = messageBuilder.toString();
-          JOptionPane.showMessageDialog(panel, message,
-                  "Success",
-                  JOptionPane.INFORMATION_MESSAGE);
+            StringBuilder messageBuilder = new StringBuilder();
+            for (Map.Entry<String, String> entry : result.entrySet()) {
+              messageBuilder.append(entry.getKey()).append(": ")
+                      .append(entry.getValue()).append("\n");
+            }
+            String message = messageBuilder.toString();
+            JOptionPane.showMessageDialog(panel, message,
+                    "Success",
+                    JOptionPane.INFORMATION_MESSAGE);
 
-          showSecondMenu(features);
-        }
+            showSecondMenu(features);
+          }
+        });
       } else {
         JOptionPane.showMessageDialog(panel, "Please enter ticker symbol and date",
                 "Error",
@@ -1396,7 +1505,7 @@ public class GUIView extends JFrame implements IViewGUI {
 
 
     JLabel label = createLabel("Enter stock name or ticker symbol:");
-    JTextField textBox = createTextField(15);
+    JTextField textBox = createTickerField(15, features);
     label.setLabelFor(textBox);
     JLabel xLabel = createLabel("Enter x number of day for getting average:");
     JTextField textBox2 = createTextField(15);
@@ -1416,22 +1525,24 @@ public class GUIView extends JFrame implements IViewGUI {
       String xValue = textBox2.getText();
       String inputDate = date[0];
       if (!inputText.isEmpty() && !inputDate.isEmpty() && !xValue.isEmpty()) {
-        features.xDayMovingAvg(inputText, xValue, inputDate);
-
-        if (features.getErrorMessage() != null) {
-          String error = features.getErrorMessage();
-          JOptionPane.showMessageDialog(panel, error,
-                  "Error",
-                  JOptionPane.ERROR_MESSAGE);
-          showSecondMenu(features);
-        } else {
-          String message = features.getSuccessMessage();
-          JOptionPane.showMessageDialog(panel, message,
-                  "Success",
-                  JOptionPane.INFORMATION_MESSAGE);
+        tasks.run(panel, "xDayMovingAvg" + Arrays.asList(inputText, xValue, inputDate),
+                "Working out the moving average...",
+                () -> features.xDayMovingAvg(inputText, xValue, inputDate), outcome -> {
+          if (outcome.error() != null) {
+            String error = outcome.error();
+            JOptionPane.showMessageDialog(panel, error,
+                    "Error",
+                    JOptionPane.ERROR_MESSAGE);
+            showSecondMenu(features);
+          } else {
+            String message = outcome.success();
+            JOptionPane.showMessageDialog(panel, message,
+                    "Success",
+                    JOptionPane.INFORMATION_MESSAGE);
 
-          showSecondMenu(features);
-        }
+            showSecondMenu(features);
+          }
+        });
       } else {
         JOptionPane.showMessageDialog(panel, "Please enter ticker symbol, X days and date",
                 "Error",
@@ -1489,7 +1600,7 @@ public class GUIView extends JFrame implements IViewGUI {
 
 
     JLabel label = createLabel("Enter stock name or ticker symbol");
-    JTextField textBox = createTextField(15);
+    JTextField textBox = createTickerField(15, features);
     label.setLabelFor(textBox);
     JLabel dateLabel = createLabel("Select start date:");
     JDatePanelImpl datePanel1 = createDatePanel();
@@ -1515,22 +1626,24 @@ public class GUIView extends JFrame implements IViewGUI {
       String startDate = date1[0];
       String endDate = date2[0];
       if (!inputText.isEmpty() && !startDate.isEmpty() && !endDate.isEmpty()) {
-        features.gainOrLoseOverPeriod(startDate, endDate, inputText);
-
-        if (features.getErrorMessage() != null) {
-          String error = features.getErrorMessage();
-          JOptionPane.showMessageDialog(panel, error,
-                  "Error",
-                  JOptionPane.ERROR_MESSAGE);
-          showSecondMenu(features);
-        } else {
-          String message = features.getSuccessMessage();
-          JOptionPane.showMessageDialog(panel, message,
-                  "Success",
-                  JOptionPane.INFORMATION_MESSAGE);
+        tasks.run(panel, "gainOrLoseOverPeriod" + Arrays.asList(startDate, endDate, inputText),
+                "Fetching the stock prices...",
+                () -> features.gainOrLoseOverPeriod(startDate, endDate, inputText), outcome -> {
+          if (outcome.error() != null) {
+            String error = outcome.error();
+            JOptionPane.showMessageDialog(panel, error,
+                    "Error",
+                    JOptionPane.ERROR_MESSAGE);
+            showSecondMenu(features);
+          } else {
+            String message = outcome.success();
+            JOptionPane.showMessageDialog(panel, message,
+                    "Success",
+                    JOptionPane.INFORMATION_MESSAGE);
 
-          showSecondMenu(features);
-        }
+            showSecondMenu(features);
+          }
+        });
       } else {
         JOptionPane.showMessageDialog(panel, "Please enter ticker symbol and date",
                 "Error",
@@ -1587,7 +1700,7 @@ public class GUIView extends JFrame implements IViewGUI {
 
 
     JLabel label = createLabel("Enter stock name or ticker symbol");
-    JTextField textBox = createTextField(15);
+    JTextField textBox = createTickerField(15, features);
     label.setLabelFor(textBox);
     JLabel dateLabel = createLabel("Select the date:");
     JDatePanelImpl datePanel = createDatePanel();
@@ -1604,21 +1717,24 @@ public class GUIView extends JFrame implements IViewGUI {
       String inputText = textBox.getText();
       String inputDate = date[0];
       if (!inputText.isEmpty() && !inputDate.isEmpty()) {
-        features.gainOrLose(inputDate, inputText);
-        if (features.getErrorMessage() != null) {
-          String error = features.getErrorMessage();
-          JOptionPane.showMessageDialog(panel, error,
-                  "Error",
-                  JOptionPane.ERROR_MESSAGE);
-          showSecondMenu(features);
-        } else {
-          String message = features.getSuccessMessage();
-          JOptionPane.showMessageDialog(panel, message,
-                  "Success",
-                  JOptionPane.INFORMATION_MESSAGE);
+        tasks.run(panel, "gainOrLose" + Arrays.asList(inputDate, inputText),
+                "Fetching the stock prices...",
+                () -> features.gainOrLose(inputDate, inputText), outcome -> {
+          if (outcome.error() != null) {
+            String error = outcome.error();
+            JOptionPane.showMessageDialog(panel, error,
+                    "Error",
+                    JOptionPane.ERROR_MESSAGE);
+            showSecondMenu(features);
+          } else {
+            String message = outcome.success();
+            JOptionPane.showMessageDialog(panel, message,
+                    "Success",
+                    JOptionPane.INFORMATION_MESSAGE);
 
-          showSecondMenu(features);
-        }
+            showSecondMenu(features);
+          }
+        });
       } else {
         JOptionPane.showMessageDialog(panel, "Please enter ticker symbol and date",
                 "Error",
@@ -1687,6 +1803,7 @@ public class GUIView extends JFrame implements IViewGUI {
       fileChooser.setDialogTitle("Choose a CSV file to load portfolio");
       FileNameExtensionFilter filter = new FileNameExtensionFilter("CSV Files",
               "csv");
+      fileChooser.addChoosableFileFilter(new CompressedCsvFilter());
       fileChooser.setFileFilter(filter);
       int returnValue = fileChooser.showOpenDialog(null);
       if (returnValue == JFileChooser.APPROVE_OPTION) {
@@ -1703,18 +1820,21 @@ public class GUIView extends JFrame implements IViewGUI {
       String name = nameField.getText();
       String filePath = filePathField.getText();
       if (!name.isEmpty() && !filePath.isEmpty()) {
-        features.loadPortfolio(name, filePath);
-        if (features.getErrorMessage() != null) {
-          JOptionPane.showMessageDialog(panel, features.getErrorMessage(),
-                  "Error",
-                  JOptionPane.ERROR_MESSAGE);
-          browseButton.setEnabled(true);
-        } else {
-          JOptionPane.showMessageDialog(panel, features.getSuccessMessage(),
-                  "Success",
-                  JOptionPane.INFORMATION_MESSAGE);
-          showSecondMenu(features);
-        }
+        tasks.change(panel, "loadPortfolio" + Arrays.asList(name, filePath),
+                "Loading the portfolio...",
+                () -> features.loadPortfolio(name, filePath), outcome -> {
+          if (outcome.error() != null) {
+            JOptionPane.showMessageDialog(panel, outcome.error(),
+                    "Error",
+                    JOptionPane.ERROR_MESSAGE);
+            browseButton.setEnabled(true);
+          } else {
+            JOptionPane.showMessageDialog(panel, outcome.success(),
+                    "Success",
+                    JOptionPane.INFORMATION_MESSAGE);
+            showSecondMenu(features);
+          }
+        });
       } else {
         JOptionPane.showMessageDialog(panel, "Please enter portfolio name and select " +
                         "a CSV file",
@@ -1806,17 +1926,21 @@ public class GUIView extends JFrame implements IViewGUI {
 
     submitButton.addActionListener(e -> {
       if (date[0] != null) { //date[0] != null
-        Map<String, Double> compositionResult = features.examineComposition(choice[0], date[0]);
-
-        if (features.getErrorMessage() != null) {
-          JOptionPane.showMessageDialog(panel, features.getErrorMessage(),
-                  "Error",
-                  JOptionPane.ERROR_MESSAGE);
-          dropdown.setSelectedIndex(0);
-          showSecondMenu(features);
-        } else {
-          displayCompositionResult(features, compositionResult);
-        }
+        int portfolio = choice[0];
+        String compositionDate = date[0];
+        tasks.call(panel, "examineComposition" + Arrays.asList(portfolio, compositionDate),
+                "Finding the composition...",
+                () -> features.examineComposition(portfolio, compositionDate), outcome -> {
+          if (outcome.error() != null) {
+            JOptionPane.showMessageDialog(panel, outcome.error(),
+                    "Error",
+                    JOptionPane.ERROR_MESSAGE);
+            dropdown.setSelectedIndex(0);
+            showSecondMenu(features);
+          } else {
+            displayCompositionResult(features, outcome.value());
+          }
+        });
       } else {
         JOptionPane.showMessageDialog(panel, "Please select portfolio and date",
                 "Error",
@@ -1879,6 +2003,29 @@ public class GUIView extends JFrame implements IViewGUI {
     return table;
   }
 
+  /**
+   * File filter for CSV files compressed with gzip, whose names end in .csv.gz. The extension
+   * filter of Swing only looks at the part after the last dot, so it can't tell them from any
+   * other gzip file.
+   */
+  static class CompressedCsvFilter extends FileFilter {
+
+    /**
+     * extension of a compressed CSV file.
+     */
+    static final String EXTENSION = ".csv.gz";
+
+    @Override
+    public boolean accept(File file) {
+      return file.isDirectory() || file.getName().toLowerCase().endsWith(EXTENSION);
+    }
+
+    @Override
+    public String getDescription() {
+      return "Compressed CSV Files (*.csv.gz)";
+    }
+  }
+
   /**
    * Custom formatter class for formatting dates in UI.
    */
@@ -3,18 +3,36 @@ package controller;
 import org.junit.Before;
 import org.junit.Test;
 
+import com.sun.net.httpserver.HttpServer;
+
 import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
 import java.io.Reader;
 import java.io.StringReader;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.time.LocalDate;
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.TreeMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import model.InflexiblePortfolioImpl;
 
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
 import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
 
 /**
  * This class represents a test suite for testing the functionality of StockControllerImpl class.
@@ -2034,4 +2052,361 @@ public class ControllerTest {
       assertEquals(expectedOutputLog[i], outputLogChecker[i]);
     }
   }
+
+  /**
+   * starts a local http server that answers every request with the given body.
+   * @param body the response body.
+   * @return the started server.
+   * @throws IOException if the server cannot be started.
+   */
+  private HttpServer startPriceServer(String body) throws IOException {
+    HttpServer server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+    server.createContext("/query", exchange -> {
+      byte[] bytes = body.getBytes(StandardCharsets.US_ASCII);
+      exchange.sendResponseHeaders(200, bytes.length);
+      try (OutputStream out = exchange.getResponseBody()) {
+        out.write(bytes);
+      }
+    });
+    server.start();
+    return server;
+  }
+
+  @Test
+  public void testStreamingFetchParsesRowsAndWritesCacheFile() throws IOException {
+    StringBuilder body = new StringBuilder("timestamp,open,high,low,close,volume\r\n");
+    LocalDate date = LocalDate.of(2024, 3, 28);
+    for (int i = 0; i < 5000; i++) {
+      body.append(date.minusDays(i)).append(",").append(100 + i).append(".5,")
+              .append(101 + i).append(",").append(99 + i).append(",").append(100.25 + i)
+              .append(",1000\r\n");
+    }
+    HttpServer server = startPriceServer(body.toString());
+    Path dir = Files.createTempDirectory("fetch");
+    Path cacheFile = dir.resolve("IBM.csv");
+    try {
+      FetchFromAlphaVantage api = new FetchFromAlphaVantage("demo",
+              "http://localhost:" + server.getAddress().getPort() + "/query");
+      PriceSeries series = api.fetchPriceSeries("IBM", true, cacheFile);
+      assertEquals(5000, series.size());
+      assertEquals(date, series.lastDate());
+      assertEquals(date.minusDays(4999), series.firstDate());
+      int index = series.indexOf(date.minusDays(10));
+      assertEquals(110.5, series.openAt(index), 0.0);
+      assertEquals(111, series.highAt(index), 0.0);
+      assertEquals(109, series.lowAt(index), 0.0);
+      assertEquals(110.25, series.closeAt(index), 0.0);
+      assertEquals(body.toString(), new String(Files.readAllBytes(cacheFile),
+              StandardCharsets.US_ASCII));
+      try (DirectoryStream<Path> files = Files.newDirectoryStream(dir)) {
+        int count = 0;
+        for (Path ignored : files) {
+          count++;
+        }
+        assertEquals(1, count);
+      }
+    } finally {
+      server.stop(0);
+      Files.deleteIfExists(cacheFile);
+      Files.deleteIfExists(dir);
+    }
+  }
+
+  @Test
+  public void testStreamingFetchRejectsErrorResponse() throws IOException {
+    HttpServer server = startPriceServer("{\n  \"Information\": \"rate limit\"\n}");
+    Path dir = Files.createTempDirectory("fetch");
+    Path cacheFile = dir.resolve("IBM.csv");
+    try {
+      FetchFromAlphaVantage api = new FetchFromAlphaVantage("demo",
+              "http://localhost:" + server.getAddress().getPort() + "/query");
+      try {
+        api.fetchPriceSeries("IBM", true, cacheFile);
+        fail("the error response should not be parsed");
+      } catch (RuntimeException e) {
+        // expected
+      }
+      try (DirectoryStream<Path> files = Files.newDirectoryStream(dir)) {
+        assertFalse(files.iterator().hasNext());
+      }
+    } finally {
+      server.stop(0);
+      Files.deleteIfExists(dir);
+    }
+  }
+
+  @Test
+  public void testPrefetchFetchesMissesConcurrently() throws IOException {
+    AtomicInteger inFlight = new AtomicInteger();
+    AtomicInteger peak = new AtomicInteger();
+    AtomicInteger calls = new AtomicInteger();
+    CountDownLatch allStarted = new CountDownLatch(51);
+    FetchFromAPI slowApi = new FetchFromAPI() {
+      @Override
+      public PriceSeries fetchPriceSeries(String ticker, boolean full, Path cacheFile) {
+        calls.incrementAndGet();
+        peak.accumulateAndGet(inFlight.incrementAndGet(), Math::max);
+        allStarted.countDown();
+        try {
+          allStarted.await(10, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+          throw new IllegalStateException(e);
+        } finally {
+          inFlight.decrementAndGet();
+        }
+        if (ticker.equals("FAIL")) {
+          throw new RuntimeException();
+        }
+        return new PriceSeries.Builder().add(LocalDate.of(2024, 1, 2), 1, 2, 0.5, 1.5).build();
+      }
+
+      @Override
+      public int callsPerMinute() {
+        return 0;
+      }
+    };
+    Path dir = Files.createTempDirectory("store");
+    PriceCache cache = new PriceCache(1 << 20);
+    StockData data = new StockData(cache, slowApi, new PriceHistoryStore(dir));
+    List<String> tickers = new ArrayList<>();
+    for (int i = 0; i < 50; i++) {
+      tickers.add("PREFETCH" + i);
+    }
+    tickers.add("FAIL");
+    try {
+      Map<String, Boolean> results = data.prefetch(tickers);
+      assertEquals(51, calls.get());
+      assertEquals(51, peak.get());
+      assertEquals(51, results.size());
+      assertEquals(tickers, new ArrayList<>(results.keySet()));
+      assertFalse(results.get("FAIL"));
+      assertTrue(results.get("PREFETCH0"));
+      assertEquals(50, cache.size());
+
+      results = data.prefetch(tickers.subList(0, 50));
+      assertEquals(51, calls.get());
+      assertFalse(results.containsValue(false));
+    } finally {
+      try (DirectoryStream<Path> files = Files.newDirectoryStream(dir)) {
+        for (Path file : files) {
+          Files.delete(file);
+        }
+      }
+      Files.delete(dir);
+    }
+  }
+
+  @Test
+  public void testRateLimiterSpacesCalls() {
+    long[] now = {0};
+    RateLimiter limiter = new RateLimiter(600, () -> now[0]);
+    long interval = TimeUnit.MILLISECONDS.toNanos(100);
+    for (int i = 0; i < 4; i++) {
+      assertEquals(i * interval, limiter.reserve());
+    }
+    now[0] = TimeUnit.MINUTES.toNanos(1);
+    assertEquals(0, limiter.reserve());
+    assertEquals(interval, limiter.reserve());
+
+    RateLimiter unlimited = new RateLimiter(0, () -> now[0]);
+    assertEquals(0, unlimited.reserve());
+    assertEquals(0, unlimited.reserve());
+
+    int quota = new FetchFromAlphaVantage().callsPerMinute();
+    assertEquals(TimeUnit.SECONDS.toNanos(12), new RateLimiter(quota).intervalNanos());
+    assertSame(RateLimiter.forQuota(quota), RateLimiter.forQuota(quota));
+  }
+
+  @Test
+  public void testPriceSeriesFileRoundTripAndChecksum() throws IOException {
+    PriceSeries.Builder builder = new PriceSeries.Builder();
+    LocalDate date = LocalDate.of(2000, 1, 3);
+    for (int i = 0; i < 6000; i++) {
+      builder.add(date.plusDays(i), i + 0.25, i + 1.5, i - 0.75, i + 0.5);
+    }
+    PriceSeries series = builder.build();
+    Path dir = Files.createTempDirectory("cache");
+    Path file = dir.resolve("TEST.bin");
+    try {
+      PriceSeriesFile.write(series, file);
+      assertEquals(24 + 6000 * 36, Files.size(file));
+      PriceSeries read = PriceSeriesFile.read(file);
+      assertEquals(series.size(), read.size());
+      for (int i = 0; i < series.size(); i++) {
+        assertEquals(series.epochDayAt(i), read.epochDayAt(i));
+        assertEquals(series.openAt(i), read.openAt(i), 0.0);
+        assertEquals(series.highAt(i), read.highAt(i), 0.0);
+        assertEquals(series.lowAt(i), read.lowAt(i), 0.0);
+        assertEquals(series.closeAt(i), read.closeAt(i), 0.0);
+      }
+
+      byte[] bytes = Files.readAllBytes(file);
+      bytes[bytes.length - 3] ^= 1;
+      Files.write(file, bytes);
+      try {
+        PriceSeriesFile.read(file);
+        fail("a damaged file should not be read");
+      } catch (IllegalArgumentException e) {
+        assertEquals("Cache file checksum does not match", e.getMessage());
+      }
+    } finally {
+      Files.deleteIfExists(file);
+      Files.deleteIfExists(dir);
+    }
+  }
+
+  /**
+   * creates a fake API that returns the given series and counts its full and compact fetches.
+   * @param full    series returned by a full fetch.
+   * @param compact series returned by a compact fetch.
+   * @param calls   counts of full fetches at index 0 and compact fetches at index 1.
+   * @return the fake API.
+   */
+  private FetchFromAPI fakeApi(PriceSeries full, PriceSeries compact, int[] calls) {
+    return new FetchFromAPI() {
+      @Override
+      public PriceSeries fetchPriceSeries(String ticker, boolean isFull, Path cacheFile) {
+        calls[isFull ? 0 : 1]++;
+        if (isFull ? full == null : compact == null) {
+          throw new IllegalArgumentException();
+        }
+        return isFull ? full : compact;
+      }
+
+      @Override
+      public int callsPerMinute() {
+        return 0;
+      }
+    };
+  }
+
+  /**
+   * creates a series of consecutive days with the given closing prices, the opening price of
+   * each day is its closing price.
+   * @param first  first day of the series.
+   * @param closes closing prices.
+   * @return the series.
+   */
+  private PriceSeries daily(LocalDate first, double... closes) {
+    PriceSeries.Builder builder = new PriceSeries.Builder();
+    for (int i = 0; i < closes.length; i++) {
+      builder.add(first.plusDays(i), closes[i], closes[i] + 1, closes[i] - 1, closes[i]);
+    }
+    return builder.build();
+  }
+
+  @Test
+  public void testStockDataReadsHistoryStoreOnWarmLoad() throws IOException {
+    Path dir = Files.createTempDirectory("store");
+    PriceHistoryStore store = new PriceHistoryStore(dir);
+    PriceSeries fetched = daily(LocalDate.of(2024, 1, 2), 1.5, 2);
+    int[] calls = new int[2];
+    try {
+      new StockData(new PriceCache(1 << 20), fakeApi(fetched, null, calls), store)
+              .fetchPriceSeries("STORETEST");
+      assertTrue(store.isRefreshedToday("STORETEST"));
+      PriceSeries warm = new StockData(new PriceCache(1 << 20), fakeApi(null, null, calls),
+              store).fetchPriceSeries("STORETEST");
+      assertEquals(2, warm.size());
+      assertEquals(LocalDate.of(2024, 1, 3), warm.lastDate());
+      assertEquals(2, warm.closeAt(1), 0.0);
+      assertEquals(1, calls[0]);
+      assertEquals(0, calls[1]);
+    } finally {
+      Files.deleteIfExists(dir.resolve("STORETEST.bin"));
+      Files.deleteIfExists(dir);
+    }
+  }
+
+  @Test
+  public void testStockDataAppendsLatestPricesToStoredHistory() throws IOException {
+    Path dir = Files.createTempDirectory("store");
+    PriceHistoryStore store = new PriceHistoryStore(dir);
+    Path file = dir.resolve("DELTATEST.bin");
+    LocalDate first = LocalDate.of(2024, 1, 1);
+    FileTime yesterday = FileTime.fromMillis(System.currentTimeMillis() - 2 * 86_400_000L);
+    int[] calls = new int[2];
+    try {
+      store.write("DELTATEST", daily(first, 10, 11, 12, 13));
+      Files.setLastModifiedTime(file, yesterday);
+      PriceSeries latest = daily(first.plusDays(2), 12, 13, 14, 15);
+      PriceSeries merged = new StockData(new PriceCache(1 << 20),
+              fakeApi(null, latest, calls), store).fetchPriceSeries("DELTATEST");
+      assertEquals(6, merged.size());
+      assertEquals(15, merged.closeAt(5), 0.0);
+      assertEquals(0, calls[0]);
+      assertEquals(1, calls[1]);
+      assertEquals(6, store.read("DELTATEST").size());
+
+      Files.setLastModifiedTime(file, yesterday);
+      PriceSeries adjusted = daily(first.plusDays(4), 7, 7.5, 8);
+      PriceSeries refetched = daily(first, 5, 5.5, 6, 6.5, 7, 7.5, 8);
+      PriceSeries full = new StockData(new PriceCache(1 << 20),
+              fakeApi(refetched, adjusted, calls), store).fetchPriceSeries("DELTATEST");
+      assertEquals(7, full.size());
+      assertEquals(5, full.closeAt(0), 0.0);
+      assertEquals(1, calls[0]);
+      assertEquals(2, calls[1]);
+
+      Files.setLastModifiedTime(file, yesterday);
+      PriceSeries stale = new StockData(new PriceCache(1 << 20), fakeApi(null, null, calls),
+              store).fetchPriceSeries("DELTATEST");
+      assertEquals(7, stale.size());
+      assertFalse(store.isRefreshedToday("DELTATEST"));
+    } finally {
+      Files.deleteIfExists(file);
+      Files.deleteIfExists(dir);
+    }
+  }
+
+  @Test
+  public void testHistoryMergeDetectsGapsAndSplits() {
+    LocalDate first = LocalDate.of(2024, 1, 1);
+    PriceSeries stored = daily(first, 100, 101, 102);
+    assertEquals(5, PriceHistoryStore.merge(stored, daily(first.plusDays(1), 101, 102, 103,
+            104)).size());
+    assertTrue(PriceHistoryStore.merge(stored, daily(first.plusDays(1), 101, 102)) == stored);
+    assertEquals(null, PriceHistoryStore.merge(stored, daily(first.plusDays(5), 103, 104)));
+    assertEquals(null, PriceHistoryStore.merge(stored, daily(first.plusDays(2), 102, 51)));
+    assertEquals(null, PriceHistoryStore.merge(stored, daily(first.plusDays(1), 101, 99, 100)));
+  }
+
+  @Test
+  public void testExportStreamsCompressedAndReplacesAtOnce() throws IOException {
+    Path dir = Files.createTempDirectory("export");
+    String path = dir.resolve("big.csv.gz").toString();
+    Persistence persistence = new Persistence();
+    try {
+      persistence.exportAsCSV(path, out -> {
+        out.append("Symbol,Quantity").append(System.lineSeparator());
+        for (int i = 0; i < 100000; i++) {
+          out.append("AAPL,").append(String.valueOf(i)).append(System.lineSeparator());
+        }
+      });
+      List<String[]> lines = persistence.loadFromCSV(path);
+      assertEquals(100000, lines.size());
+      assertEquals("99999", lines.get(99999)[1]);
+
+      try {
+        persistence.exportAsCSV(path, out -> {
+          out.append("Symbol,Quantity").append(System.lineSeparator());
+          throw new IOException("disk full");
+        });
+        fail("The export should have failed");
+      } catch (IllegalArgumentException e) {
+        assertEquals("disk full", e.getMessage());
+      }
+      assertEquals(100000, persistence.loadFromCSV(path).size());
+      try (DirectoryStream<Path> files = Files.newDirectoryStream(dir)) {
+        int count = 0;
+        for (Path file : files) {
+          count++;
+        }
+        assertEquals(1, count);
+      }
+    } finally {
+      Files.deleteIfExists(Path.of(path));
+      Files.deleteIfExists(dir);
+    }
+  }
 }
@@ -1,13 +1,18 @@
 package controller;
 
+import java.io.IOException;
 import java.time.LocalDate;
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 import java.util.TreeMap;
 
+import model.IndicatorEngine;
+import model.IndicatorSeries;
 import model.InvestmentManager;
+import model.LotMethod;
 import model.Portfolio;
 import model.InflexiblePortfolioImpl;
 
@@ -129,6 +134,20 @@ public class MockModel implements InvestmentManager {
     return listOfPortfolios;
   }
 
+  /**
+   * this method logs the prefix and limit for which tickers are suggested.
+   * @param prefix start of a ticker symbol or company name.
+   * @param limit  maximum number of suggestions.
+   * @return A map containing the mock ticker and its name.
+   */
+  @Override
+  public Map<String, String> suggestTickers(String prefix, int limit) {
+    logger.append("Prefix: ").append(prefix).append(", limit: ").append(limit).append("\n");
+    Map<String, String> suggestions = new HashMap<>();
+    suggestions.put(mockName, mockName);
+    return suggestions;
+  }
+
   /**
    * this method retrieves composition of mock portfolio at the specified index for the given date.
    * @param input The index of the mock portfolio.
@@ -235,6 +254,31 @@ public class MockModel implements InvestmentManager {
     return mockValue;
   }
 
+  /**
+   * this method calculates the cost of the shares held in mock portfolio at specified index.
+   * @param input index of the portfolio.
+   * @param date date for which the cost is calculated.
+   * @param method how the shares sold are matched against the lots.
+   * @return mock value.
+   */
+  @Override
+  public double costOfHoldings(int input, LocalDate date, LotMethod method) {
+    logger.append("Calculating cost of holdings for portfolio at index: ").append(input)
+            .append(" on date: ").append(date).append(" by ").append(method).append('\n');
+    return mockValue;
+  }
+
+  /**
+   * this method logs the index of the portfolio whose tickers are asked for.
+   * @param input index of the portfolio.
+   * @return A set containing the mock name.
+   */
+  @Override
+  public Set<String> tickersHeld(int input) {
+    logger.append("Retrieving tickers held for portfolio at index: ").append(input).append('\n');
+    return Set.of(mockName);
+  }
+
 
   /**
    * this method calculates gain or loss for a specified stock on a given date.
@@ -323,6 +367,20 @@ public class MockModel implements InvestmentManager {
     return mockMap;
   }
 
+  /**
+   * this method logs the stocks whose indicators are asked for.
+   * @param stocks ticker symbols or names of the stocks.
+   * @param engine indicator engine holding the indicators to be computed.
+   * @param api StockData object for fetching the stock prices.
+   * @return an empty map.
+   */
+  @Override
+  public Map<String, IndicatorSeries> computeIndicators(List<String> stocks,
+                                                        IndicatorEngine engine, IStockData api) {
+    logger.append("Computing indicators for ").append(stocks).append("\n");
+    return new HashMap<>();
+  }
+
   /**
    * this method calculates performance of a specified stock over a given period.
    * @param stock ticker symbol of the stock.
@@ -399,6 +457,18 @@ public class MockModel implements InvestmentManager {
     return mockOutputFormat;
   }
 
+  /**
+   * this method writes the mock output for the portfolio at the specified index.
+   * @param input index of the portfolio to be saved.
+   * @param out   where the mock output is written.
+   * @throws IOException if the output can't be written.
+   */
+  @Override
+  public void save(int input, Appendable out) throws IOException {
+    logger.append("Portfolio to be saved is at index: ").append(input).append("\n");
+    out.append(mockOutputFormat);
+  }
+
   /**
    * this method loads a portfolio with the specified name and lines.
    * @param portfolioName name of the portfolio to be loaded.
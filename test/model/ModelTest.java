@@ -9,20 +9,39 @@ import java.time.LocalDate;
 import java.util.HashMap;
 import java.util.Iterator;
 import java.util.List;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
 import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.util.Map;
+import java.util.Random;
 import java.util.TreeMap;
 
 import java.util.ArrayList;
 import java.util.Set;
-
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import controller.BarPeriod;
 import controller.IStockData;
+import controller.PriceBars;
+import controller.PriceCache;
+import controller.PriceSeries;
 import controller.StockData;
+import controller.TradingCalendar;
 
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertSame;
 import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
 
 /**
  * This class represents a test suite for testing the functionality of the model classes.
@@ -3170,7 +3189,7 @@ public class ModelTest {
     try {
       portfolioDir.loadPortfolio("new portfolio", validLines, api);
     } catch (IllegalArgumentException e) {
-      assertEquals("Invalid data in given file!", e.getMessage());
+      assertEquals("Line 2: Invalid data in given file!", e.getMessage());
     }
   }
 
@@ -3185,7 +3204,7 @@ public class ModelTest {
     try {
       portfolioDir.loadPortfolio("new portfolio1", validLines1, api);
     } catch (IllegalArgumentException e) {
-      assertEquals("Ticker symbol doesn't exist", e.getMessage());
+      assertEquals("Line 3: Ticker symbol doesn't exist", e.getMessage());
     }
   }
 
@@ -3199,7 +3218,7 @@ public class ModelTest {
     try {
       portfolioDir.loadPortfolio("new portfolio1", validLines1, api);
     } catch (IllegalArgumentException e) {
-      assertEquals("Invalid data in given file!", e.getMessage());
+      assertEquals("Line 4: Invalid data in given file!", e.getMessage());
     }
   }
 
@@ -3213,7 +3232,7 @@ public class ModelTest {
     try {
       portfolioDir.loadPortfolio("new portfolio1", validLines1, api);
     } catch (IllegalArgumentException e) {
-      assertEquals("Format of date in the file is incorrect!", e.getMessage());
+      assertEquals("Line 4: Format of date in the file is incorrect!", e.getMessage());
     }
   }
 
@@ -3246,10 +3265,16 @@ public class ModelTest {
     LocalDate date2 = LocalDate.of(2023, 5, 12);
     portfolioDir.sellStock(0, "aapl", 15, date2, api);
 
-    String expected = "Transaction Type,Symbol,Quantity,Date" + System.lineSeparator()
-            + "buy,AAPL,15.0,2023-03-13" + System.lineSeparator()
-            + "buy,GOOG,15.0,2024-03-12" + System.lineSeparator()
-            + "sell,AAPL,15.0,2023-05-12" + System.lineSeparator();
+    PriceSeries apple = api.fetchPriceSeries("AAPL");
+    PriceSeries google = api.fetchPriceSeries("GOOG");
+    String expected = "Transaction Type,Symbol,Quantity,Date,Price,Commission"
+            + System.lineSeparator()
+            + "buy,AAPL,15.0,2023-03-13," + apple.closeAt(apple.indexOf(date)) + ",0.0"
+            + System.lineSeparator()
+            + "buy,GOOG,15.0,2024-03-12," + google.closeAt(google.indexOf(date1)) + ",0.0"
+            + System.lineSeparator()
+            + "sell,AAPL,15.0,2023-05-12," + apple.closeAt(apple.indexOf(date2)) + ",0.0"
+            + System.lineSeparator();
 
     StringBuilder result = portfolioDir.save(0);
     assertEquals(expected, result.toString());
@@ -3673,5 +3698,1058 @@ public class ModelTest {
 
   }
 
+  @Test
+  public void testPriceSeriesLookups() {
+    PriceSeries.Builder builder = new PriceSeries.Builder();
+    builder.add(LocalDate.of(2024, 3, 4), 10, 12, 9, 11);
+    builder.add(LocalDate.of(2024, 3, 1), 8, 10, 7, 9);
+    builder.add(LocalDate.of(2024, 2, 29), 7, 8, 6, 7.5);
+    PriceSeries series = builder.build();
+
+    assertEquals(3, series.size());
+    assertEquals(LocalDate.of(2024, 2, 29), series.firstDate());
+    assertEquals(LocalDate.of(2024, 3, 4), series.lastDate());
+    assertEquals(9, series.closeAt(series.indexOf(LocalDate.of(2024, 3, 1))), 0.001);
+    assertEquals(-1, series.indexOf(LocalDate.of(2024, 3, 2)));
+    assertEquals(LocalDate.of(2024, 3, 1),
+            series.dateAt(series.floorIndex(LocalDate.of(2024, 3, 3))));
+    assertEquals(LocalDate.of(2024, 3, 4),
+            series.dateAt(series.ceilingIndex(LocalDate.of(2024, 3, 2))));
+    assertEquals(-1, series.floorIndex(LocalDate.of(2024, 2, 28)));
+    assertEquals(-1, series.ceilingIndex(LocalDate.of(2024, 3, 5)));
+  }
+
+  @Test
+  public void testPriceSeriesMapView() {
+    PriceSeries.Builder builder = new PriceSeries.Builder();
+    builder.add(LocalDate.of(2024, 3, 1), 8, 10, 7, 9);
+    builder.add(LocalDate.of(2024, 3, 4), 10, 12, 9, 11);
+    builder.add(LocalDate.of(2024, 3, 1), 8, 10, 7, 9.5);
+    PriceSeries series = builder.build();
+
+    TreeMap<String, ArrayList<Double>> priceData = series.asMap();
+    assertEquals(2, priceData.size());
+    assertEquals("2024-03-04", priceData.firstKey());
+    assertEquals("2024-03-01", priceData.lastKey());
+    assertEquals(9.5, priceData.get("2024-03-01").get(3), 0.001);
+    assertEquals(12, priceData.get("2024-03-04").get(1), 0.001);
+    priceData.get("2024-03-01").set(3, 0.0);
+    priceData.remove("2024-03-04");
+    assertTrue(priceData != series.asMap());
+    assertEquals(2, series.asMap().size());
+    assertEquals(9.5, series.asMap().get("2024-03-01").get(3), 0.001);
+    assertEquals(9.5, series.closeAt(0), 0.001);
+  }
+
+  /**
+   * creates a price series with the given number of consecutive trading days.
+   * @param days number of trading days.
+   * @return the price series.
+   */
+  private PriceSeries seriesOfDays(int days) {
+    PriceSeries.Builder builder = new PriceSeries.Builder();
+    LocalDate date = LocalDate.of(2020, 1, 1);
+    for (int i = 0; i < days; i++) {
+      builder.add(date.plusDays(i), 10 + i, 11 + i, 9 + i, 10.5 + i);
+    }
+    return builder.build();
+  }
+
+  @Test
+  public void testPriceCacheHitsMissesAndEvictions() {
+    PriceSeries series = seriesOfDays(100);
+    PriceCache cache = new PriceCache(series.estimatedSizeInBytes() * 2);
+    AtomicInteger loads = new AtomicInteger();
+
+    assertTrue(series == cache.get("AAPL", ticker -> {
+      loads.incrementAndGet();
+      return series;
+    }));
+    cache.get("AAPL", ticker -> {
+      loads.incrementAndGet();
+      return seriesOfDays(100);
+    });
+    assertEquals(1, loads.get());
+    assertEquals(1, cache.getHitCount());
+    assertEquals(1, cache.getMissCount());
+
+    cache.get("GOOG", ticker -> seriesOfDays(100));
+    cache.get("AAPL", ticker -> seriesOfDays(100));
+    cache.get("MSFT", ticker -> seriesOfDays(100));
+    assertEquals(2, cache.size());
+    assertEquals(1, cache.getEvictionCount());
+    assertTrue(cache.contains("AAPL"));
+    assertFalse(cache.contains("GOOG"));
+    assertTrue(cache.getUsedBytes() <= cache.getMaxBytes());
+  }
+
+  @Test
+  public void testPriceCacheLoadsTickerOnceForConcurrentRequests() throws Exception {
+    PriceCache cache = new PriceCache(1024 * 1024);
+    AtomicInteger loads = new AtomicInteger();
+    CountDownLatch started = new CountDownLatch(1);
+    CountDownLatch release = new CountDownLatch(1);
+    Thread[] threads = new Thread[8];
+    PriceSeries[] results = new PriceSeries[threads.length];
+    for (int i = 0; i < threads.length; i++) {
+      int index = i;
+      threads[i] = new Thread(() -> results[index] = cache.get("AAPL", ticker -> {
+        loads.incrementAndGet();
+        started.countDown();
+        try {
+          release.await();
+        } catch (InterruptedException e) {
+          Thread.currentThread().interrupt();
+        }
+        return seriesOfDays(10);
+      }));
+      threads[i].start();
+    }
+    started.await();
+    Thread.sleep(100);
+    release.countDown();
+    for (Thread thread : threads) {
+      thread.join();
+    }
+    assertEquals(1, loads.get());
+    for (PriceSeries result : results) {
+      assertTrue(result == results[0]);
+    }
+  }
+
+  @Test
+  public void testTickerRegistryMatchesLinearScan() {
+    FileHandler fileHandler = new FileHandler();
+    List<String[]> lines = fileHandler.load("stocks.csv");
+    TickerRegistry registry = new TickerRegistry("stocks.csv");
+    List<String> names = new ArrayList<>();
+    for (String[] line : lines) {
+      if (line.length >= 2) {
+        names.add(line[0]);
+        names.add(line[1]);
+        names.add(" " + line[1].toUpperCase() + " ");
+      }
+    }
+    names.add("Apple Inc");
+    names.add("apple inc");
+    names.add("NotAStock");
+    for (String name : names) {
+      String expected = null;
+      String key = name.trim().replaceAll("\\s", "");
+      for (String[] line : lines) {
+        if (line.length >= 2 && (line[1].trim().replaceAll("\\s", "").equalsIgnoreCase(key)
+                || line[0].trim().equalsIgnoreCase(key))) {
+          expected = line[0].trim();
+          break;
+        }
+      }
+      assertEquals(name, expected, registry.resolve(name));
+    }
+  }
+
+  @Test
+  public void testTickerRegistrySuggestsAndReloads() throws Exception {
+    File file = File.createTempFile("tickers", ".csv");
+    file.deleteOnExit();
+    Files.write(file.toPath(), ("AB,Alpha Beta Corp\nABC,Gamma Inc\n"
+            + "XYZ,Abacus Holdings\n").getBytes());
+    TickerRegistry registry = new TickerRegistry(file.getPath());
+    Map<String, String> suggestions = registry.suggest("ab", 10);
+    assertEquals("[AB, ABC, XYZ]", suggestions.keySet().toString());
+    assertEquals("Abacus Holdings", suggestions.get("XYZ"));
+    assertEquals("[AB]", registry.suggest("ab", 1).keySet().toString());
+    assertTrue(registry.suggest("q", 10).isEmpty());
+    assertEquals("XYZ", registry.resolve("abacus holdings"));
+    assertEquals(null, registry.resolve("QQQ"));
+
+    Files.write(file.toPath(), "QQQ,Nasdaq Trust\n".getBytes());
+    assertTrue(file.setLastModified(file.lastModified() + 2000));
+    assertEquals("QQQ", registry.resolve("nasdaqtrust"));
+    assertEquals(null, registry.resolve("AB"));
+  }
+
+  @Test
+  public void testPositionLedgerReplaysBackDatedTrades() {
+    PositionLedger ledger = new PositionLedger();
+    LocalDate start = LocalDate.of(2020, 1, 1);
+    for (int i = 0; i < 200; i++) {
+      ledger.add(i % 2 == 0 ? "AAPL" : "MSFT", 1, start.plusDays(200 - i));
+    }
+    assertTrue(ledger.isEmptyOn(start));
+    assertFalse(ledger.isEmptyOn(start.plusDays(1)));
+    Map<String, Double> holdings = ledger.holdingsOn(start.plusDays(100));
+    assertEquals(50.0, holdings.get("AAPL"), 0.0);
+    assertEquals(50.0, holdings.get("MSFT"), 0.0);
+
+    ledger.add("AAPL", 5, start);
+    assertEquals(55.0, ledger.holdingsOn(start.plusDays(100)).get("AAPL"), 0.0);
+    assertEquals(105.0, ledger.holdingsOn(start.plusDays(300)).get("AAPL"), 0.0);
+
+    ledger.add("IBM", 3, start.plusDays(10));
+    assertTrue(ledger.holdsThroughout("IBM", 3, start.plusDays(10), 3));
+    ledger.add("IBM", -3, start.plusDays(20));
+    assertFalse(ledger.holdingsOn(start.plusDays(20)).containsKey("IBM"));
+    assertEquals(3.0, ledger.holdingsOn(start.plusDays(19)).get("IBM"), 0.0);
+    assertFalse(ledger.holdsThroughout("IBM", 1, start.plusDays(15), 3));
+    assertTrue(ledger.holdsThroughout("AAPL", 55, start.plusDays(100), 55));
+
+    ledger.add("MSFT", -2, start.plusDays(50));
+    assertEquals(null, ledger.holdingOn("IBM", start.plusDays(20)));
+    assertEquals(null, ledger.holdingOn("AAPL", start.minusDays(1)));
+    for (int day = 0; day <= 210; day += 7) {
+      Map<String, Double> onDay = ledger.holdingsOn(start.plusDays(day));
+      for (String ticker : new String[]{"AAPL", "MSFT", "IBM"}) {
+        assertEquals(onDay.get(ticker), ledger.holdingOn(ticker, start.plusDays(day)));
+      }
+    }
+  }
+
+  /**
+   * this test checks that the persistent holdings behave like a hash map under random changes,
+   * including tickers with equal hash codes, and that earlier maps are left unchanged.
+   */
+  @Test
+  public void testPersistentHoldingsMatchHashMap() {
+    String[] tickers = new String[300];
+    for (int i = 0; i < tickers.length - 2; i++) {
+      tickers[i] = "T" + i;
+    }
+    tickers[tickers.length - 2] = "Aa";
+    tickers[tickers.length - 1] = "BB";
+    Random random = new Random(9);
+    PersistentHoldings holdings = PersistentHoldings.EMPTY;
+    Map<String, Double> expected = new HashMap<>();
+    for (int i = 0; i < 5000; i++) {
+      String ticker = tickers[random.nextInt(tickers.length)];
+      PersistentHoldings before = holdings;
+      Map<String, Double> expectedBefore = new HashMap<>(expected);
+      if (random.nextInt(3) == 0) {
+        holdings = holdings.without(ticker);
+        expected.remove(ticker);
+      } else {
+        double quantity = random.nextInt(100);
+        holdings = holdings.with(ticker, quantity);
+        expected.put(ticker, quantity);
+      }
+      assertEquals(expected, holdings);
+      assertEquals(expectedBefore, before);
+    }
+    assertEquals(expected.hashCode(), holdings.hashCode());
+    assertTrue(holdings.without("missing") == holdings);
+  }
+
+  /**
+   * this test checks that the persistent holdings cannot be changed through the map methods.
+   */
+  @Test(expected = UnsupportedOperationException.class)
+  public void testPersistentHoldingsAreUnmodifiable() {
+    PersistentHoldings.EMPTY.with("AAPL", 10.0).put("MSFT", 5.0);
+  }
+
+  /**
+   * this test checks that the moving average comparisons made from prefix sums agree with the
+   * summed averages, on prices that repeat so that many averages tie.
+   */
+  @Test
+  public void testMovingAverageComparisonsMatchSummedAverages() {
+    double[] prices = {0.1, 0.2, 0.3, 100.7, 0.3, 0.2, 0.1, 100.7};
+    PriceSeries.Builder builder = new PriceSeries.Builder();
+    LocalDate date = LocalDate.of(2010, 1, 4);
+    for (int i = 0; i < 2000; i++) {
+      double close = prices[i % prices.length];
+      builder.add(date.plusDays(i), close, close, close, close);
+    }
+    PriceSeries series = builder.build();
+    MovingAverages averages = new MovingAverages(series);
+    int ties = 0;
+    for (int end = 60; end < series.size(); end++) {
+      for (int x = 1; x < 12; x++) {
+        int y = x + 4;
+        double xAverage = MovingAverages.average(series, end, x);
+        double yAverage = MovingAverages.average(series, end, y);
+        int expected = xAverage > yAverage ? 1 : xAverage < yAverage ? -1 : 0;
+        assertEquals(expected, averages.compareAverages(end, x, y));
+        double close = series.closeAt(end - 8);
+        expected = close > xAverage ? 1 : close < xAverage ? -1 : 0;
+        assertEquals(expected, averages.comparePrice(close, end, x));
+        ties += expected == 0 ? 1 : 0;
+      }
+    }
+    assertTrue(ties > 0);
+  }
+
+  /**
+   * this test checks the indicators computed in one pass against each indicator worked out on
+   * its own, straight from its definition.
+   */
+  @Test
+  public void testIndicatorEngineMatchesDefinitions() {
+    Random random = new Random(11);
+    PriceSeries.Builder builder = new PriceSeries.Builder();
+    LocalDate date = LocalDate.of(2015, 1, 5);
+    double price = 50;
+    for (int i = 0; i < 400; i++) {
+      double open = price;
+      price = Math.max(1, price + random.nextGaussian());
+      builder.add(date.plusDays(i), open, Math.max(open, price) + 0.5,
+              Math.min(open, price) - 0.5, price);
+    }
+    PriceSeries series = builder.build();
+    IndicatorSeries indicators = new IndicatorEngine.Builder().ema(10).rsi(14).macd(12, 26, 9)
+            .bollinger(20, 2).atr(14).build().compute(series);
+    assertEquals(series.size(), indicators.size());
+
+    double ema = 0;
+    for (int i = 0; i < 10; i++) {
+      ema += series.closeAt(i) / 10;
+      assertTrue(i == 9 || Double.isNaN(indicators.valueAt(Indicator.EMA, i)));
+    }
+    for (int i = 10; i < series.size(); i++) {
+      ema = series.closeAt(i) * 2 / 11 + ema * 9 / 11;
+      assertEquals(ema, indicators.valueAt(Indicator.EMA, i), 1e-9);
+    }
+
+    for (int i = 19; i < series.size(); i++) {
+      double mean = 0;
+      for (int j = i - 19; j <= i; j++) {
+        mean += series.closeAt(j) / 20;
+      }
+      double variance = 0;
+      for (int j = i - 19; j <= i; j++) {
+        variance += Math.pow(series.closeAt(j) - mean, 2) / 20;
+      }
+      assertEquals(mean, indicators.valueAt(Indicator.BOLLINGER_MIDDLE, i), 1e-9);
+      assertEquals(mean + 2 * Math.sqrt(variance),
+              indicators.valueAt(Indicator.BOLLINGER_UPPER, i), 1e-9);
+      assertEquals(mean - 2 * Math.sqrt(variance),
+              indicators.valueAt(Indicator.BOLLINGER_LOWER, i), 1e-9);
+    }
+
+    double gain = 0;
+    double loss = 0;
+    double range = 0;
+    for (int i = 1; i < series.size(); i++) {
+      double change = series.closeAt(i) - series.closeAt(i - 1);
+      double trueRange = Math.max(series.highAt(i), series.closeAt(i - 1))
+              - Math.min(series.lowAt(i), series.closeAt(i - 1));
+      if (i <= 14) {
+        gain += Math.max(change, 0) / 14;
+        loss += Math.max(-change, 0) / 14;
+        range += trueRange / 14;
+      } else {
+        gain = (gain * 13 + Math.max(change, 0)) / 14;
+        loss = (loss * 13 + Math.max(-change, 0)) / 14;
+        range = (range * 13 + trueRange) / 14;
+      }
+      if (i >= 14) {
+        assertEquals(100 - 100 / (1 + gain / loss), indicators.valueAt(Indicator.RSI, i), 1e-9);
+        assertEquals(range, indicators.valueAt(Indicator.ATR, i), 1e-9);
+      } else {
+        assertTrue(Double.isNaN(indicators.valueAt(Indicator.RSI, i)));
+        assertTrue(Double.isNaN(indicators.valueAt(Indicator.ATR, i)));
+      }
+    }
+
+    for (int i = 33; i < series.size(); i++) {
+      assertEquals(indicators.valueAt(Indicator.MACD, i)
+                      - indicators.valueAt(Indicator.MACD_SIGNAL, i),
+              indicators.valueAt(Indicator.MACD_HISTOGRAM, i), 1e-12);
+    }
+    assertTrue(Double.isNaN(indicators.valueAt(Indicator.MACD_SIGNAL, 32)));
+    assertEquals(indicators.valueAt(Indicator.ATR, series.size() - 1),
+            indicators.valueOn(Indicator.ATR, date.plusDays(1000)), 0);
+  }
+
+  /**
+   * this test checks that the engine only computes the indicators asked for.
+   */
+  @Test(expected = IllegalArgumentException.class)
+  public void testIndicatorEngineOnlyComputesSelectedIndicators() {
+    PriceSeries series = new PriceSeries.Builder()
+            .add(LocalDate.of(2020, 1, 2), 1, 2, 0.5, 1.5).build();
+    IndicatorSeries indicators = new IndicatorEngine.Builder().indicators(Indicator.RSI).build()
+            .compute(series);
+    assertEquals(1, indicators.indicators().size());
+    indicators.valueAt(Indicator.EMA, 0);
+  }
+
+  /**
+   * this test checks the trading calendar lookups, including dates far outside the series.
+   */
+  @Test
+  public void testTradingCalendarLookups() {
+    PriceSeries series = new PriceSeries.Builder()
+            .add(LocalDate.of(2024, 2, 29), 7, 8, 6, 7.5)
+            .add(LocalDate.of(2024, 3, 1), 8, 10, 7, 9)
+            .add(LocalDate.of(2024, 3, 4), 10, 12, 9, 11).build();
+    TradingCalendar calendar = series.calendar();
+    assertEquals(LocalDate.of(2024, 3, 4), calendar.nextTradingDay(LocalDate.of(2024, 3, 1)));
+    assertEquals(LocalDate.of(2024, 3, 1), calendar.prevTradingDay(LocalDate.of(2024, 3, 4)));
+    assertEquals(LocalDate.of(2024, 3, 1), calendar.nearestOnOrBefore(LocalDate.of(2024, 3, 3)));
+    assertEquals(LocalDate.of(2024, 3, 4), calendar.nearestOnOrBefore(LocalDate.MAX));
+    assertEquals(null, calendar.prevTradingDay(LocalDate.of(2024, 2, 29)));
+    assertEquals(null, calendar.nearestOnOrBefore(LocalDate.MIN));
+    assertEquals(null, calendar.nextTradingDay(LocalDate.of(2024, 3, 4)));
+    assertEquals(0, calendar.next(Integer.MIN_VALUE));
+    assertEquals(-1, calendar.next(Integer.MAX_VALUE));
+    assertEquals(-1, calendar.previous(Integer.MIN_VALUE));
+    assertTrue(calendar.isTradingDay((int) LocalDate.of(2024, 3, 1).toEpochDay()));
+    assertFalse(calendar.isTradingDay((int) LocalDate.of(2024, 3, 2).toEpochDay()));
+  }
+
+  /**
+   * this test checks that a moving crossover with the start date after the end date is
+   * rejected instead of running on forever.
+   */
+  @Test(expected = IllegalArgumentException.class)
+  public void testMovingCrossoverRejectsReversedPeriod() {
+    PriceSeries.Builder builder = new PriceSeries.Builder();
+    for (int i = 0; i < 100; i++) {
+      builder.add(LocalDate.of(2020, 1, 1).plusDays(i), 1, 2, 0.5, 1 + i % 3);
+    }
+    new StockStatisticsImpl().movingCrossoversOverPeriod("T", builder.build(), "2020-03-01",
+            "2020-02-01", 5, 10);
+  }
+
+  /**
+   * builds a stock data object that serves the given price series without any network access.
+   * @param series price series by ticker symbol.
+   * @return the stock data object.
+   */
+  private static IStockData fixedStockData(Map<String, PriceSeries> series) {
+    return new IStockData() {
+      @Override
+      public TreeMap<String, ArrayList<Double>> fetchHistoricalData(String tickerSymbol) {
+        return fetchPriceSeries(tickerSymbol).asMap();
+      }
+
+      @Override
+      public PriceSeries fetchPriceSeries(String tickerSymbol) {
+        PriceSeries prices = series.get(tickerSymbol);
+        if (prices == null) {
+          throw new IllegalArgumentException(tickerSymbol);
+        }
+        return prices;
+      }
+
+      @Override
+      public Map<String, Boolean> prefetch(java.util.Collection<String> tickerSymbols) {
+        Map<String, Boolean> loaded = new HashMap<>();
+        for (String tickerSymbol : tickerSymbols) {
+          loaded.put(tickerSymbol, series.containsKey(tickerSymbol));
+        }
+        return loaded;
+      }
+    };
+  }
+
+  /**
+   * this test checks the portfolio timeline against valuing the portfolio one day at a time and
+   * stepping back a day whenever a stock held has no price.
+   */
+  @Test
+  public void testPortfolioTimelineMatchesDayByDayValuation() {
+    Random random = new Random(13);
+    Map<String, PriceSeries> series = new HashMap<>();
+    String[] tickers = {"AAPL", "GOOG", "MSFT"};
+    LocalDate[] listed = {LocalDate.of(2010, 1, 4), LocalDate.of(2010, 3, 1),
+        LocalDate.of(2010, 2, 1)};
+    for (int t = 0; t < tickers.length; t++) {
+      PriceSeries.Builder builder = new PriceSeries.Builder();
+      for (LocalDate day = listed[t]; day.isBefore(LocalDate.of(2012, 1, 1));
+           day = day.plusDays(1)) {
+        if (day.getDayOfWeek().getValue() < 6 && random.nextInt(12) != 0) {
+          double close = 10 + random.nextInt(1000) / 10.0;
+          builder.add(day, close, close, close, close);
+        }
+      }
+      series.put(tickers[t], builder.build());
+    }
+    IStockData api = fixedStockData(series);
+    FlexiblePortfolioImpl portfolio = new FlexiblePortfolioImpl("timeline");
+    for (int i = 0; i < 60; i++) {
+      String ticker = tickers[random.nextInt(tickers.length)];
+      PriceSeries prices = series.get(ticker);
+      LocalDate day = prices.dateAt(random.nextInt(prices.size()));
+      try {
+        if (random.nextInt(4) == 0) {
+          portfolio.sellStock(ticker, 1 + random.nextInt(3), day, api);
+        } else {
+          portfolio.buyStock(ticker, 1 + random.nextInt(5), day, api);
+        }
+      } catch (IllegalArgumentException e) {
+        // sales the portfolio cannot cover are left out.
+      }
+    }
+
+    PortfolioTimeline timeline = new PortfolioTimeline(portfolio, api);
+    LocalDate start = LocalDate.of(2009, 12, 1);
+    double[] daily = timeline.dailyValues(start, LocalDate.of(2011, 12, 31));
+    for (int i = 0; i < daily.length; i++) {
+      LocalDate date = start.plusDays(i);
+      LocalDate day = date;
+      double expected;
+      while (true) {
+        try {
+          expected = portfolio.portfolioValue(day.toString(), api);
+          break;
+        } catch (IllegalArgumentException e) {
+          day = day.minusDays(1);
+        }
+      }
+      assertEquals(expected, timeline.valueOn(date), 0.0);
+      assertEquals(expected, daily[i], 0.0);
+    }
+  }
+
+  /**
+   * this test checks that the bars of every period aggregate the daily prices of each period
+   * in which the stock was traded, and that they are kept with the series.
+   */
+  @Test
+  public void testPriceBarsAggregateDailyPrices() {
+    Random random = new Random(14);
+    PriceSeries.Builder builder = new PriceSeries.Builder();
+    for (LocalDate day = LocalDate.of(2015, 12, 28); day.isBefore(LocalDate.of(2019, 3, 1));
+         day = day.plusDays(1 + random.nextInt(random.nextInt(20) == 0 ? 60 : 3))) {
+      double low = 10 + random.nextInt(100);
+      builder.add(day, low + random.nextInt(5), low + 10, low, low + random.nextInt(10));
+    }
+    PriceSeries series = builder.build();
+    for (BarPeriod period : BarPeriod.values()) {
+      PriceBars bars = series.bars(period);
+      assertSame(bars, series.bars(period));
+      assertEquals(period, bars.period());
+      int bar = -1;
+      LocalDate periodStart = null;
+      for (int i = 0; i < series.size(); i++) {
+        LocalDate start = period.startOf(series.dateAt(i));
+        assertFalse(start.isAfter(series.dateAt(i)));
+        assertTrue(period.nextStart(start).isAfter(series.dateAt(i)));
+        if (!start.equals(periodStart)) {
+          if (bar >= 0) {
+            assertEquals(series.dateAt(i - 1), bars.lastDateAt(bar));
+            assertEquals(series.closeAt(i - 1), bars.closeAt(bar), 0.0);
+          }
+          bar++;
+          periodStart = start;
+          assertEquals(start, bars.periodStartAt(bar));
+          assertEquals(series.dateAt(i), bars.firstDateAt(bar));
+          assertEquals(series.openAt(i), bars.openAt(bar), 0.0);
+        }
+        assertEquals(bar, bars.floorIndex(series.dateAt(i)));
+        assertTrue(bars.highAt(bar) >= series.highAt(i));
+        assertTrue(bars.lowAt(bar) <= series.lowAt(i));
+      }
+      assertEquals(bar + 1, bars.size());
+      assertEquals(series.lastDate(), bars.lastDateAt(bar));
+      assertEquals(-1, bars.floorIndex(bars.periodStartAt(0).minusDays(1)));
+    }
+    PriceBars months = series.bars(BarPeriod.MONTH);
+    for (int i = 0; i < months.size(); i++) {
+      int first = series.indexOf(months.firstDateAt(i));
+      int last = series.indexOf(months.lastDateAt(i));
+      double high = Double.NEGATIVE_INFINITY;
+      double low = Double.POSITIVE_INFINITY;
+      for (int j = first; j <= last; j++) {
+        high = Math.max(high, series.highAt(j));
+        low = Math.min(low, series.lowAt(j));
+      }
+      assertEquals(high, months.highAt(i), 0.0);
+      assertEquals(low, months.lowAt(i), 0.0);
+    }
+  }
+
+  /**
+   * this test checks that the epoch day overloads of the statistics and performance methods
+   * give the same results as the methods taking date strings.
+   */
+  @Test
+  public void testEpochDayOverloadsMatchDateStringMethods() {
+    Random random = new Random(15);
+    PriceSeries.Builder builder = new PriceSeries.Builder();
+    double close = 100;
+    for (LocalDate day = LocalDate.of(2018, 1, 2); day.isBefore(LocalDate.of(2020, 1, 1));
+         day = day.plusDays(1)) {
+      if (day.getDayOfWeek().getValue() < 6) {
+        close = Math.max(1, close + random.nextInt(11) - 5);
+        builder.add(day, close, close, close, close);
+      }
+    }
+    PriceSeries series = builder.build();
+    StockStatistic statistics = new StockStatisticsImpl();
+    String start = "2018-06-01";
+    String end = "2019-11-30";
+    int startDay = (int) LocalDate.parse(start).toEpochDay();
+    int endDay = (int) LocalDate.parse(end).toEpochDay();
+
+    TreeMap<String, String> expected = statistics.crossoverOverPeriod("AAPL", series, start, end);
+    Crossovers crossovers = statistics.crossoverOverPeriod(series, startDay, endDay);
+    assertTrue(crossovers.size() > 0);
+    assertEquals(expected.size(), crossovers.size());
+    for (int i = 0; i < crossovers.size(); i++) {
+      assertEquals(expected.get(crossovers.dateAt(i).toString()),
+              crossovers.isBuyAt(i) ? "buy" : "sell");
+    }
+
+    expected = statistics.movingCrossoversOverPeriod("AAPL", series, start, end, 5, 20);
+    crossovers = statistics.movingCrossoversOverPeriod(series, startDay, endDay, 5, 20);
+    assertTrue(crossovers.size() > 0);
+    assertEquals(expected.size(), crossovers.size());
+    int[] days = crossovers.epochDays();
+    for (int i = 0; i < days.length; i++) {
+      assertEquals(expected.get(LocalDate.ofEpochDay(days[i]).toString()),
+              crossovers.isBuyAt(i) ? "buy" : "sell");
+    }
+
+    Performance performance = new Performance();
+    int[] sampleDays = new int[40];
+    for (int i = 0; i < sampleDays.length; i++) {
+      sampleDays[i] = startDay + random.nextInt(endDay - startDay);
+      assertEquals(statistics.xDayMovingAvg("AAPL",
+              LocalDate.ofEpochDay(sampleDays[i]).toString(), 30, series),
+              statistics.xDayMovingAvg(sampleDays[i], 30, series), 0.0);
+    }
+    double[] closes = performance.closingPrices(series, sampleDays);
+    for (int i = 0; i < sampleDays.length; i++) {
+      assertEquals(series.closeAt(series.floorIndex(sampleDays[i])), closes[i], 0.0);
+    }
+  }
 
+  /**
+   * this test checks that the asynchronous facade returns the same values as the model when
+   * many portfolios are valued at the same time, and that an error of the model completes the
+   * future exceptionally.
+   */
+  @Test
+  public void testAsyncInvestmentManagerMatchesModel() throws Exception {
+    Random random = new Random(16);
+    Map<String, PriceSeries> series = new HashMap<>();
+    String[] tickers = {"AAPL", "GOOG", "MSFT"};
+    for (String ticker : tickers) {
+      PriceSeries.Builder builder = new PriceSeries.Builder();
+      for (LocalDate day = LocalDate.of(2015, 1, 5); day.isBefore(LocalDate.of(2017, 1, 1));
+           day = day.plusDays(1)) {
+        if (day.getDayOfWeek().getValue() < 6) {
+          double close = 10 + random.nextInt(1000) / 10.0;
+          builder.add(day, close, close, close, close);
+        }
+      }
+      series.put(ticker, builder.build());
+    }
+    IStockData api = fixedStockData(series);
+    InvestmentManager manager = new InvestmentManagerImpl();
+    for (int p = 0; p < 8; p++) {
+      manager.createFlexiblePortfolio("async" + p);
+      for (int i = 0; i < 20; i++) {
+        String ticker = tickers[random.nextInt(tickers.length)];
+        PriceSeries prices = series.get(ticker);
+        manager.buyStock(p, ticker, 1 + random.nextInt(5),
+                prices.dateAt(random.nextInt(prices.size())), api);
+      }
+    }
+    LocalDate date = LocalDate.of(2016, 12, 30);
+
+    ExecutorService executor = Executors.newFixedThreadPool(4);
+    try {
+      AsyncInvestmentManager async = new AsyncInvestmentManager(manager, executor);
+      List<CompletableFuture<Double>> values = new ArrayList<>();
+      List<CompletableFuture<Double>> costs = new ArrayList<>();
+      List<CompletableFuture<TreeMap<String, String>>> crossovers = new ArrayList<>();
+      for (int p = 0; p < 8; p++) {
+        values.add(async.portfolioValue(p, date, api));
+        costs.add(async.costBasis(p, date, api));
+        crossovers.add(async.crossoverOverPeriod(tickers[p % tickers.length], api,
+                LocalDate.of(2016, 1, 4), date));
+      }
+      for (int p = 0; p < 8; p++) {
+        assertEquals(manager.portfolioValue(p, 30, 12, 2016, api), values.get(p).get(), 0.0);
+        assertEquals(manager.costBasis(p, date, api), costs.get(p).get(), 0.0);
+        assertEquals(manager.crossoverOverPeriod(tickers[p % tickers.length], api,
+                LocalDate.of(2016, 1, 4), date), crossovers.get(p).get());
+      }
+
+      AtomicInteger prefetches = new AtomicInteger();
+      IStockData counting = new IStockData() {
+        @Override
+        public TreeMap<String, ArrayList<Double>> fetchHistoricalData(String tickerSymbol) {
+          return api.fetchHistoricalData(tickerSymbol);
+        }
+
+        @Override
+        public PriceSeries fetchPriceSeries(String tickerSymbol) {
+          return api.fetchPriceSeries(tickerSymbol);
+        }
+
+        @Override
+        public Map<String, Boolean> prefetch(java.util.Collection<String> tickerSymbols) {
+          prefetches.incrementAndGet();
+          return api.prefetch(tickerSymbols);
+        }
+      };
+      assertEquals(manager.costBasis(0, date, api), async.costBasis(0, date, counting).get(),
+              0.0);
+      assertEquals(0, prefetches.get());
+      async.portfolioValue(0, date, counting).get();
+      assertEquals(1, prefetches.get());
+
+      try {
+        async.portfolioValue(8, date, api).get();
+        fail("a missing portfolio should complete the future exceptionally");
+      } catch (ExecutionException e) {
+        assertTrue(e.getCause() instanceof IllegalArgumentException);
+      }
+    } finally {
+      executor.shutdown();
+    }
+  }
+
+  /**
+   * this test checks that trades and valuations made from many threads at the same time leave
+   * every portfolio as if the trades were made one at a time, and that a name can only be
+   * taken once.
+   */
+  @Test
+  public void testPortfolioDirectoryIsSafeAcrossThreads() throws Exception {
+    Map<String, PriceSeries> series = new HashMap<>();
+    PriceSeries.Builder builder = new PriceSeries.Builder();
+    for (LocalDate day = LocalDate.of(2016, 1, 4); day.isBefore(LocalDate.of(2017, 1, 1));
+         day = day.plusDays(1)) {
+      if (day.getDayOfWeek().getValue() < 6) {
+        builder.add(day, 10, 10, 10, 10);
+      }
+    }
+    series.put("AAPL", builder.build());
+    PriceSeries prices = series.get("AAPL");
+    IStockData api = fixedStockData(series);
+    InvestmentManager manager = new InvestmentManagerImpl();
+    int portfolios = 4;
+    int trades = 200;
+    for (int p = 0; p < portfolios; p++) {
+      manager.createFlexiblePortfolio("Shared" + p);
+    }
+    assertTrue(manager.portfolioNameExists("shared0"));
+    assertFalse(manager.portfolioNameExists("shared" + portfolios));
+
+    ExecutorService executor = Executors.newFixedThreadPool(8);
+    try {
+      CountDownLatch start = new CountDownLatch(1);
+      AtomicInteger created = new AtomicInteger();
+      List<CompletableFuture<Void>> tasks = new ArrayList<>();
+      for (int t = 0; t < 8; t++) {
+        int thread = t;
+        tasks.add(CompletableFuture.runAsync(() -> {
+          try {
+            start.await();
+          } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return;
+          }
+          try {
+            manager.createFlexiblePortfolio("Duplicate");
+            created.incrementAndGet();
+          } catch (IllegalArgumentException e) {
+            // only one thread may take the name.
+          }
+          Random random = new Random(thread);
+          for (int i = 0; i < trades; i++) {
+            int p = thread % portfolios;
+            if (thread < portfolios) {
+              manager.buyStock(p, "AAPL", 1, prices.dateAt(random.nextInt(prices.size())), api);
+            } else {
+              manager.portfolioValue(p, 30, 12, 2016, api);
+              manager.costBasis(p, LocalDate.of(2016, 12, 30), api);
+            }
+          }
+        }, executor));
+      }
+      start.countDown();
+      for (CompletableFuture<Void> task : tasks) {
+        task.get();
+      }
+      assertEquals(1, created.get());
+    } finally {
+      executor.shutdown();
+    }
+    assertEquals(portfolios + 1, manager.getSize());
+    for (int p = 0; p < portfolios; p++) {
+      assertEquals(trades * 10.0, manager.portfolioValue(p, 30, 12, 2016, api), 0.0);
+      assertEquals(trades, manager.portfolioComposition(p, LocalDate.of(2016, 12, 30))
+              .get("AAPL"), 0.0);
+    }
+  }
+
+  /**
+   * this test checks the cost basis kept by the book against adding up the buys one at a time
+   * at their closing prices, and the cost of the shares held under each way of matching lots.
+   */
+  @Test
+  public void testCostBasisBookMatchesBuysAndLots() {
+    Random random = new Random(21);
+    Map<String, PriceSeries> series = new HashMap<>();
+    String[] tickers = {"AAPL", "GOOG"};
+    for (String ticker : tickers) {
+      PriceSeries.Builder builder = new PriceSeries.Builder();
+      for (LocalDate day = LocalDate.of(2018, 1, 1); day.isBefore(LocalDate.of(2019, 1, 1));
+           day = day.plusDays(1)) {
+        if (day.getDayOfWeek().getValue() < 6) {
+          double close = 10 + random.nextInt(1000) / 10.0;
+          builder.add(day, close, close, close, close);
+        }
+      }
+      series.put(ticker, builder.build());
+    }
+    IStockData api = fixedStockData(series);
+    FlexiblePortfolioImpl portfolio = new FlexiblePortfolioImpl("book");
+    List<Transaction> buys = new ArrayList<>();
+    for (int i = 0; i < 300; i++) {
+      String ticker = tickers[random.nextInt(tickers.length)];
+      PriceSeries prices = series.get(ticker);
+      int index = random.nextInt(prices.size());
+      int quantity = 1 + random.nextInt(5);
+      try {
+        if (random.nextInt(3) == 0) {
+          portfolio.sellStock(ticker, quantity, prices.dateAt(index), api);
+        } else {
+          portfolio.buyStock(ticker, quantity, prices.dateAt(index), api);
+          buys.add(new Transaction("buy", ticker, quantity, prices.dateAt(index),
+                  prices.closeAt(index)));
+        }
+      } catch (IllegalArgumentException e) {
+        // sales the portfolio cannot cover are left out.
+      }
+    }
+    for (LocalDate date = LocalDate.of(2017, 12, 25); date.isBefore(LocalDate.of(2019, 1, 8));
+         date = date.plusDays(3)) {
+      double expected = 0;
+      for (Transaction buy : buys) {
+        if (!buy.getDate().isAfter(date)) {
+          expected += buy.getPrice() * buy.getQuantity();
+        }
+      }
+      assertEquals(expected, portfolio.costBasis(date, api), 1e-6);
+    }
+
+    Map<String, PriceSeries> steps = new HashMap<>();
+    PriceSeries.Builder builder = new PriceSeries.Builder();
+    builder.add(LocalDate.of(2018, 1, 2), 10, 10, 10, 10);
+    builder.add(LocalDate.of(2018, 1, 3), 20, 20, 20, 20);
+    builder.add(LocalDate.of(2018, 1, 4), 30, 30, 30, 30);
+    steps.put("AAPL", builder.build());
+    IStockData stepApi = fixedStockData(steps);
+    FlexiblePortfolioImpl lots = new FlexiblePortfolioImpl("lots");
+    lots.buyStock("AAPL", 10, LocalDate.of(2018, 1, 3), stepApi);
+    lots.buyStock("AAPL", 10, LocalDate.of(2018, 1, 2), stepApi);
+    lots.sellStock("AAPL", 5, LocalDate.of(2018, 1, 4), stepApi);
+    assertEquals(300, lots.costBasis(LocalDate.of(2018, 1, 4), stepApi), 0.0);
+    assertEquals(100, lots.costBasis(LocalDate.of(2018, 1, 2), stepApi), 0.0);
+    assertEquals(300, lots.costOfHoldings(LocalDate.of(2018, 1, 3), LotMethod.FIFO), 0.0);
+    assertEquals(250, lots.costOfHoldings(LocalDate.of(2018, 1, 4), LotMethod.FIFO), 0.0);
+    assertEquals(200, lots.costOfHoldings(LocalDate.of(2018, 1, 4), LotMethod.LIFO), 0.0);
+    assertEquals(225, lots.costOfHoldings(LocalDate.of(2018, 1, 4), LotMethod.AVERAGE), 0.0);
+
+    lots.sellStock("AAPL", 5, LocalDate.of(2018, 1, 4), 2, stepApi);
+    assertEquals(302, lots.costBasis(LocalDate.of(2018, 1, 4), stepApi), 0.0);
+    assertEquals(200, lots.costOfHoldings(LocalDate.of(2018, 1, 4), LotMethod.FIFO), 0.0);
+    assertEquals(100, lots.costOfHoldings(LocalDate.of(2018, 1, 4), LotMethod.LIFO), 0.0);
+    assertEquals(150, lots.costOfHoldings(LocalDate.of(2018, 1, 4), LotMethod.AVERAGE), 0.0);
+    lots.buyStock("AAPL", 10, LocalDate.of(2018, 1, 2), stepApi);
+    assertEquals(402, lots.costBasis(LocalDate.of(2018, 1, 4), stepApi), 0.0);
+    assertEquals(200, lots.costBasis(LocalDate.of(2018, 1, 2), stepApi), 0.0);
+    assertEquals(300, lots.costOfHoldings(LocalDate.of(2018, 1, 4), LotMethod.FIFO), 0.0);
+    assertEquals(200, lots.costOfHoldings(LocalDate.of(2018, 1, 2), LotMethod.LIFO), 0.0);
+  }
+
+  /**
+   * this test checks that a saved flexible portfolio loads back from its prices and commissions
+   * without fetching any price, and that files in the old layout without them still load.
+   */
+  @Test
+  public void testSavedPricesLoadWithoutFetching() {
+    Map<String, PriceSeries> series = new HashMap<>();
+    PriceSeries.Builder builder = new PriceSeries.Builder();
+    builder.add(LocalDate.of(2018, 1, 2), 10, 10, 10, 10);
+    builder.add(LocalDate.of(2018, 1, 3), 20, 20, 20, 20);
+    builder.add(LocalDate.of(2018, 1, 4), 30, 30, 30, 30);
+    series.put("AAPL", builder.build());
+    IStockData api = fixedStockData(series);
+    FlexiblePortfolioImpl saved = new FlexiblePortfolioImpl("saved");
+    saved.buyStock("AAPL", 10, LocalDate.of(2018, 1, 2), 1.5, api);
+    saved.buyStock("AAPL", 10, LocalDate.of(2018, 1, 3), api);
+    saved.sellStock("AAPL", 5, LocalDate.of(2018, 1, 4), 2, api);
+    String text = saved.save().toString();
+    assertTrue(text.startsWith("Transaction Type,Symbol,Quantity,Date,Price,Commission"));
+    assertTrue(text.contains("buy,AAPL,10.0,2018-01-02,10.0,1.5"));
+
+    List<String[]> lines = new ArrayList<>();
+    String[] rows = text.split(System.lineSeparator());
+    for (int i = 1; i < rows.length; i++) {
+      lines.add(rows[i].split(","));
+    }
+    IStockData noPrices = fixedStockData(new HashMap<>());
+    FlexiblePortfolioImpl loaded = new FlexiblePortfolioImpl("loaded");
+    loaded.load(lines, noPrices);
+    assertEquals(303.5, loaded.costBasis(LocalDate.of(2018, 1, 4), noPrices), 0.0);
+    assertEquals(15.0, loaded.portfolioComposition(LocalDate.of(2018, 1, 4)).get("AAPL"), 0.0);
+    assertEquals(250.75, loaded.costOfHoldings(LocalDate.of(2018, 1, 4), LotMethod.FIFO), 1e-9);
+    assertEquals(text, loaded.save().toString());
+
+    List<String[]> oldLines = new ArrayList<>();
+    oldLines.add(new String[]{"buy", "AAPL", "10.0", "2018-01-03"});
+    FlexiblePortfolioImpl old = new FlexiblePortfolioImpl("old");
+    old.load(oldLines, api);
+    assertEquals(200, old.costBasis(LocalDate.of(2018, 1, 4), api), 0.0);
+  }
+
+  @Test
+  public void testLoadChecksTradesInOrderOfDate() {
+    Map<String, PriceSeries> series = new HashMap<>();
+    PriceSeries.Builder builder = new PriceSeries.Builder();
+    builder.add(LocalDate.of(2018, 1, 2), 10, 10, 10, 10);
+    builder.add(LocalDate.of(2018, 1, 3), 20, 20, 20, 20);
+    builder.add(LocalDate.of(2018, 1, 4), 30, 30, 30, 30);
+    series.put("AAPL", builder.build());
+    IStockData api = fixedStockData(series);
+
+    List<String[]> unsorted = new ArrayList<>();
+    unsorted.add(new String[]{"sell", "AAPL", "5", "2018-01-04"});
+    unsorted.add(new String[]{"buy", "AAPL", "10", "2018-01-02", "10.0", "1.0"});
+    unsorted.add(new String[]{"buy", "AAPL", "10", "2018-01-03"});
+    FlexiblePortfolioImpl loaded = new FlexiblePortfolioImpl("unsorted");
+    loaded.load(unsorted, api);
+    assertEquals(15.0, loaded.portfolioComposition(LocalDate.of(2018, 1, 4)).get("AAPL"), 0.0);
+    assertEquals(301, loaded.costBasis(LocalDate.of(2018, 1, 4), api), 0.0);
+    assertTrue(loaded.save().toString().contains("sell,AAPL,5.0,2018-01-04,30.0,0.0"));
+
+    List<String[]> oversold = new ArrayList<>();
+    oversold.add(new String[]{"buy", "AAPL", "10", "2018-01-02"});
+    oversold.add(new String[]{"sell", "AAPL", "15", "2018-01-04"});
+    oversold.add(new String[]{"buy", "AAPL", "10", "2018-01-04"});
+    FlexiblePortfolioImpl failed = new FlexiblePortfolioImpl("oversold");
+    try {
+      failed.load(oversold, api);
+      fail("The sale on line 3 is not covered when it is made");
+    } catch (IllegalArgumentException e) {
+      assertEquals("Line 3: You don't have enough quantity to sell", e.getMessage());
+    }
+    assertEquals("Transaction Type,Symbol,Quantity,Date,Price,Commission"
+            + System.lineSeparator(), failed.save().toString());
+
+    List<String[]> soldOut = new ArrayList<>();
+    soldOut.add(new String[]{"buy", "AAPL", "10", "2018-01-02"});
+    soldOut.add(new String[]{"sell", "AAPL", "10", "2018-01-03"});
+    soldOut.add(new String[]{"sell", "AAPL", "5", "2018-01-04"});
+    try {
+      new FlexiblePortfolioImpl("sold out").load(soldOut, api);
+      fail("AAPL was sold out before line 4");
+    } catch (IllegalArgumentException e) {
+      assertEquals("Line 4: You don't have the stock you want to sell", e.getMessage());
+    }
+
+    List<String[]> noPrice = new ArrayList<>();
+    noPrice.add(new String[]{"buy", "AAPL", "10", "2018-01-02"});
+    noPrice.add(new String[]{"buy", "AAPL", "10", "2018-01-06"});
+    try {
+      new FlexiblePortfolioImpl("closed").load(noPrice, api);
+      fail("AAPL has no price on line 3");
+    } catch (IllegalArgumentException e) {
+      assertEquals("Line 3: Cannot buy on this date.", e.getMessage());
+    }
+  }
+
+  @Test
+  public void testSnapshotRestoresPortfoliosWithoutPrices() throws IOException {
+    Map<String, PriceSeries> series = new HashMap<>();
+    PriceSeries.Builder builder = new PriceSeries.Builder();
+    builder.add(LocalDate.of(2018, 1, 2), 10, 10, 10, 10);
+    builder.add(LocalDate.of(2018, 1, 3), 20, 20, 20, 20);
+    series.put("AAPL", builder.build());
+    IStockData api = fixedStockData(series);
+    FlexiblePortfolioImpl flexible = new FlexiblePortfolioImpl("flexible");
+    flexible.buyStock("AAPL", 10, LocalDate.of(2018, 1, 3), 1.5, api);
+    flexible.buyStock("AAPL", 10, LocalDate.of(2018, 1, 2), api);
+    flexible.sellStock("AAPL", 5, LocalDate.of(2018, 1, 3), api);
+    try {
+      flexible.sellStock("AAPL", 100, LocalDate.of(2018, 1, 3), api);
+      fail("Only 15 shares are held");
+    } catch (IllegalArgumentException e) {
+      assertEquals("You don't have enough quantity to sell", e.getMessage());
+    }
+    assertEquals(3, flexible.trades().size());
+    Map<String, Double> buyingList = new HashMap<>();
+    buyingList.put("AAPL", 100.0);
+    flexible.setBuySchedule(new BuySchedule("DCA", 500, 30, LocalDate.of(2018, 1, 2), null,
+            LocalDate.of(2018, 1, 2), buyingList));
+    InflexiblePortfolioImpl.PortfolioBuilder inflexible
+            = new InflexiblePortfolioImpl.PortfolioBuilder("inflexible");
+    inflexible.addShare("AAPL", 20);
+
+    PortfolioRegistry registry = new PortfolioRegistry();
+    registry.add(flexible);
+    registry.add(inflexible.build());
+    ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+    PortfolioSnapshot.write(registry, new DataOutputStream(bytes));
+
+    PortfolioRegistry restored = new PortfolioRegistry();
+    PortfolioSnapshot.read(bytes.toByteArray(), restored);
+    assertEquals(2, restored.size());
+    assertEquals(flexible.save().toString(), restored.read(0, Portfolio::save).toString());
+    assertEquals(registry.read(1, Portfolio::save).toString(),
+            restored.read(1, Portfolio::save).toString());
+    IStockData noPrices = fixedStockData(new HashMap<>());
+    assertEquals(301.5, restored.read(0, p -> p.costBasis(LocalDate.of(2018, 1, 3),
+            noPrices)), 0.0);
+    assertEquals(15.0, restored.read(0, p -> p.portfolioComposition(LocalDate.of(2018, 1, 3)))
+            .get("AAPL"), 0.0);
+    assertEquals(15.0, restored.read(0, p -> p.portfolioComposition(LocalDate.of(2019, 1, 3)))
+            .get("AAPL"), 0.0);
+
+    FlexiblePortfolioImpl uncovered = new FlexiblePortfolioImpl("uncovered");
+    List<Transaction> trades = new ArrayList<>();
+    trades.add(new Transaction("buy", "AAPL", 10, LocalDate.of(2018, 1, 2), 10));
+    trades.add(new Transaction("sell", "AAPL", 15, LocalDate.of(2018, 1, 3), 20));
+    try {
+      uncovered.addTrades(trades);
+      fail("The sale is not covered");
+    } catch (IllegalArgumentException e) {
+      assertEquals("You don't have enough quantity to sell on 2018-01-03", e.getMessage());
+    }
+    assertTrue(uncovered.trades().isEmpty());
+
+    PortfolioRegistry partly = new PortfolioRegistry();
+    partly.add(new FlexiblePortfolioImpl("INFLEXIBLE"));
+    try {
+      PortfolioSnapshot.read(bytes.toByteArray(), partly);
+      fail("The second portfolio in the snapshot is already there");
+    } catch (IllegalArgumentException e) {
+      assertEquals("Portfolio name already exists: inflexible", e.getMessage());
+    }
+    assertEquals(1, partly.size());
+    assertFalse(partly.contains("flexible"));
+
+    Path file = Files.createTempFile("portfolios", ".snapshot");
+    try {
+      InvestmentManagerImpl model = new InvestmentManagerImpl();
+      model.addPortfolio(inflexible);
+      model.saveSnapshot(file);
+      InvestmentManagerImpl next = new InvestmentManagerImpl();
+      next.loadSnapshot(file);
+      assertEquals(model.save(0).toString(), next.save(0).toString());
+      try {
+        next.loadSnapshot(file);
+        fail("The portfolio in the snapshot is already there");
+      } catch (IllegalArgumentException e) {
+        assertEquals("Portfolio name already exists: inflexible", e.getMessage());
+      }
+      Files.write(file, new byte[]{1, 2, 3, 4, 5, 6, 7, 8, 9, 10, 11, 12});
+      try {
+        new InvestmentManagerImpl().loadSnapshot(file);
+        fail("The file is not a snapshot");
+      } catch (IllegalArgumentException e) {
+        assertEquals("Not a portfolio snapshot", e.getMessage());
+      }
+    } finally {
+      Files.deleteIfExists(file);
+    }
+  }
 }